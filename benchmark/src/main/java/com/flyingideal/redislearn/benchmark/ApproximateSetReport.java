@@ -0,0 +1,152 @@
+package com.flyingideal.redislearn.benchmark;
+
+import com.flyingideal.redislearn.approx.ApproximateSet;
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import com.flyingideal.redislearn.pool.RedisConnectionProperties;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SetTest 的精确命令（SADD / SCARD / SISMEMBER）与 {@link ApproximateSet} 的内存和延迟对比报告。
+ *
+ * 对每个规模分别写入 N 个不同的元素，内存取写入前后 INFO memory 中 used_memory 的差值，
+ * 延迟为单连接顺序执行 1 万次查询的平均值；查询的元素一半存在、一半不存在。
+ * 1 亿个元素的精确 set 需要约 8GB 内存，redis 的 maxmemory 不够时去掉这一档。
+ *
+ * 运行： java -cp target/benchmarks.jar com.flyingideal.redislearn.benchmark.ApproximateSetReport [1000000,10000000,100000000]
+ *
+ * @author yanchao
+ * @date 2026/10/18 14:50
+ */
+public class ApproximateSetReport {
+
+    private static final int LOAD_BATCH = 1000;
+
+    private static final int QUERIES = 10_000;
+
+    public static void main(String[] args) {
+        String sizes = args.length > 0 ? args[0] : "1000000,10000000,100000000";
+        RedisConnectionProperties properties = new RedisConnectionProperties();
+        properties.setHost(System.getProperty("redis.host", Protocol.DEFAULT_HOST));
+        properties.setPort(Integer.getInteger("redis.port", Protocol.DEFAULT_PORT));
+        properties.setSoTimeout(60_000);
+        properties.getMetrics().setEnabled(false);
+        try (JedisConnectionProvider provider = new JedisConnectionProvider(properties)) {
+            System.out.printf("%-12s %-8s %14s %14s %14s %10s%n",
+                    "members", "mode", "memory(bytes)", "count(us)", "contains(us)", "count");
+            for (String size : sizes.split(",")) {
+                int members = Integer.parseInt(size.trim());
+                exact(provider, members);
+                approximate(provider, members);
+            }
+        }
+    }
+
+    private static void exact(JedisConnectionProvider provider, int members) {
+        String key = "report:exact:" + members;
+        try (Jedis jedis = provider.getResource()) {
+            jedis.del(key);
+            long before = usedMemory(jedis);
+            Pipeline pipeline = jedis.pipelined();
+            List<String> batch = new ArrayList<>(LOAD_BATCH);
+            for (int i = 0; i < members; i++) {
+                batch.add(member(i));
+                if (batch.size() == LOAD_BATCH) {
+                    pipeline.sadd(key, batch.toArray(new String[0]));
+                    batch.clear();
+                }
+                if (i % 100_000 == 99_999) {
+                    pipeline.sync();
+                }
+            }
+            if (!batch.isEmpty()) {
+                pipeline.sadd(key, batch.toArray(new String[0]));
+            }
+            pipeline.sync();
+            long memory = usedMemory(jedis) - before;
+
+            long start = System.nanoTime();
+            long count = 0;
+            for (int i = 0; i < QUERIES; i++) {
+                count = jedis.scard(key);
+            }
+            long countNanos = (System.nanoTime() - start) / QUERIES;
+            start = System.nanoTime();
+            for (int i = 0; i < QUERIES; i++) {
+                jedis.sismember(key, query(members, i));
+            }
+            long containsNanos = (System.nanoTime() - start) / QUERIES;
+            print(members, "exact", memory, countNanos, containsNanos, count);
+            jedis.del(key);
+        }
+    }
+
+    private static void approximate(JedisConnectionProvider provider, int members) {
+        ApproximateSet set = new ApproximateSet(provider, "report:" + members, members, 0.01);
+        set.delete();
+        long before;
+        try (Jedis jedis = provider.getResource()) {
+            before = usedMemory(jedis);
+        }
+        List<String> batch = new ArrayList<>(LOAD_BATCH);
+        for (int i = 0; i < members; i++) {
+            batch.add(member(i));
+            if (batch.size() == LOAD_BATCH * 100) {
+                set.addAll(batch);
+                batch.clear();
+            }
+        }
+        set.addAll(batch);
+        long memory;
+        try (Jedis jedis = provider.getResource()) {
+            memory = usedMemory(jedis) - before;
+        }
+
+        long start = System.nanoTime();
+        long count = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            count = set.cardinality();
+        }
+        long countNanos = (System.nanoTime() - start) / QUERIES;
+        start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            set.mightContain(query(members, i));
+        }
+        long containsNanos = (System.nanoTime() - start) / QUERIES;
+        print(members, "approx", memory, countNanos, containsNanos, count);
+        set.delete();
+    }
+
+    private static String member(int i) {
+        return "visitor:" + i;
+    }
+
+    /**
+     * 偶数次查询存在的元素，奇数次查询不存在的元素
+     */
+    private static String query(int members, int i) {
+        int n = ThreadLocalRandom.current().nextInt(members);
+        return i % 2 == 0 ? member(n) : "absent:" + n;
+    }
+
+    private static long usedMemory(Jedis jedis) {
+        for (String line : jedis.info("memory").split("\r\n")) {
+            if (line.startsWith("used_memory:")) {
+                return Long.parseLong(line.substring("used_memory:".length()));
+            }
+        }
+        return 0;
+    }
+
+    private static void print(int members, String mode, long memory, long countNanos, long containsNanos, long count) {
+        System.out.printf("%-12d %-8s %14d %14.1f %14.1f %10d%n", members, mode, memory,
+                countNanos / (double) TimeUnit.MICROSECONDS.toNanos(1),
+                containsNanos / (double) TimeUnit.MICROSECONDS.toNanos(1), count);
+    }
+}
@@ -0,0 +1,54 @@
+package com.flyingideal.redislearn.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按线程数依次运行 benchmark，每个线程数的结果输出为一个 JSON 文件。
+ *
+ * SampleTime 模式的结果中包含 p0.50 / p0.99 / p0.999 分位数，Throughput 模式给出 ops/us。
+ *
+ * 用法： java -jar benchmarks.jar [include-regex ...] [-t 1,8,32] [-o output-dir]
+ *
+ * @author yanchao
+ * @date 2026/10/17 11:45
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        List<String> includes = new ArrayList<>();
+        String threads = "1,8,32";
+        String outputDir = "target/jmh";
+        for (int i = 0; i < args.length; i++) {
+            if ("-t".equals(args[i]) && i + 1 < args.length) {
+                threads = args[++i];
+            } else if ("-o".equals(args[i]) && i + 1 < args.length) {
+                outputDir = args[++i];
+            } else {
+                includes.add(args[i]);
+            }
+        }
+        if (includes.isEmpty()) {
+            includes.add(BenchmarkRunner.class.getPackage().getName() + ".*Benchmark");
+        }
+        new File(outputDir).mkdirs();
+
+        for (String t : threads.split(",")) {
+            int threadCount = Integer.parseInt(t.trim());
+            ChainedOptionsBuilder builder = new OptionsBuilder()
+                    .threads(threadCount)
+                    .shouldFailOnError(true)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(outputDir, "result-threads-" + threadCount + ".json").getPath());
+            includes.forEach(builder::include);
+            new Runner(builder.build()).run();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.flyingideal.redislearn.benchmark;
+
+import com.flyingideal.redislearn.bucket.BucketedHashStore;
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import com.flyingideal.redislearn.pool.RedisConnectionProperties;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * HashTest 中 person 的三种存储方式的内存对比报告：
+ *
+ * <ul>
+ *     <li>keys：每个 person 一个 hash（person:id），与 HashTest 相同</li>
+ *     <li>big-hash：所有 person 放在一个 hash 中，field 为 id:field</li>
+ *     <li>bucketed：{@link BucketedHashStore}，桶数由 {@link BucketedHashStore#bucketsFor} 按 hash-max-ziplist-entries 计算</li>
+ * </ul>
+ * 内存取写入前后 INFO memory 中 used_memory 的差值，同时打印一个样本 key 的编码。
+ * 桶数按服务端 hash-max-ziplist-entries 的默认值 512 计算，修改过该配置时通过第二个参数传入。
+ *
+ * 运行： java -cp target/benchmarks.jar com.flyingideal.redislearn.benchmark.BucketedHashReport [10000000] [512]
+ *
+ * @author yanchao
+ * @date 2026/10/18 15:40
+ */
+public class BucketedHashReport {
+
+    private static final int LOAD_BATCH = 1000;
+
+    private static final int FIELDS = 3;
+
+    public static void main(String[] args) {
+        int entities = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int maxZiplistEntries = args.length > 1 ? Integer.parseInt(args[1]) : BucketedHashStore.DEFAULT_MAX_ZIPLIST_ENTRIES;
+        RedisConnectionProperties properties = new RedisConnectionProperties();
+        properties.setHost(System.getProperty("redis.host", Protocol.DEFAULT_HOST));
+        properties.setPort(Integer.getInteger("redis.port", Protocol.DEFAULT_PORT));
+        properties.setSoTimeout(60_000);
+        properties.getMetrics().setEnabled(false);
+        try (JedisConnectionProvider provider = new JedisConnectionProvider(properties)) {
+            System.out.printf("%-12s %-10s %16s %14s %12s%n",
+                    "entities", "mode", "memory(bytes)", "bytes/entity", "encoding");
+            keys(provider, entities);
+            bigHash(provider, entities);
+            bucketed(provider, entities, maxZiplistEntries);
+        }
+    }
+
+    private static void keys(JedisConnectionProvider provider, int entities) {
+        try (Jedis jedis = provider.getResource()) {
+            long before = usedMemory(jedis);
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < entities; i++) {
+                pipeline.hmset("report:person:" + i, person(i));
+                if (i % 100_000 == 99_999) {
+                    pipeline.sync();
+                }
+            }
+            pipeline.sync();
+            long memory = usedMemory(jedis) - before;
+            print(entities, "keys", memory, jedis.objectEncoding("report:person:0"));
+
+            pipeline = jedis.pipelined();
+            for (int i = 0; i < entities; i++) {
+                pipeline.del("report:person:" + i);
+                if (i % 100_000 == 99_999) {
+                    pipeline.sync();
+                }
+            }
+            pipeline.sync();
+        }
+    }
+
+    private static void bigHash(JedisConnectionProvider provider, int entities) {
+        String key = "report:person";
+        try (Jedis jedis = provider.getResource()) {
+            jedis.del(key);
+            long before = usedMemory(jedis);
+            Pipeline pipeline = jedis.pipelined();
+            Map<String, String> batch = new HashMap<>();
+            for (int i = 0; i < entities; i++) {
+                for (Map.Entry<String, String> field : person(i).entrySet()) {
+                    batch.put(i + ":" + field.getKey(), field.getValue());
+                }
+                if (i % LOAD_BATCH == LOAD_BATCH - 1) {
+                    pipeline.hmset(key, batch);
+                    batch = new HashMap<>();
+                }
+                if (i % 100_000 == 99_999) {
+                    pipeline.sync();
+                }
+            }
+            if (!batch.isEmpty()) {
+                pipeline.hmset(key, batch);
+            }
+            pipeline.sync();
+            long memory = usedMemory(jedis) - before;
+            print(entities, "big-hash", memory, jedis.objectEncoding(key));
+            jedis.del(key);
+        }
+    }
+
+    private static void bucketed(JedisConnectionProvider provider, int entities, int maxZiplistEntries) {
+        BucketedHashStore store = new BucketedHashStore(provider, "report:bucket",
+                BucketedHashStore.bucketsFor(entities, FIELDS, maxZiplistEntries));
+        long before;
+        try (Jedis jedis = provider.getResource()) {
+            jedis.del(store.bucketKeys().toArray(new String[0]));
+            before = usedMemory(jedis);
+        }
+        Map<String, Map<String, String>> batch = new LinkedHashMap<>();
+        for (int i = 0; i < entities; i++) {
+            batch.put(Integer.toString(i), person(i));
+            if (batch.size() == LOAD_BATCH * 100) {
+                store.hmsetBatch(batch);
+                batch.clear();
+            }
+        }
+        store.hmsetBatch(batch);
+        try (Jedis jedis = provider.getResource()) {
+            long memory = usedMemory(jedis) - before;
+            print(entities, "bucketed", memory, jedis.objectEncoding(store.bucketKey("0")));
+            jedis.del(store.bucketKeys().toArray(new String[0]));
+        }
+    }
+
+    private static Map<String, String> person(int i) {
+        Map<String, String> person = new HashMap<>();
+        person.put("name", "name" + i);
+        person.put("age", Integer.toString(i % 100));
+        person.put("sex", i % 2 == 0 ? "male" : "female");
+        return person;
+    }
+
+    private static long usedMemory(Jedis jedis) {
+        for (String line : jedis.info("memory").split("\r\n")) {
+            if (line.startsWith("used_memory:")) {
+                return Long.parseLong(line.substring("used_memory:".length()));
+            }
+        }
+        return 0;
+    }
+
+    private static void print(int entities, String mode, long memory, String encoding) {
+        System.out.printf("%-12d %-10s %16d %14.1f %12s%n", entities, mode, memory,
+                memory / (double) entities, encoding);
+    }
+}
@@ -0,0 +1,139 @@
+package com.flyingideal.redislearn.benchmark;
+
+import com.flyingideal.redislearn.codec.Codecs;
+import com.flyingideal.redislearn.codec.RecordCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.clients.jedis.Protocol;
+import redis.clients.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HashTest 中 person 记录（name / age / sex）通过 String 重载和通过 {@link RecordCodec} 读写的对比，
+ * 两种方式都包含对象与 redis 数据之间的转换。
+ *
+ * 每条命令在网络上的字节数在 setUp 时打印，延迟见 SampleTime 的分位数。
+ *
+ * @author yanchao
+ * @date 2026/10/17 22:55
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecBenchmark {
+
+    private static final String STRING_KEY = "bench:codec:person:string";
+
+    private static final String CODEC_KEY = "bench:codec:person:codec";
+
+    private static final byte[] CODEC_KEY_BYTES = SafeEncoder.encode(CODEC_KEY);
+
+    private static final String[] FIELDS = {"name", "age", "sex"};
+
+    private static final RecordCodec<Person> CODEC = RecordCodec.builder(Person::new)
+            .field("name", Codecs.UTF8, p -> p.name, (p, v) -> p.name = v)
+            .field("age", Codecs.VAR_INT, p -> p.age, (p, v) -> p.age = v)
+            .field("sex", Codecs.BOOLEAN, p -> p.male, (p, v) -> p.male = v)
+            .build();
+
+    private Person person;
+
+    @Setup(Level.Trial)
+    public void setUp(RedisState state) {
+        person = new Person();
+        person.name = "zhangsan";
+        person.age = 18;
+        person.male = true;
+        state.del(STRING_KEY, CODEC_KEY);
+        state.load(1, (pipeline, i) -> {
+            pipeline.hmset(STRING_KEY, toStrings(person));
+            pipeline.hmset(CODEC_KEY_BYTES, CODEC.encode(person));
+        });
+
+        List<byte[]> stringArgs = new ArrayList<>();
+        stringArgs.add(Protocol.Command.HMSET.raw);
+        stringArgs.add(SafeEncoder.encode(STRING_KEY));
+        toStrings(person).forEach((k, v) -> {
+            stringArgs.add(SafeEncoder.encode(k));
+            stringArgs.add(SafeEncoder.encode(v));
+        });
+        List<byte[]> codecArgs = new ArrayList<>();
+        codecArgs.add(Protocol.Command.HMSET.raw);
+        codecArgs.add(CODEC_KEY_BYTES);
+        CODEC.encode(person).forEach((k, v) -> {
+            codecArgs.add(k);
+            codecArgs.add(v);
+        });
+        System.out.printf("HMSET request bytes: string=%d codec=%d%n", respSize(stringArgs), respSize(codecArgs));
+    }
+
+    @Benchmark
+    public String hmsetString(RedisState.Connection connection) {
+        return connection.jedis.hmset(STRING_KEY, toStrings(person));
+    }
+
+    @Benchmark
+    public String hmsetCodec(RedisState.Connection connection) {
+        return connection.jedis.hmset(CODEC_KEY_BYTES, CODEC.encode(person));
+    }
+
+    @Benchmark
+    public Person hmgetString(RedisState.Connection connection) {
+        List<String> values = connection.jedis.hmget(STRING_KEY, FIELDS);
+        Person loaded = new Person();
+        loaded.name = values.get(0);
+        loaded.age = Integer.valueOf(values.get(1));
+        loaded.male = "boy".equals(values.get(2));
+        return loaded;
+    }
+
+    @Benchmark
+    public Person hmgetCodec(RedisState.Connection connection) {
+        return CODEC.decode(connection.jedis.hmget(CODEC_KEY_BYTES, CODEC.fieldNames()));
+    }
+
+    private static Map<String, String> toStrings(Person person) {
+        Map<String, String> hash = new HashMap<>(8);
+        hash.put("name", person.name);
+        hash.put("age", String.valueOf(person.age));
+        hash.put("sex", person.male ? "boy" : "girl");
+        return hash;
+    }
+
+    /**
+     * RESP 数组的字节数： *n\r\n 加上每个参数的 $len\r\n...\r\n
+     */
+    private static int respSize(List<byte[]> args) {
+        int size = 3 + String.valueOf(args.size()).length();
+        for (byte[] arg : args) {
+            size += 5 + String.valueOf(arg.length).length() + arg.length;
+        }
+        return size;
+    }
+
+    public static class Person {
+
+        String name;
+
+        Integer age;
+
+        Boolean male;
+    }
+}
@@ -0,0 +1,67 @@
+package com.flyingideal.redislearn.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HashTest 中 hmset / hgetAll 的性能，cardinality 为 hgetAll 读取的 hash 的字段数
+ *
+ * @author yanchao
+ * @date 2026/10/17 11:26
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HashBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int cardinality;
+
+    @Param({"16", "1024"})
+    public int payloadSize;
+
+    private String key;
+
+    private Map<String, String> person;
+
+    @Setup(Level.Trial)
+    public void setUp(RedisState state) {
+        key = "bench:hash:" + cardinality;
+        String value = RedisState.payload(payloadSize);
+        state.del(key);
+        state.load(cardinality, (pipeline, i) -> pipeline.hset(key, "field" + i, value));
+
+        // 与 HashTest.hmset 相同结构的记录
+        person = new HashMap<>();
+        person.put("name", value);
+        person.put("age", "18");
+        person.put("sex", "boy");
+    }
+
+    @Benchmark
+    public String hmset(RedisState.Connection connection) {
+        return connection.jedis.hmset("bench:hash:person", person);
+    }
+
+    @Benchmark
+    public Map<String, String> hgetAll(RedisState.Connection connection) {
+        return connection.jedis.hgetAll(key);
+    }
+}
@@ -0,0 +1,65 @@
+package com.flyingideal.redislearn.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ListTest 中 lpush / rpoplpush 的性能。
+ *
+ * lpushRpop 每次 LPUSH 后紧跟一次 RPOP，按 2 次操作计算，结果是两条 O(1) 命令的平均值；
+ * rpoplpush 的 source 与 destination 为同一个 list（循环列表）。两者都保证测试过程中 list 长度始终等于 cardinality
+ *
+ * @author yanchao
+ * @date 2026/10/17 11:20
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int cardinality;
+
+    @Param({"16", "1024"})
+    public int payloadSize;
+
+    private String key;
+
+    private String value;
+
+    @Setup(Level.Trial)
+    public void setUp(RedisState state) {
+        key = "bench:list:" + cardinality;
+        value = RedisState.payload(payloadSize);
+        state.del(key);
+        state.load(cardinality, (pipeline, i) -> pipeline.rpush(key, value));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public String lpushRpop(RedisState.Connection connection) {
+        connection.jedis.lpush(key, value);
+        return connection.jedis.rpop(key);
+    }
+
+    @Benchmark
+    public String rpoplpush(RedisState.Connection connection) {
+        return connection.jedis.rpoplpush(key, key);
+    }
+}
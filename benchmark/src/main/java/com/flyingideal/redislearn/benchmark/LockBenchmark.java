@@ -0,0 +1,88 @@
+package com.flyingideal.redislearn.benchmark;
+
+import com.flyingideal.redislearn.lock.RedisLock;
+import com.flyingideal.redislearn.lock.RedisLockFactory;
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import com.flyingideal.redislearn.pool.RedisConnectionProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import redis.clients.jedis.Protocol;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RedisLock} 在不同竞争程度下的吞吐和 lock / unlock 延迟。
+ *
+ * 每次操作随机选取 locks 把锁中的一把，加锁后执行 work 个单位的 CPU 消耗再释放；
+ * locks 越少、线程越多竞争越激烈，用 -t 1,8,32,256 对比线程数的影响。
+ * 同一进程内同名锁的等待者先在本地排队，JMH 的所有线程相当于一个进程内的竞争。
+ *
+ * @author yanchao
+ * @date 2026/10/18 10:50
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LockBenchmark {
+
+    @Param({"1", "16", "1024"})
+    int locks;
+
+    @Param({"100"})
+    long work;
+
+    private JedisConnectionProvider provider;
+
+    private RedisLockFactory factory;
+
+    private RedisLock[] pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RedisConnectionProperties properties = new RedisConnectionProperties();
+        properties.setHost(System.getProperty("redis.host", Protocol.DEFAULT_HOST));
+        properties.setPort(Integer.getInteger("redis.port", Protocol.DEFAULT_PORT));
+        properties.getPool().setMaxTotal(512);
+        properties.getPool().setMaxIdle(512);
+        properties.getMetrics().setEnabled(false);
+        provider = new JedisConnectionProvider(properties);
+        factory = new RedisLockFactory(provider);
+        pool = new RedisLock[locks];
+        for (int i = 0; i < locks; i++) {
+            pool[i] = factory.getLock("bench:lock:" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        factory.close();
+        provider.close();
+    }
+
+    @Benchmark
+    public void lockUnlock() {
+        RedisLock lock = pool[ThreadLocalRandom.current().nextInt(locks)];
+        lock.lock();
+        try {
+            Blackhole.consumeCPU(work);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.flyingideal.redislearn.benchmark;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import com.flyingideal.redislearn.pool.RedisConnectionProperties;
+import com.flyingideal.redislearn.queue.QueueConsumerGroup;
+import com.flyingideal.redislearn.queue.QueueOptions;
+import com.flyingideal.redislearn.queue.ReliableQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Protocol;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ReliableQueue} 端到端的吞吐：发布一批消息，等待 worker 全部确认后才算完成，
+ * 结果中的 ops/s 即每秒确认的消息数，目标为单个 redis 节点 10 万条每秒。
+ *
+ * handler 不做任何工作，测的是队列本身的开销：每批 batchSize 条消息一次网络往返的取出和确认，以及心跳。
+ * 用 -t 1,4 对比发布线程数的影响，workers 为消费线程数。
+ *
+ * @author yanchao
+ * @date 2026/10/19 11:30
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueueBenchmark {
+
+    private static final int PUBLISH_BATCH = 1000;
+
+    @Param({"4", "16"})
+    int workers;
+
+    @Param({"100"})
+    int batchSize;
+
+    private JedisConnectionProvider provider;
+
+    private ReliableQueue queue;
+
+    private QueueConsumerGroup consumers;
+
+    private final Semaphore acked = new Semaphore(0);
+
+    private final List<String> payloads = new ArrayList<>(PUBLISH_BATCH);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RedisConnectionProperties properties = new RedisConnectionProperties();
+        properties.setHost(System.getProperty("redis.host", Protocol.DEFAULT_HOST));
+        properties.setPort(Integer.getInteger("redis.port", Protocol.DEFAULT_PORT));
+        properties.getPool().setMaxTotal(128);
+        properties.getPool().setMaxIdle(128);
+        properties.getMetrics().setEnabled(false);
+        provider = new JedisConnectionProvider(properties);
+        try (Jedis jedis = provider.getResource()) {
+            jedis.del("bench:queue", "bench:queue:workers", "bench:queue:dead");
+        }
+        for (int i = 0; i < PUBLISH_BATCH; i++) {
+            payloads.add("payload-" + i);
+        }
+        queue = new ReliableQueue(provider, "bench:queue", new QueueOptions().batchSize(batchSize));
+        consumers = queue.startConsumers(workers, message -> acked.release());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        consumers.close();
+        try (Jedis jedis = provider.getResource()) {
+            jedis.del("bench:queue", "bench:queue:workers", "bench:queue:dead");
+        }
+        provider.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PUBLISH_BATCH)
+    public void publishAndAck() throws InterruptedException {
+        queue.publishAll(payloads);
+        acked.acquire(PUBLISH_BATCH);
+    }
+}
@@ -0,0 +1,82 @@
+package com.flyingideal.redislearn.benchmark;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import com.flyingideal.redislearn.pool.RedisConnectionProperties;
+import com.flyingideal.redislearn.ratelimit.LeasedRateLimiter;
+import com.flyingideal.redislearn.ratelimit.RateLimiter;
+import com.flyingideal.redislearn.ratelimit.SlidingWindowRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.clients.jedis.Protocol;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 两种限流器每秒能做出的判断数。
+ *
+ * rate 较小时大部分请求被拒绝，较大时大部分被放行：sliding 模式每次判断都访问 redis，与是否放行无关；
+ * leased 模式每 block 个许可访问一次 redis，令牌桶空了之后的拒绝完全在本地完成。
+ *
+ * @author yanchao
+ * @date 2026/10/18 11:50
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    @Param({"sliding", "leased"})
+    String mode;
+
+    /**
+     * 每秒放行的许可数
+     */
+    @Param({"1000", "1000000"})
+    int rate;
+
+    @Param({"100"})
+    int block;
+
+    private JedisConnectionProvider provider;
+
+    private RateLimiter limiter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RedisConnectionProperties properties = new RedisConnectionProperties();
+        properties.setHost(System.getProperty("redis.host", Protocol.DEFAULT_HOST));
+        properties.setPort(Integer.getInteger("redis.port", Protocol.DEFAULT_PORT));
+        properties.getPool().setMaxTotal(512);
+        properties.getPool().setMaxIdle(512);
+        properties.getMetrics().setEnabled(false);
+        provider = new JedisConnectionProvider(properties);
+        String name = "bench:" + mode + ":" + rate;
+        limiter = "sliding".equals(mode)
+                ? new SlidingWindowRateLimiter(provider, name, rate, 1000)
+                : new LeasedRateLimiter(provider, name, rate, rate, block);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        provider.close();
+    }
+
+    @Benchmark
+    public boolean tryAcquire() {
+        return limiter.tryAcquire();
+    }
+}
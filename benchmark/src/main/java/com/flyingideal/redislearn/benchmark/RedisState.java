@@ -0,0 +1,113 @@
+package com.flyingideal.redislearn.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * 所有 benchmark 共享的连接池，每个线程通过 {@link Connection} 持有自己的连接
+ *
+ * @author yanchao
+ * @date 2026/10/17 11:05
+ */
+@State(Scope.Benchmark)
+public class RedisState {
+
+    /**
+     * 预置数据时每个 pipeline 批次发送的命令数
+     */
+    private static final int LOAD_BATCH = 10_000;
+
+    JedisPool pool;
+
+    @Setup(Level.Trial)
+    public void connect() {
+        String host = System.getProperty("redis.host", Protocol.DEFAULT_HOST);
+        int port = Integer.getInteger("redis.port", Protocol.DEFAULT_PORT);
+        JedisPoolConfig config = new JedisPoolConfig();
+        config.setMaxTotal(512);
+        config.setMaxIdle(512);
+        pool = new JedisPool(config, host, port, 10_000);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        pool.close();
+    }
+
+    /**
+     * 用 pipeline 分批写入 count 条数据，writer 的第二个参数为当前序号
+     */
+    void load(int count, BiConsumer<Pipeline, Integer> writer) {
+        try (Jedis jedis = pool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < count; i++) {
+                writer.accept(pipeline, i);
+                if ((i + 1) % LOAD_BATCH == 0) {
+                    pipeline.sync();
+                }
+            }
+            pipeline.sync();
+        }
+    }
+
+    void del(String... keys) {
+        try (Jedis jedis = pool.getResource()) {
+            jedis.del(keys);
+        }
+    }
+
+    /**
+     * 用 SCAN 删除匹配的 key，例如各线程 *STORE 的目标 key
+     */
+    void delMatching(String pattern) {
+        try (Jedis jedis = pool.getResource()) {
+            ScanParams params = new ScanParams().match(pattern).count(1000);
+            String cursor = ScanParams.SCAN_POINTER_START;
+            do {
+                ScanResult<String> page = jedis.scan(cursor, params);
+                if (!page.getResult().isEmpty()) {
+                    jedis.del(page.getResult().toArray(new String[0]));
+                }
+                cursor = page.getStringCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        }
+    }
+
+    static String payload(int size) {
+        char[] chars = new char[size];
+        Arrays.fill(chars, 'x');
+        return new String(chars);
+    }
+
+    /**
+     * 线程私有连接
+     */
+    @State(Scope.Thread)
+    public static class Connection {
+
+        Jedis jedis;
+
+        @Setup(Level.Trial)
+        public void borrow(RedisState state) {
+            jedis = state.pool.getResource();
+        }
+
+        @TearDown(Level.Trial)
+        public void release() {
+            jedis.close();
+        }
+    }
+}
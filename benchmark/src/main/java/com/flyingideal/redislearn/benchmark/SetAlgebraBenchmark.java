@@ -0,0 +1,84 @@
+package com.flyingideal.redislearn.benchmark;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import com.flyingideal.redislearn.pool.RedisConnectionProperties;
+import com.flyingideal.redislearn.setop.ClientSetAlgebra;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.clients.jedis.Protocol;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务端 SINTERSTORE 与 {@link ClientSetAlgebra#sinterstore} 的耗时对比，两个整数集合各有 cardinality 个元素且一半重叠。
+ *
+ * 客户端方式的总耗时通常更长（SSCAN 读入和 SADD 写回都要经过网络），收益在于服务端每次只执行很短的命令：
+ * 同时用 redis-benchmark 或 redis-cli --latency 观察其他客户端的延迟，SINTERSTORE 期间会出现与本测试耗时相当的毛刺。
+ *
+ * @author yanchao
+ * @date 2026/10/18 17:10
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SetAlgebraBenchmark {
+
+    @Param({"100000", "1000000", "5000000"})
+    public int cardinality;
+
+    private String set1;
+
+    private String set2;
+
+    private JedisConnectionProvider provider;
+
+    private ClientSetAlgebra algebra;
+
+    @Setup(Level.Trial)
+    public void setUp(RedisState state) {
+        set1 = "bench:setop1:" + cardinality;
+        set2 = "bench:setop2:" + cardinality;
+        state.del(set1, set2);
+        int offset = cardinality / 2;
+        state.load(cardinality, (pipeline, i) -> {
+            pipeline.sadd(set1, String.valueOf(i));
+            pipeline.sadd(set2, String.valueOf(i + offset));
+        });
+        RedisConnectionProperties properties = new RedisConnectionProperties();
+        properties.setHost(System.getProperty("redis.host", Protocol.DEFAULT_HOST));
+        properties.setPort(Integer.getInteger("redis.port", Protocol.DEFAULT_PORT));
+        properties.setSoTimeout(60_000);
+        properties.getMetrics().setEnabled(false);
+        provider = new JedisConnectionProvider(properties);
+        algebra = new ClientSetAlgebra(provider);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        provider.close();
+    }
+
+    @Benchmark
+    public Long server(RedisState.Connection connection) {
+        return connection.jedis.sinterstore("bench:setop:server", set1, set2);
+    }
+
+    @Benchmark
+    public long client() {
+        return algebra.sinterstore("bench:setop:client", set1, set2);
+    }
+}
@@ -0,0 +1,70 @@
+package com.flyingideal.redislearn.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SetTest 中 sinter / sunionstore 的性能，两个集合各有 cardinality 个元素且一半重叠
+ *
+ * @author yanchao
+ * @date 2026/10/17 11:31
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SetBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int cardinality;
+
+    private String set1;
+
+    private String set2;
+
+    @Setup(Level.Trial)
+    public void setUp(RedisState state) {
+        set1 = "bench:set1:" + cardinality;
+        set2 = "bench:set2:" + cardinality;
+        state.del(set1, set2);
+        int offset = cardinality / 2;
+        state.load(cardinality, (pipeline, i) -> {
+            pipeline.sadd(set1, String.valueOf(i));
+            pipeline.sadd(set2, String.valueOf(i + offset));
+        });
+    }
+
+    /**
+     * 删除各线程 SUNIONSTORE 的目标 key
+     */
+    @TearDown(Level.Trial)
+    public void tearDown(RedisState state) {
+        state.delMatching("bench:set:union:*");
+    }
+
+    @Benchmark
+    public Set<String> sinter(RedisState.Connection connection) {
+        return connection.jedis.sinter(set1, set2);
+    }
+
+    @Benchmark
+    public Long sunionstore(RedisState.Connection connection) {
+        return connection.jedis.sunionstore("bench:set:union:" + Thread.currentThread().getId(), set1, set2);
+    }
+}
@@ -0,0 +1,87 @@
+package com.flyingideal.redislearn.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.clients.jedis.ZParams;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SortedSetTest 中 zadd / zrangeByScore / zunionstore 的性能。
+ *
+ * zadd 更新已有成员的 score，不改变集合大小；zrangeByScore 每次取 100 个 score 连续的成员
+ *
+ * @author yanchao
+ * @date 2026/10/17 11:38
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SortedSetBenchmark {
+
+    private static final int RANGE = 100;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int cardinality;
+
+    private String zset1;
+
+    private String zset2;
+
+    private ZParams zParams;
+
+    @Setup(Level.Trial)
+    public void setUp(RedisState state) {
+        zset1 = "bench:zset1:" + cardinality;
+        zset2 = "bench:zset2:" + cardinality;
+        state.del(zset1, zset2);
+        int offset = cardinality / 2;
+        state.load(cardinality, (pipeline, i) -> {
+            pipeline.zadd(zset1, i, String.valueOf(i));
+            pipeline.zadd(zset2, i, String.valueOf(i + offset));
+        });
+        zParams = new ZParams().weightsByDouble(1, 2).aggregate(ZParams.Aggregate.SUM);
+    }
+
+    /**
+     * 删除各线程 ZUNIONSTORE 的目标 key
+     */
+    @TearDown(Level.Trial)
+    public void tearDown(RedisState state) {
+        state.delMatching("bench:zset:union:*");
+    }
+
+    @Benchmark
+    public Long zadd(RedisState.Connection connection) {
+        int member = ThreadLocalRandom.current().nextInt(cardinality);
+        return connection.jedis.zadd(zset1, member, String.valueOf(member));
+    }
+
+    @Benchmark
+    public Set<String> zrangeByScore(RedisState.Connection connection) {
+        int min = ThreadLocalRandom.current().nextInt(Math.max(1, cardinality - RANGE));
+        return connection.jedis.zrangeByScore(zset1, min, min + RANGE - 1);
+    }
+
+    @Benchmark
+    public Long zunionstore(RedisState.Connection connection) {
+        return connection.jedis.zunionstore("bench:zset:union:" + Thread.currentThread().getId(), zParams,
+                zset1, zset2);
+    }
+}
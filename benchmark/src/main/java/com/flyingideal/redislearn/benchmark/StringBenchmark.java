@@ -0,0 +1,72 @@
+package com.flyingideal.redislearn.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StringTest 中 set / get / mget / incr 的性能，payloadSize 为 value 的字节数
+ *
+ * @author yanchao
+ * @date 2026/10/17 11:12
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StringBenchmark {
+
+    private static final int MGET_KEYS = 10;
+
+    @Param({"16", "256", "4096", "65536"})
+    public int payloadSize;
+
+    private String value;
+
+    private String[] mgetKeys;
+
+    @Setup(Level.Trial)
+    public void setUp(RedisState state) {
+        value = RedisState.payload(payloadSize);
+        mgetKeys = new String[MGET_KEYS];
+        for (int i = 0; i < MGET_KEYS; i++) {
+            mgetKeys[i] = "bench:string:" + i;
+        }
+        state.del("bench:counter");
+        state.load(MGET_KEYS, (pipeline, i) -> pipeline.set(mgetKeys[i], value));
+    }
+
+    @Benchmark
+    public String set(RedisState.Connection connection) {
+        return connection.jedis.set("bench:string:set", value);
+    }
+
+    @Benchmark
+    public String get(RedisState.Connection connection) {
+        return connection.jedis.get(mgetKeys[0]);
+    }
+
+    @Benchmark
+    public List<String> mget(RedisState.Connection connection) {
+        return connection.jedis.mget(mgetKeys);
+    }
+
+    @Benchmark
+    public Long incr(RedisState.Connection connection) {
+        return connection.jedis.incr("bench:counter");
+    }
+}
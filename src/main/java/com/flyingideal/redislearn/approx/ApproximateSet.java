@@ -0,0 +1,255 @@
+package com.flyingideal.redislearn.approx;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import redis.clients.jedis.BitOP;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * SetTest 中 sadd / scard / sismember / sunion / sinter 的近似版本，内存与元素个数无关：
+ *
+ * <ul>
+ *     <li>基数：HyperLogLog（PFADD / PFCOUNT / PFMERGE），最多 12KB，标准误差 0.81%</li>
+ *     <li>成员判断：{@link BloomFilter}，按预期元素个数和误判率分配 bitmap，约每个元素 9.6 bit（1% 误判率）；
+ *     只有假阳性，没有假阴性</li>
+ *     <li>并集：PFCOUNT 多个 key 直接得到并集基数，{@link #unionStore} 用 PFMERGE 和 BITOP OR 保存并集</li>
+ *     <li>交集：HyperLogLog 不能求交集，{@link #intersectionCardinality} 用容斥原理由各子集并集的基数计算，
+ *     误差是并集的 0.81% 而不是交集的，交集相对并集越小，相对误差越大</li>
+ * </ul>
+ * 两部分保存在 approx:{name}:hll 和 approx:{name}:bloom 中，多集合操作要求所有集合在同一个节点上。
+ * 布隆过滤器的 bit 数和哈希函数个数保存在 approx:{name}:meta 中，第一次打开时写入，之后打开时参数不同会被拒绝：
+ * 用不同的参数读写同一个 bitmap 会把已有的元素判断为不存在。
+ *
+ * @author yanchao
+ * @date 2026/10/18 14:20
+ */
+public class ApproximateSet {
+
+    /**
+     * 一条 PFADD 最多携带的元素个数
+     */
+    private static final int PFADD_BATCH = 1000;
+
+    /**
+     * 容斥原理需要 2^n - 1 次 PFCOUNT
+     */
+    private static final int MAX_INTERSECTION_SETS = 8;
+
+    /**
+     * meta 中保存 bitSize:hashFunctions 的 field
+     */
+    private static final String BLOOM_FIELD = "bloom";
+
+    private final JedisConnectionProvider provider;
+
+    private final String name;
+
+    private final String hllKey;
+
+    private final String metaKey;
+
+    private final BloomFilter bloom;
+
+    /**
+     * @param expectedInsertions 预期的不同元素个数，决定布隆过滤器的大小
+     * @param falsePositiveRate  元素个数达到 expectedInsertions 时 mightContain 的误判率
+     * @throws IllegalArgumentException 集合已经存在，且创建时的布隆过滤器参数与这次计算出的不同
+     */
+    public ApproximateSet(JedisConnectionProvider provider, String name, long expectedInsertions,
+                          double falsePositiveRate) {
+        this(provider, name, BloomFilter.create(provider, "approx:{" + name + "}:bloom", expectedInsertions,
+                falsePositiveRate));
+        String expected = bloomParameters(bloom);
+        String stored;
+        try (Jedis jedis = provider.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            pipeline.hsetnx(metaKey, BLOOM_FIELD, expected);
+            Response<String> existing = pipeline.hget(metaKey, BLOOM_FIELD);
+            pipeline.sync();
+            stored = existing.get();
+        }
+        if (!expected.equals(stored)) {
+            throw new IllegalArgumentException("approximate set " + name + " was created with bloom filter "
+                    + "bitSize:hashFunctions " + stored + ", expectedInsertions " + expectedInsertions
+                    + " and falsePositiveRate " + falsePositiveRate + " give " + expected);
+        }
+    }
+
+    private ApproximateSet(JedisConnectionProvider provider, String name, BloomFilter bloom) {
+        this.provider = provider;
+        this.name = name;
+        this.hllKey = "approx:{" + name + "}:hll";
+        this.metaKey = "approx:{" + name + "}:meta";
+        this.bloom = bloom;
+    }
+
+    public void add(String... members) {
+        addAll(Arrays.asList(members));
+    }
+
+    /**
+     * 在一个 pipeline 中写入 HyperLogLog 和布隆过滤器
+     */
+    public void addAll(Collection<String> members) {
+        if (members.isEmpty()) {
+            return;
+        }
+        List<String> list = members instanceof List ? (List<String>) members : new ArrayList<>(members);
+        try (Jedis jedis = provider.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int from = 0; from < list.size(); from += PFADD_BATCH) {
+                List<String> batch = list.subList(from, Math.min(list.size(), from + PFADD_BATCH));
+                pipeline.pfadd(hllKey, batch.toArray(new String[0]));
+                bloom.appendAdd(pipeline, batch);
+            }
+            pipeline.sync();
+        }
+    }
+
+    /**
+     * 对应 SCARD
+     */
+    public long cardinality() {
+        try (Jedis jedis = provider.getResource()) {
+            return jedis.pfcount(hllKey);
+        }
+    }
+
+    /**
+     * 对应 SISMEMBER，false 表示一定不存在
+     */
+    public boolean mightContain(String member) {
+        return bloom.mightContain(member);
+    }
+
+    public boolean[] mightContainAll(List<String> members) {
+        return bloom.mightContainAll(members);
+    }
+
+    /**
+     * @return HyperLogLog 和 bitmap 的 value 字节数之和
+     */
+    public long storedBytes() {
+        try (Jedis jedis = provider.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            Response<Long> hll = pipeline.strlen(hllKey);
+            Response<Long> bits = pipeline.strlen(bloom.getKey());
+            pipeline.sync();
+            return hll.get() + bits.get();
+        }
+    }
+
+    public void delete() {
+        try (Jedis jedis = provider.getResource()) {
+            jedis.del(hllKey, bloom.getKey(), metaKey);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BloomFilter getBloomFilter() {
+        return bloom;
+    }
+
+    /**
+     * 对应 SUNION 的元素个数，不修改任何 key
+     */
+    public static long unionCardinality(ApproximateSet... sets) {
+        if (sets.length == 0) {
+            return 0;
+        }
+        try (Jedis jedis = sets[0].provider.getResource()) {
+            return jedis.pfcount(hllKeys(Arrays.asList(sets)));
+        }
+    }
+
+    /**
+     * 对应 SINTER 的元素个数，用容斥原理估算：|A∩B| = |A| + |B| - |A∪B|，多个集合时推广到所有子集
+     *
+     * @return 估计值，不小于 0 且不大于最小集合的基数
+     */
+    public static long intersectionCardinality(ApproximateSet... sets) {
+        if (sets.length == 0) {
+            return 0;
+        }
+        if (sets.length > MAX_INTERSECTION_SETS) {
+            throw new IllegalArgumentException("at most " + MAX_INTERSECTION_SETS + " sets are supported: " + sets.length);
+        }
+        int subsets = (1 << sets.length) - 1;
+        List<Response<Long>> counts = new ArrayList<>(subsets);
+        try (Jedis jedis = sets[0].provider.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int mask = 1; mask <= subsets; mask++) {
+                List<ApproximateSet> subset = new ArrayList<>();
+                for (int i = 0; i < sets.length; i++) {
+                    if ((mask & (1 << i)) != 0) {
+                        subset.add(sets[i]);
+                    }
+                }
+                counts.add(pipeline.pfcount(hllKeys(subset)));
+            }
+            pipeline.sync();
+        }
+        long estimate = 0;
+        long smallest = Long.MAX_VALUE;
+        for (int mask = 1; mask <= subsets; mask++) {
+            long count = counts.get(mask - 1).get();
+            // 奇数个集合的并集取正号
+            estimate += Integer.bitCount(mask) % 2 == 1 ? count : -count;
+            if (Integer.bitCount(mask) == 1) {
+                smallest = Math.min(smallest, count);
+            }
+        }
+        return Math.max(0, Math.min(estimate, smallest));
+    }
+
+    /**
+     * 对应 SUNIONSTORE：把 sets 的并集保存为 destName，布隆过滤器的参数必须相同
+     */
+    public static ApproximateSet unionStore(String destName, ApproximateSet... sets) {
+        if (sets.length == 0) {
+            throw new IllegalArgumentException("at least one set is required");
+        }
+        BloomFilter template = sets[0].bloom;
+        String[] bloomKeys = new String[sets.length];
+        for (int i = 0; i < sets.length; i++) {
+            if (!template.compatibleWith(sets[i].bloom)) {
+                throw new IllegalArgumentException("bloom filter of " + sets[i].name
+                        + " differs in size or hash functions from " + sets[0].name);
+            }
+            bloomKeys[i] = sets[i].bloom.getKey();
+        }
+        JedisConnectionProvider provider = sets[0].provider;
+        ApproximateSet dest = new ApproximateSet(provider, destName, new BloomFilter(provider,
+                "approx:{" + destName + "}:bloom", template.getBitSize(), template.getHashFunctions()));
+        try (Jedis jedis = provider.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            pipeline.del(dest.hllKey);
+            pipeline.pfmerge(dest.hllKey, hllKeys(Arrays.asList(sets)));
+            pipeline.bitop(BitOP.OR, dest.bloom.getKey(), bloomKeys);
+            pipeline.hset(dest.metaKey, BLOOM_FIELD, bloomParameters(dest.bloom));
+            pipeline.sync();
+        }
+        return dest;
+    }
+
+    private static String bloomParameters(BloomFilter bloom) {
+        return bloom.getBitSize() + ":" + bloom.getHashFunctions();
+    }
+
+    private static String[] hllKeys(List<ApproximateSet> sets) {
+        String[] keys = new String[sets.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = sets.get(i).hllKey;
+        }
+        return keys;
+    }
+}
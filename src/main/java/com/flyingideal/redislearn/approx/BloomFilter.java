@@ -0,0 +1,221 @@
+package com.flyingideal.redislearn.approx;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 保存在 redis bitmap 中的布隆过滤器，多个进程可以共享。
+ *
+ * 每个元素对应 hashFunctions 个 bit，位置由 MurmurHash64A 的结果双重哈希得到，在客户端计算；
+ * 写入和查询都用 BITFIELD 的 SET / GET u1 子命令，一条命令处理多个元素，批量操作在一个 pipeline 中完成。
+ * 相同参数的过滤器可以用 BITOP OR 合并为并集。BITFIELD 是写命令，查询也只能发往主节点。
+ *
+ * @author yanchao
+ * @date 2026/10/18 14:00
+ */
+public class BloomFilter {
+
+    /**
+     * 一条 BITFIELD 命令最多携带的子命令数
+     */
+    private static final int OPS_PER_COMMAND = 256;
+
+    /**
+     * redis string 最大 512MB
+     */
+    static final long MAX_BITS = 512L * 1024 * 1024 * 8;
+
+    private final JedisConnectionProvider provider;
+
+    private final String key;
+
+    private final long bitSize;
+
+    private final int hashFunctions;
+
+    public BloomFilter(JedisConnectionProvider provider, String key, long bitSize, int hashFunctions) {
+        if (bitSize < 1 || bitSize > MAX_BITS) {
+            throw new IllegalArgumentException("bitSize must be between 1 and " + MAX_BITS + ": " + bitSize);
+        }
+        if (hashFunctions < 1) {
+            throw new IllegalArgumentException("hashFunctions must be positive: " + hashFunctions);
+        }
+        this.provider = provider;
+        this.key = key;
+        this.bitSize = bitSize;
+        this.hashFunctions = hashFunctions;
+    }
+
+    /**
+     * 按预期元素个数和误判率计算 bit 数和哈希函数个数
+     */
+    public static BloomFilter create(JedisConnectionProvider provider, String key, long expectedInsertions,
+                                     double falsePositiveRate) {
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("expectedInsertions must be positive: " + expectedInsertions);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be in (0, 1): " + falsePositiveRate);
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        bits = Math.min(MAX_BITS, bits);
+        int hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+        return new BloomFilter(provider, key, bits, hashes);
+    }
+
+    public void add(String member) {
+        addAll(Collections.singletonList(member));
+    }
+
+    public void addAll(Collection<String> members) {
+        if (members.isEmpty()) {
+            return;
+        }
+        try (Jedis jedis = provider.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            appendAdd(pipeline, members);
+            pipeline.sync();
+        }
+    }
+
+    /**
+     * 把写入 members 的命令追加到调用方的 pipeline 中
+     */
+    void appendAdd(Pipeline pipeline, Collection<String> members) {
+        List<String> args = new ArrayList<>(Math.min(members.size() * hashFunctions, OPS_PER_COMMAND) * 4);
+        long[] positions = new long[hashFunctions];
+        for (String member : members) {
+            positions(member, positions);
+            for (long position : positions) {
+                args.add("SET");
+                args.add("u1");
+                args.add(Long.toString(position));
+                args.add("1");
+                if (args.size() == OPS_PER_COMMAND * 4) {
+                    pipeline.bitfield(key, args.toArray(new String[0]));
+                    args.clear();
+                }
+            }
+        }
+        if (!args.isEmpty()) {
+            pipeline.bitfield(key, args.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * @return false 表示一定不存在，true 表示可能存在
+     */
+    public boolean mightContain(String member) {
+        return mightContainAll(Collections.singletonList(member))[0];
+    }
+
+    public boolean[] mightContainAll(List<String> members) {
+        boolean[] result = new boolean[members.size()];
+        if (members.isEmpty()) {
+            return result;
+        }
+        // 一个元素的 bit 不跨命令，回复按元素对齐
+        int membersPerCommand = Math.max(1, OPS_PER_COMMAND / hashFunctions);
+        List<Response<List<Long>>> responses = new ArrayList<>();
+        long[] positions = new long[hashFunctions];
+        try (Jedis jedis = provider.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int from = 0; from < members.size(); from += membersPerCommand) {
+                int to = Math.min(members.size(), from + membersPerCommand);
+                String[] args = new String[(to - from) * hashFunctions * 3];
+                int a = 0;
+                for (String member : members.subList(from, to)) {
+                    positions(member, positions);
+                    for (long position : positions) {
+                        args[a++] = "GET";
+                        args[a++] = "u1";
+                        args[a++] = Long.toString(position);
+                    }
+                }
+                responses.add(pipeline.bitfield(key, args));
+            }
+            pipeline.sync();
+        }
+        int index = 0;
+        for (Response<List<Long>> response : responses) {
+            List<Long> bits = response.get();
+            for (int b = 0; b < bits.size(); b += hashFunctions) {
+                boolean all = true;
+                for (int h = 0; h < hashFunctions && all; h++) {
+                    all = bits.get(b + h) == 1;
+                }
+                result[index++] = all;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 用置 1 的 bit 数估计已经写入的不同元素个数
+     */
+    public long approximateElementCount() {
+        long ones;
+        try (Jedis jedis = provider.getResource()) {
+            ones = jedis.bitcount(key);
+        }
+        if (ones >= bitSize) {
+            return Long.MAX_VALUE;
+        }
+        return Math.round(-(double) bitSize / hashFunctions * Math.log(1 - (double) ones / bitSize));
+    }
+
+    /**
+     * 按当前写入的元素个数估计的误判率
+     */
+    public double expectedFalsePositiveRate() {
+        long ones;
+        try (Jedis jedis = provider.getResource()) {
+            ones = jedis.bitcount(key);
+        }
+        return Math.pow((double) ones / bitSize, hashFunctions);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    boolean compatibleWith(BloomFilter other) {
+        return bitSize == other.bitSize && hashFunctions == other.hashFunctions;
+    }
+
+    private void positions(String member, long[] positions) {
+        long hash1 = MurmurHash64A.hash(member.getBytes(StandardCharsets.UTF_8));
+        // 第二个哈希由第一个再次混合得到，奇数保证步长与 bitSize 互质的概率更高
+        long hash2 = mix(hash1) | 1;
+        long combined = hash1;
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = (combined & Long.MAX_VALUE) % bitSize;
+            combined += hash2;
+        }
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,55 @@
+package com.flyingideal.redislearn.approx;
+
+/**
+ * MurmurHash64A（种子 0xadc83b19），与 redis HyperLogLog 使用的哈希函数相同。
+ *
+ * 布隆过滤器用它计算位下标，内嵌 redis 的 PFADD 用它计算寄存器，两边对同一个成员得到相同的哈希值。
+ *
+ * @author yanchao
+ * @date 2026/10/19 10:20
+ */
+public final class MurmurHash64A {
+
+    private static final long M = 0xc6a4a7935bd1e995L;
+
+    private static final int R = 47;
+
+    private static final long SEED = 0xadc83b19L;
+
+    private MurmurHash64A() {
+    }
+
+    public static long hash(byte[] data) {
+        long h = SEED ^ (data.length * M);
+        int blocks = data.length / 8;
+        for (int i = 0; i < blocks; i++) {
+            int offset = i * 8;
+            long k = (data[offset] & 0xFFL)
+                    | (data[offset + 1] & 0xFFL) << 8
+                    | (data[offset + 2] & 0xFFL) << 16
+                    | (data[offset + 3] & 0xFFL) << 24
+                    | (data[offset + 4] & 0xFFL) << 32
+                    | (data[offset + 5] & 0xFFL) << 40
+                    | (data[offset + 6] & 0xFFL) << 48
+                    | (data[offset + 7] & 0xFFL) << 56;
+            k *= M;
+            k ^= k >>> R;
+            k *= M;
+            h ^= k;
+            h *= M;
+        }
+        // 剩余不足 8 字节的部分按小端拼接后混入，等价于 C 实现中贯穿各 case 的 switch
+        int tail = blocks * 8;
+        int remaining = data.length - tail;
+        if (remaining > 0) {
+            for (int i = 0; i < remaining; i++) {
+                h ^= (data[tail + i] & 0xFFL) << (8 * i);
+            }
+            h *= M;
+        }
+        h ^= h >>> R;
+        h *= M;
+        h ^= h >>> R;
+        return h;
+    }
+}
@@ -0,0 +1,303 @@
+package com.flyingideal.redislearn.bigkey;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import com.flyingideal.redislearn.script.RedisScript;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 渐进式删除大 key，代替各个测试类开头的 jedis.del(...)。
+ *
+ * 对几百万个元素的 hash / set / sorted set / list 执行 DEL，服务端要在主线程中逐个释放所有元素，会阻塞数秒。
+ *
+ * <ul>
+ *     <li>UNLINK：服务端版本不低于 4.0 时优先使用，主线程只把 key 从键空间摘除，元素由后台线程释放；
+ *     jedis 2.9 没有 UNLINK 命令，通过 Lua 脚本调用</li>
+ *     <li>渐进删除：不支持 UNLINK 或关闭了 preferUnlink 时，按类型每次删除 batchSize 个元素，
+ *     hash 为 HSCAN + HDEL，set 为 SSCAN + SREM，sorted set 为 ZREMRANGEBYRANK，list 为 LTRIM，
+ *     剩余不超过 batchSize 个元素时再 DEL</li>
+ *     <li>限速：所有线程共享一个每秒操作数预算，每批删除占用 batchSize 个操作</li>
+ * </ul>
+ * 元素个数不超过 batchSize 的 key 和 string 直接 DEL。渐进删除期间其他客户端仍能读到删了一部分的 key。
+ *
+ * @author yanchao
+ * @date 2026/10/18 18:20
+ */
+public class BigKeyDeleter implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BigKeyDeleter.class);
+
+    public static final int DEFAULT_OPS_PER_SECOND = 50_000;
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    public static final int DEFAULT_THREADS = 4;
+
+    private static final RedisScript UNLINK = new RedisScript("return redis.call('UNLINK', KEYS[1])");
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final JedisConnectionProvider provider;
+
+    private final OpsBudget budget;
+
+    private final int batchSize;
+
+    private final boolean preferUnlink;
+
+    private final ExecutorService executor;
+
+    /**
+     * 服务端是否支持 UNLINK，首次删除时根据 INFO server 中的 redis_version 判断
+     */
+    private volatile Boolean unlinkSupported;
+
+    private final LongAdder deletedKeys = new LongAdder();
+
+    private final LongAdder unlinkedKeys = new LongAdder();
+
+    private final LongAdder removedElements = new LongAdder();
+
+    public BigKeyDeleter(JedisConnectionProvider provider) {
+        this(provider, DEFAULT_OPS_PER_SECOND, DEFAULT_BATCH_SIZE, DEFAULT_THREADS, true);
+    }
+
+    /**
+     * @param opsPerSecond 所有线程合计每秒最多删除的元素数
+     * @param batchSize    每条 HDEL / SREM / ZREMRANGEBYRANK / LTRIM 删除的元素数
+     * @param threads      并发删除的 key 数
+     * @param preferUnlink 服务端支持时是否用 UNLINK 代替渐进删除
+     */
+    public BigKeyDeleter(JedisConnectionProvider provider, int opsPerSecond, int batchSize, int threads,
+                         boolean preferUnlink) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.provider = provider;
+        this.budget = new OpsBudget(opsPerSecond);
+        this.batchSize = batchSize;
+        this.preferUnlink = preferUnlink;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "redis-bigkey-deleter-" + THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 在当前线程中删除 key，渐进删除时直到删完才返回
+     *
+     * @return 删除前的元素个数，string 为 1，key 不存在为 0
+     */
+    public long delete(String key) throws InterruptedException {
+        try (Jedis jedis = provider.getResource()) {
+            String type = jedis.type(key);
+            long size = size(jedis, type, key);
+            if (size == 0) {
+                return 0;
+            }
+            if (unlink(jedis, key)) {
+                unlinkedKeys.increment();
+            } else {
+                if (size > batchSize) {
+                    deleteProgressively(jedis, type, key);
+                }
+                // 剩余的元素和删除期间新写入的元素
+                budget.acquire(Math.min(size, batchSize));
+                jedis.del(key);
+            }
+            deletedKeys.increment();
+            removedElements.add(size);
+            logger.debug("deleted {} {} with {} elements", type, key, size);
+            return size;
+        }
+    }
+
+    /**
+     * 在删除线程池中异步删除
+     */
+    public Future<Long> submit(String key) {
+        return executor.submit(() -> delete(key));
+    }
+
+    /**
+     * 并发删除多个 key，等待全部完成；有 key 删除失败时在所有 key 处理完之后抛出第一个异常
+     *
+     * @return 所有 key 删除前的元素个数之和
+     */
+    public long deleteAll(Collection<String> keys) throws InterruptedException {
+        List<Future<Long>> futures = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            futures.add(submit(key));
+        }
+        long total = 0;
+        RuntimeException failure = null;
+        for (Future<Long> future : futures) {
+            try {
+                total += future.get();
+            } catch (ExecutionException e) {
+                RuntimeException cause = e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return total;
+    }
+
+    public long getDeletedKeys() {
+        return deletedKeys.sum();
+    }
+
+    public long getUnlinkedKeys() {
+        return unlinkedKeys.sum();
+    }
+
+    public long getRemovedElements() {
+        return removedElements.sum();
+    }
+
+    /**
+     * 中断正在进行的删除，被中断的 key 保留尚未删除的元素
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static long size(Jedis jedis, String type, String key) {
+        switch (type) {
+            case "none":
+                return 0;
+            case "hash":
+                return jedis.hlen(key);
+            case "set":
+                return jedis.scard(key);
+            case "zset":
+                return jedis.zcard(key);
+            case "list":
+                return jedis.llen(key);
+            default:
+                return 1;
+        }
+    }
+
+    private boolean unlink(Jedis jedis, String key) {
+        if (!preferUnlink) {
+            return false;
+        }
+        if (unlinkSupported == null) {
+            unlinkSupported = majorVersion(jedis) >= 4;
+        }
+        if (!unlinkSupported) {
+            return false;
+        }
+        try {
+            UNLINK.eval(jedis, Collections.singletonList(key), Collections.emptyList());
+            return true;
+        } catch (JedisDataException e) {
+            // 版本号满足但 UNLINK 被 rename-command 禁用，或服务端禁用了脚本
+            logger.warn("UNLINK is not available, falling back to progressive deletion: {}", e.getMessage());
+            unlinkSupported = false;
+            return false;
+        }
+    }
+
+    private void deleteProgressively(Jedis jedis, String type, String key) throws InterruptedException {
+        switch (type) {
+            case "hash":
+                deleteHash(jedis, key);
+                break;
+            case "set":
+                deleteSet(jedis, key);
+                break;
+            case "zset":
+                long removed;
+                do {
+                    budget.acquire(batchSize);
+                    removed = jedis.zremrangeByRank(key, 0, batchSize - 1);
+                } while (removed == batchSize);
+                break;
+            case "list":
+                long remaining;
+                do {
+                    budget.acquire(batchSize);
+                    Pipeline pipeline = jedis.pipelined();
+                    pipeline.ltrim(key, batchSize, -1);
+                    Response<Long> length = pipeline.llen(key);
+                    pipeline.sync();
+                    remaining = length.get();
+                } while (remaining > batchSize);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * SCAN 允许在遍历期间删除元素，删除已经返回的元素不会导致其他元素被漏掉
+     */
+    private void deleteHash(Jedis jedis, String key) throws InterruptedException {
+        String cursor = ScanParams.SCAN_POINTER_START;
+        do {
+            budget.acquire(batchSize);
+            ScanResult<Map.Entry<String, String>> page = jedis.hscan(key, cursor, new ScanParams().count(batchSize));
+            if (!page.getResult().isEmpty()) {
+                String[] fields = new String[page.getResult().size()];
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i] = page.getResult().get(i).getKey();
+                }
+                jedis.hdel(key, fields);
+            }
+            cursor = page.getStringCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+    }
+
+    private void deleteSet(Jedis jedis, String key) throws InterruptedException {
+        String cursor = ScanParams.SCAN_POINTER_START;
+        do {
+            budget.acquire(batchSize);
+            ScanResult<String> page = jedis.sscan(key, cursor, new ScanParams().count(batchSize));
+            if (!page.getResult().isEmpty()) {
+                jedis.srem(key, page.getResult().toArray(new String[0]));
+            }
+            cursor = page.getStringCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+    }
+
+    private static int majorVersion(Jedis jedis) {
+        for (String line : jedis.info("server").split("\r\n")) {
+            if (line.startsWith("redis_version:")) {
+                String version = line.substring("redis_version:".length());
+                int dot = version.indexOf('.');
+                return Integer.parseInt(dot < 0 ? version : version.substring(0, dot));
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,42 @@
+package com.flyingideal.redislearn.bigkey;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 所有删除线程共享的每秒操作数预算。
+ *
+ * 每个操作占用 1 / opsPerSecond 秒，acquire 预订从 nextFreeNanos 开始的一段时间并睡眠到这段时间的起点；
+ * 与令牌桶不同，空闲期间不积累额度，删除总是匀速进行，不会在开始时突发。
+ *
+ * @author yanchao
+ * @date 2026/10/18 18:10
+ */
+final class OpsBudget {
+
+    private final double nanosPerOp;
+
+    private long nextFreeNanos = System.nanoTime();
+
+    OpsBudget(int opsPerSecond) {
+        if (opsPerSecond < 1) {
+            throw new IllegalArgumentException("opsPerSecond must be positive: " + opsPerSecond);
+        }
+        this.nanosPerOp = TimeUnit.SECONDS.toNanos(1) / (double) opsPerSecond;
+    }
+
+    /**
+     * 阻塞到可以执行 ops 个操作
+     */
+    void acquire(long ops) throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long start = Math.max(now, nextFreeNanos);
+            nextFreeNanos = start + (long) (ops * nanosPerOp);
+            waitNanos = start - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
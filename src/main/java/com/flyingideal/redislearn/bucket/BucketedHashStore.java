@@ -0,0 +1,285 @@
+package com.flyingideal.redislearn.bucket;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 分桶的 hash 存储：把大量逻辑上的小 hash（HashTest 中的 person）按 id 的哈希值分散到固定个数的物理 hash 中。
+ *
+ * 每个实体一个 key 时，每个 key 都有 dictEntry、redisObject 和过期字典等固定开销；所有实体放在一个大 hash 中时，
+ * 超过 hash-max-ziplist-entries 就会转为 hashtable 编码。分桶后每个桶保持在阈值以内，使用 ziplist（7.0 之后为 listpack）
+ * 紧凑编码，通常只需要独立 key 方式的几分之一内存。
+ *
+ * 物理 hash 为 prefix:桶号，field 为 id:field，因此 id 中不能包含 ':'，field 和 value 没有限制；
+ * value 超过 hash-max-ziplist-value（默认 64 字节）时所在的桶同样会转为 hashtable 编码。
+ * ziplist 的查找是线性的，桶越大 HGET 越慢，桶的大小是内存与 CPU 之间的权衡。
+ *
+ * @author yanchao
+ * @date 2026/10/18 15:10
+ */
+public class BucketedHashStore {
+
+    /**
+     * redis 的 hash-max-ziplist-entries 默认值
+     */
+    public static final int DEFAULT_MAX_ZIPLIST_ENTRIES = 512;
+
+    /**
+     * 按平均值计算桶数时预留的余量，哈希分布不均时最大的桶也不超过阈值
+     */
+    private static final double FILL_FACTOR = 0.75;
+
+    private static final char SEPARATOR = ':';
+
+    private final JedisConnectionProvider provider;
+
+    private final String prefix;
+
+    private final int buckets;
+
+    public BucketedHashStore(JedisConnectionProvider provider, String prefix, int buckets) {
+        if (buckets < 1) {
+            throw new IllegalArgumentException("buckets must be positive: " + buckets);
+        }
+        this.provider = provider;
+        this.prefix = prefix;
+        this.buckets = buckets;
+    }
+
+    /**
+     * 计算桶数，使每个桶的 field 数在 maxZiplistEntries 以内
+     *
+     * @param expectedEntities 预期的实体个数
+     * @param fieldsPerEntity  每个实体平均的 field 数
+     */
+    public static int bucketsFor(long expectedEntities, int fieldsPerEntity, int maxZiplistEntries) {
+        long fields = expectedEntities * fieldsPerEntity;
+        return (int) Math.max(1, (long) Math.ceil(fields / (maxZiplistEntries * FILL_FACTOR)));
+    }
+
+    public String hget(String id, String field) {
+        try (Jedis jedis = provider.getResource()) {
+            return jedis.hget(bucketKey(id), field(id, field));
+        }
+    }
+
+    public List<String> hmget(String id, String... fields) {
+        String[] physical = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            physical[i] = field(id, fields[i]);
+        }
+        try (Jedis jedis = provider.getResource()) {
+            return jedis.hmget(bucketKey(id), physical);
+        }
+    }
+
+    /**
+     * @return 1 表示新的 field，0 表示覆盖了已有的 field
+     */
+    public long hset(String id, String field, String value) {
+        try (Jedis jedis = provider.getResource()) {
+            return jedis.hset(bucketKey(id), field(id, field), value);
+        }
+    }
+
+    public void hmset(String id, Map<String, String> hash) {
+        if (hash.isEmpty()) {
+            return;
+        }
+        try (Jedis jedis = provider.getResource()) {
+            jedis.hmset(bucketKey(id), physicalFields(id, hash));
+        }
+    }
+
+    /**
+     * 读取整个桶后按 id 过滤，桶在阈值以内时一次 HGETALL 的代价很小
+     *
+     * @return id 的所有 field，不存在时为空 map
+     */
+    public Map<String, String> hgetAll(String id) {
+        try (Jedis jedis = provider.getResource()) {
+            return extract(id, jedis.hgetAll(bucketKey(id)));
+        }
+    }
+
+    public long hdel(String id, String... fields) {
+        String[] physical = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            physical[i] = field(id, fields[i]);
+        }
+        try (Jedis jedis = provider.getResource()) {
+            return jedis.hdel(bucketKey(id), physical);
+        }
+    }
+
+    /**
+     * 删除 id 的所有 field，对应独立 key 方式下的 DEL
+     *
+     * @return 删除的 field 数
+     */
+    public long delete(String id) {
+        Map<String, String> hash = hgetAll(id);
+        if (hash.isEmpty()) {
+            return 0;
+        }
+        return hdel(id, hash.keySet().toArray(new String[0]));
+    }
+
+    /**
+     * 批量写入：同一个桶的所有实体合并为一条 HMSET，所有桶在一个 pipeline 中发送
+     */
+    public void hmsetBatch(Map<String, Map<String, String>> entities) {
+        Map<String, Map<String, String>> byBucket = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, String>> entity : entities.entrySet()) {
+            if (!entity.getValue().isEmpty()) {
+                byBucket.computeIfAbsent(bucketKey(entity.getKey()), k -> new HashMap<>())
+                        .putAll(physicalFields(entity.getKey(), entity.getValue()));
+            }
+        }
+        if (byBucket.isEmpty()) {
+            return;
+        }
+        try (Jedis jedis = provider.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (Map.Entry<String, Map<String, String>> bucket : byBucket.entrySet()) {
+                pipeline.hmset(bucket.getKey(), bucket.getValue());
+            }
+            pipeline.sync();
+        }
+    }
+
+    /**
+     * 批量读取一个 field：同一个桶的 id 合并为一条 HMGET
+     *
+     * @return id 到 value，不存在的 id 不在结果中
+     */
+    public Map<String, String> hgetBatch(Collection<String> ids, String field) {
+        Map<String, List<String>> byBucket = groupByBucket(ids);
+        Map<String, Response<List<String>>> responses = new LinkedHashMap<>();
+        try (Jedis jedis = provider.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (Map.Entry<String, List<String>> bucket : byBucket.entrySet()) {
+                String[] physical = new String[bucket.getValue().size()];
+                for (int i = 0; i < physical.length; i++) {
+                    physical[i] = field(bucket.getValue().get(i), field);
+                }
+                responses.put(bucket.getKey(), pipeline.hmget(bucket.getKey(), physical));
+            }
+            pipeline.sync();
+        }
+        Map<String, String> result = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> bucket : byBucket.entrySet()) {
+            List<String> values = responses.get(bucket.getKey()).get();
+            for (int i = 0; i < values.size(); i++) {
+                if (values.get(i) != null) {
+                    result.put(bucket.getValue().get(i), values.get(i));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量读取整个实体：每个涉及的桶一条 HGETALL
+     *
+     * @return id 到它的所有 field，不存在的 id 不在结果中
+     */
+    public Map<String, Map<String, String>> hgetAllBatch(Collection<String> ids) {
+        Map<String, List<String>> byBucket = groupByBucket(ids);
+        Map<String, Response<Map<String, String>>> responses = new LinkedHashMap<>();
+        try (Jedis jedis = provider.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (String bucket : byBucket.keySet()) {
+                responses.put(bucket, pipeline.hgetAll(bucket));
+            }
+            pipeline.sync();
+        }
+        Map<String, Map<String, String>> result = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> bucket : byBucket.entrySet()) {
+            Map<String, String> all = responses.get(bucket.getKey()).get();
+            for (String id : bucket.getValue()) {
+                Map<String, String> hash = extract(id, all);
+                if (!hash.isEmpty()) {
+                    result.put(id, hash);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return id 所在的物理 hash
+     */
+    public String bucketKey(String id) {
+        return prefix + ":" + bucket(id);
+    }
+
+    /**
+     * @return 所有物理 hash 的 key，用于统计或清理
+     */
+    public List<String> bucketKeys() {
+        List<String> keys = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            keys.add(prefix + ":" + i);
+        }
+        return keys;
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * CRC32 在各种语言中都有相同的实现，其他语言的客户端可以定位到同一个桶
+     */
+    int bucket(String id) {
+        CRC32 crc = new CRC32();
+        crc.update(id.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % buckets);
+    }
+
+    private Map<String, List<String>> groupByBucket(Collection<String> ids) {
+        Map<String, List<String>> byBucket = new LinkedHashMap<>();
+        for (String id : ids) {
+            byBucket.computeIfAbsent(bucketKey(id), k -> new ArrayList<>()).add(id);
+        }
+        return byBucket;
+    }
+
+    private static Map<String, String> physicalFields(String id, Map<String, String> hash) {
+        Map<String, String> physical = new HashMap<>(hash.size() * 2);
+        for (Map.Entry<String, String> entry : hash.entrySet()) {
+            physical.put(field(id, entry.getKey()), entry.getValue());
+        }
+        return physical;
+    }
+
+    private static Map<String, String> extract(String id, Map<String, String> bucket) {
+        String fieldPrefix = id + SEPARATOR;
+        Map<String, String> hash = new HashMap<>();
+        for (Map.Entry<String, String> entry : bucket.entrySet()) {
+            if (entry.getKey().startsWith(fieldPrefix)) {
+                hash.put(entry.getKey().substring(fieldPrefix.length()), entry.getValue());
+            }
+        }
+        return hash;
+    }
+
+    private static String field(String id, String field) {
+        if (id.indexOf(SEPARATOR) >= 0) {
+            throw new IllegalArgumentException("id must not contain '" + SEPARATOR + "': " + id);
+        }
+        return id + SEPARATOR + field;
+    }
+}
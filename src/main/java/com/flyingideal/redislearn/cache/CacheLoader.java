@@ -0,0 +1,36 @@
+package com.flyingideal.redislearn.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 缓存未命中时从数据源加载 value
+ *
+ * @author yanchao
+ * @date 2026/10/18 19:00
+ */
+@FunctionalInterface
+public interface CacheLoader<V> {
+
+    /**
+     * @return null 表示数据源中不存在，不写入缓存
+     */
+    V load(String key) throws Exception;
+
+    /**
+     * {@link ReadThroughCache#getAll} 批量加载未命中的 key，数据源支持批量查询时覆盖这个方法
+     *
+     * @return 不存在的 key 不在结果中
+     */
+    default Map<String, V> loadAll(Collection<String> keys) throws Exception {
+        Map<String, V> values = new HashMap<>(keys.size() * 2);
+        for (String key : keys) {
+            V value = load(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,96 @@
+package com.flyingideal.redislearn.cache;
+
+/**
+ * {@link ReadThroughCache} 的参数
+ *
+ * @author yanchao
+ * @date 2026/10/18 19:05
+ */
+public class CacheOptions {
+
+    private long ttlMillis = 60_000;
+
+    private double jitter = 0.1;
+
+    private double beta = 1.0;
+
+    private long loadingTimeoutMillis = 5000;
+
+    private long pollMillis = 20;
+
+    /**
+     * 写入缓存的过期时间
+     */
+    public CacheOptions ttlMillis(long ttlMillis) {
+        if (ttlMillis < 1) {
+            throw new IllegalArgumentException("ttlMillis must be positive: " + ttlMillis);
+        }
+        this.ttlMillis = ttlMillis;
+        return this;
+    }
+
+    /**
+     * 过期时间的随机浮动比例，实际过期时间在 ttl * (1 ± jitter) 之间均匀分布，
+     * 同时写入的一批 key 不会在同一时刻一起过期
+     */
+    public CacheOptions jitter(double jitter) {
+        if (jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("jitter must be in [0, 1): " + jitter);
+        }
+        this.jitter = jitter;
+        return this;
+    }
+
+    /**
+     * 提前刷新的激进程度，越大越早刷新，0 表示关闭提前刷新
+     */
+    public CacheOptions beta(double beta) {
+        if (beta < 0) {
+            throw new IllegalArgumentException("beta must not be negative: " + beta);
+        }
+        this.beta = beta;
+        return this;
+    }
+
+    /**
+     * 跨 JVM 加载标记的过期时间，也是等待其他 JVM 加载的最长时间，应大于加载的最长耗时
+     */
+    public CacheOptions loadingTimeoutMillis(long loadingTimeoutMillis) {
+        if (loadingTimeoutMillis < 1) {
+            throw new IllegalArgumentException("loadingTimeoutMillis must be positive: " + loadingTimeoutMillis);
+        }
+        this.loadingTimeoutMillis = loadingTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * 等待其他 JVM 加载时检查结果的间隔
+     */
+    public CacheOptions pollMillis(long pollMillis) {
+        if (pollMillis < 1) {
+            throw new IllegalArgumentException("pollMillis must be positive: " + pollMillis);
+        }
+        this.pollMillis = pollMillis;
+        return this;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    public double getBeta() {
+        return beta;
+    }
+
+    public long getLoadingTimeoutMillis() {
+        return loadingTimeoutMillis;
+    }
+
+    public long getPollMillis() {
+        return pollMillis;
+    }
+}
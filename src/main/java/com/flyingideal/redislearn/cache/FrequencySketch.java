@@ -0,0 +1,82 @@
+package com.flyingideal.redislearn.cache;
+
+/**
+ * 估算 key 最近访问频率的 count-min sketch，供 {@link TinyLfuPolicy} 判断是否接纳新 key。
+ *
+ * 每个计数器 4 bit（最大 15），一个 long 保存 16 个；每个 key 对应 4 个计数器，频率取其中的最小值。
+ * 累计递增次数达到 10 倍容量后所有计数器减半，旧的热点会逐渐冷却。非线程安全，由调用方加锁。
+ *
+ * @author yanchao
+ * @date 2026/10/18 20:05
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+
+    private final int sampleSize;
+
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        int length = Integer.highestOneBit(Math.max(maximumSize, 8) - 1) << 1;
+        this.table = new long[length];
+        this.sampleSize = 10 * length;
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = indexHash(hash, i);
+            frequency = Math.min(frequency, (int) ((table[index(h)] >>> offset(h)) & 0xfL));
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = indexHash(hash, i);
+            int index = index(h);
+            int offset = offset(h);
+            if (((table[index] >>> offset) & 0xfL) < 15) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+
+    private static long indexHash(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        return h + (h >>> 32);
+    }
+
+    private int index(long h) {
+        return (int) h & (table.length - 1);
+    }
+
+    private static int offset(long h) {
+        return (int) ((h >>> 40) & 15) << 2;
+    }
+}
@@ -0,0 +1,476 @@
+package com.flyingideal.redislearn.cache;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import com.flyingideal.redislearn.pool.RedisConnectionProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * JVM 内的近端缓存，放在 GET / HGET / HGETALL 前面，命中时不访问 redis，适合很少修改的配置类 key。
+ *
+ * <ul>
+ *     <li>容量：最多缓存 maximumSize 个 key，按 {@link TinyLfuPolicy}（W-TinyLFU）淘汰</li>
+ *     <li>失效：独立的连接（不占用连接池）PSUBSCRIBE __keyevent@db__:*，任何修改 key 的命令都会删除本地缓存；
+ *     订阅断开期间不使用本地缓存，重新订阅成功后清空本地缓存</li>
+ *     <li>TTL 兜底：每个 key 从第一次缓存起最多保存 ttlMillis，通知丢失时最多读到这么久之前的数据</li>
+ *     <li>失效延迟：每 probeIntervalMillis 写一次探测 key，统计从写入到收到通知的时间</li>
+ * </ul>
+ * 不存在的 key / field 也会缓存（null）。同一个 key 的 GET、HGET 各 field、HGETALL 的结果缓存在同一项中，一起失效、一起淘汰。
+ *
+ * 读 redis 之前先放入缓存项，读到的结果写入这一项；读的过程中收到了失效通知时缓存项已经被删除，
+ * 结果写入的是已删除的缓存项，不会缓存旧值。
+ *
+ * redis 需要打开 notify-keyspace-events 的 E 和 A（默认构造时自动 CONFIG SET）；
+ * 通知包含所有 key 的修改，写入量很大的实例上订阅连接本身会有明显的流量。
+ *
+ * @author yanchao
+ * @date 2026/10/18 20:20
+ */
+public class NearCache implements MeterBinder, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearCache.class);
+
+    private static final Object NULL = new Object();
+
+    private static final String GET = "get";
+
+    private static final String HGETALL = "hgetall";
+
+    private static final String HGET = "hget:";
+
+    private final JedisConnectionProvider provider;
+
+    private final String name;
+
+    private final NearCacheOptions options;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 新增、删除缓存项时与 entries 一起修改；命中时只 tryLock，竞争激烈时放弃这次访问记录
+     */
+    private final ReentrantLock policyLock = new ReentrantLock();
+
+    private final TinyLfuPolicy policy;
+
+    private final Invalidator invalidator = new Invalidator();
+
+    private final CountDownLatch firstSubscribe = new CountDownLatch(1);
+
+    private final Thread subscriber;
+
+    private final ScheduledExecutorService prober;
+
+    private final String probeKey;
+
+    /**
+     * 订阅使用的连接，关闭时如果还没有订阅成功，直接断开它结束阻塞的 PSUBSCRIBE
+     */
+    private volatile Jedis connection;
+
+    private volatile boolean subscribed;
+
+    private volatile boolean closed;
+
+    /**
+     * 探测 key 的写入时间，收到通知后置 0
+     */
+    private volatile long probeSentNanos;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder expirations = new LongAdder();
+
+    private volatile long lastInvalidationLagMicros;
+
+    private final Recorder invalidationLagMicros = new Recorder(2);
+
+    public NearCache(JedisConnectionProvider provider, String name) {
+        this(provider, name, new NearCacheOptions());
+    }
+
+    public NearCache(JedisConnectionProvider provider, String name, NearCacheOptions options) {
+        this.provider = provider;
+        this.name = name;
+        this.options = options;
+        this.policy = new TinyLfuPolicy(options.getMaximumSize());
+        this.probeKey = name + ":nearcache:probe:" + UUID.randomUUID();
+        if (options.isConfigureNotifications()) {
+            configureNotifications();
+        }
+        this.subscriber = new Thread(this::subscribeLoop, "redis-nearcache-" + name);
+        subscriber.setDaemon(true);
+        subscriber.start();
+        try {
+            if (!firstSubscribe.await(options.getSubscribeTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                logger.warn("near cache {} not subscribed yet, reading through to redis", name);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (options.getProbeIntervalMillis() > 0) {
+            this.prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "redis-nearcache-probe-" + name);
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = options.getProbeIntervalMillis();
+            prober.scheduleWithFixedDelay(this::probeQuietly, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.prober = null;
+        }
+    }
+
+    public String get(String key) {
+        return (String) read(key, GET, jedis -> jedis.get(key));
+    }
+
+    public String hget(String key, String field) {
+        return (String) read(key, HGET + field, jedis -> jedis.hget(key, field));
+    }
+
+    /**
+     * @return 不可修改的 map，key 不存在时为空 map
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, String> hgetAll(String key) {
+        return (Map<String, String>) read(key, HGETALL,
+                jedis -> Collections.unmodifiableMap(new HashMap<>(jedis.hgetAll(key))));
+    }
+
+    /**
+     * 删除本地缓存，redis 中的数据不变
+     */
+    public void invalidate(String key) {
+        if (!entries.containsKey(key)) {
+            return;
+        }
+        policyLock.lock();
+        try {
+            if (entries.remove(key) != null) {
+                policy.remove(key);
+                invalidations.increment();
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        policyLock.lock();
+        try {
+            entries.clear();
+            policy.clear();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * @return 是否已订阅失效通知；未订阅时所有读取直接访问 redis
+     */
+    public boolean isSubscribed() {
+        return subscribed;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    /**
+     * @return 最近一次探测的失效延迟，还没有探测结果时为 0
+     */
+    public long getLastInvalidationLagMicros() {
+        return lastInvalidationLagMicros;
+    }
+
+    /**
+     * @return 自上一次调用以来探测到的失效延迟分布（微秒）
+     */
+    public synchronized Histogram getInvalidationLagMicros() {
+        return invalidationLagMicros.getIntervalHistogram();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("redis.nearcache.requests", this, NearCache::getHits)
+                .tags("cache", name, "result", "hit").register(registry);
+        FunctionCounter.builder("redis.nearcache.requests", this, NearCache::getMisses)
+                .tags("cache", name, "result", "miss").register(registry);
+        FunctionCounter.builder("redis.nearcache.invalidations", this, NearCache::getInvalidations)
+                .tag("cache", name).register(registry);
+        FunctionCounter.builder("redis.nearcache.evictions", this, NearCache::getEvictions)
+                .tag("cache", name).register(registry);
+        FunctionCounter.builder("redis.nearcache.expirations", this, NearCache::getExpirations)
+                .tag("cache", name).register(registry);
+        Gauge.builder("redis.nearcache.size", this, NearCache::size).tag("cache", name).register(registry);
+        Gauge.builder("redis.nearcache.invalidation.lag", this, NearCache::getLastInvalidationLagMicros)
+                .tag("cache", name).baseUnit("microseconds").register(registry);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (prober != null) {
+            prober.shutdownNow();
+        }
+        if (invalidator.isSubscribed()) {
+            try {
+                invalidator.punsubscribe();
+            } catch (JedisException e) {
+                logger.debug("near cache {} punsubscribe failed: {}", name, e.getMessage());
+            }
+        }
+        try {
+            subscriber.join(1000);
+            Jedis current = connection;
+            if (subscriber.isAlive() && current != null) {
+                current.disconnect();
+                subscriber.join(1000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        invalidateAll();
+    }
+
+    private Object read(String key, String slot, Function<Jedis, Object> loader) {
+        if (!subscribed) {
+            misses.increment();
+            return provider.execute(loader);
+        }
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.expireAtNanos >= 0) {
+            expire(key, entry);
+            entry = null;
+        }
+        if (entry != null) {
+            Object value = entry.slots.get(slot);
+            if (value != null) {
+                hits.increment();
+                recordAccess(key);
+                return value == NULL ? null : value;
+            }
+        } else {
+            entry = add(key, now);
+        }
+        misses.increment();
+        Object value = provider.execute(loader);
+        entry.slots.put(slot, value == null ? NULL : value);
+        return value;
+    }
+
+    private Entry add(String key, long now) {
+        policyLock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                return entry;
+            }
+            entry = new Entry(now + TimeUnit.MILLISECONDS.toNanos(options.getTtlMillis()));
+            entries.put(key, entry);
+            for (String evicted : policy.add(key)) {
+                entries.remove(evicted);
+                evictions.increment();
+            }
+            return entry;
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void expire(String key, Entry entry) {
+        policyLock.lock();
+        try {
+            if (entries.remove(key, entry)) {
+                policy.remove(key);
+                expirations.increment();
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void recordAccess(String key) {
+        if (policyLock.tryLock()) {
+            try {
+                if (entries.containsKey(key)) {
+                    policy.recordAccess(key);
+                }
+            } finally {
+                policyLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 在已有的 notify-keyspace-events 上补充 E（keyevent 通知）和 A（所有类型的事件）
+     */
+    private void configureNotifications() {
+        try (Jedis jedis = provider.getResource()) {
+            List<String> current = jedis.configGet("notify-keyspace-events");
+            String flags = current.size() > 1 ? current.get(1) : "";
+            String wanted = flags;
+            if (wanted.indexOf('E') < 0) {
+                wanted += "E";
+            }
+            if (wanted.indexOf('A') < 0) {
+                wanted += "A";
+            }
+            if (!wanted.equals(flags)) {
+                jedis.configSet("notify-keyspace-events", wanted);
+                logger.info("near cache {} set notify-keyspace-events from '{}' to '{}'", name, flags, wanted);
+            }
+        } catch (JedisDataException e) {
+            logger.warn("near cache {} cannot configure notify-keyspace-events: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * 订阅连接断开后按 100ms 到 5s 指数退避重连；断开期间可能丢失通知，重新订阅成功时清空本地缓存
+     */
+    private void subscribeLoop() {
+        RedisConnectionProperties properties = provider.getProperties();
+        String pattern = "__keyevent@" + properties.getDatabase() + "__:*";
+        long backoffMillis = 100;
+        while (!closed) {
+            try (Jedis jedis = new Jedis(properties.getHost(), properties.getPort(),
+                    properties.getConnectionTimeout(), 0)) {
+                connection = jedis;
+                if (properties.getPassword() != null) {
+                    jedis.auth(properties.getPassword());
+                }
+                jedis.psubscribe(invalidator, pattern);
+                backoffMillis = 100;
+            } catch (JedisException e) {
+                if (!closed) {
+                    logger.warn("near cache {} subscription lost, retry in {}ms: {}", name, backoffMillis,
+                            e.getMessage());
+                }
+            } finally {
+                connection = null;
+                subscribed = false;
+                invalidateAll();
+            }
+            if (closed) {
+                break;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(backoffMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            backoffMillis = Math.min(backoffMillis * 2, 5000);
+        }
+    }
+
+    private void probeQuietly() {
+        if (!subscribed) {
+            return;
+        }
+        try {
+            probeSentNanos = System.nanoTime();
+            provider.execute(jedis -> jedis.psetex(probeKey, options.getProbeIntervalMillis() * 2, "1"));
+        } catch (RuntimeException e) {
+            probeSentNanos = 0;
+            logger.debug("near cache {} probe failed: {}", name, e.getMessage());
+        }
+    }
+
+    private void onInvalidation(String key) {
+        if (key.equals(probeKey)) {
+            long sent = probeSentNanos;
+            if (sent != 0) {
+                probeSentNanos = 0;
+                long lagMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sent);
+                lastInvalidationLagMicros = lagMicros;
+                invalidationLagMicros.recordValue(lagMicros);
+            }
+            return;
+        }
+        invalidate(key);
+    }
+
+    private static final class Entry {
+
+        final long expireAtNanos;
+
+        /**
+         * GET、HGETALL 和各个 HGET field 的结果，null 结果保存为 {@link #NULL}
+         */
+        final Map<String, Object> slots = new ConcurrentHashMap<>(4);
+
+        Entry(long expireAtNanos) {
+            this.expireAtNanos = expireAtNanos;
+        }
+    }
+
+    private final class Invalidator extends JedisPubSub {
+
+        @Override
+        public void onPSubscribe(String pattern, int subscribedChannels) {
+            invalidateAll();
+            subscribed = true;
+            firstSubscribe.countDown();
+            logger.info("near cache {} subscribed to {}", name, pattern);
+        }
+
+        @Override
+        public void onPMessage(String pattern, String channel, String message) {
+            onInvalidation(message);
+        }
+    }
+}
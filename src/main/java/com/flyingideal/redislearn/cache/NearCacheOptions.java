@@ -0,0 +1,93 @@
+package com.flyingideal.redislearn.cache;
+
+/**
+ * {@link NearCache} 的参数
+ *
+ * @author yanchao
+ * @date 2026/10/18 20:15
+ */
+public class NearCacheOptions {
+
+    private int maximumSize = 10_000;
+
+    private long ttlMillis = 60_000;
+
+    private boolean configureNotifications = true;
+
+    private long probeIntervalMillis = 1000;
+
+    private long subscribeTimeoutMillis = 2000;
+
+    /**
+     * 最多缓存的 key 个数，超过后按 W-TinyLFU 淘汰
+     */
+    public NearCacheOptions maximumSize(int maximumSize) {
+        if (maximumSize < 2) {
+            throw new IllegalArgumentException("maximumSize must be at least 2: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    /**
+     * 本地缓存的最长存活时间，从第一次缓存这个 key 开始计算；
+     * 通知丢失（例如订阅连接断开前的最后几条）时，最多读到这么久之前的数据
+     */
+    public NearCacheOptions ttlMillis(long ttlMillis) {
+        if (ttlMillis < 1) {
+            throw new IllegalArgumentException("ttlMillis must be positive: " + ttlMillis);
+        }
+        this.ttlMillis = ttlMillis;
+        return this;
+    }
+
+    /**
+     * 启动时是否用 CONFIG SET 打开 notify-keyspace-events 的 E 和 A，redis 禁用了 CONFIG 命令时需要手工配置
+     */
+    public NearCacheOptions configureNotifications(boolean configureNotifications) {
+        this.configureNotifications = configureNotifications;
+        return this;
+    }
+
+    /**
+     * 测量失效延迟的探测间隔，0 表示不探测
+     */
+    public NearCacheOptions probeIntervalMillis(long probeIntervalMillis) {
+        if (probeIntervalMillis < 0) {
+            throw new IllegalArgumentException("probeIntervalMillis must not be negative: " + probeIntervalMillis);
+        }
+        this.probeIntervalMillis = probeIntervalMillis;
+        return this;
+    }
+
+    /**
+     * 构造时等待订阅成功的最长时间，超时后先直接读 redis，订阅成功后才开始缓存
+     */
+    public NearCacheOptions subscribeTimeoutMillis(long subscribeTimeoutMillis) {
+        if (subscribeTimeoutMillis < 0) {
+            throw new IllegalArgumentException("subscribeTimeoutMillis must not be negative: " + subscribeTimeoutMillis);
+        }
+        this.subscribeTimeoutMillis = subscribeTimeoutMillis;
+        return this;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public boolean isConfigureNotifications() {
+        return configureNotifications;
+    }
+
+    public long getProbeIntervalMillis() {
+        return probeIntervalMillis;
+    }
+
+    public long getSubscribeTimeoutMillis() {
+        return subscribeTimeoutMillis;
+    }
+}
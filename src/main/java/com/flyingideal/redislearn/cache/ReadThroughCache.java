@@ -0,0 +1,444 @@
+package com.flyingideal.redislearn.cache;
+
+import com.flyingideal.redislearn.codec.ByteReader;
+import com.flyingideal.redislearn.codec.ByteWriter;
+import com.flyingideal.redislearn.codec.Codec;
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import com.flyingideal.redislearn.script.RedisScript;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 读穿缓存：未命中时调用 {@link CacheLoader} 从数据源加载，再用 PSETEX 写入 redis，
+ * 代替手工的 get / 查库 / setex，避免热点 key 过期瞬间大量请求同时查库（缓存击穿）。
+ *
+ * <ul>
+ *     <li>JVM 内合并：同一个 key 同时只有一个线程加载，其他线程等待它的结果</li>
+ *     <li>跨 JVM 合并：加载前 SET loading:name:key token NX PX，抢到标记的 JVM 加载，
+ *     其他 JVM 每 pollMillis 检查一次缓存，直到缓存写入、标记删除或等待超过 loadingTimeoutMillis 后自己加载。
+ *     标记不在缓存的 name: 前缀下，加载完成后只在 token 一致时删除，不会误删过期后被其他 JVM 抢到的标记</li>
+ *     <li>提前刷新（XFetch）：value 中同时保存上次加载的耗时 delta，命中时按
+ *     delta * beta * -ln(rand) &gt;= PTTL 的概率提前重新加载；剩余时间越短、加载越慢，提前刷新的概率越大，
+ *     在过期之前通常已经有一个请求完成了刷新。提前刷新时如果其他 JVM 持有加载标记或者加载失败，直接返回缓存中的 value</li>
+ *     <li>过期时间浮动：实际 TTL 在 ttl * (1 ± jitter) 之间随机，一起写入的 key 不会一起过期</li>
+ *     <li>批量读取：{@link #getAll} 用一个 pipeline 读取所有 key，未命中的 key 调用一次 {@link CacheLoader#loadAll}
+ *     加载，再用一个 pipeline 写回；需要提前刷新的 key 单独调用一次 loadAll，失败时返回缓存中的 value。
+ *     批量加载只在 JVM 内合并，不使用跨 JVM 的加载标记</li>
+ * </ul>
+ * redis 中的 value 为 varint(delta 毫秒) + codec 编码的字节。加载结果为 null 时不写入缓存。
+ *
+ * @author yanchao
+ * @date 2026/10/18 19:10
+ */
+public class ReadThroughCache<V> implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadThroughCache.class);
+
+    /**
+     * KEYS[1] 加载标记；ARGV[1] token。标记仍属于自己时删除，返回删除的数量
+     */
+    static final RedisScript RELEASE_MARKER = new RedisScript(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then\n"
+                    + "    return redis.call('del', KEYS[1])\n"
+                    + "end\n"
+                    + "return 0\n");
+
+    private final JedisConnectionProvider provider;
+
+    private final String name;
+
+    private final Codec<V> codec;
+
+    private final CacheLoader<V> loader;
+
+    private final CacheOptions options;
+
+    private final ConcurrentHashMap<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder loads = new LongAdder();
+
+    private final LongAdder earlyRefreshes = new LongAdder();
+
+    private final LongAdder waits = new LongAdder();
+
+    public ReadThroughCache(JedisConnectionProvider provider, String name, Codec<V> codec, CacheLoader<V> loader) {
+        this(provider, name, codec, loader, new CacheOptions());
+    }
+
+    public ReadThroughCache(JedisConnectionProvider provider, String name, Codec<V> codec, CacheLoader<V> loader,
+                            CacheOptions options) {
+        this.provider = provider;
+        this.name = name;
+        this.codec = codec;
+        this.loader = loader;
+        this.options = options;
+    }
+
+    /**
+     * @return 缓存或数据源中的 value，都不存在时返回 null
+     */
+    public V get(String key) {
+        Entry<V> entry = provider.execute(jedis -> read(jedis, key));
+        if (entry == null) {
+            misses.increment();
+            return load(key, null);
+        }
+        hits.increment();
+        if (shouldRefreshEarly(entry)) {
+            earlyRefreshes.increment();
+            try {
+                return load(key, entry.value);
+            } catch (RuntimeException e) {
+                // 缓存中的 value 还没有过期，刷新失败不影响这次读取
+                logger.warn("cache {} failed to refresh {} early, serving cached value", name, key, e);
+                return entry.value;
+            }
+        }
+        return entry.value;
+    }
+
+    /**
+     * @return 存在的 key 到 value，缓存和数据源中都不存在的 key 不在结果中
+     */
+    public Map<String, V> getAll(Collection<String> keys) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+        Map<String, V> result = new LinkedHashMap<>(distinct.size() * 2);
+        List<String> missing = new ArrayList<>();
+        List<String> refreshing = new ArrayList<>();
+        try (Jedis jedis = provider.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<byte[]>> values = new ArrayList<>(distinct.size());
+            List<Response<Long>> ttls = new ArrayList<>(distinct.size());
+            for (String key : distinct) {
+                values.add(pipeline.get(dataKey(key)));
+                ttls.add(pipeline.pttl(dataKey(key)));
+            }
+            pipeline.sync();
+            for (int i = 0; i < distinct.size(); i++) {
+                Entry<V> entry = decode(values.get(i).get(), ttls.get(i).get());
+                if (entry == null) {
+                    misses.increment();
+                    missing.add(distinct.get(i));
+                    continue;
+                }
+                hits.increment();
+                result.put(distinct.get(i), entry.value);
+                if (shouldRefreshEarly(entry)) {
+                    earlyRefreshes.increment();
+                    refreshing.add(distinct.get(i));
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            result.putAll(loadAll(missing));
+        }
+        if (!refreshing.isEmpty()) {
+            // 与未命中的 key 分开加载：刷新失败时缓存中的 value 还没有过期，不影响这次读取
+            try {
+                result.putAll(loadAll(refreshing));
+            } catch (RuntimeException e) {
+                logger.warn("cache {} failed to refresh {} early, serving cached values", name, refreshing, e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 直接写入缓存，例如更新数据源之后
+     */
+    public void put(String key, V value) {
+        byte[] bytes = encode(value, 0);
+        provider.execute(jedis -> jedis.psetex(dataKey(key), ttlMillis(), bytes));
+    }
+
+    public void invalidate(String key) {
+        provider.execute(jedis -> jedis.del(dataKey(key)));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return 调用数据源的次数，{@link CacheLoader#loadAll} 每次调用算一次
+     */
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getEarlyRefreshes() {
+        return earlyRefreshes.sum();
+    }
+
+    /**
+     * @return 因为其他 JVM 正在加载而等待的次数
+     */
+    public long getWaits() {
+        return waits.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("redis.cache.requests", this, ReadThroughCache::getHits)
+                .tags("cache", name, "result", "hit").register(registry);
+        FunctionCounter.builder("redis.cache.requests", this, ReadThroughCache::getMisses)
+                .tags("cache", name, "result", "miss").register(registry);
+        FunctionCounter.builder("redis.cache.loads", this, ReadThroughCache::getLoads)
+                .tag("cache", name).register(registry);
+        FunctionCounter.builder("redis.cache.early.refreshes", this, ReadThroughCache::getEarlyRefreshes)
+                .tag("cache", name).register(registry);
+        FunctionCounter.builder("redis.cache.waits", this, ReadThroughCache::getWaits)
+                .tag("cache", name).register(registry);
+    }
+
+    /**
+     * JVM 内合并：第一个线程负责加载，其他线程等待同一个 future
+     *
+     * @param cached 提前刷新时缓存中的 value，未命中时为 null
+     */
+    private V load(String key, V cached) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            V value = loadAcrossJvms(key, cached);
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private V loadAcrossJvms(String key, V cached) {
+        String marker = "loading:" + name + ":" + key;
+        String token = UUID.randomUUID().toString();
+        boolean marked = "OK".equals(provider.execute(jedis ->
+                jedis.set(marker, token, "NX", "PX", options.getLoadingTimeoutMillis())));
+        if (!marked) {
+            if (cached != null) {
+                return cached;
+            }
+            waits.increment();
+            V loaded = awaitOtherLoader(key, marker);
+            if (loaded != null) {
+                return loaded;
+            }
+        }
+        try {
+            if (cached == null) {
+                // 读缓存与抢到标记之间，其他 JVM 可能刚完成加载并删除了标记
+                Entry<V> entry = provider.execute(jedis -> read(jedis, key));
+                if (entry != null) {
+                    return entry.value;
+                }
+            }
+            long start = System.nanoTime();
+            V value = invokeLoader(() -> loader.load(key), key);
+            if (value != null) {
+                byte[] bytes = encode(value, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                provider.execute(jedis -> jedis.psetex(dataKey(key), ttlMillis(), bytes));
+            }
+            return value;
+        } finally {
+            if (marked) {
+                // 加载超过 loadingTimeoutMillis 时标记可能已过期并被其他 JVM 抢到，只删除自己的标记
+                provider.execute(jedis -> RELEASE_MARKER.eval(jedis, Collections.singletonList(marker),
+                        Collections.singletonList(token)));
+            }
+        }
+    }
+
+    /**
+     * @return 其他 JVM 加载的 value；标记已删除但缓存中没有 value（加载失败或数据不存在）或等待超时时返回 null
+     */
+    private V awaitOtherLoader(String key, String marker) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.getLoadingTimeoutMillis());
+        while (System.nanoTime() < deadline) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(options.getPollMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while waiting for " + key + " to be loaded", e);
+            }
+            try (Jedis jedis = provider.getResource()) {
+                Pipeline pipeline = jedis.pipelined();
+                Response<byte[]> value = pipeline.get(dataKey(key));
+                Response<Boolean> loading = pipeline.exists(marker);
+                pipeline.sync();
+                if (value.get() != null) {
+                    return decode(value.get(), -1).value;
+                }
+                if (!loading.get()) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private Map<String, V> loadAll(List<String> keys) {
+        Map<String, CompletableFuture<V>> owned = new LinkedHashMap<>();
+        Map<String, CompletableFuture<V>> waiting = new LinkedHashMap<>();
+        for (String key : keys) {
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+            if (existing == null) {
+                owned.put(key, future);
+            } else {
+                waiting.put(key, existing);
+            }
+        }
+
+        Map<String, V> result = new LinkedHashMap<>();
+        if (!owned.isEmpty()) {
+            try {
+                long start = System.nanoTime();
+                Map<String, V> loaded = invokeLoader(() -> loader.loadAll(owned.keySet()), owned.keySet());
+                long delta = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                try (Jedis jedis = provider.getResource()) {
+                    Pipeline pipeline = jedis.pipelined();
+                    for (String key : owned.keySet()) {
+                        V value = loaded.get(key);
+                        if (value != null) {
+                            pipeline.psetex(dataKey(key), ttlMillis(), encode(value, delta));
+                            result.put(key, value);
+                        }
+                    }
+                    pipeline.sync();
+                }
+                owned.forEach((key, future) -> future.complete(loaded.get(key)));
+            } catch (RuntimeException e) {
+                owned.values().forEach(future -> future.completeExceptionally(e));
+                throw e;
+            } finally {
+                owned.forEach(inFlight::remove);
+            }
+        }
+        for (Map.Entry<String, CompletableFuture<V>> entry : waiting.entrySet()) {
+            V value = join(entry.getValue());
+            if (value != null) {
+                result.put(entry.getKey(), value);
+            }
+        }
+        return result;
+    }
+
+    private <T> T invokeLoader(Callable<T> call, Object keys) {
+        try {
+            T value = call.call();
+            loads.increment();
+            return value;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("failed to load " + keys, e);
+        }
+    }
+
+    private boolean shouldRefreshEarly(Entry<V> entry) {
+        if (options.getBeta() == 0 || entry.ttlMillis <= 0) {
+            return false;
+        }
+        double gap = entry.deltaMillis * options.getBeta() * -Math.log(1 - ThreadLocalRandom.current().nextDouble());
+        return gap >= entry.ttlMillis;
+    }
+
+    private long ttlMillis() {
+        double jitter = options.getJitter() * (ThreadLocalRandom.current().nextDouble() * 2 - 1);
+        return Math.max(1, Math.round(options.getTtlMillis() * (1 + jitter)));
+    }
+
+    private Entry<V> read(Jedis jedis, String key) {
+        Pipeline pipeline = jedis.pipelined();
+        Response<byte[]> value = pipeline.get(dataKey(key));
+        Response<Long> ttl = pipeline.pttl(dataKey(key));
+        pipeline.sync();
+        return decode(value.get(), ttl.get());
+    }
+
+    private byte[] dataKey(String key) {
+        return SafeEncoder.encode(name + ":" + key);
+    }
+
+    private byte[] encode(V value, long deltaMillis) {
+        ByteWriter out = ByteWriter.local();
+        out.writeVarLong(deltaMillis);
+        codec.encode(value, out);
+        return out.toByteArray();
+    }
+
+    private Entry<V> decode(byte[] bytes, long ttlMillis) {
+        if (bytes == null) {
+            return null;
+        }
+        ByteReader in = ByteReader.local(bytes);
+        long deltaMillis = in.readVarLong();
+        return new Entry<>(codec.decode(in), deltaMillis, ttlMillis);
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private static final class Entry<V> {
+
+        final V value;
+
+        final long deltaMillis;
+
+        /**
+         * 读取时的 PTTL，没有过期时间时为 -1
+         */
+        final long ttlMillis;
+
+        Entry(V value, long deltaMillis, long ttlMillis) {
+            this.value = value;
+            this.deltaMillis = deltaMillis;
+            this.ttlMillis = ttlMillis;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.flyingideal.redislearn.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * W-TinyLFU 淘汰策略：新 key 先进入容量约 1% 的窗口区（LRU），从窗口区淘汰出来的 key 作为候选者，
+ * 与主区（LRU）最久未访问的 key 比较 {@link FrequencySketch} 估算的访问频率，频率更高者留在主区。
+ *
+ * 窗口区让突发的新热点有机会积累频率，频率过滤避免一次性扫描的 key 把主区的热点挤出去。
+ * 只维护 key 的顺序，不保存 value；非线程安全，由调用方加锁。
+ *
+ * @author yanchao
+ * @date 2026/10/18 20:10
+ */
+final class TinyLfuPolicy {
+
+    private final FrequencySketch sketch;
+
+    private final int windowCapacity;
+
+    private final int mainCapacity;
+
+    private final LinkedHashMap<String, Boolean> window = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LinkedHashMap<String, Boolean> main = new LinkedHashMap<>(16, 0.75f, true);
+
+    TinyLfuPolicy(int maximumSize) {
+        this.sketch = new FrequencySketch(maximumSize);
+        this.windowCapacity = Math.max(1, maximumSize / 100);
+        this.mainCapacity = maximumSize - windowCapacity;
+    }
+
+    /**
+     * 命中已缓存的 key
+     */
+    void recordAccess(String key) {
+        sketch.increment(key);
+        if (window.get(key) == null) {
+            main.get(key);
+        }
+    }
+
+    /**
+     * 新缓存一个 key
+     *
+     * @return 需要淘汰的 key，可能包含刚加入的 key 本身
+     */
+    List<String> add(String key) {
+        sketch.increment(key);
+        if (main.containsKey(key)) {
+            main.get(key);
+            return Collections.emptyList();
+        }
+        window.put(key, Boolean.TRUE);
+        List<String> evicted = new ArrayList<>(1);
+        while (window.size() > windowCapacity) {
+            Iterator<String> eldest = window.keySet().iterator();
+            String candidate = eldest.next();
+            eldest.remove();
+            if (main.size() < mainCapacity) {
+                main.put(candidate, Boolean.TRUE);
+                continue;
+            }
+            String victim = main.keySet().iterator().next();
+            if (sketch.frequency(candidate) > sketch.frequency(victim)) {
+                main.remove(victim);
+                main.put(candidate, Boolean.TRUE);
+                evicted.add(victim);
+            } else {
+                evicted.add(candidate);
+            }
+        }
+        return evicted;
+    }
+
+    void remove(String key) {
+        if (window.remove(key) == null) {
+            main.remove(key);
+        }
+    }
+
+    void clear() {
+        window.clear();
+        main.clear();
+    }
+}
@@ -0,0 +1,507 @@
+package com.flyingideal.redislearn.cluster;
+
+import com.flyingideal.redislearn.leaderboard.WeightedScores;
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import com.flyingideal.redislearn.pool.RedisConnectionProperties;
+import com.flyingideal.redislearn.setop.ClientSetAlgebra;
+import com.flyingideal.redislearn.setop.LoadedSet;
+import com.flyingideal.redislearn.setop.SetOperation;
+import com.flyingideal.redislearn.setop.SetResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.ZParams;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * redis cluster 客户端：在 {@link JedisCluster} 之上处理跨 slot 的多 key 命令。
+ *
+ * <ul>
+ *     <li>MGET / MSET / DEL：按 slot 拆分，同一节点的各 slot 放进一个 pipeline，各节点的 pipeline 并行执行，
+ *     结果按参数顺序拼回。遇到 MOVED / ASK 或节点连接失败时刷新 slot 映射，受影响的 slot 改由 JedisCluster 逐个执行</li>
+ *     <li>SINTER / SUNION / SDIFF 及 *STORE、ZUNIONSTORE / ZINTERSTORE：所有 key 在同一个 slot 时直接执行原命令，
+ *     否则用 SSCAN / ZSCAN 并行读出各个集合，在客户端计算；结果先分批写入与目标 key 同 slot 的临时 key，再 RENAME 为目标 key。
+ *     集合运算与 {@link ClientSetAlgebra} 相同，加权和聚合与 {@link WeightedScores} 相同，这里只负责从各节点读取和写回</li>
+ * </ul>
+ * 相关的 key 用 {@link HashTags} 生成相同的 hash tag，就能走原生的多 key 命令，不需要客户端计算。
+ * 客户端计算需要把参与运算的集合全部读入内存，只适合中小集合。
+ *
+ * @author yanchao
+ * @date 2026/10/18 22:00
+ */
+public class ClusterClient implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterClient.class);
+
+    private static final int WRITE_CHUNK = 1000;
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final JedisCluster cluster;
+
+    private final ExecutorService executor;
+
+    private final int scanCount;
+
+    private volatile SlotMap slotMap;
+
+    private final LongAdder redirects = new LongAdder();
+
+    public ClusterClient(Set<HostAndPort> seeds) {
+        this(seeds, new RedisConnectionProperties(), 4, 1000);
+    }
+
+    /**
+     * @param properties 使用其中的超时、密码和 redis.pool.* 配置，host / port 被忽略
+     * @param threads    并行执行各节点 pipeline 及扫描集合的线程数
+     * @param scanCount  SSCAN / ZSCAN 每次的 COUNT
+     */
+    public ClusterClient(Set<HostAndPort> seeds, RedisConnectionProperties properties, int threads, int scanCount) {
+        this.cluster = new JedisCluster(seeds, properties.getConnectionTimeout(), properties.getSoTimeout(), 5,
+                properties.getPassword(), JedisConnectionProvider.buildPoolConfig(properties.getPool()));
+        this.scanCount = scanCount;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "redis-cluster-batch-" + THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        refreshSlotMap();
+    }
+
+    /**
+     * 单 key 命令及同 slot 的多 key 命令直接使用 JedisCluster
+     */
+    public JedisCluster getCluster() {
+        return cluster;
+    }
+
+    /**
+     * @return 与 keys 顺序相同，不存在的 key 为 null
+     */
+    public List<String> mget(String... keys) {
+        Map<Integer, List<Integer>> positions = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            positions.computeIfAbsent(HashTags.slot(keys[i]), slot -> new ArrayList<>()).add(i);
+        }
+        Map<Integer, String[]> args = new LinkedHashMap<>(positions.size() * 2);
+        positions.forEach((slot, indexes) -> {
+            String[] slotKeys = new String[indexes.size()];
+            for (int i = 0; i < slotKeys.length; i++) {
+                slotKeys[i] = keys[indexes.get(i)];
+            }
+            args.put(slot, slotKeys);
+        });
+        Map<Integer, List<String>> values = bySlot(args, Pipeline::mget, JedisCluster::mget);
+        String[] result = new String[keys.length];
+        positions.forEach((slot, indexes) -> {
+            List<String> slotValues = values.get(slot);
+            for (int i = 0; i < indexes.size(); i++) {
+                result[indexes.get(i)] = slotValues.get(i);
+            }
+        });
+        return Arrays.asList(result);
+    }
+
+    /**
+     * 各 slot 分别原子写入，整体不是原子的
+     */
+    public void mset(String... keysvalues) {
+        if (keysvalues.length % 2 != 0) {
+            throw new IllegalArgumentException("wrong number of arguments for mset");
+        }
+        Map<Integer, List<String>> grouped = new LinkedHashMap<>();
+        for (int i = 0; i < keysvalues.length; i += 2) {
+            List<String> slotArgs = grouped.computeIfAbsent(HashTags.slot(keysvalues[i]), slot -> new ArrayList<>());
+            slotArgs.add(keysvalues[i]);
+            slotArgs.add(keysvalues[i + 1]);
+        }
+        bySlot(toArrays(grouped), Pipeline::mset, JedisCluster::mset);
+    }
+
+    /**
+     * @return 删除的 key 个数
+     */
+    public long del(String... keys) {
+        Map<Integer, List<String>> grouped = new LinkedHashMap<>();
+        for (String key : keys) {
+            grouped.computeIfAbsent(HashTags.slot(key), slot -> new ArrayList<>()).add(key);
+        }
+        long deleted = 0;
+        for (Long count : bySlot(toArrays(grouped), Pipeline::del, JedisCluster::del).values()) {
+            deleted += count;
+        }
+        return deleted;
+    }
+
+    public Set<String> sinter(String... keys) {
+        return HashTags.sameSlot(keys) ? cluster.sinter(keys) : compute(SetOperation.INTER, keys).toSet();
+    }
+
+    public Set<String> sunion(String... keys) {
+        return HashTags.sameSlot(keys) ? cluster.sunion(keys) : compute(SetOperation.UNION, keys).toSet();
+    }
+
+    public Set<String> sdiff(String... keys) {
+        return HashTags.sameSlot(keys) ? cluster.sdiff(keys) : compute(SetOperation.DIFF, keys).toSet();
+    }
+
+    /**
+     * @return 结果集合的元素个数
+     */
+    public long sinterstore(String destination, String... keys) {
+        return HashTags.sameSlot(prepend(destination, keys)) ? cluster.sinterstore(destination, keys)
+                : storeSet(destination, compute(SetOperation.INTER, keys));
+    }
+
+    public long sunionstore(String destination, String... keys) {
+        return HashTags.sameSlot(prepend(destination, keys)) ? cluster.sunionstore(destination, keys)
+                : storeSet(destination, compute(SetOperation.UNION, keys));
+    }
+
+    public long sdiffstore(String destination, String... keys) {
+        return HashTags.sameSlot(prepend(destination, keys)) ? cluster.sdiffstore(destination, keys)
+                : storeSet(destination, compute(SetOperation.DIFF, keys));
+    }
+
+    public long zunionstore(String dstkey, String... sets) {
+        return zunionstore(dstkey, WeightedScores.ones(sets.length), ZParams.Aggregate.SUM, sets);
+    }
+
+    /**
+     * 与 ZUNIONSTORE dstkey numkeys key... WEIGHTS weight... AGGREGATE aggregate 相同
+     *
+     * @return 结果有序集合的元素个数
+     */
+    public long zunionstore(String dstkey, double[] weights, ZParams.Aggregate aggregate, String... sets) {
+        checkWeights(weights, sets);
+        if (HashTags.sameSlot(prepend(dstkey, sets))) {
+            return cluster.zunionstore(dstkey, new ZParams().weightsByDouble(weights).aggregate(aggregate), sets);
+        }
+        List<Map<String, Double>> loaded = loadAll(sets, this::loadZSet);
+        Map<String, Double> result = new HashMap<>();
+        for (int i = 0; i < loaded.size(); i++) {
+            double weight = weights[i];
+            loaded.get(i).forEach((member, score) ->
+                    result.merge(member, WeightedScores.weighted(score, weight),
+                            (a, b) -> WeightedScores.aggregate(aggregate, a, b)));
+        }
+        return storeZSet(dstkey, result);
+    }
+
+    public long zinterstore(String dstkey, String... sets) {
+        return zinterstore(dstkey, WeightedScores.ones(sets.length), ZParams.Aggregate.SUM, sets);
+    }
+
+    public long zinterstore(String dstkey, double[] weights, ZParams.Aggregate aggregate, String... sets) {
+        checkWeights(weights, sets);
+        if (HashTags.sameSlot(prepend(dstkey, sets))) {
+            return cluster.zinterstore(dstkey, new ZParams().weightsByDouble(weights).aggregate(aggregate), sets);
+        }
+        List<Map<String, Double>> loaded = loadAll(sets, this::loadZSet);
+        Map<String, Double> result = new HashMap<>();
+        loaded.get(0).forEach((member, score) -> result.put(member, WeightedScores.weighted(score, weights[0])));
+        for (int i = 1; i < loaded.size() && !result.isEmpty(); i++) {
+            Map<String, Double> other = loaded.get(i);
+            double weight = weights[i];
+            Iterator<Map.Entry<String, Double>> iterator = result.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Double> entry = iterator.next();
+                Double score = other.get(entry.getKey());
+                if (score == null) {
+                    iterator.remove();
+                } else {
+                    entry.setValue(WeightedScores.aggregate(aggregate, entry.getValue(),
+                            WeightedScores.weighted(score, weight)));
+                }
+            }
+        }
+        return storeZSet(dstkey, result);
+    }
+
+    /**
+     * @return 批量命令遇到 MOVED / ASK 或节点连接失败后改为逐个 slot 执行的次数
+     */
+    public long getRedirects() {
+        return redirects.sum();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            cluster.close();
+        } catch (IOException e) {
+            logger.warn("close cluster failed", e);
+        }
+    }
+
+    /**
+     * 同一节点的 slot 在一个 pipeline 中执行，涉及多个节点时各节点并行
+     *
+     * @param pipelined 在 pipeline 中执行一个 slot 的命令
+     * @param direct    pipeline 失败时由 JedisCluster 执行一个 slot 的命令
+     * @return slot 到结果
+     */
+    private <T> Map<Integer, T> bySlot(Map<Integer, String[]> args,
+                                       BiFunction<Pipeline, String[], Response<T>> pipelined,
+                                       BiFunction<JedisCluster, String[], T> direct) {
+        SlotMap map = slotMap;
+        Map<String, List<Integer>> byNode = new LinkedHashMap<>();
+        for (Integer slot : args.keySet()) {
+            String node = map.nodeOf(slot);
+            byNode.computeIfAbsent(node == null ? "" : node, n -> new ArrayList<>()).add(slot);
+        }
+        Map<Integer, T> results = new HashMap<>(args.size() * 2);
+        if (byNode.size() == 1) {
+            Map.Entry<String, List<Integer>> only = byNode.entrySet().iterator().next();
+            results.putAll(runOnNode(only.getKey(), only.getValue(), args, pipelined, direct));
+            return results;
+        }
+        List<CompletableFuture<Map<Integer, T>>> futures = new ArrayList<>(byNode.size());
+        byNode.forEach((node, slots) -> futures.add(CompletableFuture.supplyAsync(
+                () -> runOnNode(node, slots, args, pipelined, direct), executor)));
+        try {
+            for (CompletableFuture<Map<Integer, T>> future : futures) {
+                results.putAll(future.join());
+            }
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+        return results;
+    }
+
+    private <T> Map<Integer, T> runOnNode(String node, List<Integer> slots, Map<Integer, String[]> args,
+                                          BiFunction<Pipeline, String[], Response<T>> pipelined,
+                                          BiFunction<JedisCluster, String[], T> direct) {
+        Map<Integer, T> results = new HashMap<>(slots.size() * 2);
+        JedisPool pool = cluster.getClusterNodes().get(node);
+        List<Integer> retry = slots;
+        if (pool != null) {
+            retry = new ArrayList<>();
+            try (Jedis jedis = pool.getResource()) {
+                Pipeline pipeline = jedis.pipelined();
+                List<Response<T>> responses = new ArrayList<>(slots.size());
+                for (Integer slot : slots) {
+                    responses.add(pipelined.apply(pipeline, args.get(slot)));
+                }
+                pipeline.sync();
+                for (int i = 0; i < slots.size(); i++) {
+                    try {
+                        results.put(slots.get(i), responses.get(i).get());
+                    } catch (JedisRedirectionException e) {
+                        retry.add(slots.get(i));
+                    }
+                }
+            } catch (JedisConnectionException e) {
+                logger.warn("cluster node {} pipeline failed, falling back to per-slot commands: {}", node,
+                        e.getMessage());
+                retry = slots;
+                results.clear();
+            }
+        }
+        if (!retry.isEmpty()) {
+            redirects.add(retry.size());
+            refreshSlotMap();
+            for (Integer slot : retry) {
+                results.put(slot, direct.apply(cluster, args.get(slot)));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 依次向已知节点请求 CLUSTER SLOTS，直到有一个成功
+     */
+    private synchronized void refreshSlotMap() {
+        JedisException last = null;
+        for (JedisPool pool : cluster.getClusterNodes().values()) {
+            try (Jedis jedis = pool.getResource()) {
+                slotMap = SlotMap.load(jedis);
+                return;
+            } catch (JedisException e) {
+                last = e;
+                logger.debug("load cluster slots failed: {}", e.getMessage());
+            }
+        }
+        if (slotMap == null) {
+            throw last != null ? last : new JedisConnectionException("no reachable cluster node");
+        }
+    }
+
+    private SetResult compute(SetOperation operation, String... keys) {
+        return ClientSetAlgebra.compute(operation, loadAll(keys, this::loadSet));
+    }
+
+    /**
+     * 并行读出各个 key，结果与 keys 顺序相同
+     */
+    private <T> List<T> loadAll(String[] keys, Function<String, T> loader) {
+        if (keys.length == 0) {
+            throw new IllegalArgumentException("at least one key is required");
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(keys.length);
+        for (String key : keys) {
+            futures.add(CompletableFuture.supplyAsync(() -> loader.apply(key), executor));
+        }
+        List<T> loaded = new ArrayList<>(keys.length);
+        try {
+            for (CompletableFuture<T> future : futures) {
+                loaded.add(future.join());
+            }
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+        return loaded;
+    }
+
+    private LoadedSet loadSet(String key) {
+        LoadedSet members = new LoadedSet();
+        ScanParams params = new ScanParams().count(scanCount);
+        String cursor = ScanParams.SCAN_POINTER_START;
+        do {
+            ScanResult<String> page = cluster.sscan(key, cursor, params);
+            for (String member : page.getResult()) {
+                members.add(member);
+            }
+            cursor = page.getStringCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        return members;
+    }
+
+    private Map<String, Double> loadZSet(String key) {
+        Map<String, Double> members = new HashMap<>();
+        ScanParams params = new ScanParams().count(scanCount);
+        String cursor = ScanParams.SCAN_POINTER_START;
+        do {
+            ScanResult<Tuple> page = cluster.zscan(key, cursor, params);
+            for (Tuple tuple : page.getResult()) {
+                members.put(tuple.getElement(), tuple.getScore());
+            }
+            cursor = page.getStringCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        return members;
+    }
+
+    private long storeSet(String destination, SetResult members) {
+        if (members.size() == 0) {
+            cluster.del(destination);
+            return 0;
+        }
+        String temp = HashTags.colocated(destination, ":setop:" + UUID.randomUUID());
+        try {
+            List<String> chunk = new ArrayList<>(Math.min(WRITE_CHUNK, members.size()));
+            for (int i = 0; i < members.size(); i++) {
+                chunk.add(members.get(i));
+                if (chunk.size() == WRITE_CHUNK) {
+                    cluster.sadd(temp, chunk.toArray(new String[0]));
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                cluster.sadd(temp, chunk.toArray(new String[0]));
+            }
+            cluster.rename(temp, destination);
+        } catch (RuntimeException e) {
+            deleteQuietly(temp, e);
+            throw e;
+        }
+        return members.size();
+    }
+
+    private long storeZSet(String dstkey, Map<String, Double> members) {
+        if (members.isEmpty()) {
+            cluster.del(dstkey);
+            return 0;
+        }
+        String temp = HashTags.colocated(dstkey, ":zstore:" + UUID.randomUUID());
+        try {
+            Map<String, Double> chunk = new HashMap<>(Math.min(WRITE_CHUNK, members.size()) * 2);
+            for (Map.Entry<String, Double> entry : members.entrySet()) {
+                chunk.put(entry.getKey(), entry.getValue());
+                if (chunk.size() == WRITE_CHUNK) {
+                    cluster.zadd(temp, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                cluster.zadd(temp, chunk);
+            }
+            cluster.rename(temp, dstkey);
+        } catch (RuntimeException e) {
+            deleteQuietly(temp, e);
+            throw e;
+        }
+        return members.size();
+    }
+
+    /**
+     * 写入失败时删除写了一半的临时 key，删除本身的异常附加到原异常上
+     */
+    private void deleteQuietly(String key, RuntimeException cause) {
+        try {
+            cluster.del(key);
+        } catch (RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * 与 redis 相同，inf * 0 按 0 计算
+     */
+    private static void checkWeights(double[] weights, String[] sets) {
+        if (weights.length != sets.length) {
+            throw new IllegalArgumentException("weights length " + weights.length + " != sets length " + sets.length);
+        }
+        if (sets.length == 0) {
+            throw new IllegalArgumentException("at least one set is required");
+        }
+    }
+
+    private static String[] prepend(String first, String[] rest) {
+        String[] all = new String[rest.length + 1];
+        all[0] = first;
+        System.arraycopy(rest, 0, all, 1, rest.length);
+        return all;
+    }
+
+    private static Map<Integer, String[]> toArrays(Map<Integer, List<String>> grouped) {
+        Map<Integer, String[]> args = new LinkedHashMap<>(grouped.size() * 2);
+        grouped.forEach((slot, values) -> args.put(slot, values.toArray(new String[0])));
+        return args;
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        return cause instanceof RuntimeException ? (RuntimeException) cause : e;
+    }
+}
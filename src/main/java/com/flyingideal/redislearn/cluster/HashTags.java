@@ -0,0 +1,87 @@
+package com.flyingideal.redislearn.cluster;
+
+import redis.clients.jedis.JedisCluster;
+import redis.clients.util.JedisClusterCRC16;
+
+/**
+ * hash tag 工具：redis cluster 只用 key 中第一个 { 与其后第一个 } 之间的非空部分计算 slot，
+ * 相关的 key 带上相同的 tag 就会落在同一个 slot，可以一起用于 MGET / 事务 / Lua / *STORE 等多 key 命令。
+ *
+ * @author yanchao
+ * @date 2026/10/18 21:50
+ */
+public final class HashTags {
+
+    private HashTags() {
+    }
+
+    /**
+     * @return key 所在的 slot，0 ~ 16383
+     */
+    public static int slot(String key) {
+        return JedisClusterCRC16.getSlot(key);
+    }
+
+    /**
+     * @return key 的 hash tag，没有时返回 null
+     */
+    public static String tagOf(String key) {
+        int open = key.indexOf('{');
+        int close = open < 0 ? -1 : key.indexOf('}', open + 1);
+        return close > open + 1 ? key.substring(open + 1, close) : null;
+    }
+
+    /**
+     * 例如 tagged("user:1", "profile") 为 {user:1}:profile，与 tagged("user:1", "orders") 在同一个 slot
+     */
+    public static String tagged(String tag, String name) {
+        return "{" + tag + "}:" + name;
+    }
+
+    /**
+     * 生成与 key 在同一个 slot 的新 key：key 已有 hash tag 时直接追加后缀；没有 tag 也不含花括号时把整个 key 作为 tag；
+     * 含有花括号但不构成 tag 时（例如 a{}b、a}b{）加上 slot 相同的 tag，包一层花括号会改变计算 slot 的部分。
+     * 用于 *STORE 的临时 key，写完后 RENAME 为目标 key 不会跨 slot
+     */
+    public static String colocated(String key, String suffix) {
+        if (tagOf(key) != null) {
+            return key + suffix;
+        }
+        if (key.indexOf('{') < 0 && key.indexOf('}') < 0) {
+            return "{" + key + "}" + suffix;
+        }
+        return tagged(SlotTags.TAGS[slot(key)], key + suffix);
+    }
+
+    /**
+     * @return 所有 key 是否在同一个 slot
+     */
+    public static boolean sameSlot(String... keys) {
+        for (int i = 1; i < keys.length; i++) {
+            if (slot(keys[i]) != slot(keys[0])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 每个 slot 一个最短的、不含花括号的 tag，第一次用到时生成
+     */
+    private static final class SlotTags {
+
+        static final String[] TAGS = new String[JedisCluster.HASHSLOTS];
+
+        static {
+            int remaining = TAGS.length;
+            for (int i = 0; remaining > 0; i++) {
+                String tag = Integer.toString(i, Character.MAX_RADIX);
+                int slot = slot(tag);
+                if (TAGS[slot] == null) {
+                    TAGS[slot] = tag;
+                    remaining--;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.flyingideal.redislearn.cluster;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisClusterInfoCache;
+import redis.clients.util.SafeEncoder;
+
+import java.util.List;
+
+/**
+ * CLUSTER SLOTS 的快照：每个 slot 的主节点，节点用 JedisCluster#getClusterNodes() 中的 host:port 表示
+ *
+ * @author yanchao
+ * @date 2026/10/18 21:55
+ */
+final class SlotMap {
+
+    static final int SLOTS = 16384;
+
+    private final String[] owners = new String[SLOTS];
+
+    @SuppressWarnings("unchecked")
+    static SlotMap load(Jedis jedis) {
+        SlotMap map = new SlotMap();
+        for (Object entry : jedis.clusterSlots()) {
+            List<Object> range = (List<Object>) entry;
+            if (range.size() < 3) {
+                continue;
+            }
+            int start = ((Long) range.get(0)).intValue();
+            int end = ((Long) range.get(1)).intValue();
+            List<Object> master = (List<Object>) range.get(2);
+            String node = JedisClusterInfoCache.getNodeKey(new HostAndPort(SafeEncoder.encode((byte[]) master.get(0)),
+                    ((Long) master.get(1)).intValue()));
+            for (int slot = start; slot <= end; slot++) {
+                map.owners[slot] = node;
+            }
+        }
+        return map;
+    }
+
+    /**
+     * @return 负责这个 slot 的节点，slot 未分配时为 null
+     */
+    String nodeOf(int slot) {
+        return owners[slot];
+    }
+}
@@ -0,0 +1,97 @@
+package com.flyingideal.redislearn.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 解码游标，与 {@link ByteWriter} 的写入方法一一对应。每个线程复用一个实例（{@link #local(byte[])}）
+ *
+ * @author yanchao
+ * @date 2026/10/17 22:10
+ */
+public final class ByteReader {
+
+    private static final ThreadLocal<ByteReader> LOCAL = ThreadLocal.withInitial(ByteReader::new);
+
+    byte[] bytes;
+
+    int position;
+
+    int limit;
+
+    ByteReader() {
+    }
+
+    /**
+     * @return 当前线程的游标，指向 bytes 的开头。嵌套使用会覆盖外层的游标，{@link Codec} 的实现中不要调用
+     */
+    public static ByteReader local(byte[] bytes) {
+        return LOCAL.get().reset(bytes, 0, bytes.length);
+    }
+
+    ByteReader reset(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.position = offset;
+        this.limit = offset + length;
+        return this;
+    }
+
+    public int readByte() {
+        require(1);
+        return bytes[position++] & 0xFF;
+    }
+
+    public long readLong() {
+        require(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    public long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    public long readVarLongZigZag() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * @return 剩余的所有字节按 UTF-8 解码
+     */
+    public String readUtf8() {
+        String value = new String(bytes, position, limit - position, StandardCharsets.UTF_8);
+        position = limit;
+        return value;
+    }
+
+    /**
+     * @return 剩余的所有字节
+     */
+    public byte[] readBytes() {
+        byte[] value = Arrays.copyOfRange(bytes, position, limit);
+        position = limit;
+        return value;
+    }
+
+    public int remaining() {
+        return limit - position;
+    }
+
+    private void require(int count) {
+        if (limit - position < count) {
+            throw new IllegalArgumentException("need " + count + " bytes, " + (limit - position) + " remaining");
+        }
+    }
+}
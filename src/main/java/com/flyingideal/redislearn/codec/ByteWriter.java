@@ -0,0 +1,140 @@
+package com.flyingideal.redislearn.codec;
+
+import java.util.Arrays;
+
+/**
+ * 可扩容的编码缓冲区。每个线程复用一个实例（{@link #local()}），编码时不再分配中间对象，
+ * 只在 {@link #toByteArray()} 时分配一次传给 jedis 的 byte[]。
+ *
+ * @author yanchao
+ * @date 2026/10/17 22:05
+ */
+public final class ByteWriter {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * 超过这个大小的缓冲区用完后不再保留，避免一次大 value 让线程长期占用大块内存
+     */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<ByteWriter> LOCAL = ThreadLocal.withInitial(ByteWriter::new);
+
+    byte[] buffer = new byte[INITIAL_CAPACITY];
+
+    int position;
+
+    ByteWriter() {
+    }
+
+    /**
+     * @return 当前线程的缓冲区，已清空。嵌套使用会覆盖外层的内容，{@link Codec} 的实现中不要调用
+     */
+    public static ByteWriter local() {
+        return LOCAL.get().reset();
+    }
+
+    ByteWriter reset() {
+        if (buffer.length > MAX_RETAINED_CAPACITY) {
+            buffer = new byte[INITIAL_CAPACITY];
+        }
+        position = 0;
+        return this;
+    }
+
+    public ByteWriter writeByte(int b) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) b;
+        return this;
+    }
+
+    public ByteWriter writeBytes(byte[] bytes) {
+        return writeBytes(bytes, 0, bytes.length);
+    }
+
+    public ByteWriter writeBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+        return this;
+    }
+
+    /**
+     * 8 字节大端序
+     */
+    public ByteWriter writeLong(long value) {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+        return this;
+    }
+
+    /**
+     * 无符号 varint，每字节 7 位，0~127 只占 1 字节，负数固定占 10 字节，负数请用 {@link #writeVarLongZigZag(long)}
+     */
+    public ByteWriter writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return this;
+    }
+
+    /**
+     * zigzag 编码后的 varint，绝对值小的负数也只占很少的字节
+     */
+    public ByteWriter writeVarLongZigZag(long value) {
+        return writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * UTF-8 编码，不分配中间的 byte[]
+     */
+    public ByteWriter writeUtf8(CharSequence value) {
+        int length = value.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                ensureCapacity(2 + length - i);
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensureCapacity(4 + length - i);
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // 不成对的代理字符与 String.getBytes 一样替换为 '?'
+                buffer[position++] = '?';
+            } else {
+                ensureCapacity(3 + length - i);
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    public int size() {
+        return position;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + extra));
+        }
+    }
+}
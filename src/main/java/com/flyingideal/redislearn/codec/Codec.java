@@ -0,0 +1,34 @@
+package com.flyingideal.redislearn.codec;
+
+/**
+ * value 与 redis 中 byte[] 之间的转换，配合 jedis 的 {@link redis.clients.jedis.BinaryJedis} 方法使用。
+ *
+ * 实现只需要写 {@link #encode(Object, ByteWriter)} / {@link #decode(ByteReader)}，
+ * 组合其他 codec 时也只调用这两个方法，不要在实现中调用 {@link #encode(Object)} / {@link #decode(byte[])}，
+ * 它们使用的线程私有缓冲区会被覆盖。
+ *
+ * @author yanchao
+ * @date 2026/10/17 22:00
+ */
+public interface Codec<T> {
+
+    void encode(T value, ByteWriter out);
+
+    /**
+     * @param in 只包含这一个 value 的字节
+     */
+    T decode(ByteReader in);
+
+    default byte[] encode(T value) {
+        ByteWriter writer = ByteWriter.local();
+        encode(value, writer);
+        return writer.toByteArray();
+    }
+
+    /**
+     * @return bytes 为 null（key 或 field 不存在）时返回 null
+     */
+    default T decode(byte[] bytes) {
+        return bytes == null ? null : decode(ByteReader.local(bytes));
+    }
+}
@@ -0,0 +1,75 @@
+package com.flyingideal.redislearn.codec;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import redis.clients.util.SafeEncoder;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 通过 {@link Codec} 读写 value 的常用命令，key 和 hash 字段名仍按 UTF-8 字符串处理。
+ * 传入 {@link CompressingCodec} 即可对大 value 透明压缩
+ *
+ * @author yanchao
+ * @date 2026/10/17 22:40
+ */
+public class CodecTemplate {
+
+    private final JedisConnectionProvider provider;
+
+    public CodecTemplate(JedisConnectionProvider provider) {
+        this.provider = provider;
+    }
+
+    public <T> void set(String key, T value, Codec<T> codec) {
+        byte[] bytes = codec.encode(value);
+        provider.execute(jedis -> jedis.set(SafeEncoder.encode(key), bytes));
+    }
+
+    public <T> T get(String key, Codec<T> codec) {
+        byte[] bytes = provider.execute(jedis -> jedis.get(SafeEncoder.encode(key)));
+        return codec.decode(bytes);
+    }
+
+    public <T> void setex(String key, int seconds, T value, Codec<T> codec) {
+        byte[] bytes = codec.encode(value);
+        provider.execute(jedis -> jedis.setex(SafeEncoder.encode(key), seconds, bytes));
+    }
+
+    /**
+     * @return 旧值，key 不存在时返回 null
+     */
+    public <T> T getSet(String key, T value, Codec<T> codec) {
+        byte[] bytes = codec.encode(value);
+        byte[] previous = provider.execute(jedis -> jedis.getSet(SafeEncoder.encode(key), bytes));
+        return codec.decode(previous);
+    }
+
+    public <T> void hset(String key, String field, T value, Codec<T> codec) {
+        byte[] bytes = codec.encode(value);
+        provider.execute(jedis -> jedis.hset(SafeEncoder.encode(key), SafeEncoder.encode(field), bytes));
+    }
+
+    public <T> T hget(String key, String field, Codec<T> codec) {
+        byte[] bytes = provider.execute(jedis -> jedis.hget(SafeEncoder.encode(key), SafeEncoder.encode(field)));
+        return codec.decode(bytes);
+    }
+
+    /**
+     * HMSET 写入 record 的所有非 null 字段，不删除 hash 中已有的其他字段
+     */
+    public <T> void putRecord(String key, T record, RecordCodec<T> codec) {
+        Map<byte[], byte[]> hash = codec.encode(record);
+        if (!hash.isEmpty()) {
+            provider.execute(jedis -> jedis.hmset(SafeEncoder.encode(key), hash));
+        }
+    }
+
+    /**
+     * 用 HMGET 只读取 schema 中的字段，回复中不包含字段名
+     */
+    public <T> T getRecord(String key, RecordCodec<T> codec) {
+        List<byte[]> values = provider.execute(jedis -> jedis.hmget(SafeEncoder.encode(key), codec.fieldNames()));
+        return codec.decode(values);
+    }
+}
@@ -0,0 +1,129 @@
+package com.flyingideal.redislearn.codec;
+
+/**
+ * 内置的 codec。
+ *
+ * 与 String 重载的对比，以 long 为例：123 用 String 方式是 3 字节的 "123"，varLong 为 1 字节；
+ * System.currentTimeMillis() 用 String 方式是 13 字节，varLong 为 6 字节，fixedLong 为 8 字节。
+ * 注意编码后的 value 不能再被 INCRBY / HINCRBY 等把 value 当作十进制字符串的命令使用。
+ *
+ * @author yanchao
+ * @date 2026/10/17 22:15
+ */
+public final class Codecs {
+
+    private Codecs() {
+    }
+
+    /**
+     * 与 jedis String 重载相同的 UTF-8 编码，可以与未使用 codec 的数据互通
+     */
+    public static final Codec<String> UTF8 = new Codec<String>() {
+        @Override
+        public void encode(String value, ByteWriter out) {
+            out.writeUtf8(value);
+        }
+
+        @Override
+        public String decode(ByteReader in) {
+            return in.readUtf8();
+        }
+    };
+
+    /**
+     * zigzag varint，适合绝对值较小的整数，1~10 字节
+     */
+    public static final Codec<Long> VAR_LONG = new Codec<Long>() {
+        @Override
+        public void encode(Long value, ByteWriter out) {
+            out.writeVarLongZigZag(value);
+        }
+
+        @Override
+        public Long decode(ByteReader in) {
+            return in.readVarLongZigZag();
+        }
+    };
+
+    /**
+     * zigzag varint，1~5 字节
+     */
+    public static final Codec<Integer> VAR_INT = new Codec<Integer>() {
+        @Override
+        public void encode(Integer value, ByteWriter out) {
+            out.writeVarLongZigZag(value);
+        }
+
+        @Override
+        public Integer decode(ByteReader in) {
+            return Math.toIntExact(in.readVarLongZigZag());
+        }
+    };
+
+    /**
+     * 固定 8 字节大端序，适合哈希值、随机 id 等高位经常非 0 的 long；大端序使得字节序与数值顺序一致
+     */
+    public static final Codec<Long> FIXED_LONG = new Codec<Long>() {
+        @Override
+        public void encode(Long value, ByteWriter out) {
+            out.writeLong(value);
+        }
+
+        @Override
+        public Long decode(ByteReader in) {
+            return in.readLong();
+        }
+    };
+
+    /**
+     * IEEE 754 的 8 字节表示
+     */
+    public static final Codec<Double> DOUBLE = new Codec<Double>() {
+        @Override
+        public void encode(Double value, ByteWriter out) {
+            out.writeLong(Double.doubleToRawLongBits(value));
+        }
+
+        @Override
+        public Double decode(ByteReader in) {
+            return Double.longBitsToDouble(in.readLong());
+        }
+    };
+
+    public static final Codec<Boolean> BOOLEAN = new Codec<Boolean>() {
+        @Override
+        public void encode(Boolean value, ByteWriter out) {
+            out.writeByte(value ? 1 : 0);
+        }
+
+        @Override
+        public Boolean decode(ByteReader in) {
+            return in.readByte() != 0;
+        }
+    };
+
+    /**
+     * 原样保存 byte[]
+     */
+    public static final Codec<byte[]> BYTES = new Codec<byte[]>() {
+        @Override
+        public void encode(byte[] value, ByteWriter out) {
+            out.writeBytes(value);
+        }
+
+        @Override
+        public byte[] decode(ByteReader in) {
+            return in.readBytes();
+        }
+
+        @Override
+        public byte[] encode(byte[] value) {
+            return value;
+        }
+
+        @Override
+        public byte[] decode(byte[] bytes) {
+            return bytes;
+        }
+    };
+}
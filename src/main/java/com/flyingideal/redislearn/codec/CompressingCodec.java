@@ -0,0 +1,98 @@
+package com.flyingideal.redislearn.codec;
+
+/**
+ * 在另一个 codec 外面加一层 LZ4 压缩，编码结果达到阈值且压缩后变小时才保存压缩数据：
+ * <pre>
+ * 0xFF varint(原始长度) lz4-block   压缩数据
+ * 0xFE 原始数据                      原始数据恰好以 0xFE / 0xFF 开头时的转义
+ * 其他                               原始数据，不加任何前缀
+ * </pre>
+ * UTF-8 文本不会以 0xFE / 0xFF 开头，所以小于阈值的字符串与 String 重载写入的完全相同，
+ * 已有的未压缩数据可以直接读取，也可以继续被 APPEND / GETRANGE 等命令使用；
+ * 压缩后的 value 不能再 APPEND，需要读出后整体重写。
+ *
+ * @author yanchao
+ * @date 2026/10/17 23:40
+ */
+public class CompressingCodec<T> implements Codec<T> {
+
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    private static final int COMPRESSED = 0xFF;
+
+    private static final int ESCAPED = 0xFE;
+
+    /**
+     * 内层 codec 的编码结果，与调用方传入的 out 分开
+     */
+    private static final ThreadLocal<ByteWriter> SCRATCH = ThreadLocal.withInitial(ByteWriter::new);
+
+    private final Codec<T> delegate;
+
+    private final int threshold;
+
+    private final CompressionMetrics metrics;
+
+    public CompressingCodec(Codec<T> delegate) {
+        this(delegate, DEFAULT_THRESHOLD, new CompressionMetrics("default"));
+    }
+
+    /**
+     * @param threshold 编码结果小于这个字节数时不压缩；LZ4 对几百字节以下的数据基本没有收益
+     */
+    public CompressingCodec(Codec<T> delegate, int threshold, CompressionMetrics metrics) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be positive: " + threshold);
+        }
+        this.delegate = delegate;
+        this.threshold = threshold;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void encode(T value, ByteWriter out) {
+        ByteWriter plain = SCRATCH.get().reset();
+        delegate.encode(value, plain);
+        int length = plain.position;
+        if (length >= threshold) {
+            long start = CompressionMetrics.cpuNanos();
+            int headerStart = out.position;
+            out.writeByte(COMPRESSED).writeVarLong(length);
+            out.ensureCapacity(Lz4.maxCompressedLength(length));
+            int compressedLength = Lz4.compress(plain.buffer, 0, length, out.buffer, out.position);
+            if (out.position + compressedLength - headerStart < length) {
+                out.position += compressedLength;
+                metrics.recordCompressed(length, out.position - headerStart, CompressionMetrics.cpuNanos() - start);
+                return;
+            }
+            out.position = headerStart;
+            metrics.recordIncompressible(length, CompressionMetrics.cpuNanos() - start);
+        }
+        if (length > 0 && ((plain.buffer[0] & 0xFF) == COMPRESSED || (plain.buffer[0] & 0xFF) == ESCAPED)) {
+            out.writeByte(ESCAPED);
+        }
+        out.writeBytes(plain.buffer, 0, length);
+    }
+
+    @Override
+    public T decode(ByteReader in) {
+        int header = in.remaining() == 0 ? -1 : in.bytes[in.position] & 0xFF;
+        if (header == ESCAPED) {
+            in.readByte();
+        }
+        if (header != COMPRESSED) {
+            return delegate.decode(in);
+        }
+        in.readByte();
+        long start = CompressionMetrics.cpuNanos();
+        int originalLength = Math.toIntExact(in.readVarLong());
+        byte[] plain = Lz4.decompress(in.bytes, in.position, in.remaining(), originalLength);
+        in.position = in.limit;
+        metrics.recordDecompressed(CompressionMetrics.cpuNanos() - start);
+        return delegate.decode(new ByteReader().reset(plain, 0, plain.length));
+    }
+
+    public CompressionMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,148 @@
+package com.flyingideal.redislearn.codec;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link CompressingCodec} 的统计：压缩前后的字节数以及压缩、解压消耗的 CPU 时间。
+ *
+ * CPU 时间取自当前线程的 CPU 时钟，JVM 不支持时退化为 System.nanoTime()。
+ * 实现了 {@link MeterBinder}，以 redis.compression.* 指标对外暴露。
+ *
+ * @author yanchao
+ * @date 2026/10/17 23:30
+ */
+public class CompressionMetrics implements MeterBinder {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final boolean THREAD_CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported()
+            && THREADS.isThreadCpuTimeEnabled();
+
+    private final String name;
+
+    private final LongAdder compressed = new LongAdder();
+
+    private final LongAdder skipped = new LongAdder();
+
+    private final LongAdder bytesIn = new LongAdder();
+
+    private final LongAdder bytesOut = new LongAdder();
+
+    private final LongAdder compressNanos = new LongAdder();
+
+    private final LongAdder decompressed = new LongAdder();
+
+    private final LongAdder decompressNanos = new LongAdder();
+
+    /**
+     * @param name 区分多个 codec 的指标标签
+     */
+    public CompressionMetrics(String name) {
+        this.name = name;
+    }
+
+    static long cpuNanos() {
+        return THREAD_CPU_TIME ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    void recordCompressed(int originalBytes, int storedBytes, long nanos) {
+        compressed.increment();
+        bytesIn.add(originalBytes);
+        bytesOut.add(storedBytes);
+        compressNanos.add(nanos);
+    }
+
+    /**
+     * 达到阈值但压缩后没有变小，按原样保存的 value
+     */
+    void recordIncompressible(int originalBytes, long nanos) {
+        skipped.increment();
+        bytesIn.add(originalBytes);
+        bytesOut.add(originalBytes);
+        compressNanos.add(nanos);
+    }
+
+    void recordDecompressed(long nanos) {
+        decompressed.increment();
+        decompressNanos.add(nanos);
+    }
+
+    public long getCompressed() {
+        return compressed.sum();
+    }
+
+    public long getIncompressible() {
+        return skipped.sum();
+    }
+
+    /**
+     * @return 尝试压缩的 value 压缩前的总字节数，小于阈值的 value 不计入
+     */
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    /**
+     * @return 尝试压缩的 value 实际保存的总字节数
+     */
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    /**
+     * @return 保存的字节数 / 原始字节数，越小越好，没有数据时为 1
+     */
+    public double getRatio() {
+        long in = bytesIn.sum();
+        return in == 0 ? 1 : (double) bytesOut.sum() / in;
+    }
+
+    public long getCompressNanos() {
+        return compressNanos.sum();
+    }
+
+    public long getDecompressed() {
+        return decompressed.sum();
+    }
+
+    public long getDecompressNanos() {
+        return decompressNanos.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("redis.compression.values", this, CompressionMetrics::getCompressed)
+                .tags("codec", name, "result", "compressed").register(registry);
+        FunctionCounter.builder("redis.compression.values", this, CompressionMetrics::getIncompressible)
+                .tags("codec", name, "result", "incompressible").register(registry);
+        FunctionCounter.builder("redis.compression.bytes", this, CompressionMetrics::getBytesIn)
+                .tags("codec", name, "stage", "in").baseUnit("bytes").register(registry);
+        FunctionCounter.builder("redis.compression.bytes", this, CompressionMetrics::getBytesOut)
+                .tags("codec", name, "stage", "out").baseUnit("bytes").register(registry);
+        FunctionCounter.builder("redis.compression.cpu", this,
+                m -> m.getCompressNanos() / (double) TimeUnit.SECONDS.toNanos(1))
+                .tags("codec", name, "operation", "compress").baseUnit("seconds").register(registry);
+        FunctionCounter.builder("redis.compression.cpu", this,
+                m -> m.getDecompressNanos() / (double) TimeUnit.SECONDS.toNanos(1))
+                .tags("codec", name, "operation", "decompress").baseUnit("seconds").register(registry);
+        Gauge.builder("redis.compression.ratio", this, CompressionMetrics::getRatio)
+                .tag("codec", name).register(registry);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CompressionMetrics{codec=%s, compressed=%d, incompressible=%d, ratio=%.3f, "
+                        + "compressCpuMillis=%d, decompressed=%d, decompressCpuMillis=%d}",
+                name, getCompressed(), getIncompressible(), getRatio(),
+                TimeUnit.NANOSECONDS.toMillis(getCompressNanos()), getDecompressed(),
+                TimeUnit.NANOSECONDS.toMillis(getDecompressNanos()));
+    }
+}
@@ -0,0 +1,198 @@
+package com.flyingideal.redislearn.codec;
+
+import java.util.Arrays;
+
+/**
+ * 纯 java 的 LZ4 block 格式压缩与解压，输出与 lz4 的 LZ4_compress_default 兼容（可以被任意 LZ4 block 解压器解开）。
+ *
+ * 只实现单次贪心匹配的快速模式：4 字节哈希表记录最近一次出现的位置，找到匹配后向前、向后扩展。
+ * 每个序列为 token（高 4 位字面量长度，低 4 位匹配长度 - 4），字面量，2 字节小端序的偏移，长度超过 15 时追加 255 进制的扩展字节。
+ *
+ * @author yanchao
+ * @date 2026/10/17 23:10
+ */
+final class Lz4 {
+
+    private static final int MIN_MATCH = 4;
+
+    /**
+     * 格式要求：最后 5 个字节必须是字面量
+     */
+    private static final int LAST_LITERALS = 5;
+
+    /**
+     * 格式要求：最后一个匹配必须在结尾前 12 个字节之前开始
+     */
+    private static final int MF_LIMIT = 12;
+
+    private static final int MAX_DISTANCE = 0xFFFF;
+
+    private static final int HASH_LOG = 12;
+
+    /**
+     * 连续未命中 2^SKIP_TRIGGER 次后步长加 1，不可压缩的数据可以快速跳过
+     */
+    private static final int SKIP_TRIGGER = 6;
+
+    private static final ThreadLocal<int[]> HASH_TABLE = ThreadLocal.withInitial(() -> new int[1 << HASH_LOG]);
+
+    private Lz4() {
+    }
+
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * @param dst 从 dstOffset 开始至少有 {@link #maxCompressedLength(int)} 个字节的空间
+     * @return 压缩后的字节数
+     */
+    static int compress(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset) {
+        int srcEnd = srcOffset + length;
+        int anchor = srcOffset;
+        int dp = dstOffset;
+        if (length > MF_LIMIT) {
+            int[] table = HASH_TABLE.get();
+            Arrays.fill(table, -1);
+            int matchLimit = srcEnd - LAST_LITERALS;
+            int mfLimit = srcEnd - MF_LIMIT;
+            int ip = srcOffset;
+            int attempts = 1 << SKIP_TRIGGER;
+            while (ip < mfLimit) {
+                int sequence = readInt(src, ip);
+                int h = hash(sequence);
+                int ref = table[h];
+                table[h] = ip;
+                if (ref < 0 || ip - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+                    ip += attempts++ >>> SKIP_TRIGGER;
+                    continue;
+                }
+                attempts = 1 << SKIP_TRIGGER;
+                while (ip > anchor && ref > srcOffset && src[ip - 1] == src[ref - 1]) {
+                    ip--;
+                    ref--;
+                }
+                int matchLength = MIN_MATCH;
+                while (ip + matchLength < matchLimit && src[ip + matchLength] == src[ref + matchLength]) {
+                    matchLength++;
+                }
+                dp = writeSequence(src, anchor, ip - anchor, ip - ref, matchLength, dst, dp);
+                ip += matchLength;
+                anchor = ip;
+            }
+        }
+        dp = writeSequence(src, anchor, srcEnd - anchor, 0, 0, dst, dp);
+        return dp - dstOffset;
+    }
+
+    /**
+     * @param originalLength 压缩前的长度，必须与压缩数据完全一致
+     */
+    static byte[] decompress(byte[] src, int srcOffset, int length, int originalLength) {
+        byte[] dst = new byte[originalLength];
+        int sp = srcOffset;
+        int srcEnd = srcOffset + length;
+        int dp = 0;
+        while (true) {
+            check(sp < srcEnd);
+            int token = src[sp++] & 0xFF;
+            int literalLength = token >>> 4;
+            if (literalLength == 15) {
+                int b;
+                do {
+                    check(sp < srcEnd);
+                    b = src[sp++] & 0xFF;
+                    literalLength += b;
+                } while (b == 255);
+            }
+            check(literalLength <= srcEnd - sp && literalLength <= originalLength - dp);
+            System.arraycopy(src, sp, dst, dp, literalLength);
+            sp += literalLength;
+            dp += literalLength;
+            if (sp == srcEnd) {
+                break;
+            }
+
+            check(srcEnd - sp >= 2);
+            int offset = (src[sp] & 0xFF) | ((src[sp + 1] & 0xFF) << 8);
+            sp += 2;
+            check(offset > 0 && offset <= dp);
+            int matchLength = token & 0x0F;
+            if (matchLength == 15) {
+                int b;
+                do {
+                    check(sp < srcEnd);
+                    b = src[sp++] & 0xFF;
+                    matchLength += b;
+                } while (b == 255);
+            }
+            matchLength += MIN_MATCH;
+            check(matchLength <= originalLength - dp);
+            int ref = dp - offset;
+            if (offset >= matchLength) {
+                System.arraycopy(dst, ref, dst, dp, matchLength);
+                dp += matchLength;
+            } else {
+                // 重叠的匹配（例如连续重复的字节）只能逐字节复制
+                for (int i = 0; i < matchLength; i++) {
+                    dst[dp++] = dst[ref++];
+                }
+            }
+        }
+        check(dp == originalLength);
+        return dst;
+    }
+
+    /**
+     * matchLength 为 0 时写入只有字面量的最后一个序列
+     */
+    private static int writeSequence(byte[] src, int literalStart, int literalLength, int offset, int matchLength,
+                                     byte[] dst, int dp) {
+        int tokenIndex = dp++;
+        int token;
+        if (literalLength >= 15) {
+            token = 15 << 4;
+            dp = writeLength(literalLength - 15, dst, dp);
+        } else {
+            token = literalLength << 4;
+        }
+        System.arraycopy(src, literalStart, dst, dp, literalLength);
+        dp += literalLength;
+        if (matchLength > 0) {
+            dst[dp++] = (byte) offset;
+            dst[dp++] = (byte) (offset >>> 8);
+            int extra = matchLength - MIN_MATCH;
+            if (extra >= 15) {
+                token |= 15;
+                dp = writeLength(extra - 15, dst, dp);
+            } else {
+                token |= extra;
+            }
+        }
+        dst[tokenIndex] = (byte) token;
+        return dp;
+    }
+
+    private static int writeLength(int remaining, byte[] dst, int dp) {
+        while (remaining >= 255) {
+            dst[dp++] = (byte) 255;
+            remaining -= 255;
+        }
+        dst[dp++] = (byte) remaining;
+        return dp;
+    }
+
+    private static int readInt(byte[] bytes, int i) {
+        return (bytes[i] & 0xFF) | (bytes[i + 1] & 0xFF) << 8 | (bytes[i + 2] & 0xFF) << 16 | (bytes[i + 3] & 0xFF) << 24;
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalArgumentException("malformed lz4 block");
+        }
+    }
+}
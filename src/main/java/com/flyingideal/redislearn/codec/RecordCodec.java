@@ -0,0 +1,165 @@
+package com.flyingideal.redislearn.codec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 按 schema 把一个对象映射为 hash 的各个字段，每个字段使用自己的 {@link Codec}：
+ * <pre>
+ * RecordCodec&lt;Person&gt; codec = RecordCodec.builder(Person::new)
+ *         .field("name", Codecs.UTF8, Person::getName, Person::setName)
+ *         .field("age", Codecs.VAR_INT, Person::getAge, Person::setAge)
+ *         .build();
+ * </pre>
+ * 字段名只编码一次并缓存。解码时忽略 schema 中没有的字段，缺少的字段保持对象的默认值，因此增删字段不需要迁移旧数据。
+ *
+ * @author yanchao
+ * @date 2026/10/17 22:25
+ */
+public final class RecordCodec<T> {
+
+    private final Supplier<T> factory;
+
+    private final List<Field<T, ?>> fields;
+
+    private final byte[][] names;
+
+    private RecordCodec(Supplier<T> factory, List<Field<T, ?>> fields) {
+        this.factory = factory;
+        this.fields = fields;
+        this.names = new byte[fields.size()][];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = fields.get(i).name;
+        }
+    }
+
+    public static <T> Builder<T> builder(Supplier<T> factory) {
+        return new Builder<>(factory);
+    }
+
+    /**
+     * @return 按 schema 顺序排列的字段名，用于 HMGET
+     */
+    public byte[][] fieldNames() {
+        return names.clone();
+    }
+
+    /**
+     * @return 字段名到编码后的值，值为 null 的字段不包括在内，用于 HMSET
+     */
+    public Map<byte[], byte[]> encode(T record) {
+        Map<byte[], byte[]> hash = new LinkedHashMap<>(fields.size() * 2);
+        for (Field<T, ?> field : fields) {
+            byte[] value = field.encode(record);
+            if (value != null) {
+                hash.put(field.name, value);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @param hash HGETALL 的结果
+     * @return hash 为空（key 不存在）时返回 null
+     */
+    public T decode(Map<byte[], byte[]> hash) {
+        if (hash == null || hash.isEmpty()) {
+            return null;
+        }
+        T record = factory.get();
+        for (Map.Entry<byte[], byte[]> entry : hash.entrySet()) {
+            for (Field<T, ?> field : fields) {
+                if (Arrays.equals(field.name, entry.getKey())) {
+                    field.decode(record, entry.getValue());
+                    break;
+                }
+            }
+        }
+        return record;
+    }
+
+    /**
+     * @param values 以 {@link #fieldNames()} 执行 HMGET 的结果
+     * @return 所有字段都不存在时返回 null
+     */
+    public T decode(List<byte[]> values) {
+        if (values.size() != fields.size()) {
+            throw new IllegalArgumentException("expected " + fields.size() + " values, got " + values.size());
+        }
+        T record = null;
+        for (int i = 0; i < values.size(); i++) {
+            byte[] value = values.get(i);
+            if (value != null) {
+                if (record == null) {
+                    record = factory.get();
+                }
+                fields.get(i).decode(record, value);
+            }
+        }
+        return record;
+    }
+
+    public static final class Builder<T> {
+
+        private final Supplier<T> factory;
+
+        private final List<Field<T, ?>> fields = new ArrayList<>();
+
+        private Builder(Supplier<T> factory) {
+            this.factory = Objects.requireNonNull(factory);
+        }
+
+        public <V> Builder<T> field(String name, Codec<V> codec, Function<T, V> getter, BiConsumer<T, V> setter) {
+            byte[] encoded = Codecs.UTF8.encode(name);
+            for (Field<T, ?> field : fields) {
+                if (Arrays.equals(field.name, encoded)) {
+                    throw new IllegalArgumentException("duplicate field " + name);
+                }
+            }
+            fields.add(new Field<>(encoded, codec, getter, setter));
+            return this;
+        }
+
+        public RecordCodec<T> build() {
+            if (fields.isEmpty()) {
+                throw new IllegalStateException("record has no fields");
+            }
+            return new RecordCodec<>(factory, Collections.unmodifiableList(new ArrayList<>(fields)));
+        }
+    }
+
+    private static final class Field<T, V> {
+
+        final byte[] name;
+
+        final Codec<V> codec;
+
+        final Function<T, V> getter;
+
+        final BiConsumer<T, V> setter;
+
+        Field(byte[] name, Codec<V> codec, Function<T, V> getter, BiConsumer<T, V> setter) {
+            this.name = name;
+            this.codec = codec;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        byte[] encode(T record) {
+            V value = getter.apply(record);
+            return value == null ? null : codec.encode(value);
+        }
+
+        void decode(T record, byte[] bytes) {
+            setter.accept(record, codec.decode(bytes));
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.flyingideal.redislearn.counter;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import com.flyingideal.redislearn.script.RedisScript;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.SafeEncoder;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 合并 INCRBY / HINCRBY 的计数服务：增量先累加在本地表中，每 flushIntervalMillis 批量写入 redis。
+ *
+ * <ul>
+ *     <li>本地表：key（或 key + field）到 {@link StripedCounter}，累加不加锁；flush 时取走每个计数器的增量，
+ *     一个周期内没有增量的计数器从表中移除，被移除后才写入的增量由写入方自己取回重新累加，不会丢失</li>
+ *     <li>flush：字符串计数器每个 key 一条 INCRBY，同一个 hash 的所有 field 合并为一次 EVALSHA，在一个脚本内依次 HINCRBY，
+ *     全部在一个 pipeline 中发送</li>
+ *     <li>读自己的写：开启后 {@link #get(String)} / {@link #hget(String, String)} 在 redis 中的值上加上本地还没有 flush 的增量；
+ *     读取与 flush 互斥，不会把正在发送的增量漏掉或算两次，代价是 flush 期间读取需要等待</li>
+ *     <li>失败：连接错误时未确认的增量加回本地表重试；WRONGTYPE 等无法重试的错误记录日志后丢弃</li>
+ * </ul>
+ * 只支持整数增量，HINCRBYFLOAT 的浮点累加会引入与直接调用不同的舍入。
+ *
+ * @author yanchao
+ * @date 2026/10/18 12:55
+ */
+public class CounterService implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CounterService.class);
+
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+
+    /**
+     * 每次 sync 的命令数
+     */
+    private static final int FLUSH_BATCH = 1000;
+
+    /**
+     * 一次脚本调用最多携带的 field 数，超过的拆为多次调用
+     */
+    private static final int FIELDS_PER_CALL = 256;
+
+    /**
+     * KEYS[1] hash；ARGV 为 field、增量交替排列。返回更新的 field 数
+     */
+    static final RedisScript HINCRBY = new RedisScript(
+            "for i = 1, #ARGV, 2 do\n"
+                    + "    redis.call('hincrby', KEYS[1], ARGV[i], ARGV[i + 1])\n"
+                    + "end\n"
+                    + "return #ARGV / 2\n");
+
+    private static final byte[] HINCRBY_SHA1 = SafeEncoder.encode(HINCRBY.getSha1());
+
+    private final JedisConnectionProvider provider;
+
+    private final String name;
+
+    private final boolean readYourWrites;
+
+    private final Map<CounterKey, StripedCounter> table = new ConcurrentHashMap<>();
+
+    /**
+     * flush 持有写锁；开启读自己的写时读取持有读锁
+     */
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    private final ScheduledExecutorService flusher;
+
+    private volatile boolean scriptLoaded;
+
+    private volatile boolean closed;
+
+    private final LongAdder increments = new LongAdder();
+
+    private final LongAdder commands = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    public CounterService(JedisConnectionProvider provider, String name) {
+        this(provider, name, DEFAULT_FLUSH_INTERVAL_MILLIS, false);
+    }
+
+    /**
+     * @param name                flush 线程名
+     * @param flushIntervalMillis 两次 flush 的间隔，即其他进程看到增量的最大延迟
+     * @param readYourWrites      读取时是否加上本进程还没有 flush 的增量
+     */
+    public CounterService(JedisConnectionProvider provider, String name, long flushIntervalMillis,
+                          boolean readYourWrites) {
+        if (flushIntervalMillis < 1) {
+            throw new IllegalArgumentException("flushIntervalMillis must be positive: " + flushIntervalMillis);
+        }
+        this.provider = provider;
+        this.name = name;
+        this.readYourWrites = readYourWrites;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "counter-flusher-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void incr(String key) {
+        incrBy(key, 1);
+    }
+
+    public void incrBy(String key, long delta) {
+        add(new CounterKey(key, null), delta);
+    }
+
+    public void decrBy(String key, long delta) {
+        add(new CounterKey(key, null), -delta);
+    }
+
+    public void hincrBy(String key, String field, long delta) {
+        add(new CounterKey(key, field), delta);
+    }
+
+    /**
+     * @return redis 中的值，开启读自己的写时加上本地未 flush 的增量；key 不存在时为 0
+     */
+    public long get(String key) {
+        return read(new CounterKey(key, null));
+    }
+
+    public long hget(String key, String field) {
+        return read(new CounterKey(key, field));
+    }
+
+    /**
+     * 立即把本地的增量写入 redis
+     *
+     * @return 发送的命令数
+     * @throws JedisException 连接错误，未确认的增量已加回本地表
+     */
+    public int flush() {
+        flushLock.writeLock().lock();
+        try {
+            Map<String, Long> strings = new LinkedHashMap<>();
+            Map<String, Map<String, Long>> hashes = new LinkedHashMap<>();
+            for (Map.Entry<CounterKey, StripedCounter> entry : table.entrySet()) {
+                CounterKey key = entry.getKey();
+                StripedCounter counter = entry.getValue();
+                long delta = counter.drain();
+                if (delta == 0 && table.remove(key, counter)) {
+                    // 移除之前写入的增量在这里取走，之后写入的由写入方取回
+                    delta = counter.drain();
+                }
+                if (delta == 0) {
+                    continue;
+                }
+                if (key.field == null) {
+                    strings.put(key.key, delta);
+                } else {
+                    hashes.computeIfAbsent(key.key, k -> new LinkedHashMap<>()).put(key.field, delta);
+                }
+            }
+            if (strings.isEmpty() && hashes.isEmpty()) {
+                return 0;
+            }
+            return send(strings, hashes);
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 停止定时 flush，并把剩余的增量写入 redis
+     */
+    @Override
+    public void close() {
+        closed = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * @return 累计的 incr / hincrBy 调用次数
+     */
+    public long getIncrements() {
+        return increments.sum();
+    }
+
+    /**
+     * @return 累计发送的 INCRBY 和 EVALSHA 命令数
+     */
+    public long getCommands() {
+        return commands.sum();
+    }
+
+    /**
+     * @return 因 WRONGTYPE 等错误被丢弃的增量个数
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private void add(CounterKey key, long delta) {
+        if (closed) {
+            throw new IllegalStateException("counter service " + name + " is closed");
+        }
+        increments.increment();
+        while (delta != 0) {
+            StripedCounter counter = table.computeIfAbsent(key, k -> new StripedCounter());
+            counter.add(delta);
+            if (table.get(key) == counter) {
+                return;
+            }
+            // 计数器在写入前后被 flush 移出了表，取回 flush 没有取走的部分重新累加
+            delta = counter.drain();
+        }
+    }
+
+    private long read(CounterKey key) {
+        if (!readYourWrites) {
+            return remoteValue(key);
+        }
+        flushLock.readLock().lock();
+        try {
+            long value = remoteValue(key);
+            StripedCounter counter = table.get(key);
+            return counter == null ? value : value + counter.sum();
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    private long remoteValue(CounterKey key) {
+        String value;
+        try (Jedis jedis = provider.getResource()) {
+            value = key.field == null ? jedis.get(key.key) : jedis.hget(key.key, key.field);
+        }
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    private int send(Map<String, Long> strings, Map<String, Map<String, Long>> hashes) {
+        List<Batch> batches = new ArrayList<>(strings.size() + hashes.size());
+        int synced = 0;
+        try (Jedis jedis = provider.getResource()) {
+            if (!hashes.isEmpty() && !scriptLoaded) {
+                HINCRBY.load(jedis);
+                scriptLoaded = true;
+            }
+            Pipeline pipeline = jedis.pipelined();
+            for (Map.Entry<String, Long> entry : strings.entrySet()) {
+                Response<?> response = pipeline.incrBy(entry.getKey(), entry.getValue());
+                batches.add(new Batch(response, entry.getKey(), Collections.singletonMap(null, entry.getValue())));
+                synced = syncIfFull(pipeline, batches.size(), synced);
+            }
+            for (Map.Entry<String, Map<String, Long>> entry : hashes.entrySet()) {
+                List<Map.Entry<String, Long>> fields = new ArrayList<>(entry.getValue().entrySet());
+                for (int from = 0; from < fields.size(); from += FIELDS_PER_CALL) {
+                    Map<String, Long> chunk = new LinkedHashMap<>();
+                    List<byte[]> args = new ArrayList<>();
+                    for (Map.Entry<String, Long> field : fields.subList(from, Math.min(fields.size(), from + FIELDS_PER_CALL))) {
+                        chunk.put(field.getKey(), field.getValue());
+                        args.add(SafeEncoder.encode(field.getKey()));
+                        args.add(SafeEncoder.encode(Long.toString(field.getValue())));
+                    }
+                    Response<?> response = pipeline.evalsha(HINCRBY_SHA1,
+                            Collections.singletonList(SafeEncoder.encode(entry.getKey())), args);
+                    batches.add(new Batch(response, entry.getKey(), chunk));
+                    synced = syncIfFull(pipeline, batches.size(), synced);
+                }
+            }
+            pipeline.sync();
+            synced = batches.size();
+        } catch (JedisException e) {
+            // 出错的批次是否已经执行无法确定，按未执行处理：连接在回复前断开时这一批会重复计数
+            restore(batches.subList(synced, batches.size()));
+            commands.add(synced);
+            throw e;
+        }
+        commands.add(batches.size());
+        for (Batch batch : batches) {
+            try {
+                batch.response.get();
+            } catch (JedisDataException e) {
+                if (e.getMessage() != null && e.getMessage().startsWith("NOSCRIPT")) {
+                    // 服务端重启或 SCRIPT FLUSH 之后，下次 flush 重新加载
+                    scriptLoaded = false;
+                    restore(Collections.singletonList(batch));
+                } else {
+                    dropped.add(batch.deltas.size());
+                    logger.warn("dropping {} counter deltas of {}: {}", batch.deltas.size(), batch.key, e.getMessage());
+                }
+            }
+        }
+        return batches.size();
+    }
+
+    private static int syncIfFull(Pipeline pipeline, int sent, int synced) {
+        if (sent % FLUSH_BATCH == 0) {
+            pipeline.sync();
+            return sent;
+        }
+        return synced;
+    }
+
+    private void restore(List<Batch> batches) {
+        for (Batch batch : batches) {
+            for (Map.Entry<String, Long> delta : batch.deltas.entrySet()) {
+                CounterKey key = new CounterKey(batch.key, delta.getKey());
+                table.computeIfAbsent(key, k -> new StripedCounter()).add(delta.getValue());
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (JedisException e) {
+            logger.warn("flushing counters of {} failed, {} counters will be retried: {}", name, table.size(),
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * pipeline 中的一条命令及其携带的增量，key 为字符串计数器时 deltas 中的 field 为 null
+     */
+    private static final class Batch {
+
+        final Response<?> response;
+
+        final String key;
+
+        final Map<String, Long> deltas;
+
+        Batch(Response<?> response, String key, Map<String, Long> deltas) {
+            this.response = response;
+            this.key = key;
+            this.deltas = deltas;
+        }
+    }
+
+    private static final class CounterKey {
+
+        final String key;
+
+        /**
+         * 字符串计数器为 null
+         */
+        final String field;
+
+        CounterKey(String key, String field) {
+            this.key = key;
+            this.field = field;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CounterKey)) {
+                return false;
+            }
+            CounterKey other = (CounterKey) o;
+            return key.equals(other.key) && (field == null ? other.field == null : field.equals(other.field));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + (field == null ? 0 : field.hashCode());
+        }
+    }
+}
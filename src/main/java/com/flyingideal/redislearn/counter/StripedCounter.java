@@ -0,0 +1,76 @@
+package com.flyingideal.redislearn.counter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 可以原子地取走全部计数的 {@link java.util.concurrent.atomic.LongAdder}。
+ *
+ * LongAdder 的 sumThenReset 逐个 cell 读取再清零，并发的 add 可能丢失；这里每个 cell 用 getAndSet(0) 取走，
+ * 任何一次 add 只会被一次 drain 取走。没有竞争时只用 base，CAS 失败后才分配 cell。
+ *
+ * @author yanchao
+ * @date 2026/10/18 12:40
+ */
+final class StripedCounter {
+
+    /**
+     * 相邻 cell 之间间隔 8 个 long（64 字节），避免伪共享
+     */
+    private static final int PADDING = 8;
+
+    private static final int MAX_CELLS = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+
+    private final AtomicLong base = new AtomicLong();
+
+    private volatile AtomicLongArray cells;
+
+    void add(long delta) {
+        AtomicLongArray striped = cells;
+        if (striped == null) {
+            long current = base.get();
+            if (base.compareAndSet(current, current + delta)) {
+                return;
+            }
+            striped = expand();
+        }
+        // 同一个线程总是落在同一个 cell 上
+        int hash = (int) Thread.currentThread().getId() * 0x9E3779B9;
+        striped.getAndAdd(((hash >>> 16) & (MAX_CELLS - 1)) * PADDING, delta);
+    }
+
+    /**
+     * @return 当前的计数，不清零
+     */
+    long sum() {
+        long sum = base.get();
+        AtomicLongArray striped = cells;
+        if (striped != null) {
+            for (int i = 0; i < MAX_CELLS; i++) {
+                sum += striped.get(i * PADDING);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 取走当前的计数并清零
+     */
+    long drain() {
+        long sum = base.getAndSet(0);
+        AtomicLongArray striped = cells;
+        if (striped != null) {
+            for (int i = 0; i < MAX_CELLS; i++) {
+                sum += striped.getAndSet(i * PADDING, 0);
+            }
+        }
+        return sum;
+    }
+
+    private synchronized AtomicLongArray expand() {
+        if (cells == null) {
+            cells = new AtomicLongArray(MAX_CELLS * PADDING);
+        }
+        return cells;
+    }
+}
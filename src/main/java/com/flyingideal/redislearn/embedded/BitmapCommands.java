@@ -0,0 +1,254 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * bitmap 命令：SETBIT / GETBIT / BITCOUNT / BITOP，以及 BITFIELD 的 GET / SET 子命令。
+ *
+ * 与其他 string 命令一样，value 以每个 char 一个字节的 String 保存，每条命令转换一次 byte[]，
+ * 一个 BITFIELD 中的多个子命令共用一次转换。
+ *
+ * @author yanchao
+ * @date 2026/10/18 13:20
+ */
+final class BitmapCommands {
+
+    /**
+     * 与 redis 的 proto-max-bulk-len 默认值一致，bitmap 最大 512MB
+     */
+    private static final long MAX_BIT_OFFSET = 512L * 1024 * 1024 * 8 - 1;
+
+    private static final List<String> OPERATIONS = Arrays.asList("and", "or", "xor", "not");
+
+    private BitmapCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.register("setbit", 4, BitmapCommands::setbit);
+        table.register("getbit", 3, ctx -> ctx.out.integer(getBit(bytes(ctx.db.getString(ctx.arg(1))), bitOffset(ctx, 2))));
+        table.register("bitcount", -2, BitmapCommands::bitcount);
+        table.register("bitop", -4, BitmapCommands::bitop);
+        table.register("bitfield", -2, BitmapCommands::bitfield);
+    }
+
+    private static void setbit(CommandContext ctx) {
+        long offset = bitOffset(ctx, 2);
+        String flag = ctx.arg(3);
+        if (!"0".equals(flag) && !"1".equals(flag)) {
+            throw new RedisErrorException("ERR bit is not an integer or out of range");
+        }
+        byte[] bytes = grow(bytes(ctx.db.getString(ctx.arg(1))), offset);
+        int old = getBit(bytes, offset);
+        setBit(bytes, offset, flag.charAt(0) == '1');
+        ctx.db.replace(ctx.arg(1), string(bytes));
+        ctx.out.integer(old);
+    }
+
+    /**
+     * BITCOUNT key [start end]，start / end 为字节下标，支持负数
+     */
+    private static void bitcount(CommandContext ctx) {
+        byte[] bytes = bytes(ctx.db.getString(ctx.arg(1)));
+        int start = 0;
+        int end = bytes.length - 1;
+        if (ctx.argc() == 4) {
+            long from = ctx.longArg(2);
+            long to = ctx.longArg(3);
+            from = from < 0 ? Math.max(0, bytes.length + from) : from;
+            to = to < 0 ? bytes.length + to : Math.min(to, bytes.length - 1);
+            start = (int) from;
+            end = (int) to;
+        } else if (ctx.argc() != 2) {
+            throw new RedisErrorException(RedisErrorException.SYNTAX);
+        }
+        long count = 0;
+        for (int i = start; i <= end; i++) {
+            count += Integer.bitCount(bytes[i] & 0xFF);
+        }
+        ctx.out.integer(count);
+    }
+
+    /**
+     * BITOP AND|OR|XOR|NOT destkey key [key ...]，较短的 value 视为以 0 补齐，结果为空时删除 destkey
+     */
+    private static void bitop(CommandContext ctx) {
+        String operation = ctx.arg(1).toLowerCase();
+        if (!OPERATIONS.contains(operation)) {
+            throw new RedisErrorException(RedisErrorException.SYNTAX);
+        }
+        List<byte[]> sources = new ArrayList<>();
+        int length = 0;
+        for (int i = 3; i < ctx.argc(); i++) {
+            byte[] source = bytes(ctx.db.getString(ctx.arg(i)));
+            sources.add(source);
+            length = Math.max(length, source.length);
+        }
+        if ("not".equals(operation) && sources.size() != 1) {
+            throw new RedisErrorException("ERR BITOP NOT must be called with a single source key.");
+        }
+        byte[] result = new byte[length];
+        for (int i = 0; i < length; i++) {
+            int value = byteAt(sources.get(0), i);
+            for (int s = 1; s < sources.size(); s++) {
+                int other = byteAt(sources.get(s), i);
+                switch (operation) {
+                    case "and":
+                        value &= other;
+                        break;
+                    case "or":
+                        value |= other;
+                        break;
+                    default:
+                        value ^= other;
+                        break;
+                }
+            }
+            if ("not".equals(operation)) {
+                value = ~value;
+            }
+            result[i] = (byte) value;
+        }
+        if (length == 0) {
+            ctx.db.remove(ctx.arg(2));
+        } else {
+            ctx.db.put(ctx.arg(2), string(result));
+        }
+        ctx.out.integer(length);
+    }
+
+    /**
+     * BITFIELD key [GET type offset] [SET type offset value] ...，type 为 u1..u63 或 i1..i64，
+     * offset 可以用 # 前缀表示以 type 宽度为单位；不支持 INCRBY / OVERFLOW
+     */
+    private static void bitfield(CommandContext ctx) {
+        String key = ctx.arg(1);
+        byte[] bytes = bytes(ctx.db.getString(key));
+        boolean modified = false;
+        List<Long> results = new ArrayList<>();
+        int i = 2;
+        while (i < ctx.argc()) {
+            boolean get = ctx.is(i, "get");
+            if (!get && !ctx.is(i, "set")) {
+                throw new RedisErrorException("ERR embedded server supports only GET and SET in BITFIELD");
+            }
+            if (i + (get ? 2 : 3) >= ctx.argc()) {
+                throw new RedisErrorException(RedisErrorException.SYNTAX);
+            }
+            String type = ctx.arg(i + 1);
+            boolean signed = type.startsWith("i") || type.startsWith("I");
+            int width;
+            try {
+                width = Integer.parseInt(type.substring(1));
+            } catch (NumberFormatException e) {
+                width = 0;
+            }
+            if ((!signed && !type.startsWith("u") && !type.startsWith("U"))
+                    || width < 1 || width > (signed ? 64 : 63)) {
+                throw new RedisErrorException("ERR Invalid bitfield type. Use something like i16 u8. "
+                        + "Note that u64 is not supported but i64 is.");
+            }
+            String offsetArg = ctx.arg(i + 2);
+            long offset = offsetArg.startsWith("#")
+                    ? CommandContext.parseLong(offsetArg.substring(1)) * width : CommandContext.parseLong(offsetArg);
+            if (offset < 0 || offset + width - 1 > MAX_BIT_OFFSET) {
+                throw new RedisErrorException("ERR bit offset is not an integer or out of range");
+            }
+            long old = readField(bytes, offset, width, signed);
+            if (get) {
+                i += 3;
+            } else {
+                bytes = grow(bytes, offset + width - 1);
+                writeField(bytes, offset, width, ctx.longArg(i + 3));
+                modified = true;
+                i += 4;
+            }
+            results.add(old);
+        }
+        if (modified) {
+            ctx.db.replace(key, string(bytes));
+        }
+        ctx.out.arrayHeader(results.size());
+        for (Long result : results) {
+            ctx.out.integer(result);
+        }
+    }
+
+    private static long readField(byte[] bytes, long offset, int width, boolean signed) {
+        long value = 0;
+        for (int b = 0; b < width; b++) {
+            value = (value << 1) | getBit(bytes, offset + b);
+        }
+        if (signed && width < 64 && (value & (1L << (width - 1))) != 0) {
+            value |= -1L << width;
+        }
+        return value;
+    }
+
+    private static void writeField(byte[] bytes, long offset, int width, long value) {
+        for (int b = 0; b < width; b++) {
+            setBit(bytes, offset + b, ((value >>> (width - 1 - b)) & 1) != 0);
+        }
+    }
+
+    private static long bitOffset(CommandContext ctx, int index) {
+        long offset;
+        try {
+            offset = ctx.longArg(index);
+        } catch (RedisErrorException e) {
+            offset = -1;
+        }
+        if (offset < 0 || offset > MAX_BIT_OFFSET) {
+            throw new RedisErrorException("ERR bit offset is not an integer or out of range");
+        }
+        return offset;
+    }
+
+    /**
+     * bit 0 是第一个字节的最高位，与 redis 一致
+     */
+    private static int getBit(byte[] bytes, long offset) {
+        int index = (int) (offset >>> 3);
+        return index < bytes.length ? (bytes[index] >> (7 - (int) (offset & 7))) & 1 : 0;
+    }
+
+    private static void setBit(byte[] bytes, long offset, boolean on) {
+        int index = (int) (offset >>> 3);
+        int mask = 1 << (7 - (int) (offset & 7));
+        bytes[index] = (byte) (on ? bytes[index] | mask : bytes[index] & ~mask);
+    }
+
+    private static byte[] grow(byte[] bytes, long maxBitOffset) {
+        int required = (int) (maxBitOffset >>> 3) + 1;
+        if (bytes.length >= required) {
+            return bytes;
+        }
+        byte[] grown = new byte[required];
+        System.arraycopy(bytes, 0, grown, 0, bytes.length);
+        return grown;
+    }
+
+    private static int byteAt(byte[] bytes, int index) {
+        return index < bytes.length ? bytes[index] & 0xFF : 0;
+    }
+
+    static byte[] bytes(String value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] bytes = new byte[value.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) value.charAt(i);
+        }
+        return bytes;
+    }
+
+    static String string(byte[] bytes) {
+        char[] chars = new char[bytes.length];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) (bytes[i] & 0xFF);
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,88 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 一个客户端连接的状态：读写缓冲、MULTI 事务队列、阻塞命令的等待信息以及订阅的频道
+ *
+ * @author yanchao
+ * @date 2026/10/17 14:15
+ */
+final class ClientSession {
+
+    final SocketChannel channel;
+
+    final RespReader reader = new RespReader();
+
+    final RespWriter writer = new RespWriter();
+
+    final Deque<ByteBuffer> pendingWrites = new ArrayDeque<>();
+
+    /**
+     * MULTI 之后排队的命令，null 表示不在事务中
+     */
+    List<List<String>> multiQueue;
+
+    /**
+     * 事务排队期间出现过错误，EXEC 时直接放弃整个事务
+     */
+    boolean multiError;
+
+    /**
+     * 正在等待的阻塞命令，null 表示未阻塞
+     */
+    BlockedRequest blocked;
+
+    /**
+     * 收到 QUIT，回复写完后关闭连接
+     */
+    boolean closing;
+
+    /**
+     * SUBSCRIBE 的频道和 PSUBSCRIBE 的模式，任一不为空时处于订阅状态
+     */
+    final Set<String> channels = new HashSet<>();
+
+    final Set<String> patterns = new HashSet<>();
+
+    ClientSession(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    int subscriptions() {
+        return channels.size() + patterns.size();
+    }
+
+    /**
+     * BLPOP / BRPOP / BRPOPLPUSH 在所有 key 都为空时记录的等待信息
+     */
+    static final class BlockedRequest {
+
+        final String command;
+
+        final List<String> keys;
+
+        /**
+         * BRPOPLPUSH 的目标 list
+         */
+        final String destination;
+
+        /**
+         * 超时的绝对时间，0 表示一直等待
+         */
+        final long deadline;
+
+        BlockedRequest(String command, List<String> keys, String destination, long deadline) {
+            this.command = command;
+            this.keys = keys;
+            this.destination = destination;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 集群模式下一个节点看到的集群状态：所有节点负责的 slot 区间，以及本节点是哪一个。
+ *
+ * 执行命令前按 key 计算 slot：key 不在同一个 slot 时返回 CROSSSLOT，slot 不属于本节点时返回
+ * MOVED slot host:port，与 redis cluster 相同。只支持 CLUSTER SLOTS / KEYSLOT / INFO / MYID，
+ * 没有从节点、故障转移和 slot 迁移。
+ *
+ * @author yanchao
+ * @date 2026/10/18 21:30
+ * @see EmbeddedRedisCluster
+ */
+final class ClusterState {
+
+    static final int SLOTS = 16384;
+
+    private static final Set<String> NO_KEYS = new HashSet<>(Arrays.asList(
+            "PING", "ECHO", "SELECT", "QUIT", "INFO", "CLIENT", "CONFIG", "TIME", "CLUSTER", "DBSIZE", "FLUSHDB",
+            "FLUSHALL", "KEYS", "SCAN", "RANDOMKEY", "SCRIPT", "PUBLISH", "SUBSCRIBE", "PSUBSCRIBE", "UNSUBSCRIBE",
+            "PUNSUBSCRIBE", "AUTH", "READONLY", "READWRITE"));
+
+    private static final Set<String> ALL_KEYS = new HashSet<>(Arrays.asList(
+            "DEL", "UNLINK", "EXISTS", "TOUCH", "MGET", "SINTER", "SUNION", "SDIFF", "SINTERSTORE", "SUNIONSTORE",
+            "SDIFFSTORE", "PFCOUNT", "PFMERGE", "RENAME", "RENAMENX", "SMOVE", "RPOPLPUSH"));
+
+    private final List<Node> nodes;
+
+    private final Node self;
+
+    ClusterState(List<Node> nodes, Node self) {
+        this.nodes = nodes;
+        this.self = self;
+    }
+
+    boolean owns(int slot) {
+        return self.owns(slot);
+    }
+
+    /**
+     * @return 需要返回给客户端的错误，本节点可以执行时为 null
+     */
+    String redirect(String name, List<String> args) {
+        int slot = -1;
+        for (String key : keys(name, args)) {
+            int keySlot = slot(key);
+            if (slot >= 0 && keySlot != slot) {
+                return "CROSSSLOT Keys in request don't hash to the same slot";
+            }
+            slot = keySlot;
+        }
+        if (slot < 0 || self.owns(slot)) {
+            return null;
+        }
+        Node owner = owner(slot);
+        return "MOVED " + slot + " " + owner.host + ":" + owner.port;
+    }
+
+    void command(CommandContext ctx) {
+        if (ctx.is(1, "slots")) {
+            ctx.out.arrayHeader(nodes.size());
+            for (Node node : nodes) {
+                ctx.out.arrayHeader(3).integer(node.start).integer(node.end)
+                        .arrayHeader(3).bulk(node.host).integer(node.port).bulk(node.id);
+            }
+        } else if (ctx.is(1, "keyslot") && ctx.argc() == 3) {
+            ctx.out.integer(slot(ctx.arg(2)));
+        } else if (ctx.is(1, "myid")) {
+            ctx.out.bulk(self.id);
+        } else if (ctx.is(1, "info")) {
+            ctx.out.bulk("cluster_state:ok\r\ncluster_slots_assigned:" + SLOTS
+                    + "\r\ncluster_known_nodes:" + nodes.size() + "\r\ncluster_size:" + nodes.size() + "\r\n");
+        } else {
+            throw new RedisErrorException("ERR unsupported CLUSTER subcommand '" + ctx.arg(1) + "'");
+        }
+    }
+
+    /**
+     * CRC16(XMODEM) % 16384；key 中第一个 { 与其后第一个 } 之间不为空时只计算这一段（hash tag）
+     */
+    static int slot(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.ISO_8859_1);
+        int from = 0;
+        int to = bytes.length;
+        int open = key.indexOf('{');
+        if (open >= 0) {
+            int close = key.indexOf('}', open + 1);
+            if (close > open + 1) {
+                from = open + 1;
+                to = close;
+            }
+        }
+        int crc = 0;
+        for (int i = from; i < to; i++) {
+            crc ^= (bytes[i] & 0xff) << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+        }
+        return (crc & 0xffff) % SLOTS;
+    }
+
+    private Node owner(int slot) {
+        for (Node node : nodes) {
+            if (node.owns(slot)) {
+                return node;
+            }
+        }
+        throw new IllegalStateException("slot " + slot + " not assigned");
+    }
+
+    private static List<String> keys(String name, List<String> args) {
+        int argc = args.size();
+        if (NO_KEYS.contains(name) || argc < 2) {
+            return args.subList(0, 0);
+        }
+        if (ALL_KEYS.contains(name)) {
+            return args.subList(1, argc);
+        }
+        switch (name) {
+            case "MSET":
+            case "MSETNX":
+                String[] keys = new String[argc / 2];
+                for (int i = 1; i < argc; i += 2) {
+                    keys[i / 2] = args.get(i);
+                }
+                return Arrays.asList(keys);
+            case "ZUNIONSTORE":
+            case "ZINTERSTORE":
+                return keysWithCount(args, 1, 2, 3);
+            case "EVAL":
+            case "EVALSHA":
+                return keysWithCount(args, -1, 2, 3);
+            case "BLPOP":
+            case "BRPOP":
+                return args.subList(1, argc - 1);
+            case "BRPOPLPUSH":
+                return args.subList(1, Math.min(3, argc));
+            case "BITOP":
+                return args.subList(2, argc);
+            case "OBJECT":
+                return args.subList(Math.min(2, argc), Math.min(3, argc));
+            default:
+                return args.subList(1, 2);
+        }
+    }
+
+    /**
+     * @param destination 目标 key 的位置，没有时为 -1
+     * @param count       key 个数参数的位置
+     * @param first       第一个 key 的位置
+     */
+    private static List<String> keysWithCount(List<String> args, int destination, int count, int first) {
+        int numkeys;
+        try {
+            numkeys = Integer.parseInt(args.get(count));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return args.subList(0, 0);
+        }
+        List<String> keys = args.subList(first, Math.min(args.size(), first + Math.max(numkeys, 0)));
+        if (destination < 0) {
+            return keys;
+        }
+        String[] all = new String[keys.size() + 1];
+        all[0] = args.get(destination);
+        for (int i = 0; i < keys.size(); i++) {
+            all[i + 1] = keys.get(i);
+        }
+        return Arrays.asList(all);
+    }
+
+    static final class Node {
+
+        final String id;
+
+        final String host;
+
+        final int port;
+
+        final int start;
+
+        final int end;
+
+        Node(String id, String host, int port, int start, int end) {
+            this.id = id;
+            this.host = host;
+            this.port = port;
+            this.start = start;
+            this.end = end;
+        }
+
+        boolean owns(int slot) {
+            return slot >= start && slot <= end;
+        }
+    }
+}
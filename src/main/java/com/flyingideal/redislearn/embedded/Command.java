@@ -0,0 +1,13 @@
+package com.flyingideal.redislearn.embedded;
+
+/**
+ * 一条 redis 命令的实现，回复写入 {@link CommandContext#out}
+ *
+ * @author yanchao
+ * @date 2026/10/17 14:10
+ */
+@FunctionalInterface
+interface Command {
+
+    void execute(CommandContext ctx);
+}
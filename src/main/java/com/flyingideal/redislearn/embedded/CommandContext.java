@@ -0,0 +1,88 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.util.List;
+
+/**
+ * 单条命令的执行上下文：参数、键空间、发布订阅、回复输出以及发起命令的客户端
+ *
+ * @author yanchao
+ * @date 2026/10/17 14:12
+ */
+final class CommandContext {
+
+    final List<String> args;
+
+    final Database db;
+
+    final PubSub pubSub;
+
+    final RespWriter out;
+
+    final ClientSession session;
+
+    /**
+     * 是否在 EXEC 中执行，事务中的阻塞命令不会阻塞
+     */
+    final boolean inExec;
+
+    CommandContext(List<String> args, Database db, PubSub pubSub, RespWriter out, ClientSession session,
+                   boolean inExec) {
+        this.args = args;
+        this.db = db;
+        this.pubSub = pubSub;
+        this.out = out;
+        this.session = session;
+        this.inExec = inExec;
+    }
+
+    int argc() {
+        return args.size();
+    }
+
+    String arg(int index) {
+        return args.get(index);
+    }
+
+    long longArg(int index) {
+        return parseLong(args.get(index));
+    }
+
+    double doubleArg(int index) {
+        return parseDouble(args.get(index));
+    }
+
+    static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new RedisErrorException(RedisErrorException.NOT_INTEGER);
+        }
+    }
+
+    static double parseDouble(String value) {
+        switch (value.toLowerCase()) {
+            case "inf":
+            case "+inf":
+                return Double.POSITIVE_INFINITY;
+            case "-inf":
+                return Double.NEGATIVE_INFINITY;
+            default:
+                try {
+                    double d = Double.parseDouble(value);
+                    if (Double.isNaN(d)) {
+                        throw new RedisErrorException(RedisErrorException.NOT_FLOAT);
+                    }
+                    return d;
+                } catch (NumberFormatException e) {
+                    throw new RedisErrorException(RedisErrorException.NOT_FLOAT);
+                }
+        }
+    }
+
+    /**
+     * 参数是否为指定的关键字（忽略大小写）
+     */
+    boolean is(int index, String keyword) {
+        return keyword.equalsIgnoreCase(args.get(index));
+    }
+}
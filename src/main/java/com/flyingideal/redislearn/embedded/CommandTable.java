@@ -0,0 +1,195 @@
+package com.flyingideal.redislearn.embedded;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 命令表：命令名到实现及参数个数的映射，并负责 MULTI / EXEC 事务的排队与执行
+ *
+ * @author yanchao
+ * @date 2026/10/17 14:20
+ */
+final class CommandTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommandTable.class);
+
+    private static final class Spec {
+
+        final Command command;
+
+        /**
+         * 与 redis 相同：正数表示参数个数（含命令名）必须相等，负数表示至少为其绝对值
+         */
+        final int arity;
+
+        Spec(Command command, int arity) {
+            this.command = command;
+            this.arity = arity;
+        }
+    }
+
+    private final Map<String, Spec> commands = new HashMap<>();
+
+    private final PubSub pubSub;
+
+    /**
+     * 不为 null 时处于集群模式
+     */
+    private volatile ClusterState clusterState;
+
+    CommandTable(Map<String, EmbeddedScript> scripts, PubSub pubSub) {
+        this.pubSub = pubSub;
+        ConnectionCommands.register(this);
+        KeyCommands.register(this);
+        StringCommands.register(this);
+        ListCommands.register(this);
+        HashCommands.register(this);
+        SetCommands.register(this);
+        SortedSetCommands.register(this);
+        BitmapCommands.register(this);
+        HyperLogLogCommands.register(this);
+        ScriptCommands.register(this, scripts);
+        PubSub.register(this, pubSub);
+        register("cluster", -2, this::cluster);
+    }
+
+    void setClusterState(ClusterState clusterState) {
+        this.clusterState = clusterState;
+    }
+
+    ClusterState getClusterState() {
+        return clusterState;
+    }
+
+    void register(String name, int arity, Command command) {
+        commands.put(name.toUpperCase(Locale.ROOT), new Spec(command, arity));
+    }
+
+    void execute(ClientSession session, Database db, List<String> args) {
+        String name = args.get(0).toUpperCase(Locale.ROOT);
+        RespWriter out = session.writer;
+        switch (name) {
+            case "MULTI":
+                if (session.multiQueue != null) {
+                    out.error("ERR MULTI calls can not be nested");
+                } else {
+                    session.multiQueue = new ArrayList<>();
+                    session.multiError = false;
+                    out.ok();
+                }
+                return;
+            case "EXEC":
+                exec(session, db);
+                return;
+            case "DISCARD":
+                if (session.multiQueue == null) {
+                    out.error("ERR DISCARD without MULTI");
+                } else {
+                    session.multiQueue = null;
+                    out.ok();
+                }
+                return;
+            case "WATCH":
+            case "UNWATCH":
+                // 单线程执行且不支持乐观锁，WATCH 只返回 OK
+                out.ok();
+                return;
+            default:
+                break;
+        }
+        if (session.subscriptions() > 0 && !PubSub.SUBSCRIBED_COMMANDS.contains(name)) {
+            out.error("ERR only (P)SUBSCRIBE / (P)UNSUBSCRIBE / PING / QUIT allowed in this context");
+            return;
+        }
+        Spec spec = lookup(name, args, out);
+        if (spec == null) {
+            if (session.multiQueue != null) {
+                session.multiError = true;
+            }
+            return;
+        }
+        ClusterState cluster = clusterState;
+        String redirect = cluster == null ? null : cluster.redirect(name, args);
+        if (redirect != null) {
+            out.error(redirect);
+            if (session.multiQueue != null) {
+                session.multiError = true;
+            }
+            return;
+        }
+        if (session.multiQueue != null) {
+            session.multiQueue.add(args);
+            out.simple("QUEUED");
+            return;
+        }
+        invoke(spec, new CommandContext(args, db, pubSub, out, session, false));
+    }
+
+    private void exec(ClientSession session, Database db) {
+        RespWriter out = session.writer;
+        List<List<String>> queued = session.multiQueue;
+        session.multiQueue = null;
+        if (queued == null) {
+            out.error("ERR EXEC without MULTI");
+            return;
+        }
+        if (session.multiError) {
+            out.error("EXECABORT Transaction discarded because of previous errors.");
+            return;
+        }
+        out.arrayHeader(queued.size());
+        for (List<String> args : queued) {
+            Spec spec = commands.get(args.get(0).toUpperCase(Locale.ROOT));
+            invoke(spec, new CommandContext(args, db, pubSub, out, session, true));
+        }
+    }
+
+    /**
+     * 脚本中的 redis.call：不进入事务队列，阻塞命令按 EXEC 中的方式立即返回
+     */
+    void call(List<String> args, CommandContext caller, RespWriter out) {
+        Spec spec = lookup(args.get(0).toUpperCase(Locale.ROOT), args, out);
+        if (spec != null) {
+            invoke(spec, new CommandContext(args, caller.db, pubSub, out, caller.session, true));
+        }
+    }
+
+    private Spec lookup(String name, List<String> args, RespWriter out) {
+        Spec spec = commands.get(name);
+        if (spec == null) {
+            out.error("ERR unknown command '" + args.get(0) + "'");
+            return null;
+        }
+        if ((spec.arity > 0 && args.size() != spec.arity) || (spec.arity < 0 && args.size() < -spec.arity)) {
+            out.error("ERR wrong number of arguments for '" + args.get(0).toLowerCase(Locale.ROOT) + "' command");
+            return null;
+        }
+        return spec;
+    }
+
+    private void cluster(CommandContext ctx) {
+        ClusterState cluster = clusterState;
+        if (cluster == null) {
+            throw new RedisErrorException("ERR This instance has cluster support disabled");
+        }
+        cluster.command(ctx);
+    }
+
+    private static void invoke(Spec spec, CommandContext ctx) {
+        try {
+            spec.command.execute(ctx);
+            ctx.pubSub.notifyWrite(ctx.args);
+        } catch (RedisErrorException e) {
+            ctx.out.error(e.getMessage());
+        } catch (RuntimeException e) {
+            logger.warn("command {} failed", ctx.args, e);
+            ctx.out.error("ERR " + e);
+        }
+    }
+}
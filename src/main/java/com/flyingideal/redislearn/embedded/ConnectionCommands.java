@@ -0,0 +1,91 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连接及服务端相关命令：PING / ECHO / SELECT / QUIT / INFO / CLIENT / CONFIG / TIME
+ *
+ * @author yanchao
+ * @date 2026/10/17 14:26
+ */
+final class ConnectionCommands {
+
+    /**
+     * 对外声明的版本号，客户端据此判断 UNLINK 等命令是否可用
+     */
+    static final String VERSION = "4.0.0";
+
+    private ConnectionCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.register("ping", -1, ctx -> {
+            if (ctx.argc() > 1) {
+                ctx.out.bulk(ctx.arg(1));
+            } else {
+                ctx.out.simple("PONG");
+            }
+        });
+        table.register("echo", 2, ctx -> ctx.out.bulk(ctx.arg(1)));
+        table.register("select", 2, ConnectionCommands::select);
+        table.register("quit", 1, ctx -> {
+            ctx.session.closing = true;
+            ctx.out.ok();
+        });
+        table.register("info", -1, ConnectionCommands::info);
+        table.register("client", -2, ConnectionCommands::client);
+        table.register("config", -2, ConnectionCommands::config);
+        table.register("time", 1, ctx -> {
+            long micros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+            ctx.out.arrayHeader(2).bulk(Long.toString(micros / 1_000_000)).bulk(Long.toString(micros % 1_000_000));
+        });
+    }
+
+    /**
+     * 只有一个数据库，SELECT 0 以外的库返回错误
+     */
+    private static void select(CommandContext ctx) {
+        if (ctx.longArg(1) != 0) {
+            throw new RedisErrorException("ERR embedded server supports only database 0");
+        }
+        ctx.out.ok();
+    }
+
+    private static void info(CommandContext ctx) {
+        String info = "# Server\r\n"
+                + "redis_version:" + VERSION + "\r\n"
+                + "redis_mode:standalone\r\n"
+                + "os:embedded\r\n"
+                + "# Keyspace\r\n"
+                + "db0:keys=" + ctx.db.size() + ",expires=0\r\n";
+        ctx.out.bulk(info);
+    }
+
+    private static void client(CommandContext ctx) {
+        if (ctx.is(1, "getname")) {
+            ctx.out.nullBulk();
+        } else {
+            // SETNAME / REPLY 等直接返回 OK
+            ctx.out.ok();
+        }
+    }
+
+    /**
+     * 只保存 notify-keyspace-events，其他参数 GET 返回空、SET 直接返回 OK
+     */
+    private static void config(CommandContext ctx) {
+        boolean keyspaceEvents = ctx.argc() > 2 && ctx.is(2, "notify-keyspace-events");
+        if (ctx.is(1, "get")) {
+            if (keyspaceEvents) {
+                ctx.out.arrayHeader(2).bulk("notify-keyspace-events").bulk(ctx.pubSub.getNotifyKeyspaceEvents());
+            } else {
+                ctx.out.arrayHeader(0);
+            }
+        } else {
+            if (ctx.is(1, "set") && keyspaceEvents && ctx.argc() > 3) {
+                ctx.pubSub.setNotifyKeyspaceEvents(ctx.arg(3));
+            }
+            ctx.out.ok();
+        }
+    }
+}
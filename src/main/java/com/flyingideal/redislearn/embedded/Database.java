@@ -0,0 +1,243 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 键空间：key 到 value 的映射以及 key 的过期时间。只在事件循环线程中访问，不需要同步。
+ *
+ * value 的类型与 redis 的五种数据类型一一对应：
+ * String / LinkedList&lt;String&gt; / LinkedHashMap&lt;String, String&gt; / LinkedHashSet&lt;String&gt; / {@link ZSet}
+ *
+ * @author yanchao
+ * @date 2026/10/17 13:48
+ */
+class Database {
+
+    private static final int ACTIVE_EXPIRE_SAMPLES = 20;
+
+    private final Map<String, Object> data = new HashMap<>();
+
+    private final Map<String, Long> expires = new HashMap<>();
+
+    /**
+     * 本轮命令中被 push 过元素的 list，供阻塞命令唤醒等待的客户端
+     */
+    private final Set<String> readyKeys = new LinkedHashSet<>();
+
+    Object get(String key) {
+        expireIfNeeded(key);
+        return data.get(key);
+    }
+
+    boolean exists(String key) {
+        return get(key) != null;
+    }
+
+    /**
+     * 写入 value 并清除过期时间，与 SET 语义一致
+     */
+    void put(String key, Object value) {
+        data.put(key, value);
+        expires.remove(key);
+    }
+
+    /**
+     * 替换 value 但保留过期时间，用于 INCR / APPEND 这类修改操作
+     */
+    void replace(String key, Object value) {
+        data.put(key, value);
+    }
+
+    boolean remove(String key) {
+        expires.remove(key);
+        return data.remove(key) != null;
+    }
+
+    void removeIfEmpty(String key, Object value) {
+        boolean empty = value instanceof java.util.Collection ? ((java.util.Collection<?>) value).isEmpty()
+                : value instanceof Map ? ((Map<?, ?>) value).isEmpty()
+                : value instanceof ZSet && ((ZSet) value).size() == 0;
+        if (empty) {
+            remove(key);
+        }
+    }
+
+    int size() {
+        return data.size();
+    }
+
+    void clear() {
+        data.clear();
+        expires.clear();
+    }
+
+    Set<String> keys() {
+        List<String> keys = new ArrayList<>(data.keySet());
+        Set<String> alive = new LinkedHashSet<>();
+        for (String key : keys) {
+            if (exists(key)) {
+                alive.add(key);
+            }
+        }
+        return alive;
+    }
+
+    // ---------------------------------------------------------------- 类型检查
+
+    String getString(String key) {
+        return cast(get(key), String.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    LinkedList<String> getList(String key, boolean create) {
+        LinkedList<String> list = cast(get(key), LinkedList.class);
+        if (list == null && create) {
+            list = new LinkedList<>();
+            data.put(key, list);
+        }
+        return list;
+    }
+
+    @SuppressWarnings("unchecked")
+    LinkedHashMap<String, String> getHash(String key, boolean create) {
+        LinkedHashMap<String, String> hash = cast(get(key), LinkedHashMap.class);
+        if (hash == null && create) {
+            hash = new LinkedHashMap<>();
+            data.put(key, hash);
+        }
+        return hash;
+    }
+
+    @SuppressWarnings("unchecked")
+    Set<String> getSet(String key, boolean create) {
+        Set<String> set = cast(get(key), LinkedHashSet.class);
+        if (set == null && create) {
+            set = new LinkedHashSet<>();
+            data.put(key, set);
+        }
+        return set;
+    }
+
+    ZSet getZSet(String key, boolean create) {
+        ZSet zset = cast(get(key), ZSet.class);
+        if (zset == null && create) {
+            zset = new ZSet();
+            data.put(key, zset);
+        }
+        return zset;
+    }
+
+    private static <T> T cast(Object value, Class<T> type) {
+        if (value == null) {
+            return null;
+        }
+        if (!type.isInstance(value)) {
+            throw new RedisErrorException(RedisErrorException.WRONG_TYPE);
+        }
+        return type.cast(value);
+    }
+
+    static String typeName(Object value) {
+        if (value == null) {
+            return "none";
+        } else if (value instanceof String) {
+            return "string";
+        } else if (value instanceof LinkedList) {
+            return "list";
+        } else if (value instanceof LinkedHashMap) {
+            return "hash";
+        } else if (value instanceof HashSet) {
+            return "set";
+        }
+        return "zset";
+    }
+
+    // ---------------------------------------------------------------- 过期
+
+    /**
+     * @param expireAt 过期的绝对时间，单位毫秒
+     */
+    boolean expireAt(String key, long expireAt) {
+        if (!exists(key)) {
+            return false;
+        }
+        if (expireAt <= System.currentTimeMillis()) {
+            remove(key);
+        } else {
+            expires.put(key, expireAt);
+        }
+        return true;
+    }
+
+    boolean persist(String key) {
+        return exists(key) && expires.remove(key) != null;
+    }
+
+    /**
+     * @return 剩余毫秒数，key 不存在返回 -2，没有过期时间返回 -1
+     */
+    long pttl(String key) {
+        if (!exists(key)) {
+            return -2;
+        }
+        Long expireAt = expires.get(key);
+        return expireAt == null ? -1 : Math.max(0, expireAt - System.currentTimeMillis());
+    }
+
+    private void expireIfNeeded(String key) {
+        Long expireAt = expires.get(key);
+        if (expireAt != null && expireAt <= System.currentTimeMillis()) {
+            remove(key);
+        }
+    }
+
+    /**
+     * 与 redis 的 activeExpireCycle 类似，随机抽查一部分带过期时间的 key 并删除已过期的
+     */
+    void activeExpire() {
+        if (expires.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int skip = ThreadLocalRandom.current().nextInt(Math.max(1, expires.size() - ACTIVE_EXPIRE_SAMPLES + 1));
+        Iterator<Map.Entry<String, Long>> iterator = expires.entrySet().iterator();
+        for (int i = 0; i < skip && iterator.hasNext(); i++) {
+            iterator.next();
+        }
+        for (int i = 0; i < ACTIVE_EXPIRE_SAMPLES && iterator.hasNext(); i++) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (entry.getValue() <= now) {
+                iterator.remove();
+                data.remove(entry.getKey());
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- 阻塞命令
+
+    void signalReady(String key) {
+        readyKeys.add(key);
+    }
+
+    /**
+     * 取出并清空本轮就绪的 key
+     */
+    List<String> drainReadyKeys() {
+        if (readyKeys.isEmpty()) {
+            return java.util.Collections.emptyList();
+        }
+        List<String> keys = new ArrayList<>(readyKeys);
+        readyKeys.clear();
+        return keys;
+    }
+}
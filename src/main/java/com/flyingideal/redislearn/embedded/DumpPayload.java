@@ -0,0 +1,152 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * DUMP / RESTORE 的序列化格式。与 redis 一样由 类型、内容、2 字节版本号、8 字节校验和 组成，
+ * 但内容不是 RDB 编码，只能在内嵌 redis 之间传递。
+ *
+ * @author yanchao
+ * @date 2026/10/19 10:05
+ */
+final class DumpPayload {
+
+    private static final int VERSION = 1;
+
+    private static final int TYPE_STRING = 0;
+
+    private static final int TYPE_LIST = 1;
+
+    private static final int TYPE_SET = 2;
+
+    private static final int TYPE_ZSET = 3;
+
+    private static final int TYPE_HASH = 4;
+
+    private static final String INVALID = "ERR DUMP payload version or checksum are wrong";
+
+    private DumpPayload() {
+    }
+
+    /**
+     * @return 以 ISO-8859-1 表示的二进制内容，与命令参数的编码一致
+     */
+    @SuppressWarnings("unchecked")
+    static String serialize(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if (value instanceof String) {
+                out.writeByte(TYPE_STRING);
+                writeString(out, (String) value);
+            } else if (value instanceof LinkedList) {
+                out.writeByte(TYPE_LIST);
+                writeStrings(out, (Collection<String>) value);
+            } else if (value instanceof LinkedHashMap) {
+                out.writeByte(TYPE_HASH);
+                Map<String, String> hash = (Map<String, String>) value;
+                out.writeInt(hash.size());
+                for (Map.Entry<String, String> entry : hash.entrySet()) {
+                    writeString(out, entry.getKey());
+                    writeString(out, entry.getValue());
+                }
+            } else if (value instanceof LinkedHashSet) {
+                out.writeByte(TYPE_SET);
+                writeStrings(out, (Collection<String>) value);
+            } else {
+                out.writeByte(TYPE_ZSET);
+                Map<String, Double> dict = ((ZSet) value).dict;
+                out.writeInt(dict.size());
+                for (Map.Entry<String, Double> entry : dict.entrySet()) {
+                    writeString(out, entry.getKey());
+                    out.writeDouble(entry.getValue());
+                }
+            }
+            out.writeShort(VERSION);
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeLong(crc.getValue());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.ISO_8859_1);
+    }
+
+    static Object deserialize(String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.ISO_8859_1);
+        if (bytes.length < 11) {
+            throw new RedisErrorException(INVALID);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 8);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        try {
+            in.skipBytes(bytes.length - 10);
+            if (in.readUnsignedShort() != VERSION || in.readLong() != crc.getValue()) {
+                throw new RedisErrorException(INVALID);
+            }
+            in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 10));
+            int type = in.readUnsignedByte();
+            switch (type) {
+                case TYPE_STRING:
+                    return readString(in);
+                case TYPE_LIST:
+                    return readStrings(in, new LinkedList<>());
+                case TYPE_SET:
+                    return readStrings(in, new LinkedHashSet<>());
+                case TYPE_HASH:
+                    LinkedHashMap<String, String> hash = new LinkedHashMap<>();
+                    for (int i = in.readInt(); i > 0; i--) {
+                        hash.put(readString(in), readString(in));
+                    }
+                    return hash;
+                case TYPE_ZSET:
+                    ZSet zset = new ZSet();
+                    for (int i = in.readInt(); i > 0; i--) {
+                        zset.put(readString(in), in.readDouble());
+                    }
+                    return zset;
+                default:
+                    throw new RedisErrorException("ERR Bad data format");
+            }
+        } catch (IOException e) {
+            throw new RedisErrorException("ERR Bad data format");
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static <C extends Collection<String>> C readStrings(DataInputStream in, C values) throws IOException {
+        for (int i = in.readInt(); i > 0; i--) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
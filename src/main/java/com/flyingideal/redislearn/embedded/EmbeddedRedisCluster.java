@@ -0,0 +1,83 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 进程内的 redis cluster：启动若干个 {@link EmbeddedRedisServer}，16384 个 slot 按顺序平均分给各节点，
+ * 每个节点只执行属于自己的 slot 的命令，其余返回 MOVED / CROSSSLOT，供 JedisCluster 相关的测试使用。
+ *
+ * 用法：
+ * <pre>
+ *     try (EmbeddedRedisCluster cluster = new EmbeddedRedisCluster(3).start()) {
+ *         JedisCluster jedisCluster = new JedisCluster(new HostAndPort(cluster.getHost(), cluster.getPorts().get(0)));
+ *     }
+ * </pre>
+ *
+ * @author yanchao
+ * @date 2026/10/18 21:40
+ * @see ClusterState
+ */
+public class EmbeddedRedisCluster implements Closeable {
+
+    private final List<EmbeddedRedisServer> servers = new ArrayList<>();
+
+    public EmbeddedRedisCluster(int nodes) {
+        if (nodes < 1) {
+            throw new IllegalArgumentException("nodes must be positive: " + nodes);
+        }
+        for (int i = 0; i < nodes; i++) {
+            servers.add(new EmbeddedRedisServer());
+        }
+    }
+
+    public EmbeddedRedisCluster start() {
+        List<ClusterState.Node> nodes = new ArrayList<>(servers.size());
+        for (int i = 0; i < servers.size(); i++) {
+            EmbeddedRedisServer server = servers.get(i).start();
+            int start = ClusterState.SLOTS * i / servers.size();
+            int end = ClusterState.SLOTS * (i + 1) / servers.size() - 1;
+            nodes.add(new ClusterState.Node(String.format("%040x", i + 1), server.getHost(), server.getPort(),
+                    start, end));
+        }
+        List<ClusterState.Node> topology = Collections.unmodifiableList(nodes);
+        for (int i = 0; i < servers.size(); i++) {
+            servers.get(i).setClusterState(new ClusterState(topology, topology.get(i)));
+        }
+        return this;
+    }
+
+    public String getHost() {
+        return servers.get(0).getHost();
+    }
+
+    public List<Integer> getPorts() {
+        List<Integer> ports = new ArrayList<>(servers.size());
+        for (EmbeddedRedisServer server : servers) {
+            ports.add(server.getPort());
+        }
+        return ports;
+    }
+
+    /**
+     * @return 负责这个 key 所在 slot 的节点
+     */
+    public EmbeddedRedisServer nodeFor(String key) {
+        int slot = ClusterState.slot(key);
+        for (EmbeddedRedisServer server : servers) {
+            if (server.getClusterState().owns(slot)) {
+                return server;
+            }
+        }
+        throw new IllegalStateException("cluster not started");
+    }
+
+    @Override
+    public void close() {
+        for (EmbeddedRedisServer server : servers) {
+            server.close();
+        }
+    }
+}
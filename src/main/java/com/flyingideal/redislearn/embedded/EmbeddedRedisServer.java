@@ -0,0 +1,405 @@
+package com.flyingideal.redislearn.embedded;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 进程内的 redis 替身，供测试和 benchmark 在没有 redis-server 的机器上使用。
+ *
+ * 与 redis 一样使用单线程事件循环：基于 NIO Selector 的非阻塞 IO，所有命令在同一个线程中串行执行，
+ * 因此命令天然是原子的。实现了 jedis 包下各测试类用到的 string / list / hash / set / sorted set 命令、bitmap 和 HyperLogLog 命令，
+ * 以及 DUMP / RESTORE（序列化格式只在内嵌 redis 之间通用）、MULTI / EXEC、BLPOP / BRPOP / BRPOPLPUSH 阻塞命令、SCAN 系列命令和发布订阅（含简化的 keyspace 通知，见 {@link PubSub}）；
+ * 不支持持久化。由 {@link EmbeddedRedisCluster} 启动时按 slot 检查 key，模拟 redis cluster 的 MOVED / CROSSSLOT。
+ * 不能执行 Lua，EVAL / EVALSHA 执行通过 {@link #registerScript(String, EmbeddedScript)} 注册的等价 java 实现。
+ *
+ * 用法：
+ * <pre>
+ *     try (EmbeddedRedisServer server = new EmbeddedRedisServer().start()) {
+ *         Jedis jedis = new Jedis(server.getHost(), server.getPort());
+ *     }
+ * </pre>
+ *
+ * @author yanchao
+ * @date 2026/10/17 15:40
+ */
+public class EmbeddedRedisServer implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedRedisServer.class);
+
+    private static final String HOST = "127.0.0.1";
+
+    /**
+     * 没有阻塞客户端时 select 的最长等待时间，同时也是主动过期的执行周期
+     */
+    private static final long SELECT_TIMEOUT_MILLIS = 100;
+
+    private final int requestedPort;
+
+    private final Database db = new Database();
+
+    private final Map<String, EmbeddedScript> scripts = new ConcurrentHashMap<>();
+
+    private final PubSub pubSub = new PubSub();
+
+    private final CommandTable commandTable = new CommandTable(scripts, pubSub);
+
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+
+    /**
+     * 每个 key 上按到达顺序排队的阻塞客户端
+     */
+    private final Map<String, Deque<ClientSession>> blockedByKey = new HashMap<>();
+
+    private final Set<ClientSession> blockedSessions = new LinkedHashSet<>();
+
+    private Selector selector;
+
+    private ServerSocketChannel serverChannel;
+
+    private Thread eventLoop;
+
+    private int port;
+
+    private volatile boolean running;
+
+    /**
+     * 绑定随机端口
+     */
+    public EmbeddedRedisServer() {
+        this(0);
+    }
+
+    public EmbeddedRedisServer(int port) {
+        this.requestedPort = port;
+    }
+
+    /**
+     * 绑定端口并启动事件循环线程，返回时服务端已可以接受连接
+     */
+    public EmbeddedRedisServer start() {
+        try {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(HOST, requestedPort));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            port = serverChannel.socket().getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException("embedded redis server failed to bind port " + requestedPort, e);
+        }
+        running = true;
+        CountDownLatch started = new CountDownLatch(1);
+        eventLoop = new Thread(() -> {
+            started.countDown();
+            loop();
+        }, "embedded-redis-" + getPort());
+        eventLoop.setDaemon(true);
+        eventLoop.start();
+        try {
+            started.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("embedded redis server listening on {}:{}", HOST, getPort());
+        return this;
+    }
+
+    /**
+     * 为一段 Lua 脚本注册等价的 java 实现，之后以相同脚本内容 EVAL 或以其 SHA1 EVALSHA 时执行该实现
+     *
+     * @return 脚本的 SHA1
+     */
+    public String registerScript(String source, EmbeddedScript script) {
+        // 参数在服务端按 ISO-8859-1 解码，与客户端发送的 UTF-8 字节一一对应
+        String sha = ScriptCommands.sha1(new String(source.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1));
+        scripts.put(sha, script);
+        return sha;
+    }
+
+    public String getHost() {
+        return HOST;
+    }
+
+    /**
+     * 由 {@link EmbeddedRedisCluster} 在启动后设置，之后按 slot 检查每条命令的 key
+     */
+    void setClusterState(ClusterState clusterState) {
+        commandTable.setClusterState(clusterState);
+    }
+
+    ClusterState getClusterState() {
+        return commandTable.getClusterState();
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            eventLoop.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void loop() {
+        try {
+            while (running) {
+                selector.select(nextSelectTimeout());
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            if (key.isReadable()) {
+                                read(key);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                write(key, (ClientSession) key.attachment());
+                            }
+                        }
+                    } catch (IOException | RedisErrorException e) {
+                        logger.debug("embedded redis connection closed: {}", e.getMessage());
+                        closeSession(key);
+                    }
+                }
+                expireBlockedSessions();
+                db.activeExpire();
+            }
+        } catch (IOException e) {
+            logger.error("embedded redis event loop terminated", e);
+        } finally {
+            shutdown();
+        }
+    }
+
+    private long nextSelectTimeout() {
+        long timeout = SELECT_TIMEOUT_MILLIS;
+        long now = System.currentTimeMillis();
+        for (ClientSession session : blockedSessions) {
+            if (session.blocked.deadline > 0) {
+                timeout = Math.min(timeout, Math.max(1, session.blocked.deadline - now));
+            }
+        }
+        return timeout;
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        channel.register(selector, SelectionKey.OP_READ, new ClientSession(channel));
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        ClientSession session = (ClientSession) key.attachment();
+        readBuffer.clear();
+        int read = session.channel.read(readBuffer);
+        if (read < 0) {
+            closeSession(key);
+            return;
+        }
+        readBuffer.flip();
+        session.reader.feed(readBuffer);
+        processInput(session);
+    }
+
+    /**
+     * 依次执行客户端已到达的命令，阻塞命令未满足时暂停处理该客户端后续的命令
+     */
+    private void processInput(ClientSession session) throws IOException {
+        List<String> args;
+        while (session.blocked == null && !session.closing && (args = session.reader.next()) != null) {
+            if (args.isEmpty()) {
+                continue;
+            }
+            commandTable.execute(session, db, args);
+            if (session.blocked != null) {
+                block(session);
+            }
+            serveReadyKeys();
+        }
+        flush(session);
+        for (ClientSession subscriber : pubSub.drainPending()) {
+            flushSubscriber(subscriber);
+        }
+    }
+
+    /**
+     * 订阅者的连接出错时只关闭订阅者，不影响发布消息的客户端
+     */
+    private void flushSubscriber(ClientSession subscriber) {
+        try {
+            flush(subscriber);
+        } catch (IOException e) {
+            logger.debug("embedded redis subscriber closed: {}", e.getMessage());
+            SelectionKey key = subscriber.channel.keyFor(selector);
+            if (key != null) {
+                closeSession(key);
+            }
+        }
+    }
+
+    private void block(ClientSession session) {
+        blockedSessions.add(session);
+        for (String key : session.blocked.keys) {
+            blockedByKey.computeIfAbsent(key, k -> new ArrayDeque<>()).add(session);
+        }
+    }
+
+    private void unblock(ClientSession session) {
+        for (String key : session.blocked.keys) {
+            Deque<ClientSession> waiting = blockedByKey.get(key);
+            if (waiting != null) {
+                waiting.remove(session);
+                if (waiting.isEmpty()) {
+                    blockedByKey.remove(key);
+                }
+            }
+        }
+        blockedSessions.remove(session);
+        session.blocked = null;
+    }
+
+    /**
+     * list 被 push 之后，按阻塞顺序唤醒等待该 key 的客户端
+     */
+    private void serveReadyKeys() throws IOException {
+        List<String> readyKeys;
+        List<ClientSession> served = new ArrayList<>();
+        while (!(readyKeys = db.drainReadyKeys()).isEmpty()) {
+            for (String key : readyKeys) {
+                Deque<ClientSession> waiting = blockedByKey.get(key);
+                while (waiting != null && !waiting.isEmpty()) {
+                    ClientSession session = waiting.peek();
+                    if (!ListCommands.serveBlocked(db, session, key)) {
+                        break;
+                    }
+                    unblock(session);
+                    served.add(session);
+                    waiting = blockedByKey.get(key);
+                }
+            }
+        }
+        for (ClientSession session : served) {
+            processInput(session);
+        }
+    }
+
+    private void expireBlockedSessions() throws IOException {
+        if (blockedSessions.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (ClientSession session : new ArrayList<>(blockedSessions)) {
+            if (session.blocked.deadline > 0 && session.blocked.deadline <= now) {
+                ListCommands.timeout(session);
+                unblock(session);
+                processInput(session);
+            }
+        }
+    }
+
+    private void flush(ClientSession session) throws IOException {
+        if (!session.writer.isEmpty()) {
+            session.pendingWrites.add(session.writer.drain());
+        }
+        SelectionKey key = session.channel.keyFor(selector);
+        if (key != null && key.isValid()) {
+            write(key, session);
+        }
+    }
+
+    private void write(SelectionKey key, ClientSession session) throws IOException {
+        while (!session.pendingWrites.isEmpty()) {
+            ByteBuffer buffer = session.pendingWrites.peek();
+            session.channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                // socket 发送缓冲区已满，等待可写事件
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            session.pendingWrites.poll();
+        }
+        key.interestOps(SelectionKey.OP_READ);
+        if (session.closing) {
+            closeSession(key);
+        }
+    }
+
+    private void closeSession(SelectionKey key) {
+        Object attachment = key.attachment();
+        if (attachment instanceof ClientSession) {
+            ClientSession session = (ClientSession) attachment;
+            if (session.blocked != null) {
+                unblock(session);
+            }
+            pubSub.remove(session);
+        }
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            logger.debug("close client channel failed", e);
+        }
+    }
+
+    private void shutdown() {
+        for (SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                logger.debug("close channel failed", e);
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            logger.debug("close selector failed", e);
+        }
+        running = false;
+        logger.info("embedded redis server on port {} stopped", port);
+    }
+}
@@ -0,0 +1,18 @@
+package com.flyingideal.redislearn.embedded;
+
+/**
+ * 内嵌服务端不能执行 Lua，EVAL / EVALSHA 按脚本的 SHA1 找到以 java 实现的等价逻辑执行。
+ * 与 redis 一样在事件循环线程中执行，执行期间不会插入其他客户端的命令。
+ *
+ * 返回值按 Lua 到 RESP 的规则转换：Long / Integer 为整数回复，String 为 bulk 回复，List 为数组，
+ * null 和 false 为 nil，true 为整数 1。
+ *
+ * @author yanchao
+ * @date 2026/10/18 09:10
+ * @see EmbeddedRedisServer#registerScript(String, EmbeddedScript)
+ */
+@FunctionalInterface
+public interface EmbeddedScript {
+
+    Object execute(ScriptCall call);
+}
@@ -0,0 +1,99 @@
+package com.flyingideal.redislearn.embedded;
+
+/**
+ * redis 风格的 glob 匹配（KEYS / SCAN MATCH），支持 * ? [abc] [^a] [a-z] 以及反斜杠转义
+ *
+ * @author yanchao
+ * @date 2026/10/17 13:56
+ */
+final class GlobMatcher {
+
+    private GlobMatcher() {
+    }
+
+    static boolean matches(String pattern, String value) {
+        return matches(pattern, 0, value, 0);
+    }
+
+    private static boolean matches(String pattern, int p, String value, int v) {
+        while (p < pattern.length()) {
+            char c = pattern.charAt(p);
+            switch (c) {
+                case '*':
+                    while (p + 1 < pattern.length() && pattern.charAt(p + 1) == '*') {
+                        p++;
+                    }
+                    if (p + 1 == pattern.length()) {
+                        return true;
+                    }
+                    for (int i = v; i <= value.length(); i++) {
+                        if (matches(pattern, p + 1, value, i)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                case '?':
+                    if (v >= value.length()) {
+                        return false;
+                    }
+                    v++;
+                    break;
+                case '[': {
+                    if (v >= value.length()) {
+                        return false;
+                    }
+                    int end = p + 1;
+                    boolean negate = end < pattern.length() && pattern.charAt(end) == '^';
+                    if (negate) {
+                        end++;
+                    }
+                    boolean matched = false;
+                    char target = value.charAt(v);
+                    while (end < pattern.length() && pattern.charAt(end) != ']') {
+                        char start = pattern.charAt(end);
+                        if (start == '\\' && end + 1 < pattern.length()) {
+                            start = pattern.charAt(++end);
+                        }
+                        if (end + 2 < pattern.length() && pattern.charAt(end + 1) == '-'
+                                && pattern.charAt(end + 2) != ']') {
+                            char stop = pattern.charAt(end + 2);
+                            if (Math.min(start, stop) <= target && target <= Math.max(start, stop)) {
+                                matched = true;
+                            }
+                            end += 3;
+                        } else {
+                            if (start == target) {
+                                matched = true;
+                            }
+                            end++;
+                        }
+                    }
+                    if (matched == negate) {
+                        return false;
+                    }
+                    p = end;
+                    v++;
+                    break;
+                }
+                case '\\':
+                    // 转义后的字符按字面匹配，末尾单独的反斜杠匹配它自己
+                    if (p + 1 < pattern.length()) {
+                        c = pattern.charAt(++p);
+                    }
+                    if (v >= value.length() || value.charAt(v) != c) {
+                        return false;
+                    }
+                    v++;
+                    break;
+                default:
+                    if (v >= value.length() || value.charAt(v) != c) {
+                        return false;
+                    }
+                    v++;
+                    break;
+            }
+            p++;
+        }
+        return v == value.length();
+    }
+}
@@ -0,0 +1,148 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * hash 类型命令，对应 HashTest 中用到的 hset / hmset / hgetAll / hincrBy / hscan 等
+ *
+ * @author yanchao
+ * @date 2026/10/17 15:03
+ */
+final class HashCommands {
+
+    private HashCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.register("hset", -4, HashCommands::hset);
+        table.register("hmset", -4, ctx -> {
+            hsetPairs(ctx);
+            ctx.out.ok();
+        });
+        table.register("hsetnx", 4, HashCommands::hsetnx);
+        table.register("hget", 3, ctx -> {
+            Map<String, String> hash = ctx.db.getHash(ctx.arg(1), false);
+            ctx.out.bulk(hash == null ? null : hash.get(ctx.arg(2)));
+        });
+        table.register("hmget", -3, HashCommands::hmget);
+        table.register("hgetall", 2, HashCommands::hgetall);
+        table.register("hkeys", 2, ctx -> ctx.out.array(hashOrEmpty(ctx).keySet()));
+        table.register("hvals", 2, ctx -> ctx.out.array(hashOrEmpty(ctx).values()));
+        table.register("hlen", 2, ctx -> ctx.out.integer(hashOrEmpty(ctx).size()));
+        table.register("hexists", 3, ctx -> ctx.out.integer(hashOrEmpty(ctx).containsKey(ctx.arg(2)) ? 1 : 0));
+        table.register("hstrlen", 3, ctx -> {
+            String value = hashOrEmpty(ctx).get(ctx.arg(2));
+            ctx.out.integer(value == null ? 0 : value.length());
+        });
+        table.register("hdel", -3, HashCommands::hdel);
+        table.register("hincrby", 4, HashCommands::hincrby);
+        table.register("hincrbyfloat", 4, HashCommands::hincrbyfloat);
+        table.register("hscan", -3, ctx -> KeyCommands.scan(ctx, 2,
+                new ArrayList<>(hashOrEmpty(ctx).entrySet()), Map.Entry::getKey,
+                (out, entry) -> out.bulk(entry.getKey()).bulk(entry.getValue()), 2));
+    }
+
+    private static Map<String, String> hashOrEmpty(CommandContext ctx) {
+        Map<String, String> hash = ctx.db.getHash(ctx.arg(1), false);
+        return hash == null ? Collections.emptyMap() : hash;
+    }
+
+    private static int hsetPairs(CommandContext ctx) {
+        if (ctx.argc() % 2 != 0) {
+            throw new RedisErrorException("ERR wrong number of arguments for '" + ctx.arg(0).toLowerCase() + "' command");
+        }
+        LinkedHashMap<String, String> hash = ctx.db.getHash(ctx.arg(1), true);
+        int added = 0;
+        for (int i = 2; i < ctx.argc(); i += 2) {
+            if (hash.put(ctx.arg(i), ctx.arg(i + 1)) == null) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * HSET key field value [field value ...]，返回新增字段数
+     */
+    private static void hset(CommandContext ctx) {
+        ctx.out.integer(hsetPairs(ctx));
+    }
+
+    private static void hsetnx(CommandContext ctx) {
+        LinkedHashMap<String, String> hash = ctx.db.getHash(ctx.arg(1), true);
+        if (hash.containsKey(ctx.arg(2))) {
+            ctx.out.integer(0);
+            return;
+        }
+        hash.put(ctx.arg(2), ctx.arg(3));
+        ctx.out.integer(1);
+    }
+
+    private static void hmget(CommandContext ctx) {
+        Map<String, String> hash = hashOrEmpty(ctx);
+        ctx.out.arrayHeader(ctx.argc() - 2);
+        for (int i = 2; i < ctx.argc(); i++) {
+            ctx.out.bulk(hash.get(ctx.arg(i)));
+        }
+    }
+
+    private static void hgetall(CommandContext ctx) {
+        Map<String, String> hash = hashOrEmpty(ctx);
+        ctx.out.arrayHeader(hash.size() * 2);
+        for (Map.Entry<String, String> entry : hash.entrySet()) {
+            ctx.out.bulk(entry.getKey()).bulk(entry.getValue());
+        }
+    }
+
+    private static void hdel(CommandContext ctx) {
+        LinkedHashMap<String, String> hash = ctx.db.getHash(ctx.arg(1), false);
+        if (hash == null) {
+            ctx.out.integer(0);
+            return;
+        }
+        long removed = 0;
+        for (int i = 2; i < ctx.argc(); i++) {
+            if (hash.remove(ctx.arg(i)) != null) {
+                removed++;
+            }
+        }
+        ctx.db.removeIfEmpty(ctx.arg(1), hash);
+        ctx.out.integer(removed);
+    }
+
+    private static void hincrby(CommandContext ctx) {
+        long delta = ctx.longArg(3);
+        LinkedHashMap<String, String> hash = ctx.db.getHash(ctx.arg(1), true);
+        String value = hash.get(ctx.arg(2));
+        long current;
+        try {
+            current = value == null ? 0 : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new RedisErrorException("ERR hash value is not an integer");
+        }
+        long result;
+        try {
+            result = Math.addExact(current, delta);
+        } catch (ArithmeticException e) {
+            throw new RedisErrorException("ERR increment or decrement would overflow");
+        }
+        hash.put(ctx.arg(2), Long.toString(result));
+        ctx.out.integer(result);
+    }
+
+    private static void hincrbyfloat(CommandContext ctx) {
+        double delta = ctx.doubleArg(3);
+        LinkedHashMap<String, String> hash = ctx.db.getHash(ctx.arg(1), true);
+        String value = hash.get(ctx.arg(2));
+        double result = (value == null ? 0 : CommandContext.parseDouble(value)) + delta;
+        if (Double.isNaN(result) || Double.isInfinite(result)) {
+            throw new RedisErrorException("ERR increment would produce NaN or Infinity");
+        }
+        String formatted = RespWriter.formatDouble(result);
+        hash.put(ctx.arg(2), formatted);
+        ctx.out.bulk(formatted);
+    }
+}
@@ -0,0 +1,195 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 通用 key 命令：DEL / EXISTS / TYPE / EXPIRE / TTL / RENAME / DUMP / RESTORE / KEYS / SCAN 等
+ *
+ * @author yanchao
+ * @date 2026/10/17 14:32
+ */
+final class KeyCommands {
+
+    private static final int DEFAULT_SCAN_COUNT = 10;
+
+    private KeyCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.register("del", -2, KeyCommands::del);
+        table.register("unlink", -2, KeyCommands::del);
+        table.register("exists", -2, KeyCommands::exists);
+        table.register("type", 2, ctx -> ctx.out.simple(Database.typeName(ctx.db.get(ctx.arg(1)))));
+        table.register("expire", 3, ctx -> expire(ctx, ctx.longArg(2) * 1000 + System.currentTimeMillis()));
+        table.register("pexpire", 3, ctx -> expire(ctx, ctx.longArg(2) + System.currentTimeMillis()));
+        table.register("expireat", 3, ctx -> expire(ctx, ctx.longArg(2) * 1000));
+        table.register("pexpireat", 3, ctx -> expire(ctx, ctx.longArg(2)));
+        table.register("persist", 2, ctx -> ctx.out.integer(ctx.db.persist(ctx.arg(1)) ? 1 : 0));
+        table.register("ttl", 2, KeyCommands::ttl);
+        table.register("pttl", 2, ctx -> ctx.out.integer(ctx.db.pttl(ctx.arg(1))));
+        table.register("rename", 3, ctx -> rename(ctx, false));
+        table.register("renamenx", 3, ctx -> rename(ctx, true));
+        table.register("dump", 2, ctx -> {
+            Object value = ctx.db.get(ctx.arg(1));
+            ctx.out.bulk(value == null ? null : DumpPayload.serialize(value));
+        });
+        table.register("restore", -4, KeyCommands::restore);
+        table.register("keys", 2, KeyCommands::keys);
+        table.register("scan", -2, ctx -> scan(ctx, 1, ctx.db.keys(), key -> key, RespWriter::bulk, 1));
+        table.register("dbsize", 1, ctx -> ctx.out.integer(ctx.db.size()));
+        table.register("flushdb", -1, KeyCommands::flush);
+        table.register("flushall", -1, KeyCommands::flush);
+    }
+
+    private static void del(CommandContext ctx) {
+        long removed = 0;
+        for (int i = 1; i < ctx.argc(); i++) {
+            if (ctx.db.exists(ctx.arg(i)) && ctx.db.remove(ctx.arg(i))) {
+                removed++;
+            }
+        }
+        ctx.out.integer(removed);
+    }
+
+    private static void exists(CommandContext ctx) {
+        long count = 0;
+        for (int i = 1; i < ctx.argc(); i++) {
+            if (ctx.db.exists(ctx.arg(i))) {
+                count++;
+            }
+        }
+        ctx.out.integer(count);
+    }
+
+    private static void expire(CommandContext ctx, long expireAtMillis) {
+        ctx.out.integer(ctx.db.expireAt(ctx.arg(1), expireAtMillis) ? 1 : 0);
+    }
+
+    private static void ttl(CommandContext ctx) {
+        long pttl = ctx.db.pttl(ctx.arg(1));
+        ctx.out.integer(pttl < 0 ? pttl : (pttl + 500) / 1000);
+    }
+
+    private static void rename(CommandContext ctx, boolean nx) {
+        String source = ctx.arg(1);
+        String target = ctx.arg(2);
+        Object value = ctx.db.get(source);
+        if (value == null) {
+            throw new RedisErrorException("ERR no such key");
+        }
+        if (nx && ctx.db.exists(target)) {
+            ctx.out.integer(0);
+            return;
+        }
+        long pttl = ctx.db.pttl(source);
+        ctx.db.remove(source);
+        ctx.db.put(target, value);
+        if (pttl > 0) {
+            ctx.db.expireAt(target, System.currentTimeMillis() + pttl);
+        }
+        if (nx) {
+            ctx.out.integer(1);
+        } else {
+            ctx.out.ok();
+        }
+    }
+
+    /**
+     * RESTORE key ttl payload [REPLACE] [ABSTTL]
+     */
+    private static void restore(CommandContext ctx) {
+        String key = ctx.arg(1);
+        long ttl = ctx.longArg(2);
+        boolean replace = false;
+        boolean absolute = false;
+        for (int i = 4; i < ctx.argc(); i++) {
+            if (ctx.is(i, "replace")) {
+                replace = true;
+            } else if (ctx.is(i, "absttl")) {
+                absolute = true;
+            } else {
+                throw new RedisErrorException(RedisErrorException.SYNTAX);
+            }
+        }
+        if (ttl < 0) {
+            throw new RedisErrorException("ERR Invalid TTL value, must be >= 0");
+        }
+        if (!replace && ctx.db.exists(key)) {
+            throw new RedisErrorException("BUSYKEY Target key name already exists.");
+        }
+        Object value = DumpPayload.deserialize(ctx.arg(3));
+        ctx.db.put(key, value);
+        if (ttl > 0) {
+            ctx.db.expireAt(key, absolute ? ttl : System.currentTimeMillis() + ttl);
+        }
+        ctx.out.ok();
+    }
+
+    private static void keys(CommandContext ctx) {
+        List<String> matched = new ArrayList<>();
+        for (String key : ctx.db.keys()) {
+            if (GlobMatcher.matches(ctx.arg(1), key)) {
+                matched.add(key);
+            }
+        }
+        ctx.out.array(matched);
+    }
+
+    private static void flush(CommandContext ctx) {
+        ctx.db.clear();
+        ctx.out.ok();
+    }
+
+    /**
+     * SCAN / HSCAN / SSCAN / ZSCAN 共用的实现
+     *
+     * @param cursorIndex 游标参数的位置，其后为可选的 MATCH pattern / COUNT count
+     * @param keyOf       元素用于计算游标及 MATCH 匹配的字符串
+     * @param writeItem   元素的回复格式，HSCAN / ZSCAN 每个元素输出两项
+     * @param itemWidth   每个元素在回复数组中占的项数
+     */
+    static <T> void scan(CommandContext ctx, int cursorIndex, Collection<T> elements, Function<T, String> keyOf,
+                         BiConsumer<RespWriter, T> writeItem, int itemWidth) {
+        long cursor;
+        try {
+            cursor = Long.parseUnsignedLong(ctx.arg(cursorIndex));
+        } catch (NumberFormatException e) {
+            throw new RedisErrorException("ERR invalid cursor");
+        }
+        String pattern = null;
+        int count = DEFAULT_SCAN_COUNT;
+        for (int i = cursorIndex + 1; i < ctx.argc(); i += 2) {
+            if (i + 1 >= ctx.argc()) {
+                throw new RedisErrorException(RedisErrorException.SYNTAX);
+            }
+            if (ctx.is(i, "match")) {
+                pattern = ctx.arg(i + 1);
+            } else if (ctx.is(i, "count")) {
+                count = (int) ctx.longArg(i + 1);
+                if (count < 1) {
+                    throw new RedisErrorException(RedisErrorException.SYNTAX);
+                }
+            } else {
+                throw new RedisErrorException(RedisErrorException.SYNTAX);
+            }
+        }
+        ScanCursor.Page<T> page = ScanCursor.scan(elements, keyOf, cursor, count);
+        List<T> items = page.items;
+        if (pattern != null) {
+            items = new ArrayList<>();
+            for (T item : page.items) {
+                if (GlobMatcher.matches(pattern, keyOf.apply(item))) {
+                    items.add(item);
+                }
+            }
+        }
+        ctx.out.arrayHeader(2).bulk(Long.toUnsignedString(page.nextCursor)).arrayHeader(items.size() * itemWidth);
+        for (T item : items) {
+            writeItem.accept(ctx.out, item);
+        }
+    }
+}
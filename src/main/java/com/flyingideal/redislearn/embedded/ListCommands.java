@@ -0,0 +1,289 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * list 类型命令，对应 ListTest 中用到的 lpush / rpop / lrange / ltrim / rpoplpush / linsert / lrem 等，
+ * 以及阻塞版本的 BLPOP / BRPOP / BRPOPLPUSH
+ *
+ * @author yanchao
+ * @date 2026/10/17 14:52
+ */
+final class ListCommands {
+
+    private ListCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.register("lpush", -3, ctx -> push(ctx, true, false));
+        table.register("rpush", -3, ctx -> push(ctx, false, false));
+        table.register("lpushx", -3, ctx -> push(ctx, true, true));
+        table.register("rpushx", -3, ctx -> push(ctx, false, true));
+        table.register("lpop", 2, ctx -> ctx.out.bulk(pop(ctx.db, ctx.arg(1), true)));
+        table.register("rpop", 2, ctx -> ctx.out.bulk(pop(ctx.db, ctx.arg(1), false)));
+        table.register("llen", 2, ctx -> {
+            LinkedList<String> list = ctx.db.getList(ctx.arg(1), false);
+            ctx.out.integer(list == null ? 0 : list.size());
+        });
+        table.register("lrange", 4, ListCommands::lrange);
+        table.register("lindex", 3, ListCommands::lindex);
+        table.register("lset", 4, ListCommands::lset);
+        table.register("ltrim", 4, ListCommands::ltrim);
+        table.register("lrem", 4, ListCommands::lrem);
+        table.register("linsert", 5, ListCommands::linsert);
+        table.register("rpoplpush", 3, ctx -> ctx.out.bulk(rpoplpush(ctx.db, ctx.arg(1), ctx.arg(2))));
+        table.register("blpop", -3, ctx -> blockingPop(ctx, "BLPOP"));
+        table.register("brpop", -3, ctx -> blockingPop(ctx, "BRPOP"));
+        table.register("brpoplpush", 4, ListCommands::brpoplpush);
+    }
+
+    private static void push(CommandContext ctx, boolean left, boolean onlyIfExists) {
+        String key = ctx.arg(1);
+        LinkedList<String> list = ctx.db.getList(key, !onlyIfExists);
+        if (list == null) {
+            ctx.out.integer(0);
+            return;
+        }
+        for (int i = 2; i < ctx.argc(); i++) {
+            if (left) {
+                list.addFirst(ctx.arg(i));
+            } else {
+                list.addLast(ctx.arg(i));
+            }
+        }
+        ctx.db.signalReady(key);
+        ctx.out.integer(list.size());
+    }
+
+    static String pop(Database db, String key, boolean left) {
+        LinkedList<String> list = db.getList(key, false);
+        if (list == null) {
+            return null;
+        }
+        String value = left ? list.pollFirst() : list.pollLast();
+        db.removeIfEmpty(key, list);
+        return value;
+    }
+
+    static String rpoplpush(Database db, String source, String destination) {
+        LinkedList<String> sourceList = db.getList(source, false);
+        if (sourceList == null) {
+            return null;
+        }
+        // 先检查目标类型，避免元素弹出后无法写入
+        db.getList(destination, false);
+        String value = sourceList.pollLast();
+        db.removeIfEmpty(source, sourceList);
+        db.getList(destination, true).addFirst(value);
+        db.signalReady(destination);
+        return value;
+    }
+
+    /**
+     * 将负数下标转换为正数并裁剪到合法范围，返回 [start, end]，范围为空时返回 null
+     */
+    private static long[] normalizeRange(long start, long end, int size) {
+        start = start < 0 ? Math.max(0, size + start) : start;
+        end = end < 0 ? size + end : Math.min(end, size - 1L);
+        if (start > end || start >= size) {
+            return null;
+        }
+        return new long[]{start, end};
+    }
+
+    private static void lrange(CommandContext ctx) {
+        LinkedList<String> list = ctx.db.getList(ctx.arg(1), false);
+        long[] range = list == null ? null : normalizeRange(ctx.longArg(2), ctx.longArg(3), list.size());
+        if (range == null) {
+            ctx.out.arrayHeader(0);
+            return;
+        }
+        ctx.out.arrayHeader((int) (range[1] - range[0] + 1));
+        ListIterator<String> iterator = list.listIterator((int) range[0]);
+        for (long i = range[0]; i <= range[1]; i++) {
+            ctx.out.bulk(iterator.next());
+        }
+    }
+
+    private static void lindex(CommandContext ctx) {
+        LinkedList<String> list = ctx.db.getList(ctx.arg(1), false);
+        long index = ctx.longArg(2);
+        if (list == null) {
+            ctx.out.nullBulk();
+            return;
+        }
+        index = index < 0 ? list.size() + index : index;
+        ctx.out.bulk(index < 0 || index >= list.size() ? null : list.get((int) index));
+    }
+
+    private static void lset(CommandContext ctx) {
+        LinkedList<String> list = ctx.db.getList(ctx.arg(1), false);
+        if (list == null) {
+            throw new RedisErrorException("ERR no such key");
+        }
+        long index = ctx.longArg(2);
+        index = index < 0 ? list.size() + index : index;
+        if (index < 0 || index >= list.size()) {
+            throw new RedisErrorException("ERR index out of range");
+        }
+        list.set((int) index, ctx.arg(3));
+        ctx.out.ok();
+    }
+
+    private static void ltrim(CommandContext ctx) {
+        String key = ctx.arg(1);
+        LinkedList<String> list = ctx.db.getList(key, false);
+        if (list != null) {
+            long[] range = normalizeRange(ctx.longArg(2), ctx.longArg(3), list.size());
+            if (range == null) {
+                list.clear();
+            } else {
+                int removeTail = (int) (list.size() - 1 - range[1]);
+                for (int i = 0; i < removeTail; i++) {
+                    list.pollLast();
+                }
+                for (long i = 0; i < range[0]; i++) {
+                    list.pollFirst();
+                }
+            }
+            ctx.db.removeIfEmpty(key, list);
+        }
+        ctx.out.ok();
+    }
+
+    private static void lrem(CommandContext ctx) {
+        String key = ctx.arg(1);
+        long count = ctx.longArg(2);
+        String value = ctx.arg(3);
+        LinkedList<String> list = ctx.db.getList(key, false);
+        if (list == null) {
+            ctx.out.integer(0);
+            return;
+        }
+        long removed = 0;
+        Iterator<String> iterator = count < 0 ? list.descendingIterator() : list.iterator();
+        long limit = count == 0 ? Long.MAX_VALUE : Math.abs(count);
+        while (iterator.hasNext() && removed < limit) {
+            if (iterator.next().equals(value)) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        ctx.db.removeIfEmpty(key, list);
+        ctx.out.integer(removed);
+    }
+
+    private static void linsert(CommandContext ctx) {
+        boolean before;
+        if (ctx.is(2, "before")) {
+            before = true;
+        } else if (ctx.is(2, "after")) {
+            before = false;
+        } else {
+            throw new RedisErrorException(RedisErrorException.SYNTAX);
+        }
+        LinkedList<String> list = ctx.db.getList(ctx.arg(1), false);
+        if (list == null) {
+            ctx.out.integer(0);
+            return;
+        }
+        ListIterator<String> iterator = list.listIterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().equals(ctx.arg(3))) {
+                if (before) {
+                    iterator.previous();
+                }
+                iterator.add(ctx.arg(4));
+                ctx.out.integer(list.size());
+                return;
+            }
+        }
+        ctx.out.integer(-1);
+    }
+
+    /**
+     * BLPOP / BRPOP key [key ...] timeout
+     */
+    private static void blockingPop(CommandContext ctx, String command) {
+        List<String> keys = new ArrayList<>(ctx.args.subList(1, ctx.argc() - 1));
+        long deadline = deadline(ctx.arg(ctx.argc() - 1));
+        for (String key : keys) {
+            LinkedList<String> list = ctx.db.getList(key, false);
+            if (list != null && !list.isEmpty()) {
+                ctx.out.arrayHeader(2).bulk(key).bulk(pop(ctx.db, key, "BLPOP".equals(command)));
+                return;
+            }
+        }
+        if (ctx.inExec) {
+            ctx.out.nullArray();
+            return;
+        }
+        ctx.session.blocked = new ClientSession.BlockedRequest(command, keys, null, deadline);
+    }
+
+    private static void brpoplpush(CommandContext ctx) {
+        long deadline = deadline(ctx.arg(3));
+        LinkedList<String> list = ctx.db.getList(ctx.arg(1), false);
+        if (list != null && !list.isEmpty()) {
+            ctx.out.bulk(rpoplpush(ctx.db, ctx.arg(1), ctx.arg(2)));
+            return;
+        }
+        if (ctx.inExec) {
+            ctx.out.nullBulk();
+            return;
+        }
+        List<String> keys = new ArrayList<>();
+        keys.add(ctx.arg(1));
+        ctx.session.blocked = new ClientSession.BlockedRequest("BRPOPLPUSH", keys, ctx.arg(2), deadline);
+    }
+
+    private static long deadline(String timeout) {
+        double seconds = CommandContext.parseDouble(timeout);
+        if (seconds < 0) {
+            throw new RedisErrorException("ERR timeout is negative");
+        }
+        return seconds == 0 ? 0 : System.currentTimeMillis() + (long) (seconds * 1000);
+    }
+
+    /**
+     * key 上有新元素时尝试满足一个阻塞中的客户端
+     *
+     * @return true 表示已经写入回复，客户端可以解除阻塞
+     */
+    static boolean serveBlocked(Database db, ClientSession session, String key) {
+        ClientSession.BlockedRequest request = session.blocked;
+        LinkedList<String> list = db.getList(key, false);
+        if (list == null || list.isEmpty()) {
+            return false;
+        }
+        switch (request.command) {
+            case "BLPOP":
+            case "BRPOP":
+                session.writer.arrayHeader(2).bulk(key).bulk(pop(db, key, "BLPOP".equals(request.command)));
+                return true;
+            default:
+                Object destination = db.get(request.destination);
+                if (destination != null && !(destination instanceof LinkedList)) {
+                    session.writer.error(RedisErrorException.WRONG_TYPE);
+                    return true;
+                }
+                session.writer.bulk(rpoplpush(db, key, request.destination));
+                return true;
+        }
+    }
+
+    /**
+     * 阻塞超时后的回复
+     */
+    static void timeout(ClientSession session) {
+        if ("BRPOPLPUSH".equals(session.blocked.command)) {
+            session.writer.nullBulk();
+        } else {
+            session.writer.nullArray();
+        }
+    }
+}
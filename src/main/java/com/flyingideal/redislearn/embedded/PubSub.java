@@ -0,0 +1,205 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 发布订阅：SUBSCRIBE / PSUBSCRIBE / UNSUBSCRIBE / PUNSUBSCRIBE / PUBLISH，以及 keyspace 通知。
+ *
+ * 消息直接写入订阅者的输出缓冲，由事件循环在当前命令处理完之后统一发送。
+ *
+ * keyspace 通知在 CONFIG SET notify-keyspace-events 包含 E 或 K 时发送，写命令执行成功后按命令名发送
+ * __keyevent@0__:命令名 / __keyspace@0__:key。与 redis 的区别：不区分 g$lshz 等类型标志，
+ * 事件名就是小写的命令名（redis 中 HMSET 为 hset、INCR 为 incrby），即使命令没有实际修改数据也会发送，
+ * 也不发送 expired / evicted 事件。
+ *
+ * @author yanchao
+ * @date 2026/10/18 19:40
+ */
+final class PubSub {
+
+    private static final Set<String> FIRST_KEY = new HashSet<>(Arrays.asList(
+            "set", "setnx", "setex", "psetex", "append", "incr", "incrby", "decr", "decrby", "incrbyfloat",
+            "getset", "setrange", "setbit", "bitfield", "lpush", "rpush", "lpushx", "rpushx", "lpop", "rpop",
+            "linsert", "lset", "lrem", "ltrim", "hset", "hsetnx", "hmset", "hdel", "hincrby", "hincrbyfloat",
+            "sadd", "srem", "spop", "zadd", "zincrby", "zrem", "zremrangebyrank", "zremrangebyscore",
+            "zremrangebylex", "expire", "pexpire", "expireat", "pexpireat", "persist", "pfadd", "pfmerge",
+            "sinterstore", "sunionstore", "sdiffstore", "zunionstore", "zinterstore", "restore"));
+
+    private static final Set<String> ALL_KEYS = new HashSet<>(Arrays.asList("del", "unlink"));
+
+    private static final Set<String> TWO_KEYS = new HashSet<>(Arrays.asList("rename", "renamenx", "smove", "rpoplpush"));
+
+    private static final Set<String> KEY_VALUE_PAIRS = new HashSet<>(Arrays.asList("mset", "msetnx"));
+
+    /**
+     * 订阅状态下允许执行的命令
+     */
+    static final Set<String> SUBSCRIBED_COMMANDS = new HashSet<>(Arrays.asList(
+            "SUBSCRIBE", "PSUBSCRIBE", "UNSUBSCRIBE", "PUNSUBSCRIBE", "PING", "QUIT"));
+
+    private final Map<String, Set<ClientSession>> channels = new HashMap<>();
+
+    private final Map<String, Set<ClientSession>> patterns = new HashMap<>();
+
+    /**
+     * 收到了消息、需要发送输出缓冲的订阅者
+     */
+    private final Set<ClientSession> pending = new LinkedHashSet<>();
+
+    private String notifyKeyspaceEvents = "";
+
+    static void register(CommandTable table, PubSub pubSub) {
+        table.register("subscribe", -2, ctx -> {
+            for (int i = 1; i < ctx.argc(); i++) {
+                pubSub.subscribe(ctx.session, ctx.arg(i), false, ctx.out);
+            }
+        });
+        table.register("psubscribe", -2, ctx -> {
+            for (int i = 1; i < ctx.argc(); i++) {
+                pubSub.subscribe(ctx.session, ctx.arg(i), true, ctx.out);
+            }
+        });
+        table.register("unsubscribe", -1, ctx -> pubSub.unsubscribe(ctx, false));
+        table.register("punsubscribe", -1, ctx -> pubSub.unsubscribe(ctx, true));
+        table.register("publish", 3, ctx -> ctx.out.integer(pubSub.publish(ctx.arg(1), ctx.arg(2))));
+    }
+
+    String getNotifyKeyspaceEvents() {
+        return notifyKeyspaceEvents;
+    }
+
+    void setNotifyKeyspaceEvents(String flags) {
+        this.notifyKeyspaceEvents = flags;
+    }
+
+    /**
+     * @return 收到消息的订阅者个数
+     */
+    int publish(String channel, String message) {
+        int receivers = 0;
+        for (ClientSession session : channels.getOrDefault(channel, Collections.emptySet())) {
+            session.writer.arrayHeader(3).bulk("message").bulk(channel).bulk(message);
+            pending.add(session);
+            receivers++;
+        }
+        for (Map.Entry<String, Set<ClientSession>> pattern : patterns.entrySet()) {
+            if (GlobMatcher.matches(pattern.getKey(), channel)) {
+                for (ClientSession session : pattern.getValue()) {
+                    session.writer.arrayHeader(4).bulk("pmessage").bulk(pattern.getKey()).bulk(channel).bulk(message);
+                    pending.add(session);
+                    receivers++;
+                }
+            }
+        }
+        return receivers;
+    }
+
+    /**
+     * 写命令执行成功后调用，按 notify-keyspace-events 发送通知
+     */
+    void notifyWrite(List<String> args) {
+        if (notifyKeyspaceEvents.indexOf('E') < 0 && notifyKeyspaceEvents.indexOf('K') < 0) {
+            return;
+        }
+        String event = args.get(0).toLowerCase(Locale.ROOT);
+        List<String> keys;
+        if (FIRST_KEY.contains(event)) {
+            keys = args.subList(1, 2);
+        } else if (ALL_KEYS.contains(event)) {
+            keys = args.subList(1, args.size());
+        } else if (TWO_KEYS.contains(event)) {
+            keys = args.subList(1, 3);
+        } else if (KEY_VALUE_PAIRS.contains(event)) {
+            keys = new ArrayList<>();
+            for (int i = 1; i < args.size(); i += 2) {
+                keys.add(args.get(i));
+            }
+        } else if ("bitop".equals(event)) {
+            keys = args.subList(2, 3);
+        } else {
+            return;
+        }
+        for (String key : keys) {
+            if (notifyKeyspaceEvents.indexOf('K') >= 0) {
+                publish("__keyspace@0__:" + key, event);
+            }
+            if (notifyKeyspaceEvents.indexOf('E') >= 0) {
+                publish("__keyevent@0__:" + event, key);
+            }
+        }
+    }
+
+    /**
+     * 取出并清空有待发送消息的订阅者
+     */
+    List<ClientSession> drainPending() {
+        if (pending.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ClientSession> sessions = new ArrayList<>(pending);
+        pending.clear();
+        return sessions;
+    }
+
+    /**
+     * 连接关闭时取消它的所有订阅
+     */
+    void remove(ClientSession session) {
+        for (String channel : session.channels) {
+            removeSubscriber(channels, channel, session);
+        }
+        for (String pattern : session.patterns) {
+            removeSubscriber(patterns, pattern, session);
+        }
+        session.channels.clear();
+        session.patterns.clear();
+        pending.remove(session);
+    }
+
+    private void subscribe(ClientSession session, String name, boolean pattern, RespWriter out) {
+        Set<String> subscribed = pattern ? session.patterns : session.channels;
+        if (subscribed.add(name)) {
+            (pattern ? patterns : channels).computeIfAbsent(name, k -> new LinkedHashSet<>()).add(session);
+        }
+        out.arrayHeader(3).bulk(pattern ? "psubscribe" : "subscribe").bulk(name).integer(session.subscriptions());
+    }
+
+    /**
+     * 不带参数时取消所有订阅；没有任何订阅时回复一条 name 为 nil 的确认，与 redis 相同
+     */
+    private void unsubscribe(CommandContext ctx, boolean pattern) {
+        ClientSession session = ctx.session;
+        Set<String> subscribed = pattern ? session.patterns : session.channels;
+        List<String> names = ctx.argc() > 1 ? ctx.args.subList(1, ctx.argc()) : new ArrayList<>(subscribed);
+        String reply = pattern ? "punsubscribe" : "unsubscribe";
+        if (names.isEmpty()) {
+            ctx.out.arrayHeader(3).bulk(reply).nullBulk().integer(session.subscriptions());
+            return;
+        }
+        for (String name : names) {
+            if (subscribed.remove(name)) {
+                removeSubscriber(pattern ? patterns : channels, name, session);
+            }
+            ctx.out.arrayHeader(3).bulk(reply).bulk(name).integer(session.subscriptions());
+        }
+    }
+
+    private static void removeSubscriber(Map<String, Set<ClientSession>> subscribers, String name, ClientSession session) {
+        Set<ClientSession> sessions = subscribers.get(name);
+        if (sessions != null) {
+            sessions.remove(session);
+            if (sessions.isEmpty()) {
+                subscribers.remove(name);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.flyingideal.redislearn.embedded;
+
+/**
+ * 命令执行错误，message 会原样作为 RESP 错误回复（-ERR ...）返回给客户端
+ *
+ * @author yanchao
+ * @date 2026/10/17 13:02
+ */
+class RedisErrorException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    static final String WRONG_TYPE = "WRONGTYPE Operation against a key holding the wrong kind of value";
+
+    static final String NOT_INTEGER = "ERR value is not an integer or out of range";
+
+    static final String NOT_FLOAT = "ERR value is not a valid float";
+
+    static final String SYNTAX = "ERR syntax error";
+
+    RedisErrorException(String message) {
+        super(message, null, false, false);
+    }
+}
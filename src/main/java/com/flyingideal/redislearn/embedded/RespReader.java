@@ -0,0 +1,131 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 增量式 RESP 请求解析器：网络数据可能分多次到达，每次 {@link #feed(ByteBuffer)} 之后
+ * 反复调用 {@link #next()} 取出已经完整到达的命令，不完整的部分留在缓冲区等待下一次数据。
+ *
+ * 同时支持 multi bulk 格式（*N\r\n$len\r\n...）以及 redis-cli 使用的 inline 格式。
+ * 所有参数以 ISO-8859-1 解码为 String，字节与 char 一一对应，因此是二进制安全的。
+ *
+ * @author yanchao
+ * @date 2026/10/17 13:05
+ */
+class RespReader {
+
+    private byte[] buffer = new byte[16 * 1024];
+
+    private int readIndex;
+
+    private int writeIndex;
+
+    void feed(ByteBuffer data) {
+        int length = data.remaining();
+        if (writeIndex + length > buffer.length) {
+            // 先压缩已经解析过的部分，仍然不够再扩容
+            int pending = writeIndex - readIndex;
+            if (pending + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, pending + length));
+            }
+            System.arraycopy(buffer, readIndex, buffer, 0, pending);
+            readIndex = 0;
+            writeIndex = pending;
+        }
+        data.get(buffer, writeIndex, length);
+        writeIndex += length;
+    }
+
+    /**
+     * @return 下一条完整的命令，数据不完整时返回 null
+     */
+    List<String> next() {
+        if (readIndex == writeIndex) {
+            return null;
+        }
+        int position = readIndex;
+        if (buffer[position] != '*') {
+            return nextInline();
+        }
+        int lineEnd = findCrlf(position);
+        if (lineEnd < 0) {
+            return null;
+        }
+        int count = (int) parseLong(position + 1, lineEnd);
+        position = lineEnd + 2;
+        List<String> args = new ArrayList<>(Math.max(count, 0));
+        for (int i = 0; i < count; i++) {
+            if (position >= writeIndex) {
+                return null;
+            }
+            if (buffer[position] != '$') {
+                throw new RedisErrorException("ERR Protocol error: expected '$', got '" + (char) buffer[position] + "'");
+            }
+            lineEnd = findCrlf(position);
+            if (lineEnd < 0) {
+                return null;
+            }
+            int length = (int) parseLong(position + 1, lineEnd);
+            position = lineEnd + 2;
+            if (position + length + 2 > writeIndex) {
+                return null;
+            }
+            args.add(new String(buffer, position, length, StandardCharsets.ISO_8859_1));
+            position += length + 2;
+        }
+        readIndex = position;
+        return args;
+    }
+
+    private List<String> nextInline() {
+        int lineEnd = findLf(readIndex);
+        if (lineEnd < 0) {
+            return null;
+        }
+        int end = lineEnd > readIndex && buffer[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+        String line = new String(buffer, readIndex, end - readIndex, StandardCharsets.ISO_8859_1).trim();
+        readIndex = lineEnd + 1;
+        List<String> args = new ArrayList<>();
+        for (String arg : line.split("\\s+")) {
+            if (!arg.isEmpty()) {
+                args.add(arg);
+            }
+        }
+        return args;
+    }
+
+    private int findCrlf(int from) {
+        for (int i = from; i < writeIndex - 1; i++) {
+            if (buffer[i] == '\r' && buffer[i + 1] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int findLf(int from) {
+        for (int i = from; i < writeIndex; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private long parseLong(int from, int to) {
+        boolean negative = buffer[from] == '-';
+        long value = 0;
+        for (int i = negative ? from + 1 : from; i < to; i++) {
+            byte b = buffer[i];
+            if (b < '0' || b > '9') {
+                throw new RedisErrorException("ERR Protocol error: invalid length");
+            }
+            value = value * 10 + (b - '0');
+        }
+        return negative ? -value : value;
+    }
+}
@@ -0,0 +1,137 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * RESP 回复编码，回复先写入可增长的字节数组，一批命令执行完后再统一写到 socket
+ *
+ * @author yanchao
+ * @date 2026/10/17 13:12
+ */
+class RespWriter {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private static final byte[] OK = "+OK\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private static final byte[] NULL_BULK = "$-1\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private static final byte[] NULL_ARRAY = "*-1\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private byte[] buffer = new byte[4096];
+
+    private int size;
+
+    RespWriter ok() {
+        return write(OK);
+    }
+
+    RespWriter simple(String value) {
+        writeByte('+');
+        writeAscii(value);
+        return write(CRLF);
+    }
+
+    RespWriter error(String message) {
+        writeByte('-');
+        writeAscii(message);
+        return write(CRLF);
+    }
+
+    RespWriter integer(long value) {
+        writeByte(':');
+        writeAscii(Long.toString(value));
+        return write(CRLF);
+    }
+
+    RespWriter bulk(String value) {
+        if (value == null) {
+            return nullBulk();
+        }
+        writeByte('$');
+        writeAscii(Integer.toString(value.length()));
+        write(CRLF);
+        writeAscii(value);
+        return write(CRLF);
+    }
+
+    RespWriter bulk(double value) {
+        return bulk(formatDouble(value));
+    }
+
+    RespWriter nullBulk() {
+        return write(NULL_BULK);
+    }
+
+    RespWriter nullArray() {
+        return write(NULL_ARRAY);
+    }
+
+    RespWriter arrayHeader(int length) {
+        writeByte('*');
+        writeAscii(Integer.toString(length));
+        return write(CRLF);
+    }
+
+    RespWriter array(Collection<String> values) {
+        arrayHeader(values.size());
+        for (String value : values) {
+            bulk(value);
+        }
+        return this;
+    }
+
+    /**
+     * 与 redis 一致：整数值按整数格式输出，其余使用 %.17g 的最短等价表示
+     */
+    static String formatDouble(double value) {
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "inf" : "-inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e17) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 取出当前全部回复并清空
+     */
+    ByteBuffer drain() {
+        ByteBuffer data = ByteBuffer.wrap(Arrays.copyOf(buffer, size));
+        size = 0;
+        return data;
+    }
+
+    private void writeAscii(String value) {
+        ensureCapacity(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer[size++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeByte(char b) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) b;
+    }
+
+    private RespWriter write(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+        return this;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * SCAN 系列命令的游标实现。
+ *
+ * 元素按 hashCode（视为无符号 32 位整数）排序遍历，游标即下一个待返回的 hash 值，
+ * 因此与 redis 的 reverse binary 游标一样，遍历期间一直存在的元素一定会被返回且只返回一次，
+ * 与集合在两次 SCAN 之间的增删无关。
+ *
+ * @author yanchao
+ * @date 2026/10/17 14:02
+ */
+final class ScanCursor {
+
+    private ScanCursor() {
+    }
+
+    static final class Page<T> {
+
+        final long nextCursor;
+
+        final List<T> items;
+
+        Page(long nextCursor, List<T> items) {
+            this.nextCursor = nextCursor;
+            this.items = items;
+        }
+    }
+
+    static <T> Page<T> scan(Collection<T> elements, Function<T, String> keyOf, long cursor, int count) {
+        Comparator<T> byHash = Comparator.comparingLong(e -> hash(keyOf.apply(e)));
+        // 大顶堆保留 hash >= cursor 的最小 count 个元素
+        PriorityQueue<T> heap = new PriorityQueue<>(count + 1, byHash.reversed());
+        for (T element : elements) {
+            long h = hash(keyOf.apply(element));
+            if (h < cursor) {
+                continue;
+            }
+            if (heap.size() < count) {
+                heap.add(element);
+            } else if (h < hash(keyOf.apply(heap.peek()))) {
+                heap.poll();
+                heap.add(element);
+            }
+        }
+        if (heap.size() < count) {
+            List<T> items = new ArrayList<>(heap);
+            items.sort(byHash);
+            return new Page<>(0, items);
+        }
+        // 与本页最大 hash 相同的元素必须在同一页返回，否则下一页的游标会跳过它们
+        long last = hash(keyOf.apply(heap.peek()));
+        List<T> items = new ArrayList<>(heap);
+        for (T element : elements) {
+            if (hash(keyOf.apply(element)) == last && !items.contains(element)) {
+                items.add(element);
+            }
+        }
+        items.sort(byHash);
+        return new Page<>(last + 1 > 0xFFFFFFFFL ? 0 : last + 1, items);
+    }
+
+    static long hash(String key) {
+        return key.hashCode() & 0xFFFFFFFFL;
+    }
+}
@@ -0,0 +1,105 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 一次脚本调用，对应 Lua 中的 KEYS / ARGV 和 redis.call
+ *
+ * @author yanchao
+ * @date 2026/10/18 09:15
+ */
+public final class ScriptCall {
+
+    private final List<String> keys;
+
+    private final List<String> args;
+
+    private final CommandTable table;
+
+    private final CommandContext ctx;
+
+    ScriptCall(List<String> keys, List<String> args, CommandTable table, CommandContext ctx) {
+        this.keys = keys;
+        this.args = args;
+        this.table = table;
+        this.ctx = ctx;
+    }
+
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public String key(int index) {
+        return keys.get(index);
+    }
+
+    public List<String> getArgs() {
+        return args;
+    }
+
+    public String arg(int index) {
+        return args.get(index);
+    }
+
+    /**
+     * 与 redis.call 相同：执行一条命令并返回 Long / String / List / null，错误回复会中止脚本并返回给客户端
+     */
+    public Object call(String... command) {
+        RespWriter out = new RespWriter();
+        table.call(Arrays.asList(command), ctx, out);
+        ByteBuffer reply = out.drain();
+        byte[] bytes = new byte[reply.remaining()];
+        reply.get(bytes);
+        int[] position = {0};
+        return parse(bytes, position);
+    }
+
+    private static Object parse(byte[] bytes, int[] position) {
+        char type = (char) bytes[position[0]++];
+        String line = readLine(bytes, position);
+        switch (type) {
+            case '+':
+                return line;
+            case '-':
+                throw new RedisErrorException(line);
+            case ':':
+                return Long.parseLong(line);
+            case '$': {
+                int length = Integer.parseInt(line);
+                if (length < 0) {
+                    return null;
+                }
+                String value = new String(bytes, position[0], length, StandardCharsets.ISO_8859_1);
+                position[0] += length + 2;
+                return value;
+            }
+            case '*': {
+                int length = Integer.parseInt(line);
+                if (length < 0) {
+                    return null;
+                }
+                List<Object> values = new ArrayList<>(length);
+                for (int i = 0; i < length; i++) {
+                    values.add(parse(bytes, position));
+                }
+                return values;
+            }
+            default:
+                throw new IllegalStateException("unexpected reply type " + type);
+        }
+    }
+
+    private static String readLine(byte[] bytes, int[] position) {
+        int start = position[0];
+        while (bytes[position[0]] != '\r') {
+            position[0]++;
+        }
+        String line = new String(bytes, start, position[0] - start, StandardCharsets.ISO_8859_1);
+        position[0] += 2;
+        return line;
+    }
+}
@@ -0,0 +1,92 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 脚本命令：EVAL / EVALSHA / SCRIPT LOAD|EXISTS|FLUSH，脚本由 {@link EmbeddedScript} 注册的 java 实现执行
+ *
+ * @author yanchao
+ * @date 2026/10/18 09:20
+ */
+final class ScriptCommands {
+
+    private ScriptCommands() {
+    }
+
+    static void register(CommandTable table, Map<String, EmbeddedScript> scripts) {
+        table.register("eval", -3, ctx -> eval(table, ctx, scripts.get(sha1(ctx.arg(1))), false));
+        table.register("evalsha", -3, ctx -> eval(table, ctx, scripts.get(ctx.arg(1).toLowerCase(Locale.ROOT)), true));
+        table.register("script", -2, ctx -> script(ctx, scripts));
+    }
+
+    static String sha1(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.ISO_8859_1));
+            StringBuilder hex = new StringBuilder(40);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void eval(CommandTable table, CommandContext ctx, EmbeddedScript script, boolean bySha) {
+        if (script == null) {
+            throw new RedisErrorException(bySha ? "NOSCRIPT No matching script. Please use EVAL."
+                    : "ERR embedded server cannot run Lua, register the script with EmbeddedRedisServer.registerScript");
+        }
+        long numKeys = ctx.longArg(2);
+        if (numKeys < 0 || numKeys > ctx.argc() - 3) {
+            throw new RedisErrorException("ERR Number of keys can't be greater than number of args");
+        }
+        int keysEnd = 3 + (int) numKeys;
+        List<String> keys = ctx.args.subList(3, keysEnd);
+        List<String> args = ctx.args.subList(keysEnd, ctx.argc());
+        reply(ctx.out, script.execute(new ScriptCall(keys, args, table, ctx)));
+    }
+
+    private static void reply(RespWriter out, Object value) {
+        if (value == null || Boolean.FALSE.equals(value)) {
+            out.nullBulk();
+        } else if (Boolean.TRUE.equals(value)) {
+            out.integer(1);
+        } else if (value instanceof Number) {
+            // 与 Lua 相同，小数被截断为整数
+            out.integer(((Number) value).longValue());
+        } else if (value instanceof List) {
+            List<?> values = (List<?>) value;
+            out.arrayHeader(values.size());
+            for (Object element : values) {
+                reply(out, element);
+            }
+        } else {
+            out.bulk(value.toString());
+        }
+    }
+
+    /**
+     * SCRIPT LOAD 对未注册的脚本也返回 SHA1，之后的 EVALSHA 返回 NOSCRIPT
+     */
+    private static void script(CommandContext ctx, Map<String, EmbeddedScript> scripts) {
+        if (ctx.is(1, "LOAD") && ctx.argc() == 3) {
+            ctx.out.bulk(sha1(ctx.arg(2)));
+        } else if (ctx.is(1, "EXISTS")) {
+            ctx.out.arrayHeader(ctx.argc() - 2);
+            for (int i = 2; i < ctx.argc(); i++) {
+                ctx.out.integer(scripts.containsKey(ctx.arg(i).toLowerCase(Locale.ROOT)) ? 1 : 0);
+            }
+        } else if (ctx.is(1, "FLUSH")) {
+            // 注册的脚本相当于服务端内置的，FLUSH 不删除
+            ctx.out.ok();
+        } else {
+            throw new RedisErrorException(RedisErrorException.SYNTAX);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * set 类型命令，对应 SetTest 中用到的 sadd / smembers / spop / smove / sinter / sunionstore / sdiff 等
+ *
+ * @author yanchao
+ * @date 2026/10/17 15:12
+ */
+final class SetCommands {
+
+    private enum Operation {
+        INTER, UNION, DIFF
+    }
+
+    private SetCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.register("sadd", -3, SetCommands::sadd);
+        table.register("srem", -3, SetCommands::srem);
+        table.register("smembers", 2, ctx -> ctx.out.array(setOrEmpty(ctx.db, ctx.arg(1))));
+        table.register("sismember", 3, ctx -> ctx.out.integer(setOrEmpty(ctx.db, ctx.arg(1)).contains(ctx.arg(2)) ? 1 : 0));
+        table.register("scard", 2, ctx -> ctx.out.integer(setOrEmpty(ctx.db, ctx.arg(1)).size()));
+        table.register("spop", -2, SetCommands::spop);
+        table.register("srandmember", -2, SetCommands::srandmember);
+        table.register("smove", 4, SetCommands::smove);
+        table.register("sinter", -2, ctx -> ctx.out.array(compute(ctx, 1, Operation.INTER)));
+        table.register("sunion", -2, ctx -> ctx.out.array(compute(ctx, 1, Operation.UNION)));
+        table.register("sdiff", -2, ctx -> ctx.out.array(compute(ctx, 1, Operation.DIFF)));
+        table.register("sinterstore", -3, ctx -> store(ctx, Operation.INTER));
+        table.register("sunionstore", -3, ctx -> store(ctx, Operation.UNION));
+        table.register("sdiffstore", -3, ctx -> store(ctx, Operation.DIFF));
+        table.register("sscan", -3, ctx -> KeyCommands.scan(ctx, 2, setOrEmpty(ctx.db, ctx.arg(1)),
+                member -> member, RespWriter::bulk, 1));
+    }
+
+    private static Set<String> setOrEmpty(Database db, String key) {
+        Set<String> set = db.getSet(key, false);
+        return set == null ? Collections.emptySet() : set;
+    }
+
+    private static void sadd(CommandContext ctx) {
+        Set<String> set = ctx.db.getSet(ctx.arg(1), true);
+        long added = 0;
+        for (int i = 2; i < ctx.argc(); i++) {
+            if (set.add(ctx.arg(i))) {
+                added++;
+            }
+        }
+        ctx.out.integer(added);
+    }
+
+    private static void srem(CommandContext ctx) {
+        Set<String> set = ctx.db.getSet(ctx.arg(1), false);
+        long removed = 0;
+        if (set != null) {
+            for (int i = 2; i < ctx.argc(); i++) {
+                if (set.remove(ctx.arg(i))) {
+                    removed++;
+                }
+            }
+            ctx.db.removeIfEmpty(ctx.arg(1), set);
+        }
+        ctx.out.integer(removed);
+    }
+
+    private static List<String> randomMembers(Set<String> set, int count, boolean distinct) {
+        List<String> members = new ArrayList<>(set);
+        List<String> result = new ArrayList<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (distinct) {
+            Collections.shuffle(members, random);
+            return members.subList(0, Math.min(count, members.size()));
+        }
+        for (int i = 0; i < count && !members.isEmpty(); i++) {
+            result.add(members.get(random.nextInt(members.size())));
+        }
+        return result;
+    }
+
+    /**
+     * SPOP key [count]
+     */
+    private static void spop(CommandContext ctx) {
+        Set<String> set = ctx.db.getSet(ctx.arg(1), false);
+        if (ctx.argc() == 2) {
+            if (set == null) {
+                ctx.out.nullBulk();
+                return;
+            }
+            String member = randomMembers(set, 1, true).get(0);
+            set.remove(member);
+            ctx.db.removeIfEmpty(ctx.arg(1), set);
+            ctx.out.bulk(member);
+            return;
+        }
+        long count = ctx.longArg(2);
+        if (count < 0) {
+            throw new RedisErrorException("ERR index out of range");
+        }
+        if (set == null) {
+            ctx.out.arrayHeader(0);
+            return;
+        }
+        List<String> members = new ArrayList<>(randomMembers(set, (int) count, true));
+        set.removeAll(members);
+        ctx.db.removeIfEmpty(ctx.arg(1), set);
+        ctx.out.array(members);
+    }
+
+    /**
+     * SRANDMEMBER key [count]，count 为负数时允许重复
+     */
+    private static void srandmember(CommandContext ctx) {
+        Set<String> set = setOrEmpty(ctx.db, ctx.arg(1));
+        if (ctx.argc() == 2) {
+            ctx.out.bulk(set.isEmpty() ? null : randomMembers(set, 1, true).get(0));
+            return;
+        }
+        long count = ctx.longArg(2);
+        ctx.out.array(randomMembers(set, (int) Math.abs(count), count > 0));
+    }
+
+    private static void smove(CommandContext ctx) {
+        Set<String> source = ctx.db.getSet(ctx.arg(1), false);
+        Set<String> destination = ctx.db.getSet(ctx.arg(2), false);
+        String member = ctx.arg(3);
+        if (source == null || !source.contains(member)) {
+            ctx.out.integer(0);
+            return;
+        }
+        source.remove(member);
+        ctx.db.removeIfEmpty(ctx.arg(1), source);
+        if (destination == null) {
+            destination = ctx.db.getSet(ctx.arg(2), true);
+        }
+        destination.add(member);
+        ctx.out.integer(1);
+    }
+
+    private static Set<String> compute(CommandContext ctx, int from, Operation operation) {
+        List<Set<String>> sets = new ArrayList<>();
+        for (int i = from; i < ctx.argc(); i++) {
+            sets.add(setOrEmpty(ctx.db, ctx.arg(i)));
+        }
+        if (operation == Operation.INTER) {
+            // 从最小的集合开始求交集
+            sets.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        }
+        Set<String> result = new LinkedHashSet<>(sets.get(0));
+        for (int i = 1; i < sets.size(); i++) {
+            switch (operation) {
+                case INTER:
+                    result.retainAll(sets.get(i));
+                    break;
+                case UNION:
+                    result.addAll(sets.get(i));
+                    break;
+                default:
+                    result.removeAll(sets.get(i));
+                    break;
+            }
+        }
+        return result;
+    }
+
+    private static void store(CommandContext ctx, Operation operation) {
+        Set<String> result = compute(ctx, 2, operation);
+        String destination = ctx.arg(1);
+        ctx.db.remove(destination);
+        if (!result.isEmpty()) {
+            ctx.db.put(destination, result);
+        }
+        ctx.out.integer(result.size());
+    }
+}
@@ -0,0 +1,428 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * sorted set 类型命令，对应 SortedSetTest 中用到的 zadd / zincrby / zrange* / zrank / zrem* / zunionstore 等
+ *
+ * @author yanchao
+ * @date 2026/10/17 15:25
+ */
+final class SortedSetCommands {
+
+    private enum Aggregate {
+        SUM, MIN, MAX
+    }
+
+    private SortedSetCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.register("zadd", -4, SortedSetCommands::zadd);
+        table.register("zincrby", 4, ctx -> {
+            ZSet zset = ctx.db.getZSet(ctx.arg(1), true);
+            Double current = zset.score(ctx.arg(3));
+            double score = (current == null ? 0 : current) + ctx.doubleArg(2);
+            if (Double.isNaN(score)) {
+                throw new RedisErrorException("ERR resulting score is not a number (NaN)");
+            }
+            zset.put(ctx.arg(3), score);
+            ctx.out.bulk(score);
+        });
+        table.register("zcard", 2, ctx -> {
+            ZSet zset = ctx.db.getZSet(ctx.arg(1), false);
+            ctx.out.integer(zset == null ? 0 : zset.size());
+        });
+        table.register("zscore", 3, ctx -> {
+            ZSet zset = ctx.db.getZSet(ctx.arg(1), false);
+            Double score = zset == null ? null : zset.score(ctx.arg(2));
+            if (score == null) {
+                ctx.out.nullBulk();
+            } else {
+                ctx.out.bulk(score);
+            }
+        });
+        table.register("zrank", 3, ctx -> zrank(ctx, false));
+        table.register("zrevrank", 3, ctx -> zrank(ctx, true));
+        table.register("zcount", 4, SortedSetCommands::zcount);
+        table.register("zlexcount", 4, SortedSetCommands::zlexcount);
+        table.register("zrange", -4, ctx -> zrange(ctx, false));
+        table.register("zrevrange", -4, ctx -> zrange(ctx, true));
+        table.register("zrangebyscore", -4, ctx -> zrangeByScore(ctx, false));
+        table.register("zrevrangebyscore", -4, ctx -> zrangeByScore(ctx, true));
+        table.register("zrangebylex", -4, ctx -> zrangeByLex(ctx, false));
+        table.register("zrevrangebylex", -4, ctx -> zrangeByLex(ctx, true));
+        table.register("zrem", -3, SortedSetCommands::zrem);
+        table.register("zremrangebyrank", 4, SortedSetCommands::zremrangeByRank);
+        table.register("zremrangebyscore", 4, ctx -> {
+            ZSet zset = ctx.db.getZSet(ctx.arg(1), false);
+            long removed = zset == null ? 0
+                    : zset.zsl.deleteRangeByScore(ZSkipList.ScoreRange.parse(ctx.arg(2), ctx.arg(3)), zset.dict);
+            removeIfEmpty(ctx, zset);
+            ctx.out.integer(removed);
+        });
+        table.register("zremrangebylex", 4, ctx -> {
+            ZSet zset = ctx.db.getZSet(ctx.arg(1), false);
+            long removed = zset == null ? 0
+                    : zset.zsl.deleteRangeByLex(ZSkipList.LexRange.parse(ctx.arg(2), ctx.arg(3)), zset.dict);
+            removeIfEmpty(ctx, zset);
+            ctx.out.integer(removed);
+        });
+        table.register("zunionstore", -4, ctx -> store(ctx, true));
+        table.register("zinterstore", -4, ctx -> store(ctx, false));
+        table.register("zscan", -3, ctx -> {
+            ZSet zset = ctx.db.getZSet(ctx.arg(1), false);
+            KeyCommands.scan(ctx, 2, zset == null ? new ArrayList<>() : new ArrayList<>(zset.dict.entrySet()),
+                    Map.Entry::getKey, (out, entry) -> out.bulk(entry.getKey()).bulk(entry.getValue()), 2);
+        });
+    }
+
+    private static void removeIfEmpty(CommandContext ctx, ZSet zset) {
+        if (zset != null) {
+            ctx.db.removeIfEmpty(ctx.arg(1), zset);
+        }
+    }
+
+    /**
+     * ZADD key [NX|XX] [CH] [INCR] score member [score member ...]
+     */
+    private static void zadd(CommandContext ctx) {
+        boolean nx = false;
+        boolean xx = false;
+        boolean ch = false;
+        boolean incr = false;
+        int index = 2;
+        for (; index < ctx.argc(); index++) {
+            if (ctx.is(index, "nx")) {
+                nx = true;
+            } else if (ctx.is(index, "xx")) {
+                xx = true;
+            } else if (ctx.is(index, "ch")) {
+                ch = true;
+            } else if (ctx.is(index, "incr")) {
+                incr = true;
+            } else {
+                break;
+            }
+        }
+        int pairs = ctx.argc() - index;
+        if (pairs == 0 || pairs % 2 != 0 || (nx && xx) || (incr && pairs != 2)) {
+            throw new RedisErrorException(RedisErrorException.SYNTAX);
+        }
+        // 先解析全部 score，保证出错时不修改数据
+        double[] scores = new double[pairs / 2];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = ctx.doubleArg(index + i * 2);
+        }
+        ZSet zset = ctx.db.getZSet(ctx.arg(1), !xx);
+        if (zset == null) {
+            if (incr) {
+                ctx.out.nullBulk();
+            } else {
+                ctx.out.integer(0);
+            }
+            return;
+        }
+        long added = 0;
+        long changed = 0;
+        Double incrResult = null;
+        for (int i = 0; i < scores.length; i++) {
+            String member = ctx.arg(index + i * 2 + 1);
+            Double current = zset.score(member);
+            if ((nx && current != null) || (xx && current == null)) {
+                continue;
+            }
+            double score = incr ? (current == null ? 0 : current) + scores[i] : scores[i];
+            if (Double.isNaN(score)) {
+                throw new RedisErrorException("ERR resulting score is not a number (NaN)");
+            }
+            if (current == null) {
+                added++;
+            } else if (current != score) {
+                changed++;
+            }
+            zset.put(member, score);
+            incrResult = score;
+        }
+        removeIfEmpty(ctx, zset);
+        if (incr) {
+            if (incrResult == null) {
+                ctx.out.nullBulk();
+            } else {
+                ctx.out.bulk(incrResult);
+            }
+        } else {
+            ctx.out.integer(ch ? added + changed : added);
+        }
+    }
+
+    private static void zrank(CommandContext ctx, boolean reverse) {
+        ZSet zset = ctx.db.getZSet(ctx.arg(1), false);
+        long rank = zset == null ? -1 : zset.rank(ctx.arg(2), reverse);
+        if (rank < 0) {
+            ctx.out.nullBulk();
+        } else {
+            ctx.out.integer(rank);
+        }
+    }
+
+    private static void zcount(CommandContext ctx) {
+        ZSet zset = ctx.db.getZSet(ctx.arg(1), false);
+        ZSkipList.ScoreRange range = ZSkipList.ScoreRange.parse(ctx.arg(2), ctx.arg(3));
+        if (zset == null || range.isEmpty()) {
+            ctx.out.integer(0);
+            return;
+        }
+        ZSkipList.Node first = zset.zsl.firstInRange(range);
+        ZSkipList.Node last = zset.zsl.lastInRange(range);
+        ctx.out.integer(first == null || last == null ? 0
+                : zset.zsl.getRank(last.score, last.member) - zset.zsl.getRank(first.score, first.member) + 1);
+    }
+
+    private static void zlexcount(CommandContext ctx) {
+        ZSet zset = ctx.db.getZSet(ctx.arg(1), false);
+        ZSkipList.LexRange range = ZSkipList.LexRange.parse(ctx.arg(2), ctx.arg(3));
+        if (zset == null) {
+            ctx.out.integer(0);
+            return;
+        }
+        ZSkipList.Node first = zset.zsl.firstInLexRange(range);
+        ZSkipList.Node last = zset.zsl.lastInLexRange(range);
+        long count = first == null || last == null ? 0
+                : zset.zsl.getRank(last.score, last.member) - zset.zsl.getRank(first.score, first.member) + 1;
+        ctx.out.integer(Math.max(0, count));
+    }
+
+    private static void writeNodes(CommandContext ctx, List<ZSkipList.Node> nodes, boolean withScores) {
+        ctx.out.arrayHeader(withScores ? nodes.size() * 2 : nodes.size());
+        for (ZSkipList.Node node : nodes) {
+            ctx.out.bulk(node.member);
+            if (withScores) {
+                ctx.out.bulk(node.score);
+            }
+        }
+    }
+
+    /**
+     * ZRANGE / ZREVRANGE key start stop [WITHSCORES]
+     */
+    private static void zrange(CommandContext ctx, boolean reverse) {
+        boolean withScores = ctx.argc() == 5 && ctx.is(4, "withscores");
+        if (ctx.argc() > 5 || (ctx.argc() == 5 && !withScores)) {
+            throw new RedisErrorException(RedisErrorException.SYNTAX);
+        }
+        ZSet zset = ctx.db.getZSet(ctx.arg(1), false);
+        List<ZSkipList.Node> nodes = new ArrayList<>();
+        if (zset != null) {
+            long length = zset.size();
+            long start = ctx.longArg(2);
+            long end = ctx.longArg(3);
+            start = start < 0 ? Math.max(0, length + start) : start;
+            end = end < 0 ? length + end : Math.min(end, length - 1);
+            if (start <= end && start < length) {
+                ZSkipList.Node node = zset.zsl.getByRank(reverse ? length - start : start + 1);
+                for (long i = start; i <= end && node != null; i++) {
+                    nodes.add(node);
+                    node = reverse ? node.previous() : node.next();
+                }
+            }
+        }
+        writeNodes(ctx, nodes, withScores);
+    }
+
+    /**
+     * 解析 [WITHSCORES] [LIMIT offset count]，返回 {withScores, offset, count}
+     */
+    private static long[] parseRangeOptions(CommandContext ctx, boolean allowWithScores) {
+        long withScores = 0;
+        long offset = 0;
+        long count = -1;
+        for (int i = 4; i < ctx.argc(); i++) {
+            if (allowWithScores && ctx.is(i, "withscores")) {
+                withScores = 1;
+            } else if (ctx.is(i, "limit") && i + 2 < ctx.argc()) {
+                offset = ctx.longArg(i + 1);
+                count = ctx.longArg(i + 2);
+                i += 2;
+            } else {
+                throw new RedisErrorException(RedisErrorException.SYNTAX);
+            }
+        }
+        return new long[]{withScores, offset, count};
+    }
+
+    private static void zrangeByScore(CommandContext ctx, boolean reverse) {
+        long[] options = parseRangeOptions(ctx, true);
+        ZSkipList.ScoreRange range = reverse ? ZSkipList.ScoreRange.parse(ctx.arg(3), ctx.arg(2))
+                : ZSkipList.ScoreRange.parse(ctx.arg(2), ctx.arg(3));
+        ZSet zset = ctx.db.getZSet(ctx.arg(1), false);
+        List<ZSkipList.Node> nodes = new ArrayList<>();
+        if (zset != null && options[1] >= 0) {
+            ZSkipList.Node node = reverse ? zset.zsl.lastInRange(range) : zset.zsl.firstInRange(range);
+            for (long skip = options[1]; node != null && skip > 0; skip--) {
+                node = reverse ? node.previous() : node.next();
+            }
+            while (node != null && (options[2] < 0 || nodes.size() < options[2])
+                    && (reverse ? range.aboveMin(node.score) : range.belowMax(node.score))) {
+                nodes.add(node);
+                node = reverse ? node.previous() : node.next();
+            }
+        }
+        writeNodes(ctx, nodes, options[0] == 1);
+    }
+
+    private static void zrangeByLex(CommandContext ctx, boolean reverse) {
+        long[] options = parseRangeOptions(ctx, false);
+        ZSkipList.LexRange range = reverse ? ZSkipList.LexRange.parse(ctx.arg(3), ctx.arg(2))
+                : ZSkipList.LexRange.parse(ctx.arg(2), ctx.arg(3));
+        ZSet zset = ctx.db.getZSet(ctx.arg(1), false);
+        List<ZSkipList.Node> nodes = new ArrayList<>();
+        if (zset != null && options[1] >= 0) {
+            ZSkipList.Node node = reverse ? zset.zsl.lastInLexRange(range) : zset.zsl.firstInLexRange(range);
+            for (long skip = options[1]; node != null && skip > 0; skip--) {
+                node = reverse ? node.previous() : node.next();
+            }
+            while (node != null && (options[2] < 0 || nodes.size() < options[2])
+                    && (reverse ? range.aboveMin(node.member) : range.belowMax(node.member))) {
+                nodes.add(node);
+                node = reverse ? node.previous() : node.next();
+            }
+        }
+        writeNodes(ctx, nodes, false);
+    }
+
+    private static void zrem(CommandContext ctx) {
+        ZSet zset = ctx.db.getZSet(ctx.arg(1), false);
+        long removed = 0;
+        if (zset != null) {
+            for (int i = 2; i < ctx.argc(); i++) {
+                if (zset.remove(ctx.arg(i))) {
+                    removed++;
+                }
+            }
+            removeIfEmpty(ctx, zset);
+        }
+        ctx.out.integer(removed);
+    }
+
+    private static void zremrangeByRank(CommandContext ctx) {
+        ZSet zset = ctx.db.getZSet(ctx.arg(1), false);
+        if (zset == null) {
+            ctx.out.integer(0);
+            return;
+        }
+        long length = zset.size();
+        long start = ctx.longArg(2);
+        long end = ctx.longArg(3);
+        start = start < 0 ? Math.max(0, length + start) : start;
+        end = end < 0 ? length + end : Math.min(end, length - 1);
+        long removed = start <= end && start < length
+                ? zset.zsl.deleteRangeByRank(start + 1, end + 1, zset.dict) : 0;
+        removeIfEmpty(ctx, zset);
+        ctx.out.integer(removed);
+    }
+
+    /**
+     * ZUNIONSTORE / ZINTERSTORE destination numkeys key [key ...] [WEIGHTS weight ...] [AGGREGATE SUM|MIN|MAX]，
+     * 源 key 也可以是普通 set，此时每个成员的 score 视为 1
+     */
+    private static void store(CommandContext ctx, boolean union) {
+        long numKeys = ctx.longArg(2);
+        if (numKeys < 1 || 3 + numKeys > ctx.argc()) {
+            throw new RedisErrorException(numKeys < 1
+                    ? "ERR at least 1 input key is needed for " + ctx.arg(0).toLowerCase() + "/store"
+                    : RedisErrorException.SYNTAX);
+        }
+        double[] weights = new double[(int) numKeys];
+        java.util.Arrays.fill(weights, 1);
+        Aggregate aggregateOption = Aggregate.SUM;
+        for (int i = 3 + (int) numKeys; i < ctx.argc(); i++) {
+            if (ctx.is(i, "weights") && i + numKeys < ctx.argc()) {
+                for (int w = 0; w < numKeys; w++) {
+                    weights[w] = ctx.doubleArg(++i);
+                }
+            } else if (ctx.is(i, "aggregate") && i + 1 < ctx.argc()) {
+                try {
+                    aggregateOption = Aggregate.valueOf(ctx.arg(++i).toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new RedisErrorException(RedisErrorException.SYNTAX);
+                }
+            } else {
+                throw new RedisErrorException(RedisErrorException.SYNTAX);
+            }
+        }
+        Aggregate aggregate = aggregateOption;
+        List<Map<String, Double>> sources = new ArrayList<>();
+        for (int i = 0; i < numKeys; i++) {
+            sources.add(source(ctx.db, ctx.arg(3 + i)));
+        }
+        Map<String, Double> result = new LinkedHashMap<>();
+        if (union) {
+            for (int i = 0; i < sources.size(); i++) {
+                for (Map.Entry<String, Double> entry : sources.get(i).entrySet()) {
+                    double score = weighted(entry.getValue(), weights[i]);
+                    result.merge(entry.getKey(), score, (a, b) -> aggregate(aggregate, a, b));
+                }
+            }
+        } else {
+            outer:
+            for (Map.Entry<String, Double> entry : sources.get(0).entrySet()) {
+                double score = weighted(entry.getValue(), weights[0]);
+                for (int i = 1; i < sources.size(); i++) {
+                    Double other = sources.get(i).get(entry.getKey());
+                    if (other == null) {
+                        continue outer;
+                    }
+                    score = aggregate(aggregate, score, weighted(other, weights[i]));
+                }
+                result.put(entry.getKey(), score);
+            }
+        }
+        String destination = ctx.arg(1);
+        ctx.db.remove(destination);
+        if (!result.isEmpty()) {
+            ZSet zset = ctx.db.getZSet(destination, true);
+            result.forEach(zset::put);
+        }
+        ctx.out.integer(result.size());
+    }
+
+    private static Map<String, Double> source(Database db, String key) {
+        Object value = db.get(key);
+        if (value == null) {
+            return new HashMap<>();
+        }
+        if (value instanceof ZSet) {
+            return ((ZSet) value).dict;
+        }
+        Set<String> set = db.getSet(key, false);
+        Map<String, Double> scores = new HashMap<>();
+        for (String member : set) {
+            scores.put(member, 1D);
+        }
+        return scores;
+    }
+
+    private static double weighted(double score, double weight) {
+        double result = score * weight;
+        // 与 redis 一致，0 * inf 的结果为 0 而不是 NaN
+        return Double.isNaN(result) ? 0 : result;
+    }
+
+    private static double aggregate(Aggregate aggregate, double a, double b) {
+        switch (aggregate) {
+            case MIN:
+                return Math.min(a, b);
+            case MAX:
+                return Math.max(a, b);
+            default:
+                double sum = a + b;
+                return Double.isNaN(sum) ? 0 : sum;
+        }
+    }
+}
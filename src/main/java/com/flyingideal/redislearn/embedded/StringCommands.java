@@ -0,0 +1,193 @@
+package com.flyingideal.redislearn.embedded;
+
+/**
+ * string 类型命令，对应 StringTest 中用到的 set / get / incr / append / getrange 等
+ *
+ * @author yanchao
+ * @date 2026/10/17 14:40
+ */
+final class StringCommands {
+
+    private StringCommands() {
+    }
+
+    static void register(CommandTable table) {
+        table.register("get", 2, ctx -> ctx.out.bulk(ctx.db.getString(ctx.arg(1))));
+        table.register("set", -3, StringCommands::set);
+        table.register("setnx", 3, ctx -> ctx.out.integer(setIfAbsent(ctx, ctx.arg(1), ctx.arg(2)) ? 1 : 0));
+        table.register("setex", 4, ctx -> setWithExpire(ctx, ctx.longArg(2) * 1000));
+        table.register("psetex", 4, ctx -> setWithExpire(ctx, ctx.longArg(2)));
+        table.register("getset", 3, ctx -> {
+            String old = ctx.db.getString(ctx.arg(1));
+            ctx.db.put(ctx.arg(1), ctx.arg(2));
+            ctx.out.bulk(old);
+        });
+        table.register("mget", -2, StringCommands::mget);
+        table.register("mset", -3, StringCommands::mset);
+        table.register("msetnx", -3, StringCommands::msetnx);
+        table.register("incr", 2, ctx -> incrBy(ctx, 1));
+        table.register("decr", 2, ctx -> incrBy(ctx, -1));
+        table.register("incrby", 3, ctx -> incrBy(ctx, ctx.longArg(2)));
+        table.register("decrby", 3, ctx -> incrBy(ctx, -ctx.longArg(2)));
+        table.register("incrbyfloat", 3, StringCommands::incrByFloat);
+        table.register("append", 3, StringCommands::append);
+        table.register("strlen", 2, ctx -> {
+            String value = ctx.db.getString(ctx.arg(1));
+            ctx.out.integer(value == null ? 0 : value.length());
+        });
+        table.register("getrange", 4, StringCommands::getrange);
+        table.register("substr", 4, StringCommands::getrange);
+    }
+
+    /**
+     * SET key value [EX seconds] [PX milliseconds] [NX|XX]
+     */
+    private static void set(CommandContext ctx) {
+        String key = ctx.arg(1);
+        long expireMillis = -1;
+        boolean nx = false;
+        boolean xx = false;
+        for (int i = 3; i < ctx.argc(); i++) {
+            if (ctx.is(i, "nx")) {
+                nx = true;
+            } else if (ctx.is(i, "xx")) {
+                xx = true;
+            } else if ((ctx.is(i, "ex") || ctx.is(i, "px")) && i + 1 < ctx.argc()) {
+                long value = ctx.longArg(i + 1);
+                if (value <= 0) {
+                    throw new RedisErrorException("ERR invalid expire time in set");
+                }
+                expireMillis = ctx.is(i, "ex") ? value * 1000 : value;
+                i++;
+            } else {
+                throw new RedisErrorException(RedisErrorException.SYNTAX);
+            }
+        }
+        if (nx && xx) {
+            throw new RedisErrorException(RedisErrorException.SYNTAX);
+        }
+        boolean exists = ctx.db.exists(key);
+        if ((nx && exists) || (xx && !exists)) {
+            ctx.out.nullBulk();
+            return;
+        }
+        ctx.db.put(key, ctx.arg(2));
+        if (expireMillis > 0) {
+            ctx.db.expireAt(key, System.currentTimeMillis() + expireMillis);
+        }
+        ctx.out.ok();
+    }
+
+    private static boolean setIfAbsent(CommandContext ctx, String key, String value) {
+        if (ctx.db.exists(key)) {
+            return false;
+        }
+        ctx.db.put(key, value);
+        return true;
+    }
+
+    private static void setWithExpire(CommandContext ctx, long expireMillis) {
+        if (expireMillis <= 0) {
+            throw new RedisErrorException("ERR invalid expire time in " + ctx.arg(0).toLowerCase());
+        }
+        ctx.db.put(ctx.arg(1), ctx.arg(3));
+        ctx.db.expireAt(ctx.arg(1), System.currentTimeMillis() + expireMillis);
+        ctx.out.ok();
+    }
+
+    /**
+     * 非 string 类型的 key 返回 nil 而不是错误
+     */
+    private static void mget(CommandContext ctx) {
+        ctx.out.arrayHeader(ctx.argc() - 1);
+        for (int i = 1; i < ctx.argc(); i++) {
+            Object value = ctx.db.get(ctx.arg(i));
+            ctx.out.bulk(value instanceof String ? (String) value : null);
+        }
+    }
+
+    private static void mset(CommandContext ctx) {
+        if (ctx.argc() % 2 == 0) {
+            throw new RedisErrorException("ERR wrong number of arguments for MSET");
+        }
+        for (int i = 1; i < ctx.argc(); i += 2) {
+            ctx.db.put(ctx.arg(i), ctx.arg(i + 1));
+        }
+        ctx.out.ok();
+    }
+
+    private static void msetnx(CommandContext ctx) {
+        if (ctx.argc() % 2 == 0) {
+            throw new RedisErrorException("ERR wrong number of arguments for MSETNX");
+        }
+        for (int i = 1; i < ctx.argc(); i += 2) {
+            if (ctx.db.exists(ctx.arg(i))) {
+                ctx.out.integer(0);
+                return;
+            }
+        }
+        for (int i = 1; i < ctx.argc(); i += 2) {
+            ctx.db.put(ctx.arg(i), ctx.arg(i + 1));
+        }
+        ctx.out.integer(1);
+    }
+
+    private static void incrBy(CommandContext ctx, long delta) {
+        String key = ctx.arg(1);
+        String value = ctx.db.getString(key);
+        long current = value == null ? 0 : CommandContext.parseLong(value);
+        long result;
+        try {
+            result = Math.addExact(current, delta);
+        } catch (ArithmeticException e) {
+            throw new RedisErrorException("ERR increment or decrement would overflow");
+        }
+        ctx.db.replace(key, Long.toString(result));
+        ctx.out.integer(result);
+    }
+
+    private static void incrByFloat(CommandContext ctx) {
+        String key = ctx.arg(1);
+        String value = ctx.db.getString(key);
+        double result = (value == null ? 0 : CommandContext.parseDouble(value)) + ctx.doubleArg(2);
+        if (Double.isNaN(result) || Double.isInfinite(result)) {
+            throw new RedisErrorException("ERR increment would produce NaN or Infinity");
+        }
+        String formatted = RespWriter.formatDouble(result);
+        ctx.db.replace(key, formatted);
+        ctx.out.bulk(formatted);
+    }
+
+    private static void append(CommandContext ctx) {
+        String key = ctx.arg(1);
+        String value = ctx.db.getString(key);
+        String result = value == null ? ctx.arg(2) : value + ctx.arg(2);
+        ctx.db.replace(key, result);
+        ctx.out.integer(result.length());
+    }
+
+    /**
+     * GETRANGE key start end，start / end 都包含在内且支持负数下标
+     */
+    private static void getrange(CommandContext ctx) {
+        String value = ctx.db.getString(ctx.arg(1));
+        long start = ctx.longArg(2);
+        long end = ctx.longArg(3);
+        if (value == null || value.isEmpty()) {
+            ctx.out.bulk("");
+            return;
+        }
+        int length = value.length();
+        if (start < 0 && end < 0 && start > end) {
+            ctx.out.bulk("");
+            return;
+        }
+        start = start < 0 ? Math.max(0, length + start) : start;
+        end = end < 0 ? Math.max(0, length + end) : Math.min(end, length - 1);
+        if (start > end || start >= length) {
+            ctx.out.bulk("");
+            return;
+        }
+        ctx.out.bulk(value.substring((int) start, (int) end + 1));
+    }
+}
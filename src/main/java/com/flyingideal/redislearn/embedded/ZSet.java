@@ -0,0 +1,61 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 有序集合：与 redis 相同，由跳表（按 score 排序、按排名定位）加哈希表（member 到 score 的 O(1) 查询）组成
+ *
+ * @author yanchao
+ * @date 2026/10/17 13:41
+ */
+class ZSet {
+
+    final Map<String, Double> dict = new HashMap<>();
+
+    final ZSkipList zsl = new ZSkipList();
+
+    int size() {
+        return dict.size();
+    }
+
+    Double score(String member) {
+        return dict.get(member);
+    }
+
+    /**
+     * @return true 表示新增了成员，false 表示更新了已有成员（或 score 未变化）
+     */
+    boolean put(String member, double score) {
+        Double current = dict.put(member, score);
+        if (current == null) {
+            zsl.insert(score, member);
+            return true;
+        }
+        if (current != score) {
+            zsl.updateScore(current, member, score);
+        }
+        return false;
+    }
+
+    boolean remove(String member) {
+        Double score = dict.remove(member);
+        if (score == null) {
+            return false;
+        }
+        zsl.delete(score, member);
+        return true;
+    }
+
+    /**
+     * @return 从 0 开始的排名，不存在时返回 -1
+     */
+    long rank(String member, boolean reverse) {
+        Double score = dict.get(member);
+        if (score == null) {
+            return -1;
+        }
+        long rank = zsl.getRank(score, member);
+        return reverse ? zsl.length() - rank : rank - 1;
+    }
+}
@@ -0,0 +1,458 @@
+package com.flyingideal.redislearn.embedded;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 与 redis t_zset.c 中 zskiplist 相同结构的跳表：按 (score, member) 排序，每层 forward 指针带 span，
+ * 因此按 score 查找、插入、删除以及按排名定位都是 O(log N)。
+ *
+ * 跳表只负责有序性，member 到 score 的 O(1) 查询由 {@link ZSet} 中的 HashMap 提供。
+ *
+ * @author yanchao
+ * @date 2026/10/17 13:20
+ */
+class ZSkipList {
+
+    static final int MAX_LEVEL = 32;
+
+    private static final double P = 0.25;
+
+    static final class Node {
+
+        final String member;
+
+        double score;
+
+        Node backward;
+
+        final Node[] forward;
+
+        final long[] span;
+
+        Node(int level, double score, String member) {
+            this.member = member;
+            this.score = score;
+            this.forward = new Node[level];
+            this.span = new long[level];
+        }
+
+        Node next() {
+            return forward[0];
+        }
+
+        Node previous() {
+            return backward;
+        }
+    }
+
+    private final Node header = new Node(MAX_LEVEL, 0, null);
+
+    private Node tail;
+
+    private long length;
+
+    private int level = 1;
+
+    long length() {
+        return length;
+    }
+
+    Node first() {
+        return header.forward[0];
+    }
+
+    Node last() {
+        return tail;
+    }
+
+    private static int randomLevel() {
+        int level = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (level < MAX_LEVEL && random.nextDouble() < P) {
+            level++;
+        }
+        return level;
+    }
+
+    private static boolean lessThan(Node node, double score, String member) {
+        return node.score < score || (node.score == score && node.member.compareTo(member) < 0);
+    }
+
+    /**
+     * 插入新节点，调用方保证 member 不存在
+     */
+    Node insert(double score, String member) {
+        Node[] update = new Node[MAX_LEVEL];
+        long[] rank = new long[MAX_LEVEL];
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.forward[i] != null && lessThan(x.forward[i], score, member)) {
+                rank[i] += x.span[i];
+                x = x.forward[i];
+            }
+            update[i] = x;
+        }
+        int newLevel = randomLevel();
+        if (newLevel > level) {
+            for (int i = level; i < newLevel; i++) {
+                rank[i] = 0;
+                update[i] = header;
+                update[i].span[i] = length;
+            }
+            level = newLevel;
+        }
+        x = new Node(newLevel, score, member);
+        for (int i = 0; i < newLevel; i++) {
+            x.forward[i] = update[i].forward[i];
+            update[i].forward[i] = x;
+            x.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = (rank[0] - rank[i]) + 1;
+        }
+        for (int i = newLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        x.backward = update[0] == header ? null : update[0];
+        if (x.forward[0] != null) {
+            x.forward[0].backward = x;
+        } else {
+            tail = x;
+        }
+        length++;
+        return x;
+    }
+
+    private void deleteNode(Node x, Node[] update) {
+        for (int i = 0; i < level; i++) {
+            if (update[i].forward[i] == x) {
+                update[i].span[i] += x.span[i] - 1;
+                update[i].forward[i] = x.forward[i];
+            } else {
+                update[i].span[i] -= 1;
+            }
+        }
+        if (x.forward[0] != null) {
+            x.forward[0].backward = x.backward;
+        } else {
+            tail = x.backward;
+        }
+        while (level > 1 && header.forward[level - 1] == null) {
+            level--;
+        }
+        length--;
+    }
+
+    private Node[] findUpdate(double score, String member) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.forward[i] != null && lessThan(x.forward[i], score, member)) {
+                x = x.forward[i];
+            }
+            update[i] = x;
+        }
+        return update;
+    }
+
+    boolean delete(double score, String member) {
+        Node[] update = findUpdate(score, member);
+        Node x = update[0].forward[0];
+        if (x != null && x.score == score && x.member.equals(member)) {
+            deleteNode(x, update);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 更新 score，新 score 不影响顺序时原地修改，否则删除后重新插入
+     */
+    void updateScore(double currentScore, String member, double newScore) {
+        Node[] update = findUpdate(currentScore, member);
+        Node x = update[0].forward[0];
+        if ((x.backward == null || x.backward.score < newScore
+                || (x.backward.score == newScore && x.backward.member.compareTo(member) < 0))
+                && (x.forward[0] == null || x.forward[0].score > newScore
+                || (x.forward[0].score == newScore && x.forward[0].member.compareTo(member) > 0))) {
+            x.score = newScore;
+            return;
+        }
+        deleteNode(x, update);
+        insert(newScore, member);
+    }
+
+    /**
+     * @return 从 1 开始的排名，不存在时返回 0
+     */
+    long getRank(double score, String member) {
+        long rank = 0;
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.forward[i] != null && (lessThan(x.forward[i], score, member)
+                    || (x.forward[i].score == score && x.forward[i].member.equals(member)))) {
+                rank += x.span[i];
+                x = x.forward[i];
+            }
+            if (x.member != null && x.member.equals(member)) {
+                return rank;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param rank 从 1 开始的排名
+     */
+    Node getByRank(long rank) {
+        long traversed = 0;
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.forward[i] != null && traversed + x.span[i] <= rank) {
+                traversed += x.span[i];
+                x = x.forward[i];
+            }
+            if (traversed == rank) {
+                return x;
+            }
+        }
+        return null;
+    }
+
+    Node firstInRange(ScoreRange range) {
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.forward[i] != null && !range.aboveMin(x.forward[i].score)) {
+                x = x.forward[i];
+            }
+        }
+        x = x.forward[0];
+        return x != null && range.belowMax(x.score) ? x : null;
+    }
+
+    Node lastInRange(ScoreRange range) {
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.forward[i] != null && range.belowMax(x.forward[i].score)) {
+                x = x.forward[i];
+            }
+        }
+        return x != header && range.aboveMin(x.score) ? x : null;
+    }
+
+    Node firstInLexRange(LexRange range) {
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.forward[i] != null && !range.aboveMin(x.forward[i].member)) {
+                x = x.forward[i];
+            }
+        }
+        x = x.forward[0];
+        return x != null && range.belowMax(x.member) ? x : null;
+    }
+
+    Node lastInLexRange(LexRange range) {
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.forward[i] != null && range.belowMax(x.forward[i].member)) {
+                x = x.forward[i];
+            }
+        }
+        return x != header && range.aboveMin(x.member) ? x : null;
+    }
+
+    long deleteRangeByScore(ScoreRange range, Map<String, Double> dict) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.forward[i] != null && !range.aboveMin(x.forward[i].score)) {
+                x = x.forward[i];
+            }
+            update[i] = x;
+        }
+        x = x.forward[0];
+        long removed = 0;
+        while (x != null && range.belowMax(x.score)) {
+            Node next = x.forward[0];
+            deleteNode(x, update);
+            dict.remove(x.member);
+            removed++;
+            x = next;
+        }
+        return removed;
+    }
+
+    long deleteRangeByLex(LexRange range, Map<String, Double> dict) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.forward[i] != null && !range.aboveMin(x.forward[i].member)) {
+                x = x.forward[i];
+            }
+            update[i] = x;
+        }
+        x = x.forward[0];
+        long removed = 0;
+        while (x != null && range.belowMax(x.member)) {
+            Node next = x.forward[0];
+            deleteNode(x, update);
+            dict.remove(x.member);
+            removed++;
+            x = next;
+        }
+        return removed;
+    }
+
+    /**
+     * @param start 从 1 开始的排名（包含）
+     * @param end   从 1 开始的排名（包含）
+     */
+    long deleteRangeByRank(long start, long end, Map<String, Double> dict) {
+        Node[] update = new Node[MAX_LEVEL];
+        long traversed = 0;
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.forward[i] != null && traversed + x.span[i] < start) {
+                traversed += x.span[i];
+                x = x.forward[i];
+            }
+            update[i] = x;
+        }
+        traversed++;
+        x = x.forward[0];
+        long removed = 0;
+        while (x != null && traversed <= end) {
+            Node next = x.forward[0];
+            deleteNode(x, update);
+            dict.remove(x.member);
+            removed++;
+            traversed++;
+            x = next;
+        }
+        return removed;
+    }
+
+    /**
+     * score 区间，支持开区间 "(1.5" 以及 "-inf" / "+inf"
+     */
+    static final class ScoreRange {
+
+        final double min;
+
+        final double max;
+
+        final boolean minExclusive;
+
+        final boolean maxExclusive;
+
+        ScoreRange(double min, boolean minExclusive, double max, boolean maxExclusive) {
+            this.min = min;
+            this.max = max;
+            this.minExclusive = minExclusive;
+            this.maxExclusive = maxExclusive;
+        }
+
+        static ScoreRange parse(String min, String max) {
+            boolean minEx = min.startsWith("(");
+            boolean maxEx = max.startsWith("(");
+            return new ScoreRange(parseBound(minEx ? min.substring(1) : min), minEx,
+                    parseBound(maxEx ? max.substring(1) : max), maxEx);
+        }
+
+        private static double parseBound(String value) {
+            switch (value.toLowerCase()) {
+                case "-inf":
+                    return Double.NEGATIVE_INFINITY;
+                case "+inf":
+                case "inf":
+                    return Double.POSITIVE_INFINITY;
+                default:
+                    try {
+                        return Double.parseDouble(value);
+                    } catch (NumberFormatException e) {
+                        throw new RedisErrorException("ERR min or max is not a float");
+                    }
+            }
+        }
+
+        boolean aboveMin(double score) {
+            return minExclusive ? score > min : score >= min;
+        }
+
+        boolean belowMax(double score) {
+            return maxExclusive ? score < max : score <= max;
+        }
+
+        boolean isEmpty() {
+            return min > max || (min == max && (minExclusive || maxExclusive));
+        }
+    }
+
+    /**
+     * 字典序区间，格式为 "[a" / "(a" / "-" / "+"
+     */
+    static final class LexRange {
+
+        /**
+         * null 表示该端不限（"-" 或 "+"）
+         */
+        final String min;
+
+        final String max;
+
+        final boolean minExclusive;
+
+        final boolean maxExclusive;
+
+        final boolean maxIsMinusInf;
+
+        final boolean minIsPlusInf;
+
+        private LexRange(String min, boolean minExclusive, boolean minIsPlusInf,
+                         String max, boolean maxExclusive, boolean maxIsMinusInf) {
+            this.min = min;
+            this.max = max;
+            this.minExclusive = minExclusive;
+            this.maxExclusive = maxExclusive;
+            this.minIsPlusInf = minIsPlusInf;
+            this.maxIsMinusInf = maxIsMinusInf;
+        }
+
+        static LexRange parse(String min, String max) {
+            return new LexRange(bound(min), min.startsWith("("), "+".equals(min),
+                    bound(max), max.startsWith("("), "-".equals(max));
+        }
+
+        private static String bound(String value) {
+            if ("-".equals(value) || "+".equals(value)) {
+                return null;
+            }
+            if (value.startsWith("(") || value.startsWith("[")) {
+                return value.substring(1);
+            }
+            throw new RedisErrorException("ERR min or max not valid string range item");
+        }
+
+        boolean aboveMin(String member) {
+            if (minIsPlusInf) {
+                return false;
+            }
+            if (min == null) {
+                return true;
+            }
+            int cmp = member.compareTo(min);
+            return minExclusive ? cmp > 0 : cmp >= 0;
+        }
+
+        boolean belowMax(String member) {
+            if (maxIsMinusInf) {
+                return false;
+            }
+            if (max == null) {
+                return true;
+            }
+            int cmp = member.compareTo(max);
+            return maxExclusive ? cmp < 0 : cmp <= 0;
+        }
+    }
+}
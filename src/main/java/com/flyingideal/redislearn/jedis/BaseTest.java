@@ -1,5 +1,8 @@
 package com.flyingideal.redislearn.jedis;
 
+import com.flyingideal.redislearn.embedded.EmbeddedRedisServer;
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import com.flyingideal.redislearn.pool.RedisConnectionProperties;
 import org.junit.After;
 import org.junit.Before;
 import org.slf4j.Logger;
@@ -14,15 +17,52 @@ public abstract class BaseTest {
 
     private static final Logger logger = LoggerFactory.getLogger(BaseTest.class);
 
+    /**
+     * 所有测试类共享同一个连接池，连接配置见 application.properties
+     */
+    private static volatile JedisConnectionProvider connectionProvider;
+
     protected Jedis jedis;
 
+    protected static JedisConnectionProvider getConnectionProvider() {
+        if (connectionProvider == null) {
+            synchronized (BaseTest.class) {
+                if (connectionProvider == null) {
+                    RedisConnectionProperties properties = RedisConnectionProperties.fromApplicationProperties();
+                    EmbeddedRedisServer server = properties.isEmbedded() ? startEmbeddedServer(properties) : null;
+                    JedisConnectionProvider provider = new JedisConnectionProvider(properties);
+                    provider.prewarm();
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                        provider.close();
+                        if (server != null) {
+                            server.close();
+                        }
+                    }, "redis-pool-shutdown"));
+                    connectionProvider = provider;
+                }
+            }
+        }
+        return connectionProvider;
+    }
+
+    /**
+     * 启动进程内 redis，并把连接配置指向它的随机端口
+     */
+    private static EmbeddedRedisServer startEmbeddedServer(RedisConnectionProperties properties) {
+        EmbeddedRedisServer server = new EmbeddedRedisServer().start();
+        properties.useEmbeddedServer(server);
+        return server;
+    }
+
     @Before
     public void setJedis() {
-        // jedis = new Jedis("192.168.99.236");
-        jedis = new Jedis("192.168.3.53");
+        jedis = getConnectionProvider().getResource();
         logger.info("redis connect success");
     }
 
+    /**
+     * 归还连接到连接池
+     */
     @After
     public void close() {
         if (jedis != null) {
@@ -1,5 +1,8 @@
 package com.flyingideal.redislearn.jedis;
 
+import com.flyingideal.redislearn.scan.RedisScanner;
+import com.flyingideal.redislearn.scan.ScanIterator;
+import com.flyingideal.redislearn.scan.ScanOptions;
 import org.junit.Assert;
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -189,13 +192,20 @@ public class HashTest extends BaseTest {
     }
 
     /**
-     * todo 查看下边的链接内容
+     * hscan 每次只返回一页，需要用返回的游标继续调用，直到游标回到 0 才算遍历完毕
      * @see <a href="http://www.redis.cn/commands/scan.html"></a>
      */
     @Test
     public void hscan() {
         ScanResult<Map.Entry<String, String>> result = jedis.hscan(keyName, "0");
         logger.info("{}, {}", result.getResult(), result.getStringCursor());
+
+        // ScanIterator 自动跟随游标遍历全部字段，并在后台预取下一页
+        try (ScanIterator<Map.Entry<String, String>> fields =
+                     new RedisScanner(getConnectionProvider()).hash(keyName, new ScanOptions().count(100))) {
+            fields.forEachRemaining(field -> logger.info("{} = {}", field.getKey(), field.getValue()));
+            logger.info("hscan finished in {} pages", fields.getPages());
+        }
     }
 
 }
@@ -0,0 +1,381 @@
+package com.flyingideal.redislearn.leaderboard;
+
+import com.flyingideal.redislearn.cluster.HashTags;
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Builder;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.ZParams;
+import redis.clients.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SortedSetTest 中 zunionstore / zinterstore 的增量版本：服务端不再执行一条遍历所有源集合的命令，
+ * 而是由客户端分块完成，每块只包含 ZSCAN、ZSCORE 和 ZADD 这样的短命令。
+ *
+ * <ul>
+ *     <li>并集：依次 ZSCAN 每个源集合，对每个元素用 pipeline 查询它在其他源集合中的分数，在本地按权重和
+ *     SUM / MIN / MAX 聚合（{@link WeightedScores}，与 redis 相同把 NaN 记为 0）；
+ *     元素如果也在排在前面的源集合中，说明已经在扫描那个集合时写入，直接跳过</li>
+ *     <li>交集：只 ZSCAN 最小的源集合，其他源集合中都存在的元素才写入</li>
+ *     <li>写入：结果先 ZADD 到临时 key，全部完成后 RENAME 为目标 key，读者只会看到旧结果或完整的新结果；
+ *     结果为空时与 redis 相同，删除目标 key</li>
+ *     <li>分块：每块的 ZSCAN COUNT 根据上一块的耗时调整，超过 maxChunkMillis 减半，不到四分之一时加倍</li>
+ * </ul>
+ * 本地只保存当前块，内存与集合大小无关。每个元素写入的分数只取决于各源集合中的分数，
+ * ZSCAN 重复返回的元素重复写入也不影响结果。与服务端命令不同，执行期间源集合被修改时结果不是某一时刻的快照。
+ *
+ * @author yanchao
+ * @date 2026/10/18 17:40
+ */
+public class IncrementalZSetStore implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalZSetStore.class);
+
+    public static final long DEFAULT_MAX_CHUNK_MILLIS = 10;
+
+    private static final int MIN_CHUNK = 10;
+
+    private static final int INITIAL_CHUNK = 100;
+
+    private static final int MAX_CHUNK = 10_000;
+
+    private final JedisConnectionProvider provider;
+
+    private final long maxChunkNanos;
+
+    private final LongAdder scanned = new LongAdder();
+
+    private final LongAdder written = new LongAdder();
+
+    private final LongAdder chunks = new LongAdder();
+
+    private final AtomicInteger activeJobs = new AtomicInteger();
+
+    /**
+     * 正在执行的任务需要扫描的元素总数和已经扫描的元素数
+     */
+    private final AtomicLong expected = new AtomicLong();
+
+    private final AtomicLong progressed = new AtomicLong();
+
+    private volatile int lastChunkSize = INITIAL_CHUNK;
+
+    public IncrementalZSetStore(JedisConnectionProvider provider) {
+        this(provider, DEFAULT_MAX_CHUNK_MILLIS);
+    }
+
+    /**
+     * @param maxChunkMillis 每块（一次 ZSCAN、一个 ZSCORE pipeline 和一次 ZADD）期望的最长耗时
+     */
+    public IncrementalZSetStore(JedisConnectionProvider provider, long maxChunkMillis) {
+        if (maxChunkMillis < 1) {
+            throw new IllegalArgumentException("maxChunkMillis must be positive: " + maxChunkMillis);
+        }
+        this.provider = provider;
+        this.maxChunkNanos = TimeUnit.MILLISECONDS.toNanos(maxChunkMillis);
+    }
+
+    /**
+     * 对应 ZUNIONSTORE dstkey numkeys key [key ...]，权重均为 1，聚合方式为 SUM
+     *
+     * @return 目标集合的元素个数
+     */
+    public long zunionstore(String dstkey, String... sets) {
+        return zunionstore(dstkey, WeightedScores.ones(sets.length), ZParams.Aggregate.SUM, sets);
+    }
+
+    /**
+     * 对应 ZUNIONSTORE dstkey numkeys key [key ...] WEIGHTS weight [weight ...] AGGREGATE SUM|MIN|MAX
+     */
+    public long zunionstore(String dstkey, double[] weights, ZParams.Aggregate aggregate, String... sets) {
+        return store(new Job(dstkey, weights, aggregate, true, sets));
+    }
+
+    public long zinterstore(String dstkey, String... sets) {
+        return zinterstore(dstkey, WeightedScores.ones(sets.length), ZParams.Aggregate.SUM, sets);
+    }
+
+    public long zinterstore(String dstkey, double[] weights, ZParams.Aggregate aggregate, String... sets) {
+        return store(new Job(dstkey, weights, aggregate, false, sets));
+    }
+
+    private long store(Job job) {
+        long start = System.nanoTime();
+        String temp = tempKey(job.dstkey);
+        long total = 0;
+        long done = 0;
+        activeJobs.incrementAndGet();
+        try (Jedis jedis = provider.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Long>> cards = new ArrayList<>(job.sets.length);
+            for (String set : job.sets) {
+                cards.add(pipeline.zcard(set));
+            }
+            pipeline.sync();
+
+            List<Integer> sources = new ArrayList<>();
+            if (job.union) {
+                for (int i = 0; i < job.sets.length; i++) {
+                    sources.add(i);
+                }
+            } else {
+                int smallest = 0;
+                for (int i = 1; i < job.sets.length; i++) {
+                    if (cards.get(i).get() < cards.get(smallest).get()) {
+                        smallest = i;
+                    }
+                }
+                sources.add(smallest);
+            }
+            for (int source : sources) {
+                total += cards.get(source).get();
+            }
+            expected.addAndGet(total);
+
+            for (int source : sources) {
+                done += scan(jedis, job, source, temp);
+            }
+
+            pipeline = jedis.pipelined();
+            Response<Long> card = pipeline.zcard(temp);
+            pipeline.sync();
+            if (card.get() == 0) {
+                jedis.del(job.dstkey);
+            } else {
+                jedis.rename(temp, job.dstkey);
+            }
+            logger.info("{} {} from {} sets: {} members, {} scanned in {} ms", job.union ? "zunionstore" : "zinterstore",
+                    job.dstkey, job.sets.length, card.get(), done,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return card.get();
+        } catch (RuntimeException e) {
+            deleteQuietly(temp, e);
+            throw e;
+        } finally {
+            expected.addAndGet(-total);
+            progressed.addAndGet(-done);
+            activeJobs.decrementAndGet();
+        }
+    }
+
+    /**
+     * 分块扫描第 source 个源集合，把聚合后的分数写入 temp
+     *
+     * @return 扫描的元素数
+     */
+    private long scan(Jedis jedis, Job job, int source, String temp) {
+        long count = 0;
+        int chunk = INITIAL_CHUNK;
+        String cursor = ScanParams.SCAN_POINTER_START;
+        do {
+            long start = System.nanoTime();
+            ScanResult<Tuple> page = zscan(jedis, job.sets[source], cursor, chunk);
+            Map<String, Double> scores = job.aggregate(jedis, source, page.getResult());
+            if (!scores.isEmpty()) {
+                jedis.zadd(temp, scores);
+            }
+            long elapsed = System.nanoTime() - start;
+            if (elapsed > maxChunkNanos) {
+                chunk = Math.max(MIN_CHUNK, chunk / 2);
+            } else if (elapsed < maxChunkNanos / 4) {
+                chunk = Math.min(MAX_CHUNK, chunk * 2);
+            }
+            lastChunkSize = chunk;
+            count += page.getResult().size();
+            scanned.add(page.getResult().size());
+            progressed.addAndGet(page.getResult().size());
+            written.add(scores.size());
+            chunks.increment();
+            cursor = page.getStringCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        return count;
+    }
+
+    public long getScanned() {
+        return scanned.sum();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getChunks() {
+        return chunks.sum();
+    }
+
+    public int getActiveJobs() {
+        return activeJobs.get();
+    }
+
+    public int getLastChunkSize() {
+        return lastChunkSize;
+    }
+
+    /**
+     * @return 正在执行的任务已扫描的比例，没有任务时为 1；执行期间源集合变大时可能短暂超过 1
+     */
+    public double getProgress() {
+        long total = expected.get();
+        return total == 0 ? 1 : progressed.get() / (double) total;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("redis.zstore.scanned", this, IncrementalZSetStore::getScanned).register(registry);
+        FunctionCounter.builder("redis.zstore.written", this, IncrementalZSetStore::getWritten).register(registry);
+        FunctionCounter.builder("redis.zstore.chunks", this, IncrementalZSetStore::getChunks).register(registry);
+        Gauge.builder("redis.zstore.jobs.active", this, IncrementalZSetStore::getActiveJobs).register(registry);
+        Gauge.builder("redis.zstore.chunk.size", this, IncrementalZSetStore::getLastChunkSize).register(registry);
+        Gauge.builder("redis.zstore.progress", this, IncrementalZSetStore::getProgress).register(registry);
+    }
+
+    /**
+     * 与 {@link Jedis#zscan} 相同，但分数用 {@link WeightedScores#parse} 解析，源集合中可以有无穷大的分数
+     */
+    private static ScanResult<Tuple> zscan(Jedis jedis, String key, String cursor, int count) {
+        jedis.getClient().zscan(key, cursor, new ScanParams().count(count));
+        List<Object> reply = jedis.getClient().getObjectMultiBulkReply();
+        @SuppressWarnings("unchecked")
+        List<byte[]> raw = (List<byte[]>) reply.get(1);
+        List<Tuple> tuples = new ArrayList<>(raw.size() / 2);
+        Iterator<byte[]> iterator = raw.iterator();
+        while (iterator.hasNext()) {
+            byte[] member = iterator.next();
+            tuples.add(new Tuple(member, WeightedScores.parse(SafeEncoder.encode(iterator.next()))));
+        }
+        return new ScanResult<>((byte[]) reply.get(0), tuples);
+    }
+
+    private void deleteQuietly(String key, RuntimeException cause) {
+        try (Jedis jedis = provider.getResource()) {
+            jedis.del(key);
+        } catch (RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * 临时 key 与目标 key 在同一个 slot，集群模式下 RENAME 不会跨 slot
+     */
+    private static String tempKey(String dstkey) {
+        return HashTags.colocated(dstkey, ":zstore:" + UUID.randomUUID());
+    }
+
+    private static final class Job {
+
+        final String dstkey;
+
+        final double[] weights;
+
+        final ZParams.Aggregate aggregate;
+
+        final boolean union;
+
+        final String[] sets;
+
+        Job(String dstkey, double[] weights, ZParams.Aggregate aggregate, boolean union, String[] sets) {
+            if (sets.length == 0) {
+                throw new IllegalArgumentException("at least one set is required");
+            }
+            if (weights.length != sets.length) {
+                throw new IllegalArgumentException("expected " + sets.length + " weights but got " + weights.length);
+            }
+            this.dstkey = dstkey;
+            this.weights = weights;
+            this.aggregate = aggregate;
+            this.union = union;
+            this.sets = sets;
+        }
+
+        /**
+         * 查询 tuples 在其他源集合中的分数并聚合
+         *
+         * @return 需要写入的 member 和分数
+         */
+        Map<String, Double> aggregate(Jedis jedis, int source, List<Tuple> tuples) {
+            Map<String, Double> scores = new HashMap<>(tuples.size() * 2);
+            if (tuples.isEmpty()) {
+                return scores;
+            }
+            List<Response<Double>> others = new ArrayList<>(tuples.size() * (sets.length - 1));
+            if (sets.length > 1) {
+                Pipeline pipeline = new ScorePipeline(jedis);
+                for (Tuple tuple : tuples) {
+                    for (int i = 0; i < sets.length; i++) {
+                        if (i != source) {
+                            others.add(pipeline.zscore(sets[i], tuple.getElement()));
+                        }
+                    }
+                }
+                pipeline.sync();
+            }
+            int next = 0;
+            for (Tuple tuple : tuples) {
+                double score = WeightedScores.weighted(tuple.getScore(), weights[source]);
+                boolean keep = true;
+                for (int i = 0; i < sets.length; i++) {
+                    if (i == source) {
+                        continue;
+                    }
+                    Double other = others.get(next++).get();
+                    if (other == null) {
+                        // 交集要求所有集合中都存在
+                        keep &= union;
+                    } else if (union && i < source) {
+                        keep = false;
+                    } else {
+                        score = WeightedScores.aggregate(aggregate, score, WeightedScores.weighted(other, weights[i]));
+                    }
+                }
+                if (keep) {
+                    scores.put(tuple.getElement(), score);
+                }
+            }
+            return scores;
+        }
+    }
+
+    /**
+     * ZSCORE 的回复用 {@link WeightedScores#parse} 解析的 pipeline
+     */
+    private static final class ScorePipeline extends Pipeline {
+
+        private static final Builder<Double> SCORE = new Builder<Double>() {
+            @Override
+            public Double build(Object data) {
+                return data == null ? null : WeightedScores.parse(SafeEncoder.encode((byte[]) data));
+            }
+        };
+
+        ScorePipeline(Jedis jedis) {
+            setClient(jedis.getClient());
+        }
+
+        @Override
+        public Response<Double> zscore(String key, String member) {
+            getClient(key).zscore(key, member);
+            return getResponse(SCORE);
+        }
+    }
+}
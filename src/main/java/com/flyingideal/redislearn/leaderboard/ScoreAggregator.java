@@ -0,0 +1,358 @@
+package com.flyingideal.redislearn.leaderboard;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 合并 ZINCRBY 的写缓冲：同一个 (sorted set, member) 在一个周期内的多次加分在本地累加，
+ * 每 flushIntervalMillis 用一个 pipeline 为每个 member 发送一条 ZINCRBY。
+ *
+ * <ul>
+ *     <li>累加：按 (key, member) 的 hash 分到若干个 stripe，每个 stripe 是一个 map 到 {@link DoubleAdder}，热点 member
+ *     的并发加分只竞争 adder 的 cell</li>
+ *     <li>flush：在 stripe 的写锁下把整个 map 换成空 map，之后旧 map 不会再被写入，读取不会漏掉并发的加分；
+ *     写入方只持有读锁，彼此不互斥</li>
+ *     <li>时效：redis 中的分数最多落后 flushIntervalMillis 加一次 flush 的耗时；待发送的 member 数达到 maxPending 时提前 flush</li>
+ *     <li>失败：连接错误时未确认的增量加回缓冲，下个周期重试；WRONGTYPE 等无法重试的错误记录日志后丢弃；
+ *     close 时停止定时任务并同步 flush 剩余的增量</li>
+ * </ul>
+ * 合并比例 = 加分次数 / 发送的 ZINCRBY 条数，越大说明省掉的命令越多。
+ *
+ * @author yanchao
+ * @date 2026/10/18 12:10
+ */
+public class ScoreAggregator implements Closeable, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScoreAggregator.class);
+
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 100;
+
+    public static final int DEFAULT_MAX_PENDING = 100_000;
+
+    /**
+     * 每次 sync 的 ZINCRBY 条数，避免一次 flush 的回复全部堆积在客户端
+     */
+    private static final int FLUSH_BATCH = 1000;
+
+    private final JedisConnectionProvider provider;
+
+    private final String name;
+
+    private final int maxPending;
+
+    private final Stripe[] stripes;
+
+    private final ScheduledExecutorService flusher;
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final LongAdder pending = new LongAdder();
+
+    private final LongAdder increments = new LongAdder();
+
+    private final LongAdder commands = new LongAdder();
+
+    private final LongAdder flushes = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile boolean closed;
+
+    public ScoreAggregator(JedisConnectionProvider provider, String name) {
+        this(provider, name, DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_MAX_PENDING);
+    }
+
+    /**
+     * @param name                区分多个实例的线程名和指标标签
+     * @param flushIntervalMillis 两次 flush 的间隔，即 redis 中分数的最大延迟
+     * @param maxPending          待发送的 member 数达到这个值时提前 flush，限制缓冲占用的内存
+     */
+    public ScoreAggregator(JedisConnectionProvider provider, String name, long flushIntervalMillis, int maxPending) {
+        if (flushIntervalMillis < 1) {
+            throw new IllegalArgumentException("flushIntervalMillis must be positive: " + flushIntervalMillis);
+        }
+        this.provider = provider;
+        this.name = name;
+        this.maxPending = maxPending;
+        this.stripes = new Stripe[Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "score-aggregator-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 为 key 中的 member 加分，在下一次 flush 时生效
+     *
+     * @throws IllegalStateException 已经关闭
+     */
+    public void incrementScore(String key, String member, double delta) {
+        if (closed) {
+            throw new IllegalStateException("score aggregator " + name + " is closed");
+        }
+        add(new Member(key, member), delta);
+        increments.increment();
+        if (pending.sum() >= maxPending && flushScheduled.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                // 正在关闭，close 会 flush 剩余的增量
+            }
+        }
+    }
+
+    /**
+     * 立即把累积的增量写入 redis，与定时 flush 互斥
+     *
+     * @return 发送的 ZINCRBY 条数
+     * @throws JedisException 写入失败，增量已加回缓冲
+     */
+    public synchronized int flush() {
+        flushScheduled.set(false);
+        Map<Member, Double> batch = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            Map<Member, DoubleAdder> taken;
+            stripe.lock.writeLock().lock();
+            try {
+                if (stripe.deltas.isEmpty()) {
+                    continue;
+                }
+                taken = stripe.deltas;
+                stripe.deltas = new ConcurrentHashMap<>();
+            } finally {
+                stripe.lock.writeLock().unlock();
+            }
+            pending.add(-taken.size());
+            for (Map.Entry<Member, DoubleAdder> entry : taken.entrySet()) {
+                double delta = entry.getValue().sum();
+                // 正负相抵的增量不需要发送
+                if (delta != 0) {
+                    batch.put(entry.getKey(), delta);
+                }
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Map.Entry<Member, Double>> entries = new ArrayList<>(batch.entrySet());
+        List<Response<Double>> responses = new ArrayList<>(entries.size());
+        int sent = 0;
+        int synced = 0;
+        try (Jedis jedis = provider.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (Map.Entry<Member, Double> entry : entries) {
+                responses.add(pipeline.zincrby(entry.getKey().key, entry.getValue(), entry.getKey().member));
+                if (++sent % FLUSH_BATCH == 0) {
+                    pipeline.sync();
+                    synced = sent;
+                }
+            }
+            pipeline.sync();
+            synced = sent;
+        } catch (JedisException e) {
+            // 出错的批次是否已经执行无法确定，按未执行处理：连接在回复前断开时这一批会重复加分
+            failures.increment();
+            commands.add(synced);
+            for (Map.Entry<Member, Double> entry : entries.subList(synced, entries.size())) {
+                add(entry.getKey(), entry.getValue());
+            }
+            throw e;
+        }
+        commands.add(sent);
+        flushes.increment();
+        for (int i = 0; i < responses.size(); i++) {
+            try {
+                responses.get(i).get();
+            } catch (JedisDataException e) {
+                Member target = entries.get(i).getKey();
+                dropped.increment();
+                logger.warn("dropping score delta {} of {} in {}: {}", entries.get(i).getValue(), target.member,
+                        target.key, e.getMessage());
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * 停止定时 flush，并把剩余的增量写入 redis
+     */
+    @Override
+    public void close() {
+        closed = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * @return 累计的加分次数
+     */
+    public long getIncrements() {
+        return increments.sum();
+    }
+
+    /**
+     * @return 累计发送的 ZINCRBY 条数
+     */
+    public long getCommands() {
+        return commands.sum();
+    }
+
+    /**
+     * @return 加分次数 / ZINCRBY 条数，还没有 flush 过时为 1
+     */
+    public double getCoalescingRatio() {
+        long sent = commands.sum();
+        return sent == 0 ? 1 : (double) increments.sum() / sent;
+    }
+
+    /**
+     * @return 等待 flush 的 (key, member) 个数
+     */
+    public long getPending() {
+        return pending.sum();
+    }
+
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * @return 因 WRONGTYPE 等错误被丢弃的增量个数
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("redis.aggregator.increments", this, ScoreAggregator::getIncrements)
+                .tag("aggregator", name).register(registry);
+        FunctionCounter.builder("redis.aggregator.commands", this, ScoreAggregator::getCommands)
+                .tag("aggregator", name).register(registry);
+        FunctionCounter.builder("redis.aggregator.flushes", this, ScoreAggregator::getFlushes)
+                .tags("aggregator", name, "result", "success").register(registry);
+        FunctionCounter.builder("redis.aggregator.flushes", this, ScoreAggregator::getFailures)
+                .tags("aggregator", name, "result", "failure").register(registry);
+        FunctionCounter.builder("redis.aggregator.dropped", this, ScoreAggregator::getDropped)
+                .tag("aggregator", name).register(registry);
+        Gauge.builder("redis.aggregator.coalescing.ratio", this, ScoreAggregator::getCoalescingRatio)
+                .tag("aggregator", name).register(registry);
+        Gauge.builder("redis.aggregator.pending", this, ScoreAggregator::getPending)
+                .tag("aggregator", name).register(registry);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ScoreAggregator{name=%s, increments=%d, commands=%d, ratio=%.1f, pending=%d, "
+                        + "flushes=%d, failures=%d, dropped=%d}",
+                name, getIncrements(), getCommands(), getCoalescingRatio(), getPending(), getFlushes(), getFailures(),
+                getDropped());
+    }
+
+    private void add(Member target, double delta) {
+        Stripe stripe = stripes[spread(target.hashCode()) & (stripes.length - 1)];
+        stripe.lock.readLock().lock();
+        try {
+            stripe.deltas.computeIfAbsent(target, k -> {
+                pending.increment();
+                return new DoubleAdder();
+            }).add(delta);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (JedisException e) {
+            logger.warn("flushing scores of {} failed, {} members will be retried: {}", name, getPending(),
+                    e.getMessage());
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Stripe {
+
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        /**
+         * 只在写锁下替换，替换后旧 map 只由 flush 读取
+         */
+        volatile Map<Member, DoubleAdder> deltas = new ConcurrentHashMap<>();
+    }
+
+    private static final class Member {
+
+        final String key;
+
+        final String member;
+
+        Member(String key, String member) {
+            this.key = key;
+            this.member = member;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Member)) {
+                return false;
+            }
+            Member other = (Member) o;
+            return key.equals(other.key) && member.equals(other.member);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + member.hashCode();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.flyingideal.redislearn.leaderboard;
+
+import redis.clients.jedis.ZParams;
+
+import java.util.Arrays;
+
+/**
+ * 在客户端计算 ZUNIONSTORE / ZINTERSTORE 时对分数加权和聚合，与 redis 的 zunionInterGenericCommand 结果一致：
+ * 加权结果或 SUM 的结果为 NaN 时（inf * 0、+inf + -inf）记为 0
+ *
+ * redis 以 inf / -inf 回复无穷大的分数，jedis 2.9 的 Tuple 和 zscore 无法解析，需要用 {@link #parse} 自己解析
+ *
+ * @author yanchao
+ * @date 2026/10/19 11:10
+ */
+public final class WeightedScores {
+
+    private WeightedScores() {
+    }
+
+    public static double weighted(double score, double weight) {
+        double value = score * weight;
+        return Double.isNaN(value) ? 0 : value;
+    }
+
+    public static double aggregate(ZParams.Aggregate aggregate, double a, double b) {
+        switch (aggregate) {
+            case MIN:
+                return Math.min(a, b);
+            case MAX:
+                return Math.max(a, b);
+            default:
+                double sum = a + b;
+                return Double.isNaN(sum) ? 0 : sum;
+        }
+    }
+
+    /**
+     * 不指定 WEIGHTS 时每个集合的权重都是 1
+     */
+    public static double[] ones(int length) {
+        double[] weights = new double[length];
+        Arrays.fill(weights, 1);
+        return weights;
+    }
+
+    /**
+     * 解析 redis 回复中的分数，支持 inf、+inf、-inf
+     */
+    public static double parse(String reply) {
+        switch (reply) {
+            case "inf":
+            case "+inf":
+                return Double.POSITIVE_INFINITY;
+            case "-inf":
+                return Double.NEGATIVE_INFINITY;
+            default:
+                return Double.parseDouble(reply);
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.flyingideal.redislearn.loader;
+
+import com.flyingideal.redislearn.pool.RedisConnectionProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 类似 redis-cli --pipe 的批量导入工具，用于灌入大量测试数据。
+ *
+ * 不经过 jedis：调用线程把命令直接编码为 RESP 写入一个复用的 direct ByteBuffer，写满后通过同一个 socket 发送；
+ * 独立的读线程异步解析回复，只统计成功和错误数。已发送但未收到回复的命令数不超过 maxInFlight，
+ * 避免 redis 的输出缓冲区和本地 socket 缓冲区无限增长。
+ *
+ * 命令行用法：
+ * <pre>
+ *     java -cp ... com.flyingideal.redislearn.loader.BulkLoader data.csv|data.jsonl [host] [port]
+ * </pre>
+ * host、port 默认取 application.properties 中的配置，输入格式见 {@link CsvRecordReader} 和 {@link JsonLinesRecordReader}。
+ *
+ * @author yanchao
+ * @date 2026/10/17 20:00
+ */
+public class BulkLoader implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkLoader.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int DEFAULT_MAX_IN_FLIGHT = 10_000;
+
+    private static final int MAX_ERROR_SAMPLES = 10;
+
+    private static final long PROGRESS_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final SocketChannel channel;
+
+    private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    private final byte[] digits = new byte[20];
+
+    private final Semaphore inFlight;
+
+    private final int maxInFlight;
+
+    private final Thread replyReader;
+
+    private final AtomicLong errors = new AtomicLong();
+
+    private final List<String> errorSamples = new ArrayList<>();
+
+    private volatile Throwable failure;
+
+    private volatile boolean closing;
+
+    private long bytesWritten;
+
+    public BulkLoader(RedisConnectionProperties properties) {
+        this(properties.getHost(), properties.getPort(), properties.getPassword(), properties.getDatabase(),
+                DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * @throws IllegalStateException AUTH 或 SELECT 返回错误
+     */
+    public BulkLoader(String host, int port, String password, int database, int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        try {
+            channel = SocketChannel.open(new InetSocketAddress(host, port));
+            channel.socket().setTcpNoDelay(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("connect to " + host + ":" + port + " failed", e);
+        }
+        replyReader = new Thread(this::readReplies, "redis-bulk-loader-replies");
+        replyReader.setDaemon(true);
+        replyReader.start();
+        if (password != null || database != 0) {
+            try {
+                handshake(password, database);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: BulkLoader <file.csv|file.jsonl> [host] [port]");
+            System.exit(1);
+        }
+        RedisConnectionProperties properties = RedisConnectionProperties.fromApplicationProperties();
+        if (args.length > 1) {
+            properties.setHost(args[1]);
+        }
+        if (args.length > 2) {
+            properties.setPort(Integer.parseInt(args[2]));
+        }
+        try (BulkLoader loader = new BulkLoader(properties)) {
+            LoadReport report = loader.load(Paths.get(args[0]));
+            System.out.println(report);
+        }
+    }
+
+    /**
+     * 导入文件，.csv 按 CSV 解析，其余按 JSONL 解析
+     */
+    public LoadReport load(Path file) throws IOException {
+        try (RecordReader reader = RecordReader.open(file)) {
+            return load(reader);
+        }
+    }
+
+    /**
+     * 发送全部记录并等待所有回复
+     */
+    public LoadReport load(Iterator<LoadRecord> records) {
+        long start = System.nanoTime();
+        long lastLog = start;
+        long errorsBefore = errors.get();
+        long bytesBefore = bytesWritten;
+        long rows = 0;
+        while (records.hasNext()) {
+            LoadRecord record = records.next();
+            sendRecord(record);
+            rows++;
+            if ((rows & 0xFFF) == 0 && System.nanoTime() - lastLog > PROGRESS_LOG_INTERVAL_NANOS) {
+                lastLog = System.nanoTime();
+                logger.info("bulk load progress: {} rows, {} rows/s", rows,
+                        rows * TimeUnit.SECONDS.toNanos(1) / (lastLog - start));
+            }
+        }
+        awaitReplies();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long invalidRows = records instanceof RecordReader ? ((RecordReader) records).getInvalidLines() : 0;
+        List<String> samples;
+        synchronized (errorSamples) {
+            samples = new ArrayList<>(errorSamples);
+        }
+        LoadReport report = new LoadReport(rows, errors.get() - errorsBefore, invalidRows,
+                bytesWritten - bytesBefore, elapsedMillis, samples);
+        logger.info("bulk load finished: {}", report);
+        return report;
+    }
+
+    /**
+     * AUTH / SELECT 失败后导入的命令会全部报错或写入错误的库，同步等待它们的回复，出错时不再继续
+     */
+    private void handshake(String password, int database) {
+        if (password != null) {
+            sendCommand("AUTH", password);
+        }
+        if (database != 0) {
+            sendCommand("SELECT", String.valueOf(database));
+        }
+        awaitReplies();
+        if (errors.get() > 0) {
+            String reply;
+            synchronized (errorSamples) {
+                reply = errorSamples.get(0);
+            }
+            throw new IllegalStateException("bulk load connection setup failed: " + reply);
+        }
+    }
+
+    private void sendRecord(LoadRecord record) {
+        List<String> args = record.getArgs();
+        acquirePermit();
+        writeArrayHeader(args.size() + 2);
+        writeBulk(record.getType().getCommand());
+        writeBulk(record.getKey());
+        for (String arg : args) {
+            writeBulk(arg);
+        }
+    }
+
+    private void sendCommand(String... args) {
+        acquirePermit();
+        writeArrayHeader(args.length);
+        for (String arg : args) {
+            writeBulk(arg);
+        }
+    }
+
+    /**
+     * 拿不到许可时先把缓冲区中的命令发出去，否则这些命令的回复永远不会到达，造成死锁
+     */
+    private void acquirePermit() {
+        checkFailure();
+        if (inFlight.tryAcquire()) {
+            return;
+        }
+        flush();
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for replies", e);
+        }
+        checkFailure();
+    }
+
+    private void awaitReplies() {
+        flush();
+        try {
+            inFlight.acquire(maxInFlight);
+            inFlight.release(maxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for replies", e);
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException("bulk load aborted: " + failure.getMessage(), failure);
+        }
+    }
+
+    private void writeArrayHeader(int count) {
+        ensure(1 + digits.length + CRLF.length);
+        out.put((byte) '*');
+        writeDecimal(count);
+        out.put(CRLF);
+    }
+
+    private void writeBulk(String value) {
+        byte[] bytes = isAscii(value) ? null : value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes == null ? value.length() : bytes.length;
+        ensure(1 + digits.length + CRLF.length);
+        out.put((byte) '$');
+        writeDecimal(length);
+        out.put(CRLF);
+        if (bytes == null) {
+            // ASCII 字符直接写入缓冲区，不创建临时 byte[]
+            int i = 0;
+            while (i < length) {
+                ensure(1);
+                int end = Math.min(length, i + out.remaining());
+                for (; i < end; i++) {
+                    out.put((byte) value.charAt(i));
+                }
+            }
+        } else {
+            int offset = 0;
+            while (offset < length) {
+                ensure(1);
+                int chunk = Math.min(length - offset, out.remaining());
+                out.put(bytes, offset, chunk);
+                offset += chunk;
+            }
+        }
+        ensure(CRLF.length);
+        out.put(CRLF);
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeDecimal(long value) {
+        int position = digits.length;
+        do {
+            digits[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        out.put(digits, position, digits.length - position);
+    }
+
+    private void ensure(int bytes) {
+        if (out.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        out.flip();
+        try {
+            while (out.hasRemaining()) {
+                bytesWritten += channel.write(out);
+            }
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException("write to redis failed", e);
+        } finally {
+            out.clear();
+        }
+    }
+
+    private void readReplies() {
+        ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try {
+            while (!closing) {
+                if (channel.read(in) < 0) {
+                    throw new EOFException("connection closed by redis");
+                }
+                in.flip();
+                int position = 0;
+                int end;
+                while ((end = RespReplyScanner.replyEnd(in, position)) != RespReplyScanner.INCOMPLETE) {
+                    if (RespReplyScanner.isError(in, position)) {
+                        recordError(RespReplyScanner.errorMessage(in, position, end));
+                    }
+                    position = end;
+                    inFlight.release();
+                }
+                in.position(position);
+                in.compact();
+                if (!in.hasRemaining()) {
+                    // 单个回复超过缓冲区大小
+                    ByteBuffer larger = ByteBuffer.allocateDirect(in.capacity() * 2);
+                    in.flip();
+                    larger.put(in);
+                    in = larger;
+                }
+            }
+        } catch (AsynchronousCloseException e) {
+            // close() 关闭了 socket
+        } catch (IOException | RuntimeException e) {
+            if (!closing) {
+                logger.error("bulk loader reply reader failed", e);
+                failure = e;
+                // 唤醒等待许可的写线程，由其检查 failure 后退出
+                inFlight.release(maxInFlight);
+            }
+        }
+    }
+
+    private void recordError(String message) {
+        errors.incrementAndGet();
+        synchronized (errorSamples) {
+            if (errorSamples.size() < MAX_ERROR_SAMPLES) {
+                errorSamples.add(message);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closing = true;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.debug("close bulk loader channel failed", e);
+        }
+        try {
+            replyReader.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
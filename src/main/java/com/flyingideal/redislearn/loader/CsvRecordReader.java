@@ -0,0 +1,68 @@
+package com.flyingideal.redislearn.loader;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV 输入，每行格式为 type,key,参数...，参数与对应命令中 key 之后的参数顺序相同：
+ * <pre>
+ *     string,name,Jedis
+ *     hash,person:1,name,zhangsan,age,18
+ *     set,set1,1,2,3
+ *     zset,zset1,1,one,2,two
+ * </pre>
+ * 字段中包含逗号或引号时用双引号括起来，引号写作两个双引号；不支持跨行的字段。
+ *
+ * @author yanchao
+ * @date 2026/10/17 19:28
+ */
+public class CsvRecordReader extends RecordReader {
+
+    public CsvRecordReader(Reader reader) {
+        super(reader);
+    }
+
+    @Override
+    protected LoadRecord parse(String line) {
+        List<String> columns = split(line);
+        if (columns.size() < 3) {
+            throw new IllegalArgumentException("expected type,key,args...");
+        }
+        LoadRecord.Type type = LoadRecord.Type.of(columns.get(0));
+        return new LoadRecord(type, columns.get(1), new ArrayList<>(columns.subList(2, columns.size())));
+    }
+
+    static List<String> split(String line) {
+        List<String> columns = new ArrayList<>();
+        StringBuilder column = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        column.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    column.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                columns.add(column.toString());
+                column.setLength(0);
+            } else {
+                column.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        columns.add(column.toString());
+        return columns;
+    }
+}
@@ -0,0 +1,87 @@
+package com.flyingideal.redislearn.loader;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSONL 输入，每行一个 JSON 对象：
+ * <pre>
+ *     {"type": "string", "key": "name", "value": "Jedis"}
+ *     {"type": "hash", "key": "person:1", "fields": {"name": "zhangsan", "age": 18}}
+ *     {"type": "set", "key": "set1", "members": ["1", "2", "3"]}
+ *     {"type": "zset", "key": "zset1", "members": {"one": 1, "two": 2.5}}
+ * </pre>
+ *
+ * @author yanchao
+ * @date 2026/10/17 19:36
+ */
+public class JsonLinesRecordReader extends RecordReader {
+
+    public JsonLinesRecordReader(Reader reader) {
+        super(reader);
+    }
+
+    @Override
+    protected LoadRecord parse(String line) {
+        Object parsed = JsonParser.parse(line);
+        if (!(parsed instanceof Map)) {
+            throw new IllegalArgumentException("expected a JSON object");
+        }
+        Map<?, ?> json = (Map<?, ?>) parsed;
+        LoadRecord.Type type = LoadRecord.Type.of(text(json.get("type"), "type"));
+        String key = text(json.get("key"), "key");
+        List<String> args = new ArrayList<>();
+        switch (type) {
+            case STRING:
+                args.add(text(json.get("value"), "value"));
+                break;
+            case HASH:
+                for (Map.Entry<?, ?> field : object(json.get("fields"), "fields").entrySet()) {
+                    args.add((String) field.getKey());
+                    args.add(text(field.getValue(), "fields." + field.getKey()));
+                }
+                break;
+            case SET:
+                Object members = json.get("members");
+                if (!(members instanceof List)) {
+                    throw new IllegalArgumentException("members of a set record must be an array");
+                }
+                for (Object member : (List<?>) members) {
+                    args.add(text(member, "members[]"));
+                }
+                break;
+            default:
+                for (Map.Entry<?, ?> member : object(json.get("members"), "members").entrySet()) {
+                    if (!(member.getValue() instanceof BigDecimal)) {
+                        throw new IllegalArgumentException("score of " + member.getKey() + " must be a number");
+                    }
+                    args.add(((BigDecimal) member.getValue()).toPlainString());
+                    args.add((String) member.getKey());
+                }
+        }
+        return new LoadRecord(type, key, args);
+    }
+
+    private static String text(Object value, String name) {
+        if (value instanceof String) {
+            return (String) value;
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        if (value instanceof Boolean) {
+            return value.toString();
+        }
+        throw new IllegalArgumentException(name + " must be a string or number");
+    }
+
+    private static Map<?, ?> object(Object value, String name) {
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException(name + " must be an object");
+        }
+        return (Map<?, ?>) value;
+    }
+}
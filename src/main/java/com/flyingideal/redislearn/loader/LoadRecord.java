@@ -0,0 +1,112 @@
+package com.flyingideal.redislearn.loader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 待导入的一行数据，对应一条写命令：string -> SET，hash -> HMSET，set -> SADD，zset -> ZADD
+ *
+ * @author yanchao
+ * @date 2026/10/17 19:05
+ */
+public class LoadRecord {
+
+    public enum Type {
+
+        STRING("SET"),
+        HASH("HMSET"),
+        SET("SADD"),
+        ZSET("ZADD");
+
+        private final String command;
+
+        Type(String command) {
+            this.command = command;
+        }
+
+        public String getCommand() {
+            return command;
+        }
+
+        static Type of(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unknown record type: " + name);
+            }
+        }
+    }
+
+    private final Type type;
+
+    private final String key;
+
+    /**
+     * key 之后的命令参数
+     */
+    private final List<String> args;
+
+    LoadRecord(Type type, String key, List<String> args) {
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("key must not be empty");
+        }
+        boolean valid;
+        switch (type) {
+            case STRING:
+                valid = args.size() == 1;
+                break;
+            case SET:
+                valid = !args.isEmpty();
+                break;
+            default:
+                valid = !args.isEmpty() && args.size() % 2 == 0;
+        }
+        if (!valid) {
+            throw new IllegalArgumentException("wrong number of arguments for " + type + " record " + key);
+        }
+        this.type = type;
+        this.key = key;
+        this.args = args;
+    }
+
+    public static LoadRecord string(String key, String value) {
+        return new LoadRecord(Type.STRING, key, Collections.singletonList(value));
+    }
+
+    public static LoadRecord hash(String key, Map<String, String> fields) {
+        List<String> args = new ArrayList<>(fields.size() * 2);
+        fields.forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        return new LoadRecord(Type.HASH, key, args);
+    }
+
+    public static LoadRecord set(String key, Collection<String> members) {
+        return new LoadRecord(Type.SET, key, new ArrayList<>(members));
+    }
+
+    public static LoadRecord zset(String key, Map<String, Double> scoreMembers) {
+        List<String> args = new ArrayList<>(scoreMembers.size() * 2);
+        scoreMembers.forEach((member, score) -> {
+            args.add(String.valueOf(score));
+            args.add(member);
+        });
+        return new LoadRecord(Type.ZSET, key, args);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public List<String> getArgs() {
+        return args;
+    }
+}
@@ -0,0 +1,80 @@
+package com.flyingideal.redislearn.loader;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一次导入的结果
+ *
+ * @author yanchao
+ * @date 2026/10/17 19:44
+ */
+public class LoadReport {
+
+    private final long rows;
+
+    private final long errors;
+
+    private final long invalidRows;
+
+    private final long bytes;
+
+    private final long elapsedMillis;
+
+    private final List<String> errorSamples;
+
+    LoadReport(long rows, long errors, long invalidRows, long bytes, long elapsedMillis, List<String> errorSamples) {
+        this.rows = rows;
+        this.errors = errors;
+        this.invalidRows = invalidRows;
+        this.bytes = bytes;
+        this.elapsedMillis = elapsedMillis;
+        this.errorSamples = Collections.unmodifiableList(errorSamples);
+    }
+
+    /**
+     * @return 发送到 redis 的行数，每行一条命令
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return redis 返回错误的命令数
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return 输入中格式错误而被跳过的行数
+     */
+    public long getInvalidRows() {
+        return invalidRows;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? rows * 1000D : rows * 1000D / elapsedMillis;
+    }
+
+    /**
+     * @return 前几条错误信息
+     */
+    public List<String> getErrorSamples() {
+        return errorSamples;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LoadReport{rows=%d, errors=%d, invalidRows=%d, bytes=%d, elapsedMillis=%d, rowsPerSecond=%.0f, errorSamples=%s}",
+                rows, errors, invalidRows, bytes, elapsedMillis, getRowsPerSecond(), errorSamples);
+    }
+}
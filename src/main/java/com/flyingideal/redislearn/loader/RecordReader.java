@@ -0,0 +1,104 @@
+package com.flyingideal.redislearn.loader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 按行读取输入文件并转换为 {@link LoadRecord}，空行和 # 开头的行被忽略，格式错误的行计数后跳过
+ *
+ * @author yanchao
+ * @date 2026/10/17 19:20
+ */
+public abstract class RecordReader implements Iterator<LoadRecord>, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecordReader.class);
+
+    /**
+     * 最多打印多少条格式错误的行
+     */
+    private static final int MAX_LOGGED_INVALID_LINES = 10;
+
+    private final BufferedReader reader;
+
+    private LoadRecord next;
+
+    private long lineNumber;
+
+    private long invalidLines;
+
+    protected RecordReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, 64 * 1024);
+    }
+
+    /**
+     * 根据扩展名选择格式：.csv 为 CSV，其余按 JSONL 处理
+     */
+    public static RecordReader open(Path file) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        return file.getFileName().toString().toLowerCase().endsWith(".csv")
+                ? new CsvRecordReader(reader) : new JsonLinesRecordReader(reader);
+    }
+
+    /**
+     * @throws IllegalArgumentException 该行格式错误
+     */
+    protected abstract LoadRecord parse(String line);
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    next = parse(line);
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    if (++invalidLines <= MAX_LOGGED_INVALID_LINES) {
+                        logger.warn("skip invalid line {}: {}", lineNumber, e.getMessage());
+                    }
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public LoadRecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        LoadRecord record = next;
+        next = null;
+        return record;
+    }
+
+    public long getInvalidLines() {
+        return invalidLines;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
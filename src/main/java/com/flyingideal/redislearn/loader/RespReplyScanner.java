@@ -0,0 +1,96 @@
+package com.flyingideal.redislearn.loader;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 在缓冲区中定位完整的 RESP 回复，只判断边界和是否为错误，不构造回复对象
+ *
+ * @author yanchao
+ * @date 2026/10/17 19:50
+ */
+final class RespReplyScanner {
+
+    static final int INCOMPLETE = -1;
+
+    private RespReplyScanner() {
+    }
+
+    /**
+     * @return 从 start 开始的一个完整回复之后的位置，回复不完整时返回 {@link #INCOMPLETE}
+     */
+    static int replyEnd(ByteBuffer buffer, int start) {
+        int limit = buffer.limit();
+        if (start >= limit) {
+            return INCOMPLETE;
+        }
+        int lineEnd = lineEnd(buffer, start + 1);
+        if (lineEnd == INCOMPLETE) {
+            return INCOMPLETE;
+        }
+        byte type = buffer.get(start);
+        switch (type) {
+            case '+':
+            case '-':
+            case ':':
+                return lineEnd;
+            case '$': {
+                long length = parseLong(buffer, start + 1, lineEnd - 2);
+                if (length < 0) {
+                    return lineEnd;
+                }
+                long end = lineEnd + length + 2;
+                return end <= limit ? (int) end : INCOMPLETE;
+            }
+            case '*': {
+                long count = parseLong(buffer, start + 1, lineEnd - 2);
+                int position = lineEnd;
+                for (long i = 0; i < count; i++) {
+                    position = replyEnd(buffer, position);
+                    if (position == INCOMPLETE) {
+                        return INCOMPLETE;
+                    }
+                }
+                return position;
+            }
+            default:
+                throw new IllegalStateException("unexpected RESP type byte: " + (char) type);
+        }
+    }
+
+    static boolean isError(ByteBuffer buffer, int start) {
+        return buffer.get(start) == '-';
+    }
+
+    /**
+     * @param end {@link #replyEnd} 的返回值
+     */
+    static String errorMessage(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start - 3];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + 1 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return 行尾 \r\n 之后的位置
+     */
+    private static int lineEnd(ByteBuffer buffer, int from) {
+        for (int i = from; i + 1 < buffer.limit(); i++) {
+            if (buffer.get(i) == '\r' && buffer.get(i + 1) == '\n') {
+                return i + 2;
+            }
+        }
+        return INCOMPLETE;
+    }
+
+    private static long parseLong(ByteBuffer buffer, int from, int to) {
+        boolean negative = buffer.get(from) == '-';
+        long value = 0;
+        for (int i = negative ? from + 1 : from; i < to; i++) {
+            value = value * 10 + (buffer.get(i) - '0');
+        }
+        return negative ? -value : value;
+    }
+}
@@ -0,0 +1,258 @@
+package com.flyingideal.redislearn.lock;
+
+import redis.clients.jedis.Jedis;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 基于 redis 的可重入分布式锁，由 {@link RedisLockFactory#getLock(String)} 创建，同名的多个实例共享同一把锁。
+ *
+ * 使用方式与 {@link java.util.concurrent.locks.ReentrantLock} 相同：
+ * <pre>
+ * RedisLock lock = factory.getLock("order:42");
+ * lock.lock();
+ * try {
+ *     storage.write(data, lock.getFencingToken());
+ * } finally {
+ *     lock.unlock();
+ * }
+ * </pre>
+ * GC 停顿或网络分区可能让租期在持有期间过期，受保护的资源应拒绝比已见过的 fencing token 更小的写入。
+ *
+ * @author yanchao
+ * @date 2026/10/18 10:20
+ */
+public class RedisLock implements Lock {
+
+    private static final long FOREVER = -1;
+
+    /**
+     * BLPOP 的最小超时是 1 秒，锁的剩余时间不足 1 秒时改为退避轮询
+     */
+    private static final long BLOCK_MILLIS = 1000;
+
+    private static final long MIN_BACKOFF_MILLIS = 1;
+
+    private static final long MAX_BACKOFF_MILLIS = 50;
+
+    private final RedisLockFactory factory;
+
+    private final String name;
+
+    private final List<String> acquireKeys;
+
+    private final List<String> releaseKeys;
+
+    private final String key;
+
+    private final String wakeKey;
+
+    RedisLock(RedisLockFactory factory, String name) {
+        this.factory = factory;
+        this.name = name;
+        // hash tag 保证同一把锁的几个 key 在集群中位于同一个 slot
+        this.key = "lock:{" + name + "}";
+        this.wakeKey = key + ":wake";
+        this.acquireKeys = Arrays.asList(key, key + ":fence");
+        this.releaseKeys = Arrays.asList(key, wakeKey);
+    }
+
+    @Override
+    public void lock() {
+        try {
+            acquire(FOREVER, false);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException("uninterruptible lock was interrupted", e);
+        }
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        acquire(FOREVER, true);
+    }
+
+    /**
+     * 只尝试一次，不等待
+     */
+    @Override
+    public boolean tryLock() {
+        try {
+            return acquire(0, false);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException("tryLock was interrupted", e);
+        }
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        return acquire(Math.max(0, unit.toNanos(time)), true);
+    }
+
+    /**
+     * @throws IllegalMonitorStateException 当前线程没有持有锁，或者锁的租期已经过期、可能已被其他进程持有
+     */
+    @Override
+    public void unlock() {
+        RedisLockFactory.Gate gate = factory.gate(name);
+        if (gate == null || !gate.local.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException("lock " + name + " is not held by current thread");
+        }
+        try {
+            if (gate.local.getHoldCount() == 1) {
+                releaseRemote(gate);
+            }
+        } finally {
+            gate.local.unlock();
+            factory.release(name);
+        }
+    }
+
+    /**
+     * 不支持，分布式锁无法在释放锁的同时原子地进入本地的等待队列
+     */
+    @Override
+    public Condition newCondition() {
+        throw new UnsupportedOperationException("conditions are not supported by redis locks");
+    }
+
+    /**
+     * @return 本次加锁得到的 fencing token，每次成功加锁（不含重入）都比之前的大
+     */
+    public long getFencingToken() {
+        RedisLockFactory.Gate gate = factory.gate(name);
+        if (gate == null || !gate.local.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException("lock " + name + " is not held by current thread");
+        }
+        return gate.fence;
+    }
+
+    /**
+     * @return 当前线程持有锁且 watchdog 没有发现租期丢失
+     */
+    public boolean isHeldByCurrentThread() {
+        RedisLockFactory.Gate gate = factory.gate(name);
+        if (gate == null || !gate.local.isHeldByCurrentThread()) {
+            return false;
+        }
+        RedisLockFactory.Lease lease = gate.lease;
+        return lease != null && !lease.lost;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param timeoutNanos FOREVER 表示一直等待，0 表示只尝试一次
+     */
+    private boolean acquire(long timeoutNanos, boolean interruptible) throws InterruptedException {
+        long deadline = timeoutNanos == FOREVER ? Long.MAX_VALUE : System.nanoTime() + timeoutNanos;
+        RedisLockFactory.Gate gate = factory.retain(name);
+        boolean acquired = false;
+        try {
+            if (!lockLocal(gate, timeoutNanos, interruptible)) {
+                return false;
+            }
+            if (gate.local.getHoldCount() > 1) {
+                acquired = true;
+                return true;
+            }
+            try {
+                acquired = acquireRemote(gate, deadline, interruptible);
+            } finally {
+                if (!acquired) {
+                    gate.local.unlock();
+                }
+            }
+            return acquired;
+        } finally {
+            if (!acquired) {
+                factory.release(name);
+            }
+        }
+    }
+
+    private static boolean lockLocal(RedisLockFactory.Gate gate, long timeoutNanos, boolean interruptible)
+            throws InterruptedException {
+        if (timeoutNanos == FOREVER) {
+            if (interruptible) {
+                gate.local.lockInterruptibly();
+            } else {
+                gate.local.lock();
+            }
+            return true;
+        }
+        return timeoutNanos == 0 ? gate.local.tryLock() : gate.local.tryLock(timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private boolean acquireRemote(RedisLockFactory.Gate gate, long deadline, boolean interruptible)
+            throws InterruptedException {
+        String token = factory.nextToken();
+        List<String> args = Arrays.asList(token, Long.toString(factory.leaseMillis()));
+        boolean interrupted = false;
+        try (Jedis jedis = factory.provider().getResource()) {
+            long backoff = MIN_BACKOFF_MILLIS;
+            while (true) {
+                @SuppressWarnings("unchecked")
+                List<Long> result = (List<Long>) RedisLockFactory.ACQUIRE.eval(jedis, acquireKeys, args);
+                if (result.get(0) == 1) {
+                    RedisLockFactory.Lease lease = new RedisLockFactory.Lease(token);
+                    gate.lease = lease;
+                    gate.fence = result.get(1);
+                    factory.leaseAcquired(key, lease);
+                    return true;
+                }
+                long remaining = deadline == Long.MAX_VALUE ? Long.MAX_VALUE
+                        : TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                if (Thread.interrupted()) {
+                    if (interruptible) {
+                        throw new InterruptedException();
+                    }
+                    interrupted = true;
+                }
+                long ttl = result.get(1);
+                long wait = Math.min(remaining, ttl > 0 ? ttl : backoff);
+                if (wait >= BLOCK_MILLIS) {
+                    // 持有者释放时 LPUSH 唤醒；锁过期而没有释放时，最多 1 秒后重试
+                    jedis.blpop((int) TimeUnit.MILLISECONDS.toSeconds(BLOCK_MILLIS), wakeKey);
+                    backoff = MIN_BACKOFF_MILLIS;
+                } else {
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(Math.min(wait, backoff));
+                    } catch (InterruptedException e) {
+                        if (interruptible) {
+                            throw e;
+                        }
+                        interrupted = true;
+                    }
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void releaseRemote(RedisLockFactory.Gate gate) {
+        RedisLockFactory.Lease lease = gate.lease;
+        factory.leaseReleased(key, lease);
+        gate.lease = null;
+        Object released;
+        try (Jedis jedis = factory.provider().getResource()) {
+            released = RedisLockFactory.RELEASE.eval(jedis, releaseKeys,
+                    Arrays.asList(lease.token, Long.toString(factory.leaseMillis())));
+        }
+        if (Long.valueOf(0).equals(released)) {
+            throw new IllegalMonitorStateException("lease of lock " + name + " expired before unlock");
+        }
+    }
+}
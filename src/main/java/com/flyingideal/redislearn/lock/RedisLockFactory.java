@@ -0,0 +1,272 @@
+package com.flyingideal.redislearn.lock;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import com.flyingideal.redislearn.script.RedisScript;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分布式锁的工厂，一个进程通常只需要一个实例。
+ *
+ * <ul>
+ *     <li>加锁：一个脚本中执行 SET lock:{name} token NX PX lease，成功时 INCR lock:{name}:fence 得到单调递增的 fencing token，
+ *     失败时返回锁的剩余时间；token 在进程内唯一，释放时 Lua 比较 token 后再删除，不会误删别人的锁</li>
+ *     <li>续期：watchdog 每隔 lease / 3 用一个脚本批量续期本进程持有的所有锁，只有一次网络往返</li>
+ *     <li>等待：同一进程内同名的锁先竞争本地的 {@link ReentrantLock}，每个进程只有一个线程访问 redis；
+ *     该线程在 lock:{name}:wake 上 BLPOP，释放锁的脚本 LPUSH 唤醒一个等待者，不需要轮询</li>
+ * </ul>
+ * 批量续期的脚本访问多个 key，只适用于单机 / 哨兵模式。
+ *
+ * @author yanchao
+ * @date 2026/10/18 10:00
+ */
+public class RedisLockFactory implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisLockFactory.class);
+
+    public static final long DEFAULT_LEASE_MILLIS = 30_000;
+
+    /**
+     * 一次续期脚本最多携带的锁数
+     */
+    private static final int RENEW_BATCH = 256;
+
+    /**
+     * KEYS[1] 锁，KEYS[2] fencing 计数器；ARGV[1] token，ARGV[2] 租期毫秒。
+     * 返回 {1, fencing token} 或 {0, 锁的剩余毫秒数}
+     */
+    static final RedisScript ACQUIRE = new RedisScript(
+            "if redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then\n"
+                    + "    return {1, redis.call('incr', KEYS[2])}\n"
+                    + "end\n"
+                    + "return {0, redis.call('pttl', KEYS[1])}\n");
+
+    /**
+     * KEYS[1] 锁，KEYS[2] 唤醒 list；ARGV[1] token，ARGV[2] 唤醒 list 的过期毫秒数。
+     * token 不匹配（租期已过、锁已被别人持有）时返回 0
+     */
+    static final RedisScript RELEASE = new RedisScript(
+            "if redis.call('get', KEYS[1]) ~= ARGV[1] then\n"
+                    + "    return 0\n"
+                    + "end\n"
+                    + "redis.call('del', KEYS[1])\n"
+                    + "redis.call('lpush', KEYS[2], '1')\n"
+                    + "redis.call('ltrim', KEYS[2], 0, 0)\n"
+                    + "redis.call('pexpire', KEYS[2], ARGV[2])\n"
+                    + "return 1\n");
+
+    /**
+     * KEYS 为所有锁；ARGV[1] 租期毫秒，ARGV[i + 1] 为 KEYS[i] 的 token。返回每个锁是否续期成功
+     */
+    static final RedisScript RENEW = new RedisScript(
+            "local renewed = {}\n"
+                    + "for i, key in ipairs(KEYS) do\n"
+                    + "    if redis.call('get', key) == ARGV[i + 1] then\n"
+                    + "        redis.call('pexpire', key, ARGV[1])\n"
+                    + "        renewed[i] = 1\n"
+                    + "    else\n"
+                    + "        renewed[i] = 0\n"
+                    + "    end\n"
+                    + "end\n"
+                    + "return renewed\n");
+
+    private final JedisConnectionProvider provider;
+
+    private final long leaseMillis;
+
+    private final String tokenPrefix = UUID.randomUUID().toString() + ":";
+
+    private final AtomicLong tokenSequence = new AtomicLong();
+
+    /**
+     * 同名锁在本进程内共享的状态，没有线程持有或等待时删除
+     */
+    private final Map<String, Gate> gates = new ConcurrentHashMap<>();
+
+    /**
+     * 本进程持有的锁，key 为 redis 中的 key；每次加锁一个新的 {@link Lease}，
+     * 续期失败只影响发出续期时的那一次加锁，不会误伤同一进程随后重新加锁的线程
+     */
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService watchdog;
+
+    public RedisLockFactory(JedisConnectionProvider provider) {
+        this(provider, DEFAULT_LEASE_MILLIS);
+    }
+
+    /**
+     * @param leaseMillis 锁的租期；进程崩溃后最多经过这么久锁才会被释放，正常持有期间由 watchdog 续期
+     */
+    public RedisLockFactory(JedisConnectionProvider provider, long leaseMillis) {
+        if (leaseMillis < 300) {
+            throw new IllegalArgumentException("leaseMillis must be at least 300: " + leaseMillis);
+        }
+        this.provider = provider;
+        this.leaseMillis = leaseMillis;
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-lock-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = leaseMillis / 3;
+        watchdog.scheduleWithFixedDelay(this::renewQuietly, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public RedisLock getLock(String name) {
+        return new RedisLock(this, name);
+    }
+
+    /**
+     * @return 本进程当前持有的锁的个数
+     */
+    public int getHeldCount() {
+        return leases.size();
+    }
+
+    /**
+     * 停止续期，已持有的锁在租期结束后自动释放
+     */
+    @Override
+    public void close() {
+        watchdog.shutdownNow();
+    }
+
+    JedisConnectionProvider provider() {
+        return provider;
+    }
+
+    long leaseMillis() {
+        return leaseMillis;
+    }
+
+    String nextToken() {
+        return tokenPrefix + tokenSequence.incrementAndGet();
+    }
+
+    Gate retain(String name) {
+        return gates.compute(name, (k, gate) -> {
+            Gate retained = gate == null ? new Gate() : gate;
+            retained.users++;
+            return retained;
+        });
+    }
+
+    void release(String name) {
+        gates.computeIfPresent(name, (k, gate) -> --gate.users == 0 ? null : gate);
+    }
+
+    Gate gate(String name) {
+        return gates.get(name);
+    }
+
+    void leaseAcquired(String key, Lease lease) {
+        leases.put(key, lease);
+    }
+
+    void leaseReleased(String key, Lease lease) {
+        leases.remove(key, lease);
+    }
+
+    /**
+     * 批量续期本进程持有的锁，token 已不匹配的锁标记为已丢失
+     */
+    void renew() {
+        renew(heldLeases());
+    }
+
+    List<Map.Entry<String, Lease>> heldLeases() {
+        return new ArrayList<>(leases.entrySet());
+    }
+
+    /**
+     * @param held 续期开始时持有的锁；其中已经解锁或被重新加锁的，{@code leases.remove(key, lease)} 不会成功，
+     *             因此只有发出续期时的那一次加锁会被标记为丢失
+     */
+    void renew(List<Map.Entry<String, Lease>> held) {
+        if (held.isEmpty()) {
+            return;
+        }
+        try (Jedis jedis = provider.getResource()) {
+            for (int from = 0; from < held.size(); from += RENEW_BATCH) {
+                List<Map.Entry<String, Lease>> batch = held.subList(from, Math.min(held.size(), from + RENEW_BATCH));
+                List<String> keys = new ArrayList<>(batch.size());
+                List<String> args = new ArrayList<>(batch.size() + 1);
+                args.add(Long.toString(leaseMillis));
+                List<Lease> renewing = new ArrayList<>(batch.size());
+                for (Map.Entry<String, Lease> entry : batch) {
+                    keys.add(entry.getKey());
+                    args.add(entry.getValue().token);
+                    renewing.add(entry.getValue());
+                }
+                @SuppressWarnings("unchecked")
+                List<Long> renewed = (List<Long>) RENEW.eval(jedis, keys, args);
+                for (int i = 0; i < renewed.size(); i++) {
+                    if (renewed.get(i) == 0 && leases.remove(keys.get(i), renewing.get(i))) {
+                        renewing.get(i).lost = true;
+                        logger.warn("lease of lock {} was lost before unlock", keys.get(i));
+                    }
+                }
+            }
+        }
+    }
+
+    private void renewQuietly() {
+        try {
+            renew();
+        } catch (JedisException e) {
+            logger.warn("renewing {} redis locks failed: {}", leases.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 本进程内同名锁的共享状态，lease 和 fence 只由持有本地锁的线程写入
+     */
+    static final class Gate {
+
+        final ReentrantLock local = new ReentrantLock();
+
+        /**
+         * 持有或等待的线程数，只在 gates.compute 中修改
+         */
+        int users;
+
+        /**
+         * 当前这次加锁，没有持有时为 null
+         */
+        volatile Lease lease;
+
+        volatile long fence;
+    }
+
+    /**
+     * 一次成功的加锁
+     */
+    static final class Lease {
+
+        final String token;
+
+        /**
+         * watchdog 发现 redis 中的 token 已经不是这次加锁的
+         */
+        volatile boolean lost;
+
+        Lease(String token) {
+            this.token = token;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.flyingideal.redislearn.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个命令的统计：耗时直方图（微秒）、调用次数、错误次数以及请求/响应字节数。
+ *
+ * 耗时写入 HdrHistogram 的 {@link Recorder}，多个连接并发写入时无锁；
+ * {@link #roll()} 周期性地取出一个统计窗口的直方图，供日志和 Micrometer 读取。
+ *
+ * @author yanchao
+ * @date 2026/10/17 17:10
+ */
+public class CommandMetrics {
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final String command;
+
+    private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+
+    private final Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+
+    private volatile Histogram lastInterval = new Histogram(SIGNIFICANT_DIGITS);
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder requestBytes = new LongAdder();
+
+    private final LongAdder responseBytes = new LongAdder();
+
+    CommandMetrics(String command) {
+        this.command = command;
+    }
+
+    void recordRequest(long bytes) {
+        requestBytes.add(bytes);
+    }
+
+    void recordReply(long elapsedNanos, long bytes) {
+        recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+        calls.increment();
+        responseBytes.add(bytes);
+    }
+
+    void recordError(long elapsedNanos) {
+        recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+        calls.increment();
+        errors.increment();
+    }
+
+    /**
+     * 结束当前统计窗口
+     *
+     * @return 刚结束的窗口内的耗时直方图
+     */
+    synchronized Histogram roll() {
+        Histogram interval = recorder.getIntervalHistogram();
+        total.add(interval);
+        lastInterval = interval;
+        return interval;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getRequestBytes() {
+        return requestBytes.sum();
+    }
+
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+
+    /**
+     * @return 最近一个已结束窗口的耗时直方图，调用方不要修改
+     */
+    public Histogram getLastInterval() {
+        return lastInterval;
+    }
+
+    /**
+     * @return 截至最近一个已结束窗口的累计耗时直方图副本
+     */
+    public synchronized Histogram getTotal() {
+        return total.copy();
+    }
+}
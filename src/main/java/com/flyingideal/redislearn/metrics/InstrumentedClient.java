@@ -0,0 +1,111 @@
+package com.flyingideal.redislearn.metrics;
+
+import redis.clients.jedis.Client;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.Arrays;
+
+/**
+ * 记录每条命令耗时的 {@link Client}。
+ *
+ * jedis 的所有命令最终都经过 {@link Connection#sendCommand(Protocol.Command, byte[]...)} 发送，
+ * 所有回复都经过 readProtocolWithCheckingBroken() 读取，这里在这两处打点：发送时把命令和开始时间放入 FIFO，
+ * 读到回复时取出对应的命令，因此 pipeline 和事务中的命令也能一一对应，耗时为从发送到读到回复的时间。
+ *
+ * 与 {@link Client} 一样不是线程安全的，一个连接同一时刻只被一个线程使用。
+ *
+ * @author yanchao
+ * @date 2026/10/17 17:22
+ */
+class InstrumentedClient extends Client {
+
+    private final RedisCommandMetrics metrics;
+
+    private CommandMetrics[] pendingCommands = new CommandMetrics[16];
+
+    private long[] pendingStarts = new long[16];
+
+    private int head;
+
+    private int size;
+
+    InstrumentedClient(String host, int port, RedisCommandMetrics metrics) {
+        super(host, port);
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected Connection sendCommand(Protocol.Command cmd, byte[]... args) {
+        CommandMetrics command = metrics.forCommand(cmd);
+        long start = System.nanoTime();
+        try {
+            super.sendCommand(cmd, args);
+        } catch (JedisException e) {
+            command.recordError(System.nanoTime() - start);
+            throw e;
+        }
+        command.recordRequest(RespSize.request(cmd, args));
+        enqueue(command, start);
+        return this;
+    }
+
+    @Override
+    protected Object readProtocolWithCheckingBroken() {
+        if (size == 0) {
+            // 订阅模式下服务端推送的消息没有对应的请求
+            return super.readProtocolWithCheckingBroken();
+        }
+        CommandMetrics command = pendingCommands[head];
+        long start = pendingStarts[head];
+        pendingCommands[head] = null;
+        head = (head + 1) % pendingCommands.length;
+        size--;
+        try {
+            Object reply = super.readProtocolWithCheckingBroken();
+            command.recordReply(System.nanoTime() - start, RespSize.reply(reply));
+            return reply;
+        } catch (JedisDataException e) {
+            command.recordError(System.nanoTime() - start);
+            throw e;
+        } catch (JedisConnectionException e) {
+            command.recordError(System.nanoTime() - start);
+            clearPending();
+            throw e;
+        }
+    }
+
+    @Override
+    public void disconnect() {
+        clearPending();
+        super.disconnect();
+    }
+
+    private void enqueue(CommandMetrics command, long start) {
+        if (size == pendingCommands.length) {
+            CommandMetrics[] commands = new CommandMetrics[size * 2];
+            long[] starts = new long[size * 2];
+            for (int i = 0; i < size; i++) {
+                int index = (head + i) % size;
+                commands[i] = pendingCommands[index];
+                starts[i] = pendingStarts[index];
+            }
+            pendingCommands = commands;
+            pendingStarts = starts;
+            head = 0;
+        }
+        int tail = (head + size) % pendingCommands.length;
+        pendingCommands[tail] = command;
+        pendingStarts[tail] = start;
+        size++;
+    }
+
+    private void clearPending() {
+        Arrays.fill(pendingCommands, null);
+        head = 0;
+        size = 0;
+    }
+}
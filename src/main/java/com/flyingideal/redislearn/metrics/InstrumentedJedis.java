@@ -0,0 +1,22 @@
+package com.flyingideal.redislearn.metrics;
+
+import redis.clients.jedis.Jedis;
+
+/**
+ * 把每条命令的耗时、字节数和错误数记录到 {@link RedisCommandMetrics} 的 {@link Jedis}，
+ * 用法与普通 Jedis 完全相同
+ *
+ * @author yanchao
+ * @date 2026/10/17 17:35
+ */
+public class InstrumentedJedis extends Jedis {
+
+    public InstrumentedJedis(String host, int port, int connectionTimeout, int soTimeout,
+                             RedisCommandMetrics metrics) {
+        super(host, port, connectionTimeout, soTimeout);
+        // 替换父类构造方法中创建的 Client，此时还没有建立连接
+        client = new InstrumentedClient(host, port, metrics);
+        client.setConnectionTimeout(connectionTimeout);
+        client.setSoTimeout(soTimeout);
+    }
+}
@@ -0,0 +1,80 @@
+package com.flyingideal.redislearn.metrics;
+
+import com.flyingideal.redislearn.pool.RedisConnectionProperties;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.PooledObjectFactory;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisException;
+
+/**
+ * 创建 {@link InstrumentedJedis} 的连接池工厂，其余行为与 jedis 内部的 JedisFactory 一致
+ *
+ * @author yanchao
+ * @date 2026/10/17 17:40
+ */
+public class InstrumentedJedisFactory implements PooledObjectFactory<Jedis> {
+
+    private final RedisConnectionProperties properties;
+
+    private final RedisCommandMetrics metrics;
+
+    public InstrumentedJedisFactory(RedisConnectionProperties properties, RedisCommandMetrics metrics) {
+        this.properties = properties;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public PooledObject<Jedis> makeObject() {
+        Jedis jedis = new InstrumentedJedis(properties.getHost(), properties.getPort(),
+                properties.getConnectionTimeout(), properties.getSoTimeout(), metrics);
+        try {
+            jedis.connect();
+            if (properties.getPassword() != null) {
+                jedis.auth(properties.getPassword());
+            }
+            if (properties.getDatabase() != 0) {
+                jedis.select(properties.getDatabase());
+            }
+        } catch (JedisException e) {
+            jedis.close();
+            throw e;
+        }
+        return new DefaultPooledObject<>(jedis);
+    }
+
+    @Override
+    public void destroyObject(PooledObject<Jedis> pooledJedis) {
+        Jedis jedis = pooledJedis.getObject();
+        if (jedis.isConnected()) {
+            try {
+                jedis.quit();
+            } catch (Exception e) {
+                // 连接可能已经断开，忽略
+            }
+            jedis.disconnect();
+        }
+    }
+
+    @Override
+    public boolean validateObject(PooledObject<Jedis> pooledJedis) {
+        try {
+            Jedis jedis = pooledJedis.getObject();
+            return jedis.isConnected() && "PONG".equals(jedis.ping());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void activateObject(PooledObject<Jedis> pooledJedis) {
+        Jedis jedis = pooledJedis.getObject();
+        if (jedis.getDB() != properties.getDatabase()) {
+            jedis.select(properties.getDatabase());
+        }
+    }
+
+    @Override
+    public void passivateObject(PooledObject<Jedis> pooledJedis) {
+    }
+}
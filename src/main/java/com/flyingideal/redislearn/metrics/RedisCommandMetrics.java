@@ -0,0 +1,156 @@
+package com.flyingideal.redislearn.metrics;
+
+import com.flyingideal.redislearn.pool.RedisConnectionProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Protocol;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 所有连接共享的命令统计，按命令名分别记录。
+ *
+ * 每隔 logIntervalSeconds 秒结束一个统计窗口并输出日志：调用次数、p50/p99/p999/max 耗时以及累计的错误数和字节数。
+ * 实现了 {@link MeterBinder}，注册为 Spring bean 后，如果容器中有 MeterRegistry（例如引入了 actuator），
+ * 会以 redis.commands.* 指标对外暴露，分位数取最近一个统计窗口的值。
+ *
+ * @author yanchao
+ * @date 2026/10/17 17:50
+ */
+public class RedisCommandMetrics implements MeterBinder, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisCommandMetrics.class);
+
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+
+    /**
+     * 以命令枚举的 ordinal 为下标，热路径上只有一次数组读取
+     */
+    private final AtomicReferenceArray<CommandMetrics> byCommand =
+            new AtomicReferenceArray<>(Protocol.Command.values().length);
+
+    private final List<MeterRegistry> registries = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService reporter;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * @throws IllegalArgumentException logIntervalSeconds 不是正数
+     */
+    public RedisCommandMetrics(RedisConnectionProperties.Metrics properties) {
+        long interval = properties.getLogIntervalSeconds();
+        if (interval <= 0) {
+            throw new IllegalArgumentException("redis.metrics.log-interval-seconds must be positive: " + interval
+                    + ", set redis.metrics.enabled=false to disable command metrics");
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-command-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(this::report, interval, interval, TimeUnit.SECONDS);
+    }
+
+    CommandMetrics forCommand(Protocol.Command command) {
+        CommandMetrics metrics = byCommand.get(command.ordinal());
+        if (metrics != null) {
+            return metrics;
+        }
+        CommandMetrics created = new CommandMetrics(command.name());
+        if (!byCommand.compareAndSet(command.ordinal(), null, created)) {
+            return byCommand.get(command.ordinal());
+        }
+        for (MeterRegistry registry : registries) {
+            register(created, registry);
+        }
+        return created;
+    }
+
+    /**
+     * @return 至少执行过一次的命令的统计
+     */
+    public List<CommandMetrics> getCommands() {
+        List<CommandMetrics> commands = new ArrayList<>();
+        for (int i = 0; i < byCommand.length(); i++) {
+            CommandMetrics metrics = byCommand.get(i);
+            if (metrics != null) {
+                commands.add(metrics);
+            }
+        }
+        return commands;
+    }
+
+    public CommandMetrics getCommand(Protocol.Command command) {
+        return byCommand.get(command.ordinal());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        registries.add(registry);
+        for (CommandMetrics metrics : getCommands()) {
+            register(metrics, registry);
+        }
+    }
+
+    private static void register(CommandMetrics metrics, MeterRegistry registry) {
+        String command = metrics.getCommand();
+        FunctionCounter.builder("redis.commands", metrics, CommandMetrics::getCalls)
+                .tag("command", command).register(registry);
+        FunctionCounter.builder("redis.commands.errors", metrics, CommandMetrics::getErrors)
+                .tag("command", command).register(registry);
+        FunctionCounter.builder("redis.commands.request.bytes", metrics, CommandMetrics::getRequestBytes)
+                .tag("command", command).baseUnit("bytes").register(registry);
+        FunctionCounter.builder("redis.commands.response.bytes", metrics, CommandMetrics::getResponseBytes)
+                .tag("command", command).baseUnit("bytes").register(registry);
+        for (double percentile : PERCENTILES) {
+            TimeGauge.builder("redis.commands.latency", metrics, TimeUnit.MICROSECONDS,
+                    m -> m.getLastInterval().getValueAtPercentile(percentile))
+                    .tags("command", command, "percentile", String.valueOf(percentile / 100))
+                    .register(registry);
+        }
+        TimeGauge.builder("redis.commands.latency.max", metrics, TimeUnit.MICROSECONDS,
+                m -> m.getLastInterval().getMaxValue())
+                .tag("command", command).register(registry);
+    }
+
+    /**
+     * 结束当前统计窗口并输出每个命令的统计
+     */
+    public void report() {
+        for (CommandMetrics metrics : getCommands()) {
+            Histogram interval = metrics.roll();
+            if (interval.getTotalCount() == 0) {
+                continue;
+            }
+            logger.info("redis {} calls={} p50={}us p99={}us p999={}us max={}us errorsTotal={} requestBytesTotal={} responseBytesTotal={}",
+                    metrics.getCommand(), interval.getTotalCount(), interval.getValueAtPercentile(50),
+                    interval.getValueAtPercentile(99), interval.getValueAtPercentile(99.9), interval.getMaxValue(),
+                    metrics.getErrors(), metrics.getRequestBytes(), metrics.getResponseBytes());
+        }
+    }
+
+    /**
+     * 停止定时输出，并输出最后一个窗口的统计
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            reporter.shutdownNow();
+            report();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.flyingideal.redislearn.metrics;
+
+import redis.clients.jedis.Protocol;
+
+import java.util.List;
+
+/**
+ * 按 RESP 编码计算请求和响应的字节数，不需要包装 socket 的输入输出流。
+ *
+ * 响应由 {@link Protocol#read} 解析后已无法区分 status reply 和 bulk reply，统一按 bulk reply 计算，
+ * 对 "+OK" 这类短回复会多算几个字节。
+ *
+ * @author yanchao
+ * @date 2026/10/17 17:16
+ */
+final class RespSize {
+
+    private static final int CRLF = 2;
+
+    private RespSize() {
+    }
+
+    static long request(Protocol.Command command, byte[]... args) {
+        long size = 1 + digits(args.length + 1) + CRLF + bulk(command.raw.length);
+        for (byte[] arg : args) {
+            size += bulk(arg.length);
+        }
+        return size;
+    }
+
+    static long reply(Object reply) {
+        if (reply == null) {
+            // $-1\r\n
+            return 5;
+        }
+        if (reply instanceof byte[]) {
+            return bulk(((byte[]) reply).length);
+        }
+        if (reply instanceof Long) {
+            return 1 + digits((Long) reply) + CRLF;
+        }
+        if (reply instanceof List) {
+            List<?> list = (List<?>) reply;
+            long size = 1 + digits(list.size()) + CRLF;
+            for (Object item : list) {
+                size += reply(item);
+            }
+            return size;
+        }
+        return 0;
+    }
+
+    private static long bulk(int length) {
+        return 1 + digits(length) + CRLF + length + CRLF;
+    }
+
+    private static int digits(long value) {
+        int digits = value < 0 ? 2 : 1;
+        long abs = Math.abs(value);
+        while (abs >= 10) {
+            abs /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
@@ -0,0 +1,355 @@
+package com.flyingideal.redislearn.pipeline;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import com.flyingideal.redislearn.pool.RedisConnectionProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 自动 pipeline 客户端：多个调用线程提交的单 key 命令先进入队列，由后台 flush 线程合并成一个
+ * {@link Pipeline} 发送，N 条命令只需要大约一次网络往返。
+ *
+ * 凑满 batchSize 条命令，或者收到第一条命令后等待 lingerMicros 微秒，两个条件先满足的一个触发发送。
+ * 每条命令返回自己的 {@link CompletableFuture}，redis 返回错误时该 future 以
+ * {@link JedisDataException} 异常结束，不影响同批次的其他命令；
+ * 连接异常时同批次的所有命令都以该异常结束。
+ *
+ * 每个 flush 线程有自己的队列，命令按 key 的哈希值进入其中一个：同一个 key 上的命令总是由同一个线程、
+ * 按提交的顺序发送，因此先 SET 再 GET / INCR 同一个 key 与直接执行的结果相同；不同 key 的命令可以在不同线程上并行发送。
+ * flushThreads 为 1 时所有命令按提交顺序执行。
+ *
+ * 注意 future 在 flush 线程上完成，thenApply 等回调中不要执行阻塞操作。
+ *
+ * @author yanchao
+ * @date 2026/10/17 16:30
+ */
+public class AutoPipeliningClient implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutoPipeliningClient.class);
+
+    /**
+     * 队列为空时 flush 线程的等待时间，也是关闭时检查 running 的周期
+     */
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final JedisConnectionProvider provider;
+
+    private final int batchSize;
+
+    private final long lingerNanos;
+
+    /**
+     * 每个 flush 线程一个队列
+     */
+    private final List<BlockingQueue<PendingCommand<?>>> queues = new ArrayList<>();
+
+    private final List<Thread> flushers = new ArrayList<>();
+
+    private final LongAdder flushCount = new LongAdder();
+
+    private final LongAdder commandCount = new LongAdder();
+
+    private volatile boolean running = true;
+
+    /**
+     * flush 线程都已退出，之后进入队列的命令不会再被发送
+     */
+    private volatile boolean terminated;
+
+    public AutoPipeliningClient(JedisConnectionProvider provider) {
+        this(provider, provider.getProperties().getAutoPipelining());
+    }
+
+    public AutoPipeliningClient(JedisConnectionProvider provider, RedisConnectionProperties.AutoPipelining config) {
+        if (config.getBatchSize() < 1 || config.getFlushThreads() < 1 || config.getLingerMicros() < 0) {
+            throw new IllegalArgumentException("batchSize and flushThreads must be positive, lingerMicros must not be negative");
+        }
+        this.provider = provider;
+        this.batchSize = config.getBatchSize();
+        this.lingerNanos = TimeUnit.MICROSECONDS.toNanos(config.getLingerMicros());
+        int threads = config.getFlushThreads();
+        for (int i = 0; i < threads; i++) {
+            BlockingQueue<PendingCommand<?>> queue = new LinkedBlockingQueue<>(Math.max(1, config.getMaxPending() / threads));
+            queues.add(queue);
+            Thread flusher = new Thread(() -> flushLoop(queue), "redis-auto-pipeline-" + i);
+            flusher.setDaemon(true);
+            flusher.start();
+            flushers.add(flusher);
+        }
+    }
+
+    /**
+     * 提交任意一条单 key 的 pipeline 命令，例如 {@code submit("person", p -> p.hget("person", "name"))}
+     *
+     * @param key 命令访问的 key，同一个 key 上的命令按提交顺序执行
+     */
+    public <T> CompletableFuture<T> submit(String key, Function<Pipeline, Response<T>> command) {
+        if (!running) {
+            throw new IllegalStateException("auto pipelining client is closed");
+        }
+        PendingCommand<T> pending = new PendingCommand<>(command);
+        BlockingQueue<PendingCommand<?>> queue = queues.get(key == null ? 0 : (key.hashCode() & Integer.MAX_VALUE) % queues.size());
+        try {
+            while (!queue.offer(pending, IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (terminated) {
+                    pending.future.completeExceptionally(closedException());
+                    return pending.future;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.future.completeExceptionally(e);
+            return pending.future;
+        }
+        // 与 close 并发时，命令可能在 flush 线程退出之后才进入队列：close 先设置 terminated 再清空队列，
+        // 因此这里要么看到 terminated，要么命令已被 close 清空并以异常结束
+        if (terminated && queue.remove(pending)) {
+            pending.future.completeExceptionally(closedException());
+        }
+        return pending.future;
+    }
+
+    public CompletableFuture<String> set(String key, String value) {
+        return submit(key, p -> p.set(key, value));
+    }
+
+    /**
+     * @param nxxx NX|XX
+     */
+    public CompletableFuture<String> set(String key, String value, String nxxx) {
+        return submit(key, p -> p.set(key, value, nxxx));
+    }
+
+    /**
+     * @param nxxx NX|XX
+     * @param expx EX|PX
+     */
+    public CompletableFuture<String> set(String key, String value, String nxxx, String expx, int time) {
+        return submit(key, p -> p.set(key, value, nxxx, expx, time));
+    }
+
+    public CompletableFuture<String> get(String key) {
+        return submit(key, p -> p.get(key));
+    }
+
+    public CompletableFuture<String> getSet(String key, String value) {
+        return submit(key, p -> p.getSet(key, value));
+    }
+
+    public CompletableFuture<Long> setnx(String key, String value) {
+        return submit(key, p -> p.setnx(key, value));
+    }
+
+    public CompletableFuture<String> setex(String key, int seconds, String value) {
+        return submit(key, p -> p.setex(key, seconds, value));
+    }
+
+    public CompletableFuture<String> psetex(String key, long milliseconds, String value) {
+        return submit(key, p -> p.psetex(key, milliseconds, value));
+    }
+
+    public CompletableFuture<Long> incr(String key) {
+        return submit(key, p -> p.incr(key));
+    }
+
+    public CompletableFuture<Long> incrBy(String key, long increment) {
+        return submit(key, p -> p.incrBy(key, increment));
+    }
+
+    public CompletableFuture<Long> decr(String key) {
+        return submit(key, p -> p.decr(key));
+    }
+
+    public CompletableFuture<Long> decrBy(String key, long decrement) {
+        return submit(key, p -> p.decrBy(key, decrement));
+    }
+
+    public CompletableFuture<Long> append(String key, String value) {
+        return submit(key, p -> p.append(key, value));
+    }
+
+    public CompletableFuture<Long> strlen(String key) {
+        return submit(key, p -> p.strlen(key));
+    }
+
+    public CompletableFuture<String> getrange(String key, long startOffset, long endOffset) {
+        return submit(key, p -> p.getrange(key, startOffset, endOffset));
+    }
+
+    public CompletableFuture<Long> expire(String key, int seconds) {
+        return submit(key, p -> p.expire(key, seconds));
+    }
+
+    public CompletableFuture<Long> pexpire(String key, long milliseconds) {
+        return submit(key, p -> p.pexpire(key, milliseconds));
+    }
+
+    public CompletableFuture<Long> persist(String key) {
+        return submit(key, p -> p.persist(key));
+    }
+
+    public CompletableFuture<Long> ttl(String key) {
+        return submit(key, p -> p.ttl(key));
+    }
+
+    public CompletableFuture<Long> del(String key) {
+        return submit(key, p -> p.del(key));
+    }
+
+    public CompletableFuture<Boolean> exists(String key) {
+        return submit(key, p -> p.exists(key));
+    }
+
+    public CompletableFuture<String> type(String key) {
+        return submit(key, p -> p.type(key));
+    }
+
+    /**
+     * @return 已发送的 pipeline 数
+     */
+    public long getFlushCount() {
+        return flushCount.sum();
+    }
+
+    /**
+     * @return 已发送的命令数
+     */
+    public long getCommandCount() {
+        return commandCount.sum();
+    }
+
+    /**
+     * 停止接收新命令，等待队列中已提交的命令发送完毕；与 close 并发提交、没有被发送的命令以 {@link IllegalStateException} 结束
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Thread flusher : flushers) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        terminated = true;
+        List<PendingCommand<?>> abandoned = new ArrayList<>();
+        for (BlockingQueue<PendingCommand<?>> queue : queues) {
+            queue.drainTo(abandoned);
+        }
+        for (PendingCommand<?> pending : abandoned) {
+            pending.future.completeExceptionally(closedException());
+        }
+        logger.info("auto pipelining client closed, {} commands in {} pipelines", getCommandCount(), getFlushCount());
+    }
+
+    private static IllegalStateException closedException() {
+        return new IllegalStateException("auto pipelining client is closed");
+    }
+
+    private void flushLoop(BlockingQueue<PendingCommand<?>> queue) {
+        List<PendingCommand<?>> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingCommand<?> first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - batch.size());
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingCommand<?> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 任何异常都只结束这一批命令的 future，不会让 flush 线程退出
+     */
+    private void flush(List<PendingCommand<?>> batch) {
+        try (Jedis jedis = provider.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (PendingCommand<?> pending : batch) {
+                pending.enqueue(pipeline);
+            }
+            pipeline.sync();
+        } catch (RuntimeException e) {
+            if (e instanceof JedisException) {
+                logger.warn("auto pipeline flush of {} commands failed: {}", batch.size(), e.getMessage());
+            } else {
+                logger.error("auto pipeline flush of {} commands failed", batch.size(), e);
+            }
+            for (PendingCommand<?> pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+            return;
+        }
+        flushCount.increment();
+        commandCount.add(batch.size());
+        for (PendingCommand<?> pending : batch) {
+            pending.complete();
+        }
+    }
+
+    private static final class PendingCommand<T> {
+
+        final Function<Pipeline, Response<T>> command;
+
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Response<T> response;
+
+        PendingCommand(Function<Pipeline, Response<T>> command) {
+            this.command = command;
+        }
+
+        /**
+         * 参数非法（例如 key 为 null）或命令的 lambda 抛出异常时，命令不会写入 pipeline，直接以异常结束
+         */
+        void enqueue(Pipeline pipeline) {
+            try {
+                response = command.apply(pipeline);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        void complete() {
+            if (response == null) {
+                return;
+            }
+            try {
+                future.complete(response.get());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.flyingideal.redislearn.pool;
+
+import com.flyingideal.redislearn.metrics.InstrumentedJedisFactory;
+import com.flyingideal.redislearn.metrics.RedisCommandMetrics;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 基于 {@link JedisPool} 的连接提供者，多个线程共享同一批 socket，避免每次操作都重新建立 TCP 连接。
+ *
+ * 通过 {@link #getResource()} 借出的 Jedis 在 close() 时会归还到连接池而不是断开连接。
+ * redis.metrics.enabled 为 true 时，连接池中的连接是 {@link com.flyingideal.redislearn.metrics.InstrumentedJedis}，
+ * 每条命令的耗时记录在 {@link #getCommandMetrics()} 中。
+ *
+ * 实现了 {@link MeterBinder}，连接池的活跃/空闲连接数、等待线程数和借连接耗时以 redis.pool.* 指标对外暴露。
+ *
+ * @author yanchao
+ * @date 2026/10/17 10:20
+ */
+public class JedisConnectionProvider implements MeterBinder, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(JedisConnectionProvider.class);
+
+    private final RedisConnectionProperties properties;
+
+    private final JedisPool pool;
+
+    private final RedisCommandMetrics commandMetrics;
+
+    private final LongAdder borrowCount = new LongAdder();
+
+    private final LongAdder borrowWaitNanos = new LongAdder();
+
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+
+    public JedisConnectionProvider(RedisConnectionProperties properties) {
+        this.properties = properties;
+        JedisPoolConfig poolConfig = buildPoolConfig(properties.getPool());
+        this.pool = new JedisPool(poolConfig, properties.getHost(), properties.getPort(),
+                properties.getConnectionTimeout(), properties.getSoTimeout(), properties.getPassword(),
+                properties.getDatabase(), null, false, null, null, null);
+        if (properties.getMetrics().isEnabled()) {
+            this.commandMetrics = new RedisCommandMetrics(properties.getMetrics());
+            // JedisPool 没有接收 PooledObjectFactory 的构造方法，用 initPool 把默认的工厂替换为带统计的工厂，
+            // 此时还没有建立任何连接
+            pool.initPool(poolConfig, new InstrumentedJedisFactory(properties, commandMetrics));
+        } else {
+            this.commandMetrics = null;
+        }
+    }
+
+    /**
+     * 按 redis.pool.* 配置创建连接池参数，集群客户端的各节点连接池也使用这份配置
+     */
+    public static JedisPoolConfig buildPoolConfig(RedisConnectionProperties.Pool pool) {
+        JedisPoolConfig config = new JedisPoolConfig();
+        config.setMaxTotal(pool.getMaxTotal());
+        config.setMaxIdle(pool.getMaxIdle());
+        config.setMinIdle(pool.getMinIdle());
+        config.setMaxWaitMillis(pool.getMaxWaitMillis());
+        config.setTestOnBorrow(pool.isTestOnBorrow());
+        config.setTestWhileIdle(pool.isTestWhileIdle());
+        return config;
+    }
+
+    /**
+     * 从连接池借一个连接，使用完毕后必须调用 {@link Jedis#close()} 归还
+     */
+    public Jedis getResource() {
+        long start = System.nanoTime();
+        Jedis jedis = pool.getResource();
+        long wait = System.nanoTime() - start;
+        borrowCount.increment();
+        borrowWaitNanos.add(wait);
+        long max;
+        while (wait > (max = maxBorrowWaitNanos.get()) && !maxBorrowWaitNanos.compareAndSet(max, wait)) {
+            // retry
+        }
+        return jedis;
+    }
+
+    /**
+     * 借一个连接执行 callback，执行完毕后自动归还
+     */
+    public <T> T execute(Function<Jedis, T> callback) {
+        try (Jedis jedis = getResource()) {
+            return callback.apply(jedis);
+        }
+    }
+
+    /**
+     * 预热：提前建立 minIdle 个连接放入连接池，失败时只记录日志，不影响应用启动
+     *
+     * @return 预热完成后连接池中的空闲连接数
+     */
+    public int prewarm() {
+        int minIdle = properties.getPool().getMinIdle();
+        long start = System.nanoTime();
+        try {
+            pool.addObjects(minIdle);
+            logger.info("redis pool prewarmed {} connections to {}:{} in {} ms", pool.getNumIdle(),
+                    properties.getHost(), properties.getPort(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (JedisException e) {
+            logger.warn("redis pool prewarm to {}:{} failed, connections will be created lazily: {}",
+                    properties.getHost(), properties.getPort(), e.getMessage());
+        }
+        return pool.getNumIdle();
+    }
+
+    public PoolStats getStats() {
+        long count = borrowCount.sum();
+        return new PoolStats(pool.getNumActive(), pool.getNumIdle(), pool.getNumWaiters(), count,
+                count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(borrowWaitNanos.sum() / count),
+                TimeUnit.NANOSECONDS.toMicros(maxBorrowWaitNanos.get()));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        String address = properties.getHost() + ":" + properties.getPort();
+        Gauge.builder("redis.pool.active", pool, JedisPool::getNumActive).tag("address", address).register(registry);
+        Gauge.builder("redis.pool.idle", pool, JedisPool::getNumIdle).tag("address", address).register(registry);
+        Gauge.builder("redis.pool.waiters", pool, JedisPool::getNumWaiters).tag("address", address)
+                .register(registry);
+        FunctionTimer.builder("redis.pool.borrow.wait", this, p -> p.borrowCount.sum(),
+                p -> p.borrowWaitNanos.sum(), TimeUnit.NANOSECONDS)
+                .tag("address", address).register(registry);
+        TimeGauge.builder("redis.pool.borrow.wait.max", maxBorrowWaitNanos, TimeUnit.NANOSECONDS, AtomicLong::get)
+                .tag("address", address).register(registry);
+    }
+
+    /**
+     * @return 命令统计，redis.metrics.enabled 为 false 时返回 null
+     */
+    public RedisCommandMetrics getCommandMetrics() {
+        return commandMetrics;
+    }
+
+    public RedisConnectionProperties getProperties() {
+        return properties;
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+        if (commandMetrics != null) {
+            commandMetrics.close();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.flyingideal.redislearn.pool;
+
+/**
+ * 连接池某一时刻的快照：活跃/空闲连接数、等待借连接的线程数以及借连接的等待耗时
+ *
+ * @author yanchao
+ * @date 2026/10/17 10:31
+ */
+public class PoolStats {
+
+    private final int active;
+
+    private final int idle;
+
+    private final int waiters;
+
+    private final long borrowCount;
+
+    private final long meanBorrowWaitMicros;
+
+    private final long maxBorrowWaitMicros;
+
+    public PoolStats(int active, int idle, int waiters, long borrowCount,
+                     long meanBorrowWaitMicros, long maxBorrowWaitMicros) {
+        this.active = active;
+        this.idle = idle;
+        this.waiters = waiters;
+        this.borrowCount = borrowCount;
+        this.meanBorrowWaitMicros = meanBorrowWaitMicros;
+        this.maxBorrowWaitMicros = maxBorrowWaitMicros;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getWaiters() {
+        return waiters;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public long getMeanBorrowWaitMicros() {
+        return meanBorrowWaitMicros;
+    }
+
+    public long getMaxBorrowWaitMicros() {
+        return maxBorrowWaitMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats{active=" + active + ", idle=" + idle + ", waiters=" + waiters
+                + ", borrowCount=" + borrowCount + ", meanBorrowWaitMicros=" + meanBorrowWaitMicros
+                + ", maxBorrowWaitMicros=" + maxBorrowWaitMicros + '}';
+    }
+}
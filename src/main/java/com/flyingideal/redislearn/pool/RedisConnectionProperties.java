@@ -0,0 +1,321 @@
+package com.flyingideal.redislearn.pool;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedisServer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import redis.clients.jedis.Protocol;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+
+/**
+ * redis 连接及连接池配置，对应 application.properties 中 redis.* 前缀的配置项
+ *
+ * @author yanchao
+ * @date 2026/10/17 10:12
+ */
+@ConfigurationProperties(prefix = "redis")
+public class RedisConnectionProperties {
+
+    private String host = Protocol.DEFAULT_HOST;
+
+    private int port = Protocol.DEFAULT_PORT;
+
+    private String password;
+
+    private int database = Protocol.DEFAULT_DATABASE;
+
+    /**
+     * 建立 socket 连接的超时时间，单位毫秒
+     */
+    private int connectionTimeout = Protocol.DEFAULT_TIMEOUT;
+
+    /**
+     * socket 读超时时间，单位毫秒
+     */
+    private int soTimeout = Protocol.DEFAULT_TIMEOUT;
+
+    /**
+     * 为 true 时不连接 host:port，而是在本进程内启动 {@link EmbeddedRedisServer} 并连接它的随机端口
+     */
+    private boolean embedded = false;
+
+    private final Pool pool = new Pool();
+
+    private final AutoPipelining autoPipelining = new AutoPipelining();
+
+    private final Metrics metrics = new Metrics();
+
+    /**
+     * 不依赖 Spring 容器，直接从 classpath 下的 application.properties 读取配置，
+     * 供 {@link com.flyingideal.redislearn.jedis.BaseTest} 这类普通 JUnit 测试使用
+     */
+    public static RedisConnectionProperties fromApplicationProperties() {
+        Properties properties;
+        try {
+            properties = PropertiesLoaderUtils.loadAllProperties("application.properties");
+        } catch (IOException e) {
+            throw new UncheckedIOException("load application.properties failed", e);
+        }
+        return new Binder(new MapConfigurationPropertySource(properties))
+                .bind("redis", RedisConnectionProperties.class)
+                .orElseGet(RedisConnectionProperties::new);
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public int getDatabase() {
+        return database;
+    }
+
+    public void setDatabase(int database) {
+        this.database = database;
+    }
+
+    public int getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    public void setConnectionTimeout(int connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    public int getSoTimeout() {
+        return soTimeout;
+    }
+
+    public void setSoTimeout(int soTimeout) {
+        this.soTimeout = soTimeout;
+    }
+
+    public boolean isEmbedded() {
+        return embedded;
+    }
+
+    public void setEmbedded(boolean embedded) {
+        this.embedded = embedded;
+    }
+
+    /**
+     * 把连接配置指向进程内的 redis：使用它的地址和端口，不设密码，使用 0 号库
+     */
+    public void useEmbeddedServer(EmbeddedRedisServer server) {
+        this.host = server.getHost();
+        this.port = server.getPort();
+        this.password = null;
+        this.database = 0;
+    }
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public AutoPipelining getAutoPipelining() {
+        return autoPipelining;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public static class Pool {
+
+        /**
+         * 连接池最大连接数
+         */
+        private int maxTotal = 16;
+
+        private int maxIdle = 16;
+
+        /**
+         * 最小空闲连接数，同时也是启动预热时建立的连接数
+         */
+        private int minIdle = 4;
+
+        /**
+         * 连接池耗尽时借连接的最大等待时间，单位毫秒，-1 表示一直等待
+         */
+        private long maxWaitMillis = 2000;
+
+        private boolean testOnBorrow = false;
+
+        private boolean testWhileIdle = true;
+
+        /**
+         * 启动时是否预热连接
+         */
+        private boolean prewarm = true;
+
+        public int getMaxTotal() {
+            return maxTotal;
+        }
+
+        public void setMaxTotal(int maxTotal) {
+            this.maxTotal = maxTotal;
+        }
+
+        public int getMaxIdle() {
+            return maxIdle;
+        }
+
+        public void setMaxIdle(int maxIdle) {
+            this.maxIdle = maxIdle;
+        }
+
+        public int getMinIdle() {
+            return minIdle;
+        }
+
+        public void setMinIdle(int minIdle) {
+            this.minIdle = minIdle;
+        }
+
+        public long getMaxWaitMillis() {
+            return maxWaitMillis;
+        }
+
+        public void setMaxWaitMillis(long maxWaitMillis) {
+            this.maxWaitMillis = maxWaitMillis;
+        }
+
+        public boolean isTestOnBorrow() {
+            return testOnBorrow;
+        }
+
+        public void setTestOnBorrow(boolean testOnBorrow) {
+            this.testOnBorrow = testOnBorrow;
+        }
+
+        public boolean isTestWhileIdle() {
+            return testWhileIdle;
+        }
+
+        public void setTestWhileIdle(boolean testWhileIdle) {
+            this.testWhileIdle = testWhileIdle;
+        }
+
+        public boolean isPrewarm() {
+            return prewarm;
+        }
+
+        public void setPrewarm(boolean prewarm) {
+            this.prewarm = prewarm;
+        }
+    }
+
+    /**
+     * {@link com.flyingideal.redislearn.pipeline.AutoPipeliningClient} 的配置
+     */
+    public static class AutoPipelining {
+
+        /**
+         * 单个 pipeline 最多合并的命令数，达到后立即发送
+         */
+        private int batchSize = 128;
+
+        /**
+         * 收到第一条命令后最多再等待多久凑批，单位微秒，0 表示不等待
+         */
+        private long lingerMicros = 100;
+
+        /**
+         * 并行发送 pipeline 的线程数，每个线程同一时刻占用一个连接；命令按 key 分配到线程，同一个 key 上的命令保持提交顺序
+         */
+        private int flushThreads = 2;
+
+        /**
+         * 排队等待发送的命令上限，平均分给各个 flush 线程，超过后调用线程阻塞
+         */
+        private int maxPending = 16384;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getLingerMicros() {
+            return lingerMicros;
+        }
+
+        public void setLingerMicros(long lingerMicros) {
+            this.lingerMicros = lingerMicros;
+        }
+
+        public int getFlushThreads() {
+            return flushThreads;
+        }
+
+        public void setFlushThreads(int flushThreads) {
+            this.flushThreads = flushThreads;
+        }
+
+        public int getMaxPending() {
+            return maxPending;
+        }
+
+        public void setMaxPending(int maxPending) {
+            this.maxPending = maxPending;
+        }
+    }
+
+    /**
+     * 命令级别耗时统计，见 {@link com.flyingideal.redislearn.metrics.RedisCommandMetrics}
+     */
+    public static class Metrics {
+
+        /**
+         * 是否为连接池中的连接记录每条命令的耗时、字节数和错误数
+         */
+        private boolean enabled = true;
+
+        /**
+         * 滚动统计窗口并输出日志的周期，单位秒，Micrometer 中的分位数也按这个周期更新。
+         * 必须为正数，不需要统计时把 enabled 设为 false
+         */
+        private long logIntervalSeconds = 60;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getLogIntervalSeconds() {
+            return logIntervalSeconds;
+        }
+
+        public void setLogIntervalSeconds(long logIntervalSeconds) {
+            this.logIntervalSeconds = logIntervalSeconds;
+        }
+    }
+}
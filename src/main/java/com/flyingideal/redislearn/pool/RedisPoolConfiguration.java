@@ -0,0 +1,61 @@
+package com.flyingideal.redislearn.pool;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedisServer;
+import com.flyingideal.redislearn.metrics.RedisCommandMetrics;
+import com.flyingideal.redislearn.pipeline.AutoPipeliningClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 注册连接池、命令统计及自动 pipeline 客户端，并在应用启动完成后预热连接；redis.embedded=true 时先启动进程内 redis
+ *
+ * @author yanchao
+ * @date 2026/10/17 10:40
+ */
+@Configuration
+@EnableConfigurationProperties(RedisConnectionProperties.class)
+public class RedisPoolConfiguration {
+
+    /**
+     * 启动后把连接配置改为指向它的随机端口，与 {@link com.flyingideal.redislearn.jedis.BaseTest} 的处理相同
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "redis", name = "embedded", havingValue = "true")
+    public EmbeddedRedisServer embeddedRedisServer(RedisConnectionProperties properties) {
+        EmbeddedRedisServer server = new EmbeddedRedisServer().start();
+        properties.useEmbeddedServer(server);
+        return server;
+    }
+
+    @Bean(destroyMethod = "close")
+    public JedisConnectionProvider jedisConnectionProvider(RedisConnectionProperties properties,
+                                                           ObjectProvider<EmbeddedRedisServer> embeddedServer) {
+        // 内嵌 redis 会改写连接配置，必须在创建连接池之前启动
+        embeddedServer.getIfAvailable();
+        return new JedisConnectionProvider(properties);
+    }
+
+    /**
+     * 由连接提供者创建和关闭；容器中有 MeterRegistry 时以 redis.commands.* 指标暴露
+     */
+    @Bean(destroyMethod = "")
+    @ConditionalOnProperty(prefix = "redis.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public RedisCommandMetrics redisCommandMetrics(JedisConnectionProvider provider) {
+        return provider.getCommandMetrics();
+    }
+
+    @Bean(destroyMethod = "close")
+    public AutoPipeliningClient autoPipeliningClient(JedisConnectionProvider provider) {
+        return new AutoPipeliningClient(provider);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "redis.pool", name = "prewarm", havingValue = "true", matchIfMissing = true)
+    public ApplicationRunner redisPoolPrewarmer(JedisConnectionProvider provider) {
+        return args -> provider.prewarm();
+    }
+}
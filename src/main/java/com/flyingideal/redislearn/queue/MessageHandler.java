@@ -0,0 +1,13 @@
+package com.flyingideal.redislearn.queue;
+
+/**
+ * 消息处理逻辑，正常返回即确认消息，抛出异常则重新投递或进入死信队列
+ *
+ * @author yanchao
+ * @date 2026/10/17 20:38
+ */
+@FunctionalInterface
+public interface MessageHandler {
+
+    void handle(QueueMessage message) throws Exception;
+}
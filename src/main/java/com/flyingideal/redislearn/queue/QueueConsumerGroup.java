@@ -0,0 +1,188 @@
+package com.flyingideal.redislearn.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一组消费线程及一个 reaper。
+ *
+ * reaper 每隔 visibilityTimeout / 2 检查所有登记的 worker，心跳已经过期的 worker 被认为已经死亡，
+ * 把它处理中的消息逐条放回队列并增加投递次数，反复导致 worker 崩溃的消息最终进入死信队列。
+ * 多个进程中的 reaper 可以同时运行，每条消息只会被其中一个移动。
+ *
+ * @author yanchao
+ * @date 2026/10/17 21:15
+ */
+public class QueueConsumerGroup implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueueConsumerGroup.class);
+
+    private final ReliableQueue queue;
+
+    private final List<QueueWorker> workers = new ArrayList<>();
+
+    private final List<Thread> threads = new ArrayList<>();
+
+    private final ScheduledExecutorService reaper;
+
+    /**
+     * reaper 也像 worker 一样登记并维持心跳，它认领的消息放在自己的处理中列表里
+     */
+    private final String reaperId;
+
+    private final String reaperProcessingKey;
+
+    QueueConsumerGroup(ReliableQueue queue, int workerCount, MessageHandler handler) {
+        this.queue = queue;
+        // pid@hostname 加随机后缀，进程重启后不会复用旧的 worker id
+        String prefix = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        for (int i = 0; i < workerCount; i++) {
+            QueueWorker worker = new QueueWorker(queue, handler, prefix + "-" + i);
+            Thread thread = new Thread(worker, "queue-" + queue.getName() + "-worker-" + i);
+            thread.setDaemon(true);
+            workers.add(worker);
+            threads.add(thread);
+            thread.start();
+        }
+        reaperId = prefix + "-reaper";
+        reaperProcessingKey = queue.processingKey(reaperId);
+        reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "queue-" + queue.getName() + "-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = queue.options().getVisibilityTimeoutMillis() / 2;
+        reaper.scheduleWithFixedDelay(this::reapQuietly, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 把心跳已过期的 worker 处理中的消息放回队列，投递次数加一，超过最大次数的放入死信队列
+     *
+     * @return 放回队列或放入死信队列的消息数
+     */
+    public synchronized long reap() {
+        try (Jedis jedis = queue.provider().getResource()) {
+            Pipeline heartbeat = jedis.pipelined();
+            heartbeat.psetex(queue.heartbeatKey(reaperId), queue.options().getVisibilityTimeoutMillis(), reaperId);
+            heartbeat.sadd(queue.workersKey(), reaperId);
+            heartbeat.sync();
+            // 上一次中途失败时留在 reaper 自己列表中的消息
+            long moved = requeue(jedis, reaperProcessingKey);
+            Set<String> registered = jedis.smembers(queue.workersKey());
+            registered.remove(reaperId);
+            if (registered.isEmpty()) {
+                queue.recordReaped(moved);
+                return moved;
+            }
+            List<String> ids = new ArrayList<>(registered);
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Boolean>> alive = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                alive.add(pipeline.exists(queue.heartbeatKey(id)));
+            }
+            pipeline.sync();
+            for (int i = 0; i < ids.size(); i++) {
+                if (alive.get(i).get()) {
+                    continue;
+                }
+                long count = requeue(jedis, queue.processingKey(ids.get(i)));
+                jedis.srem(queue.workersKey(), ids.get(i));
+                if (count > 0) {
+                    logger.warn("queue {} re-queued {} messages of dead worker {}", queue.getName(), count, ids.get(i));
+                }
+                moved += count;
+            }
+            queue.recordReaped(moved);
+            return moved;
+        }
+    }
+
+    /**
+     * 逐条用 RPOPLPUSH 把消息认领到 reaper 自己的处理中列表，再在一个 MULTI 中写入新的投递并从自己的列表删除。
+     * 多个 reaper 同时处理同一个 worker 时每条消息只会被一个认领；reaper 中途崩溃时，
+     * 认领的消息留在它自己的列表中，它的心跳过期后由其他 reaper 放回队列
+     */
+    private long requeue(Jedis jedis, String processingKey) {
+        int maxAttempts = queue.options().getMaxAttempts();
+        long count = 0;
+        String raw;
+        while ((raw = jedis.rpoplpush(processingKey, reaperProcessingKey)) != null) {
+            QueueMessage message = QueueMessage.decode(raw);
+            boolean retry = message.getAttempt() < maxAttempts;
+            Transaction transaction = jedis.multi();
+            if (retry) {
+                transaction.lpush(queue.getName(), message.nextAttempt().raw());
+            } else {
+                transaction.lpush(queue.deadLetterKey(), raw);
+            }
+            transaction.lrem(reaperProcessingKey, -1, raw);
+            transaction.exec();
+            if (!retry) {
+                queue.recordDeadLettered();
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private synchronized void unregisterReaper() {
+        try (Jedis jedis = queue.provider().getResource()) {
+            if (jedis.llen(reaperProcessingKey) == 0) {
+                jedis.srem(queue.workersKey(), reaperId);
+                jedis.del(queue.heartbeatKey(reaperId), reaperProcessingKey);
+            }
+        }
+    }
+
+    private void reapQuietly() {
+        try {
+            reap();
+        } catch (JedisException e) {
+            logger.warn("queue {} reaper failed: {}", queue.getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * 停止消费，确认已处理的消息后返回
+     */
+    @Override
+    public void close() {
+        reaper.shutdownNow();
+        try {
+            reaper.awaitTermination(queue.options().getVisibilityTimeoutMillis(), TimeUnit.MILLISECONDS);
+            unregisterReaper();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (JedisException e) {
+            logger.warn("queue {} reaper {} not unregistered: {}", queue.getName(), reaperId, e.getMessage());
+        }
+        for (QueueWorker worker : workers) {
+            worker.stop();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        logger.info("queue {} consumers stopped, {}", queue.getName(), queue.getStats());
+    }
+}
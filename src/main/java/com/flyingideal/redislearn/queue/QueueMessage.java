@@ -0,0 +1,99 @@
+package com.flyingideal.redislearn.queue;
+
+/**
+ * 队列中的一条消息。
+ *
+ * 在 redis 中编码为 "id|attempt|enqueuedAt|payload"：LREM 按值确认消息，id 保证相同 payload 的消息互不影响；
+ * attempt 为投递次数，enqueuedAt 用于统计端到端延迟。
+ *
+ * @author yanchao
+ * @date 2026/10/17 20:30
+ */
+public class QueueMessage {
+
+    private static final char SEPARATOR = '|';
+
+    private final String id;
+
+    private final int attempt;
+
+    private final long enqueuedAt;
+
+    private final String payload;
+
+    /**
+     * redis 中的原始值，确认消息时按这个值 LREM
+     */
+    private final String raw;
+
+    QueueMessage(String id, int attempt, long enqueuedAt, String payload) {
+        this.id = id;
+        this.attempt = attempt;
+        this.enqueuedAt = enqueuedAt;
+        this.payload = payload;
+        this.raw = id + SEPARATOR + attempt + SEPARATOR + enqueuedAt + SEPARATOR + payload;
+    }
+
+    private QueueMessage(String raw, String id, int attempt, long enqueuedAt, String payload) {
+        this.id = id;
+        this.attempt = attempt;
+        this.enqueuedAt = enqueuedAt;
+        this.payload = payload;
+        this.raw = raw;
+    }
+
+    static QueueMessage decode(String raw) {
+        int first = raw.indexOf(SEPARATOR);
+        int second = raw.indexOf(SEPARATOR, first + 1);
+        int third = raw.indexOf(SEPARATOR, second + 1);
+        if (first < 0 || second < 0 || third < 0) {
+            // 不是由 ReliableQueue 写入的值，整体作为 payload
+            return new QueueMessage(raw, raw, 1, 0, raw);
+        }
+        try {
+            return new QueueMessage(raw, raw.substring(0, first),
+                    Integer.parseInt(raw.substring(first + 1, second)),
+                    Long.parseLong(raw.substring(second + 1, third)), raw.substring(third + 1));
+        } catch (NumberFormatException e) {
+            return new QueueMessage(raw, raw, 1, 0, raw);
+        }
+    }
+
+    /**
+     * @return 重新投递时使用的消息，投递次数加一，id 和入队时间不变
+     */
+    QueueMessage nextAttempt() {
+        return new QueueMessage(id, attempt + 1, enqueuedAt, payload);
+    }
+
+    String raw() {
+        return raw;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return 第几次投递，从 1 开始
+     */
+    public int getAttempt() {
+        return attempt;
+    }
+
+    /**
+     * @return 首次入队的时间戳，毫秒
+     */
+    public long getEnqueuedAt() {
+        return enqueuedAt;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    @Override
+    public String toString() {
+        return "QueueMessage{id=" + id + ", attempt=" + attempt + ", payload=" + payload + '}';
+    }
+}
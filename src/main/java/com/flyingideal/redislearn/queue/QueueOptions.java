@@ -0,0 +1,62 @@
+package com.flyingideal.redislearn.queue;
+
+/**
+ * {@link ReliableQueue} 的参数
+ *
+ * @author yanchao
+ * @date 2026/10/17 20:36
+ */
+public class QueueOptions {
+
+    private int batchSize = 100;
+
+    private long visibilityTimeoutMillis = 30_000;
+
+    private int maxAttempts = 3;
+
+    /**
+     * 每个 worker 一次最多取多少条消息，同一批消息的确认和下一批的获取在同一个 pipeline 中完成
+     */
+    public QueueOptions batchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * worker 超过这个时间没有心跳即认为已经死亡，其处理中的消息由 reaper 放回队列。
+     * 必须大于单条消息的处理时间，否则处理中的消息会被重复投递；worker 阻塞等待消息时每秒刷新一次心跳，因此最小为 3 秒
+     */
+    public QueueOptions visibilityTimeoutMillis(long visibilityTimeoutMillis) {
+        if (visibilityTimeoutMillis < 3000) {
+            throw new IllegalArgumentException("visibilityTimeoutMillis must be at least 3000: " + visibilityTimeoutMillis);
+        }
+        this.visibilityTimeoutMillis = visibilityTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * 处理失败的消息最多投递几次，超过后放入死信队列
+     */
+    public QueueOptions maxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getVisibilityTimeoutMillis() {
+        return visibilityTimeoutMillis;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+}
@@ -0,0 +1,97 @@
+package com.flyingideal.redislearn.queue;
+
+/**
+ * 队列统计快照，延迟为从首次入队到确认的时间
+ *
+ * @author yanchao
+ * @date 2026/10/17 20:40
+ */
+public class QueueStats {
+
+    private final long published;
+
+    private final long acked;
+
+    private final long retried;
+
+    private final long deadLettered;
+
+    private final long reaped;
+
+    private final double ackedPerSecond;
+
+    private final long p50LatencyMillis;
+
+    private final long p99LatencyMillis;
+
+    private final long maxLatencyMillis;
+
+    QueueStats(long published, long acked, long retried, long deadLettered, long reaped, double ackedPerSecond,
+               long p50LatencyMillis, long p99LatencyMillis, long maxLatencyMillis) {
+        this.published = published;
+        this.acked = acked;
+        this.retried = retried;
+        this.deadLettered = deadLettered;
+        this.reaped = reaped;
+        this.ackedPerSecond = ackedPerSecond;
+        this.p50LatencyMillis = p50LatencyMillis;
+        this.p99LatencyMillis = p99LatencyMillis;
+        this.maxLatencyMillis = maxLatencyMillis;
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    /**
+     * @return 处理成功并确认的消息数
+     */
+    public long getAcked() {
+        return acked;
+    }
+
+    /**
+     * @return 处理失败后重新入队的次数
+     */
+    public long getRetried() {
+        return retried;
+    }
+
+    public long getDeadLettered() {
+        return deadLettered;
+    }
+
+    /**
+     * @return reaper 从死亡 worker 处放回队列的消息数
+     */
+    public long getReaped() {
+        return reaped;
+    }
+
+    /**
+     * @return 自上一次获取统计以来每秒确认的消息数
+     */
+    public double getAckedPerSecond() {
+        return ackedPerSecond;
+    }
+
+    public long getP50LatencyMillis() {
+        return p50LatencyMillis;
+    }
+
+    public long getP99LatencyMillis() {
+        return p99LatencyMillis;
+    }
+
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QueueStats{published=%d, acked=%d, retried=%d, deadLettered=%d, reaped=%d, "
+                        + "ackedPerSecond=%.0f, p50LatencyMillis=%d, p99LatencyMillis=%d, maxLatencyMillis=%d}",
+                published, acked, retried, deadLettered, reaped, ackedPerSecond,
+                p50LatencyMillis, p99LatencyMillis, maxLatencyMillis);
+    }
+}
@@ -0,0 +1,266 @@
+package com.flyingideal.redislearn.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个消费线程，独占一个连接。
+ *
+ * 心跳在每次批量交换时刷新，处理一批消息期间每隔 visibilityTimeout / 3 在调用 handler 前再刷新一次，
+ * 因此只要单条消息的处理时间小于 visibilityTimeout，处理得慢的 worker 不会被当作死亡。
+ *
+ * 连接出错时归还连接，退避后重新借一个连接，以同一个 workerId 继续消费，直到被停止；
+ * 已处理未确认的消息和本批中尚未处理的消息在重连后继续由自己负责。
+ *
+ * @author yanchao
+ * @date 2026/10/17 21:00
+ */
+class QueueWorker implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueueWorker.class);
+
+    /**
+     * 队列为空时 BRPOPLPUSH 的阻塞时间，也是空闲时刷新心跳和检查停止标志的周期
+     */
+    private static final int BLOCK_SECONDS = 1;
+
+    /**
+     * 连接出错后重连的退避时间，每次失败加倍
+     */
+    private static final long MIN_BACKOFF_MILLIS = 100;
+
+    private static final long MAX_BACKOFF_MILLIS = 5000;
+
+    private final ReliableQueue queue;
+
+    private final MessageHandler handler;
+
+    private final String workerId;
+
+    private final String processingKey;
+
+    private final String heartbeatKey;
+
+    private final List<QueueMessage> acks = new ArrayList<>();
+
+    private final List<QueueMessage> failures = new ArrayList<>();
+
+    /**
+     * 已取出、尚未交给 handler 的消息
+     */
+    private final Deque<QueueMessage> batch = new ArrayDeque<>();
+
+    /**
+     * 心跳的刷新间隔，处理一批消息的过程中每次调用 handler 前检查
+     */
+    private final long heartbeatIntervalNanos;
+
+    private long lastHeartbeatNanos;
+
+    private volatile boolean running = true;
+
+    QueueWorker(ReliableQueue queue, MessageHandler handler, String workerId) {
+        this.queue = queue;
+        this.handler = handler;
+        this.workerId = workerId;
+        this.processingKey = queue.processingKey(workerId);
+        this.heartbeatKey = queue.heartbeatKey(workerId);
+        this.heartbeatIntervalNanos = TimeUnit.MILLISECONDS.toNanos(queue.options().getVisibilityTimeoutMillis() / 3);
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        long backoffMillis = MIN_BACKOFF_MILLIS;
+        boolean reconnect = false;
+        while (running) {
+            try (Jedis jedis = queue.provider().getResource()) {
+                heartbeat(jedis);
+                if (reconnect) {
+                    recover(jedis);
+                    logger.info("queue worker {} of {} reconnected", workerId, queue.getName());
+                }
+                backoffMillis = MIN_BACKOFF_MILLIS;
+                consume(jedis);
+                exchange(jedis, 0);
+                unregister(jedis);
+                return;
+            } catch (JedisException e) {
+                // 不注销：重连后继续使用同一个 workerId；一直连不上时心跳过期，由 reaper 把处理中的消息放回队列
+                if (!running) {
+                    logger.warn("queue worker {} of {} stopped on redis error: {}", workerId, queue.getName(),
+                            e.getMessage());
+                    return;
+                }
+                logger.warn("queue worker {} of {} lost its connection, retry in {}ms: {}", workerId,
+                        queue.getName(), backoffMillis, e.getMessage());
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(backoffMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+            reconnect = true;
+        }
+    }
+
+    private void consume(Jedis jedis) {
+        while (running) {
+            if (batch.isEmpty()) {
+                batch.addAll(exchange(jedis, queue.options().getBatchSize()));
+            }
+            if (batch.isEmpty()) {
+                String raw = jedis.brpoplpush(queue.getName(), processingKey, BLOCK_SECONDS);
+                if (raw != null) {
+                    batch.add(QueueMessage.decode(raw));
+                }
+            }
+            while (!batch.isEmpty()) {
+                if (System.nanoTime() - lastHeartbeatNanos >= heartbeatIntervalNanos) {
+                    heartbeat(jedis);
+                }
+                handle(batch.poll());
+            }
+        }
+    }
+
+    /**
+     * 重连后把处理中列表里本地没有记录的消息放回队列：断线时 RPOPLPUSH / BRPOPLPUSH 可能已经执行，但没有收到回复。
+     * 这些消息没有交给 handler，投递次数不变
+     */
+    private void recover(Jedis jedis) {
+        Set<String> known = new HashSet<>();
+        for (QueueMessage message : batch) {
+            known.add(message.raw());
+        }
+        for (QueueMessage message : acks) {
+            known.add(message.raw());
+        }
+        for (QueueMessage message : failures) {
+            known.add(message.raw());
+        }
+        List<String> lost = new ArrayList<>();
+        for (String raw : jedis.lrange(processingKey, 0, -1)) {
+            if (!known.contains(raw)) {
+                lost.add(raw);
+            }
+        }
+        if (lost.isEmpty()) {
+            return;
+        }
+        Transaction transaction = jedis.multi();
+        for (String raw : lost) {
+            // 队列从尾部取出，放回尾部使它们最先被再次取出
+            transaction.rpush(queue.getName(), raw);
+            transaction.lrem(processingKey, -1, raw);
+        }
+        transaction.exec();
+        logger.warn("queue worker {} re-queued {} messages fetched before its connection was lost", workerId,
+                lost.size());
+    }
+
+    /**
+     * 先写心跳再登记，reaper 不会看到没有心跳的新 worker；每次都登记，
+     * 因为处理过慢被 reaper 当作死亡并注销的 worker 之后仍要能被 reaper 看到
+     */
+    private void heartbeat(Jedis jedis) {
+        Pipeline pipeline = jedis.pipelined();
+        heartbeat(pipeline);
+        pipeline.sync();
+    }
+
+    private void heartbeat(Pipeline pipeline) {
+        pipeline.psetex(heartbeatKey, queue.options().getVisibilityTimeoutMillis(), workerId);
+        pipeline.sadd(queue.workersKey(), workerId);
+        lastHeartbeatNanos = System.nanoTime();
+    }
+
+    private void handle(QueueMessage message) {
+        try {
+            handler.handle(message);
+            acks.add(message);
+        } catch (Exception e) {
+            logger.warn("queue {} message {} attempt {} failed: {}", queue.getName(), message.getId(),
+                    message.getAttempt(), e.toString());
+            failures.add(message);
+        }
+    }
+
+    /**
+     * 在一个 pipeline 中确认上一批消息、处理失败的消息、刷新心跳并取下一批消息
+     */
+    private List<QueueMessage> exchange(Jedis jedis, int fetch) {
+        Pipeline pipeline = jedis.pipelined();
+        for (QueueMessage message : acks) {
+            // 处理中的列表头部是最新取出的消息，确认顺序与取出顺序相同，从尾部开始查找
+            pipeline.lrem(processingKey, -1, message.raw());
+        }
+        int maxAttempts = queue.options().getMaxAttempts();
+        for (QueueMessage message : failures) {
+            // 先写入再删除，中途失败最多导致重复投递，不会丢消息
+            if (message.getAttempt() < maxAttempts) {
+                pipeline.lpush(queue.getName(), message.nextAttempt().raw());
+            } else {
+                pipeline.lpush(queue.deadLetterKey(), message.raw());
+            }
+            pipeline.lrem(processingKey, -1, message.raw());
+        }
+        heartbeat(pipeline);
+        List<Response<String>> fetched = new ArrayList<>(fetch);
+        for (int i = 0; i < fetch; i++) {
+            fetched.add(pipeline.rpoplpush(queue.getName(), processingKey));
+        }
+        pipeline.sync();
+
+        for (QueueMessage message : acks) {
+            queue.recordAcked(message);
+        }
+        for (QueueMessage message : failures) {
+            if (message.getAttempt() < maxAttempts) {
+                queue.recordRetried();
+            } else {
+                queue.recordDeadLettered();
+            }
+        }
+        acks.clear();
+        failures.clear();
+
+        List<String> raws = new ArrayList<>(fetch);
+        for (Response<String> response : fetched) {
+            String raw = response.get();
+            if (raw == null) {
+                break;
+            }
+            raws.add(raw);
+        }
+        return ReliableQueue.decodeAll(raws);
+    }
+
+    private void unregister(Jedis jedis) {
+        if (jedis.llen(processingKey) == 0) {
+            jedis.srem(queue.workersKey(), workerId);
+            jedis.del(heartbeatKey, processingKey);
+        } else {
+            // 仍有未确认的消息，保留登记信息，心跳过期后由 reaper 放回队列
+            logger.warn("queue worker {} stopped with unacknowledged messages", workerId);
+        }
+    }
+}
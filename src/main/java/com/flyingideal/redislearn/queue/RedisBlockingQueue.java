@@ -0,0 +1,357 @@
+package com.flyingideal.redislearn.queue;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.io.Closeable;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 以 redis list 为存储的 {@link BlockingQueue}，队尾为 list 左侧（LPUSH），队首为 list 右侧（RPOP），容量不限。
+ *
+ * <ul>
+ *     <li>addAll 为一个 MULTI 中的多参数 LPUSH，drainTo 为一个 MULTI 中的 LRANGE + LTRIM，都只有一次网络往返</li>
+ *     <li>take / poll(timeout) 不占用连接：等待者排队，由少量 dispatcher 线程各持有一个连接执行 BRPOP，
+ *     取到的元素交给排在最前面的等待者，因此上千个等待线程也只占用 dispatcher 数量的连接</li>
+ *     <li>iterator / contains / toArray 基于 LRANGE 快照，不反映之后的修改</li>
+ * </ul>
+ *
+ * @author yanchao
+ * @date 2026/10/17 21:40
+ */
+public class RedisBlockingQueue extends AbstractQueue<String> implements BlockingQueue<String>, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisBlockingQueue.class);
+
+    /**
+     * 每条 LPUSH 最多携带的元素数
+     */
+    private static final int PUSH_CHUNK = 1000;
+
+    /**
+     * dispatcher 每次 BRPOP 的阻塞时间，也是检查等待者是否已超时以及是否关闭的周期
+     */
+    private static final int BLOCK_SECONDS = 1;
+
+    private final JedisConnectionProvider provider;
+
+    private final String key;
+
+    private final LinkedBlockingQueue<CompletableFuture<String>> waiters = new LinkedBlockingQueue<>();
+
+    private final List<Thread> dispatchers = new ArrayList<>();
+
+    private volatile boolean closed;
+
+    public RedisBlockingQueue(JedisConnectionProvider provider, String key) {
+        this(provider, key, 1);
+    }
+
+    /**
+     * @param dispatcherCount 执行 BRPOP 的线程数，也是阻塞读占用的连接数
+     */
+    public RedisBlockingQueue(JedisConnectionProvider provider, String key, int dispatcherCount) {
+        if (dispatcherCount < 1) {
+            throw new IllegalArgumentException("dispatcherCount must be positive: " + dispatcherCount);
+        }
+        this.provider = provider;
+        this.key = key;
+        for (int i = 0; i < dispatcherCount; i++) {
+            Thread thread = new Thread(this::dispatch, "blocking-queue-" + key + "-" + i);
+            thread.setDaemon(true);
+            dispatchers.add(thread);
+            thread.start();
+        }
+    }
+
+    @Override
+    public boolean offer(String e) {
+        checkNotNull(e);
+        provider.execute(jedis -> jedis.lpush(key, e));
+        return true;
+    }
+
+    @Override
+    public void put(String e) {
+        offer(e);
+    }
+
+    @Override
+    public boolean offer(String e, long timeout, TimeUnit unit) {
+        return offer(e);
+    }
+
+    @Override
+    public String poll() {
+        return provider.execute(jedis -> jedis.rpop(key));
+    }
+
+    @Override
+    public String peek() {
+        return provider.execute(jedis -> jedis.lindex(key, -1));
+    }
+
+    /**
+     * 等待期间被中断时，如果元素已经出队则仍然返回它并保留中断标志，见 {@link #abandonInterrupted}
+     */
+    @Override
+    public String take() throws InterruptedException {
+        String e = poll();
+        if (e != null) {
+            return e;
+        }
+        CompletableFuture<String> waiter = enqueueWaiter();
+        try {
+            return waiter.get();
+        } catch (InterruptedException ie) {
+            return abandonInterrupted(waiter, ie);
+        } catch (ExecutionException | CancellationException ex) {
+            throw new IllegalStateException("queue " + key + " closed", ex);
+        }
+    }
+
+    @Override
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        String e = poll();
+        if (e != null || timeout <= 0) {
+            return e;
+        }
+        CompletableFuture<String> waiter = enqueueWaiter();
+        try {
+            return waiter.get(timeout, unit);
+        } catch (TimeoutException te) {
+            return abandon(waiter);
+        } catch (InterruptedException ie) {
+            return abandonInterrupted(waiter, ie);
+        } catch (ExecutionException | CancellationException ex) {
+            throw new IllegalStateException("queue " + key + " closed", ex);
+        }
+    }
+
+    /**
+     * 一个 MULTI 中 LPUSH 所有元素，每 1000 个元素一条命令
+     */
+    @Override
+    public boolean addAll(Collection<? extends String> c) {
+        if (c == this) {
+            throw new IllegalArgumentException("cannot add a queue to itself");
+        }
+        if (c.isEmpty()) {
+            return false;
+        }
+        List<String> chunk = new ArrayList<>(Math.min(PUSH_CHUNK, c.size()));
+        try (Jedis jedis = provider.getResource()) {
+            Transaction transaction = jedis.multi();
+            for (String e : c) {
+                checkNotNull(e);
+                chunk.add(e);
+                if (chunk.size() == PUSH_CHUNK) {
+                    transaction.lpush(key, chunk.toArray(new String[0]));
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                transaction.lpush(key, chunk.toArray(new String[0]));
+            }
+            transaction.exec();
+        }
+        return true;
+    }
+
+    @Override
+    public int drainTo(Collection<? super String> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 一个 MULTI 中 LRANGE 取出队首的 maxElements 个元素并 LTRIM 删除
+     */
+    @Override
+    public int drainTo(Collection<? super String> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException("cannot drain a queue into itself");
+        }
+        if (maxElements <= 0) {
+            return 0;
+        }
+        Response<List<String>> drained;
+        try (Jedis jedis = provider.getResource()) {
+            Transaction transaction = jedis.multi();
+            drained = transaction.lrange(key, -(long) maxElements, -1);
+            transaction.ltrim(key, 0, -(long) maxElements - 1);
+            transaction.exec();
+        }
+        List<String> elements = drained.get();
+        // list 右侧是队首，倒序后为出队顺序
+        for (int i = elements.size() - 1; i >= 0; i--) {
+            c.add(elements.get(i));
+        }
+        return elements.size();
+    }
+
+    @Override
+    public int size() {
+        long size = provider.execute(jedis -> jedis.llen(key));
+        return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * 从队首开始删除第一个相同的元素
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof String)) {
+            return false;
+        }
+        return provider.execute(jedis -> jedis.lrem(key, -1, (String) o)) > 0;
+    }
+
+    @Override
+    public void clear() {
+        provider.execute(jedis -> jedis.del(key));
+    }
+
+    /**
+     * @return 从队首到队尾的快照，不支持 remove
+     */
+    @Override
+    public Iterator<String> iterator() {
+        List<String> snapshot = provider.execute(jedis -> jedis.lrange(key, 0, -1));
+        Collections.reverse(snapshot);
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+    /**
+     * 停止 dispatcher，仍在等待的 take / poll 抛出 {@link IllegalStateException}；不删除 redis 中的数据
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread dispatcher : dispatchers) {
+            try {
+                dispatcher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        CompletableFuture<String> waiter;
+        while ((waiter = waiters.poll()) != null) {
+            waiter.completeExceptionally(new IllegalStateException("queue " + key + " closed"));
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    private CompletableFuture<String> enqueueWaiter() {
+        if (closed) {
+            throw new IllegalStateException("queue " + key + " closed");
+        }
+        CompletableFuture<String> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        return waiter;
+    }
+
+    /**
+     * 放弃等待；如果 dispatcher 已经把元素交给了这个等待者，返回该元素
+     */
+    private String abandon(CompletableFuture<String> waiter) {
+        if (waiter.cancel(false)) {
+            waiters.remove(waiter);
+            return null;
+        }
+        return waiter.isCompletedExceptionally() ? null : waiter.getNow(null);
+    }
+
+    /**
+     * 等待时被中断：dispatcher 已经 BRPOP 出元素并交给了这个等待者时，元素已经不在 redis 中，
+     * 抛出异常会丢失它，因此返回该元素并重新设置中断标志；否则抛出中断异常
+     */
+    private String abandonInterrupted(CompletableFuture<String> waiter, InterruptedException ie)
+            throws InterruptedException {
+        String element = abandon(waiter);
+        if (element == null) {
+            throw ie;
+        }
+        Thread.currentThread().interrupt();
+        return element;
+    }
+
+    /**
+     * 每次取一个等待者，BRPOP 直到取到元素或等待者放弃；
+     * 取到元素时如果等待者已经放弃，则交给下一个等待者，没有等待者时用 RPUSH 放回队首
+     */
+    private void dispatch() {
+        CompletableFuture<String> waiter = null;
+        while (!closed) {
+            try (Jedis jedis = provider.getResource()) {
+                while (!closed) {
+                    if (waiter == null || waiter.isDone()) {
+                        waiter = waiters.poll(BLOCK_SECONDS, TimeUnit.SECONDS);
+                        continue;
+                    }
+                    List<String> popped = jedis.brpop(BLOCK_SECONDS, key);
+                    if (popped == null || popped.isEmpty()) {
+                        continue;
+                    }
+                    String element = popped.get(1);
+                    while (waiter != null && !waiter.complete(element)) {
+                        waiter = waiters.poll();
+                    }
+                    if (waiter == null) {
+                        jedis.rpush(key, element);
+                    }
+                    waiter = null;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (JedisException e) {
+                logger.warn("blocking queue {} dispatcher failed, retrying: {}", key, e.getMessage());
+                sleepQuietly();
+            }
+        }
+        if (waiter != null && !waiter.isDone()) {
+            // 关闭时尚在等待的请求交还给 close 统一处理
+            waiters.add(waiter);
+        }
+    }
+
+    private static void sleepQuietly() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void checkNotNull(String e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.flyingideal.redislearn.queue;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于 RPOPLPUSH 的可靠队列，消息至少被处理一次。
+ *
+ * redis 中的 key：
+ * <ul>
+ *     <li>name：待处理消息，生产者 LPUSH，消费者从右侧取</li>
+ *     <li>name:processing:{workerId}：每个 worker 处理中的消息，确认后 LREM</li>
+ *     <li>name:heartbeat:{workerId}：worker 心跳，过期时间为 visibilityTimeout</li>
+ *     <li>name:workers：所有 worker 的 id，供 reaper 检查心跳</li>
+ *     <li>name:dead：超过最大投递次数的消息</li>
+ * </ul>
+ *
+ * 吞吐：worker 在一个 pipeline 中确认上一批消息、刷新心跳并用 batchSize 条 RPOPLPUSH 取下一批消息，
+ * 每批只有一次网络往返；队列为空时才退化为 BRPOPLPUSH 阻塞等待。
+ *
+ * @author yanchao
+ * @date 2026/10/17 20:45
+ */
+public class ReliableQueue {
+
+    /**
+     * 每条 LPUSH 最多携带的消息数
+     */
+    private static final int PUBLISH_CHUNK = 1000;
+
+    private final JedisConnectionProvider provider;
+
+    private final String name;
+
+    private final QueueOptions options;
+
+    private final String producerId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final LongAdder published = new LongAdder();
+
+    private final LongAdder acked = new LongAdder();
+
+    private final LongAdder retried = new LongAdder();
+
+    private final LongAdder deadLettered = new LongAdder();
+
+    private final LongAdder reaped = new LongAdder();
+
+    private final Recorder latencyMillis = new Recorder(2);
+
+    private long lastStatsNanos = System.nanoTime();
+
+    private long lastStatsAcked;
+
+    public ReliableQueue(JedisConnectionProvider provider, String name) {
+        this(provider, name, new QueueOptions());
+    }
+
+    public ReliableQueue(JedisConnectionProvider provider, String name, QueueOptions options) {
+        this.provider = provider;
+        this.name = name;
+        this.options = options;
+    }
+
+    public String publish(String payload) {
+        QueueMessage message = newMessage(payload);
+        provider.execute(jedis -> jedis.lpush(name, message.raw()));
+        published.increment();
+        return message.getId();
+    }
+
+    /**
+     * 批量发布，每 1000 条合并为一条 LPUSH，所有 LPUSH 在一个 pipeline 中发送
+     */
+    public void publishAll(Collection<String> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        try (Jedis jedis = provider.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            List<String> chunk = new ArrayList<>(Math.min(PUBLISH_CHUNK, payloads.size()));
+            for (String payload : payloads) {
+                chunk.add(newMessage(payload).raw());
+                if (chunk.size() == PUBLISH_CHUNK) {
+                    pipeline.lpush(name, chunk.toArray(new String[0]));
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                pipeline.lpush(name, chunk.toArray(new String[0]));
+            }
+            pipeline.sync();
+        }
+        published.add(payloads.size());
+    }
+
+    /**
+     * 启动 workers 个消费线程以及一个 reaper 线程，每个消费线程占用一个连接
+     */
+    public QueueConsumerGroup startConsumers(int workers, MessageHandler handler) {
+        return new QueueConsumerGroup(this, workers, handler);
+    }
+
+    /**
+     * @return 待处理的消息数，不包括处理中的消息
+     */
+    public long size() {
+        return provider.execute(jedis -> jedis.llen(name));
+    }
+
+    public List<String> deadLetters() {
+        return provider.execute(jedis -> jedis.lrange(deadLetterKey(), 0, -1));
+    }
+
+    /**
+     * 吞吐和延迟按自上一次调用以来的区间统计，其余为累计值
+     */
+    public synchronized QueueStats getStats() {
+        long now = System.nanoTime();
+        long totalAcked = acked.sum();
+        double seconds = (now - lastStatsNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        double ackedPerSecond = seconds == 0 ? 0 : (totalAcked - lastStatsAcked) / seconds;
+        lastStatsNanos = now;
+        lastStatsAcked = totalAcked;
+        Histogram latency = latencyMillis.getIntervalHistogram();
+        return new QueueStats(published.sum(), totalAcked, retried.sum(), deadLettered.sum(), reaped.sum(),
+                ackedPerSecond, latency.getValueAtPercentile(50), latency.getValueAtPercentile(99),
+                latency.getMaxValue());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private QueueMessage newMessage(String payload) {
+        return new QueueMessage(producerId + "-" + sequence.incrementAndGet(), 1, System.currentTimeMillis(), payload);
+    }
+
+    JedisConnectionProvider provider() {
+        return provider;
+    }
+
+    QueueOptions options() {
+        return options;
+    }
+
+    String processingKey(String workerId) {
+        return name + ":processing:" + workerId;
+    }
+
+    String heartbeatKey(String workerId) {
+        return name + ":heartbeat:" + workerId;
+    }
+
+    String workersKey() {
+        return name + ":workers";
+    }
+
+    String deadLetterKey() {
+        return name + ":dead";
+    }
+
+    void recordAcked(QueueMessage message) {
+        acked.increment();
+        latencyMillis.recordValue(Math.max(0, System.currentTimeMillis() - message.getEnqueuedAt()));
+    }
+
+    void recordRetried() {
+        retried.increment();
+    }
+
+    void recordDeadLettered() {
+        deadLettered.increment();
+    }
+
+    void recordReaped(long count) {
+        reaped.add(count);
+    }
+
+    static List<QueueMessage> decodeAll(List<String> raws) {
+        if (raws.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<QueueMessage> messages = new ArrayList<>(raws.size());
+        for (String raw : raws) {
+            messages.add(QueueMessage.decode(raw));
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,191 @@
+package com.flyingideal.redislearn.ratelimit;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import com.flyingideal.redislearn.script.RedisScript;
+import redis.clients.jedis.Jedis;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地预取许可的令牌桶限流：redis 中的令牌桶按 ratePerSecond 补充、最多 capacity 个令牌，
+ * 每个 JVM 一次取走 blockSize 个放在本地，用完才再访问 redis，绝大多数判断只是一次 CAS。
+ *
+ * 代价是精度：取走的许可在 leaseMillis 内有效，过期未用完的直接丢弃，不归还，
+ * 因此任意时刻最多有 JVM 数 × blockSize 个许可被各 JVM 持有而未使用，
+ * 负载不均时一个 JVM 可能因为许可在别的 JVM 中而被拒绝。blockSize 应远小于 capacity。
+ * 令牌桶空了之后，本地在补充出一个令牌的时间内直接拒绝，不会在过载时反复访问 redis。
+ *
+ * @author yanchao
+ * @date 2026/10/18 11:30
+ */
+public class LeasedRateLimiter implements RateLimiter {
+
+    public static final long DEFAULT_LEASE_MILLIS = 1000;
+
+    /**
+     * KEYS[1] 令牌桶 hash；ARGV[1] 每秒补充的令牌数，ARGV[2] 容量，ARGV[3] 请求的令牌数，ARGV[4] 当前毫秒。
+     * 返回实际取得的令牌数，可能少于请求数
+     */
+    static final RedisScript LEASE = new RedisScript(
+            "local rate = tonumber(ARGV[1])\n"
+                    + "local capacity = tonumber(ARGV[2])\n"
+                    + "local now = tonumber(ARGV[4])\n"
+                    + "local bucket = redis.call('hmget', KEYS[1], 'tokens', 'ts')\n"
+                    + "local tokens = tonumber(bucket[1]) or capacity\n"
+                    + "local ts = tonumber(bucket[2]) or now\n"
+                    + "if now > ts then\n"
+                    + "    tokens = math.min(capacity, tokens + (now - ts) * rate / 1000)\n"
+                    + "    ts = now\n"
+                    + "end\n"
+                    + "local granted = math.min(tonumber(ARGV[3]), math.floor(tokens))\n"
+                    + "redis.call('hmset', KEYS[1], 'tokens', tokens - granted, 'ts', ts)\n"
+                    + "redis.call('pexpire', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000)\n"
+                    + "return granted\n");
+
+    private final JedisConnectionProvider provider;
+
+    private final List<String> keys;
+
+    private final int capacity;
+
+    private final int blockSize;
+
+    private final long leaseMillis;
+
+    private final String rateArg;
+
+    private final String capacityArg;
+
+    /**
+     * 令牌桶为空时，补充一个令牌需要的毫秒数
+     */
+    private final long refillMillis;
+
+    private volatile Lease lease = new Lease(0, 0);
+
+    /**
+     * 在此之前令牌桶为空，直接拒绝
+     */
+    private volatile long emptyUntil;
+
+    private final Object leaseLock = new Object();
+
+    private final LongAdder remoteCalls = new LongAdder();
+
+    public LeasedRateLimiter(JedisConnectionProvider provider, String name, double ratePerSecond, int capacity,
+                             int blockSize) {
+        this(provider, name, ratePerSecond, capacity, blockSize, DEFAULT_LEASE_MILLIS);
+    }
+
+    /**
+     * @param ratePerSecond 所有 JVM 合计每秒放行的许可数
+     * @param capacity      令牌桶容量，即允许的突发量
+     * @param blockSize     每次从 redis 租用的许可数
+     * @param leaseMillis   租用的许可在本地的有效期
+     */
+    public LeasedRateLimiter(JedisConnectionProvider provider, String name, double ratePerSecond, int capacity,
+                             int blockSize, long leaseMillis) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("ratePerSecond must be positive: " + ratePerSecond);
+        }
+        if (blockSize < 1 || blockSize > capacity) {
+            throw new IllegalArgumentException("blockSize must be between 1 and capacity " + capacity + ": " + blockSize);
+        }
+        this.provider = provider;
+        this.keys = Collections.singletonList("ratelimit:{" + name + "}:bucket");
+        this.capacity = capacity;
+        this.blockSize = blockSize;
+        this.leaseMillis = leaseMillis;
+        this.rateArg = Double.toString(ratePerSecond);
+        this.capacityArg = Integer.toString(capacity);
+        this.refillMillis = Math.max(1, (long) Math.ceil(1000 / ratePerSecond));
+    }
+
+    @Override
+    public boolean tryAcquire(int permits) {
+        if (permits < 1 || permits > capacity) {
+            throw new IllegalArgumentException("permits must be between 1 and " + capacity + ": " + permits);
+        }
+        long now = System.currentTimeMillis();
+        if (lease.take(permits, now)) {
+            return true;
+        }
+        if (now < emptyUntil) {
+            return false;
+        }
+        synchronized (leaseLock) {
+            // 等待期间其他线程可能已经租到了新的许可
+            Lease current = lease;
+            if (current.take(permits, now)) {
+                return true;
+            }
+            if (now < emptyUntil) {
+                return false;
+            }
+            // 当前租约剩余的许可不足 permits 个，连同新租到的合并为一个新租约，避免浪费
+            int carried = current.drain(now);
+            int requested = Math.max(blockSize, permits - carried);
+            long granted;
+            try (Jedis jedis = provider.getResource()) {
+                remoteCalls.increment();
+                granted = (Long) LEASE.eval(jedis, keys, Arrays.asList(rateArg, capacityArg,
+                        Integer.toString(requested), Long.toString(now)));
+            }
+            if (granted < requested) {
+                emptyUntil = now + refillMillis;
+            }
+            Lease renewed = new Lease(carried + (int) granted, now + leaseMillis);
+            lease = renewed;
+            return renewed.take(permits, now);
+        }
+    }
+
+    /**
+     * @return 访问 redis 的次数，与放行次数的比值反映本地预取的效果
+     */
+    public long getRemoteCalls() {
+        return remoteCalls.sum();
+    }
+
+    /**
+     * 一批租用的许可
+     */
+    private static final class Lease {
+
+        private final AtomicInteger remaining;
+
+        private final long expiresAt;
+
+        Lease(int permits, long expiresAt) {
+            this.remaining = new AtomicInteger(permits);
+            this.expiresAt = expiresAt;
+        }
+
+        boolean take(int permits, long now) {
+            if (now >= expiresAt) {
+                return false;
+            }
+            while (true) {
+                int available = remaining.get();
+                if (available < permits) {
+                    return false;
+                }
+                if (remaining.compareAndSet(available, available - permits)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * 取走剩余的全部许可，已过期时返回 0
+         */
+        int drain(long now) {
+            int left = remaining.getAndSet(0);
+            return now >= expiresAt ? 0 : left;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.flyingideal.redislearn.ratelimit;
+
+/**
+ * 多个 JVM 共享的限流器，状态保存在 redis 中
+ *
+ * <ul>
+ *     <li>{@link SlidingWindowRateLimiter}：精确的滑动窗口，每次判断一次网络往返</li>
+ *     <li>{@link LeasedRateLimiter}：令牌桶，每个 JVM 一次租用一批许可，绝大多数判断在本地完成</li>
+ * </ul>
+ *
+ * @author yanchao
+ * @date 2026/10/18 11:10
+ */
+public interface RateLimiter {
+
+    /**
+     * 获取 permits 个许可，不等待
+     *
+     * @return 是否获取成功；失败时不消耗任何许可
+     */
+    boolean tryAcquire(int permits);
+
+    default boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+}
@@ -0,0 +1,105 @@
+package com.flyingideal.redislearn.ratelimit;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import com.flyingideal.redislearn.script.RedisScript;
+import redis.clients.jedis.Jedis;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 精确的滑动窗口限流：任意 windowMillis 长的时间段内最多放行 limit 个许可。
+ *
+ * 每个许可是 sorted set 中的一个成员，score 为获取时间。一个 Lua 脚本内先 ZREMRANGEBYSCORE 删除窗口外的成员，
+ * 再 ZCARD 计数，未超限时 ZADD，判断和记录是原子的，一次网络往返。
+ * 时间取自客户端，各 JVM 之间的时钟偏差会同样程度地移动窗口的边界。
+ * 内存与 limit 成正比，limit 很大时考虑 {@link LeasedRateLimiter}。
+ *
+ * @author yanchao
+ * @date 2026/10/18 11:15
+ */
+public class SlidingWindowRateLimiter implements RateLimiter {
+
+    /**
+     * KEYS[1] sorted set；ARGV[1] 当前毫秒，ARGV[2] 窗口毫秒，ARGV[3] limit，ARGV[4] 许可数，ARGV[5] 成员前缀。
+     * 放行时返回窗口内剩余的许可数，拒绝时返回 -1
+     */
+    static final RedisScript ACQUIRE = new RedisScript(
+            "local now = tonumber(ARGV[1])\n"
+                    + "local window = tonumber(ARGV[2])\n"
+                    + "local permits = tonumber(ARGV[4])\n"
+                    + "redis.call('zremrangebyscore', KEYS[1], '-inf', now - window)\n"
+                    + "local count = redis.call('zcard', KEYS[1])\n"
+                    + "if count + permits > tonumber(ARGV[3]) then\n"
+                    + "    return -1\n"
+                    + "end\n"
+                    + "for i = 1, permits do\n"
+                    + "    redis.call('zadd', KEYS[1], now, ARGV[5] .. ':' .. i)\n"
+                    + "end\n"
+                    + "redis.call('pexpire', KEYS[1], window)\n"
+                    + "return tonumber(ARGV[3]) - count - permits\n");
+
+    private final JedisConnectionProvider provider;
+
+    private final List<String> keys;
+
+    private final int limit;
+
+    private final long windowMillis;
+
+    private final String limitArg;
+
+    private final String windowArg;
+
+    /**
+     * 成员需要在所有 JVM 之间唯一
+     */
+    private final String memberPrefix = UUID.randomUUID().toString() + ":";
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SlidingWindowRateLimiter(JedisConnectionProvider provider, String name, int limit, long windowMillis) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive: " + limit);
+        }
+        if (windowMillis < 1) {
+            throw new IllegalArgumentException("windowMillis must be positive: " + windowMillis);
+        }
+        this.provider = provider;
+        this.keys = Collections.singletonList("ratelimit:{" + name + "}:window");
+        this.limit = limit;
+        this.windowMillis = windowMillis;
+        this.limitArg = Integer.toString(limit);
+        this.windowArg = Long.toString(windowMillis);
+    }
+
+    @Override
+    public boolean tryAcquire(int permits) {
+        return acquire(permits) >= 0;
+    }
+
+    /**
+     * @return 放行时返回当前窗口内剩余的许可数，拒绝时返回 -1
+     */
+    public long acquire(int permits) {
+        if (permits < 1 || permits > limit) {
+            throw new IllegalArgumentException("permits must be between 1 and " + limit + ": " + permits);
+        }
+        List<String> args = Arrays.asList(Long.toString(System.currentTimeMillis()), windowArg, limitArg,
+                Integer.toString(permits), memberPrefix + sequence.incrementAndGet());
+        try (Jedis jedis = provider.getResource()) {
+            return (Long) ACQUIRE.eval(jedis, keys, args);
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+}
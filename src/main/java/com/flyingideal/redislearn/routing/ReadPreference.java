@@ -0,0 +1,20 @@
+package com.flyingideal.redislearn.routing;
+
+/**
+ * 读命令发往哪个节点
+ *
+ * @author yanchao
+ * @date 2026/10/18 20:50
+ */
+public enum ReadPreference {
+
+    /**
+     * 从节点，可能读到复制延迟之前的旧数据；所有从节点都不可用时读主节点
+     */
+    REPLICA,
+
+    /**
+     * 主节点，用于刚写入就要读到、不能容忍复制延迟的读
+     */
+    MASTER
+}
@@ -0,0 +1,416 @@
+package com.flyingideal.redislearn.routing;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 读写分离客户端：写命令发往主节点，读命令按 {@link ReadPreference} 轮询发往从节点或主节点。
+ *
+ * <ul>
+ *     <li>过期容忍：每个读方法都有带 {@link ReadPreference} 参数的重载，{@link ReadPreference#MASTER}
+ *     用于刚写入就要读到的场景，不指定时使用 {@link RoutingOptions#getDefaultReadPreference()}</li>
+ *     <li>故障转移：从节点连接失败后 replicaDownMillis 内不再使用它，本次读改为读主节点；所有从节点都不可用时读主节点</li>
+ *     <li>对冲读：有两个以上可用从节点时，第一个请求在 hedge delay 内没有返回，就向另一个从节点再发一次，
+ *     使用先返回的结果。hedge delay 为最近 sampleWindow 次从节点读耗时的 p95（hedgePercentile），
+ *     限制在 [minHedgeDelayMicros, maxHedgeDelayMicros] 之间；约 5% 的读会多发一次请求，换来尾延迟不受单个慢节点影响</li>
+ * </ul>
+ * 对冲读在线程池中执行，调用线程等待先返回的结果，这样首选节点慢的时候调用线程不会被它的 socket 读阻塞；
+ * 不对冲时在调用线程中执行。线程池最多 maxHedgeThreads 个线程、不排队，线程都在使用时这次读不对冲，
+ * 直接在调用线程中读首选节点（计入 hedgeSkips）。落后的请求不会被取消，执行完后正常归还连接。
+ *
+ * 主从节点的连接池由调用方创建和关闭，{@link #close()} 只关闭对冲读的线程池。
+ *
+ * @author yanchao
+ * @date 2026/10/18 21:00
+ */
+public class ReplicaRoutingClient implements MeterBinder, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingClient.class);
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final JedisConnectionProvider master;
+
+    private final List<Replica> replicas;
+
+    private final RoutingOptions options;
+
+    private final ExecutorService hedgeExecutor;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final Recorder replicaLatencyMicros = new Recorder(2);
+
+    private final AtomicLong replicaReads = new AtomicLong();
+
+    private volatile long hedgeDelayMicros;
+
+    private final LongAdder masterReads = new LongAdder();
+
+    private final LongAdder writes = new LongAdder();
+
+    private final LongAdder hedges = new LongAdder();
+
+    private final LongAdder hedgeWins = new LongAdder();
+
+    private final LongAdder hedgeSkips = new LongAdder();
+
+    private final LongAdder fallbacks = new LongAdder();
+
+    public ReplicaRoutingClient(JedisConnectionProvider master, List<JedisConnectionProvider> replicas) {
+        this(master, replicas, new RoutingOptions());
+    }
+
+    public ReplicaRoutingClient(JedisConnectionProvider master, List<JedisConnectionProvider> replicas,
+                                RoutingOptions options) {
+        this.master = master;
+        List<Replica> list = new ArrayList<>(replicas.size());
+        for (JedisConnectionProvider provider : replicas) {
+            list.add(new Replica(list.size(), provider));
+        }
+        this.replicas = Collections.unmodifiableList(list);
+        this.options = options;
+        this.hedgeDelayMicros = options.getMaxHedgeDelayMicros();
+        this.hedgeExecutor = new ThreadPoolExecutor(0, options.getMaxHedgeThreads(), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "redis-hedged-read-" + THREADS.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public <T> T write(Function<Jedis, T> command) {
+        writes.increment();
+        return master.execute(command);
+    }
+
+    public <T> T read(Function<Jedis, T> command) {
+        return read(options.getDefaultReadPreference(), command);
+    }
+
+    public <T> T read(ReadPreference preference, Function<Jedis, T> command) {
+        if (preference == ReadPreference.MASTER || replicas.isEmpty()) {
+            return readMaster(command);
+        }
+        Replica first = nextAvailable(nextReplica.getAndIncrement() & Integer.MAX_VALUE, null);
+        if (first == null) {
+            fallbacks.increment();
+            return readMaster(command);
+        }
+        Replica second = options.isHedging() ? nextAvailable(first.index + 1, first) : null;
+        try {
+            return second == null ? first.read(command) : hedgedRead(first, second, command);
+        } catch (JedisConnectionException e) {
+            fallbacks.increment();
+            return readMaster(command);
+        }
+    }
+
+    public String get(String key) {
+        return read(jedis -> jedis.get(key));
+    }
+
+    public String get(ReadPreference preference, String key) {
+        return read(preference, jedis -> jedis.get(key));
+    }
+
+    public List<String> mget(String... keys) {
+        return read(jedis -> jedis.mget(keys));
+    }
+
+    public List<String> mget(ReadPreference preference, String... keys) {
+        return read(preference, jedis -> jedis.mget(keys));
+    }
+
+    public Map<String, String> hgetAll(String key) {
+        return read(jedis -> jedis.hgetAll(key));
+    }
+
+    public Map<String, String> hgetAll(ReadPreference preference, String key) {
+        return read(preference, jedis -> jedis.hgetAll(key));
+    }
+
+    public Set<String> smembers(String key) {
+        return read(jedis -> jedis.smembers(key));
+    }
+
+    public Set<String> smembers(ReadPreference preference, String key) {
+        return read(preference, jedis -> jedis.smembers(key));
+    }
+
+    public Set<String> zrange(String key, long start, long end) {
+        return read(jedis -> jedis.zrange(key, start, end));
+    }
+
+    public Set<String> zrange(ReadPreference preference, String key, long start, long end) {
+        return read(preference, jedis -> jedis.zrange(key, start, end));
+    }
+
+    public Set<String> zrangeByScore(String key, double min, double max) {
+        return read(jedis -> jedis.zrangeByScore(key, min, max));
+    }
+
+    public Set<String> zrangeByScore(ReadPreference preference, String key, double min, double max) {
+        return read(preference, jedis -> jedis.zrangeByScore(key, min, max));
+    }
+
+    public Long zrank(String key, String member) {
+        return read(jedis -> jedis.zrank(key, member));
+    }
+
+    public Long zrank(ReadPreference preference, String key, String member) {
+        return read(preference, jedis -> jedis.zrank(key, member));
+    }
+
+    /**
+     * @return 当前的对冲等待时间
+     */
+    public long getHedgeDelayMicros() {
+        return hedgeDelayMicros;
+    }
+
+    public long getReplicaReads() {
+        return replicaReads.get();
+    }
+
+    public long getMasterReads() {
+        return masterReads.sum();
+    }
+
+    public long getWrites() {
+        return writes.sum();
+    }
+
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    /**
+     * @return 对冲请求先于第一个请求返回的次数
+     */
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    /**
+     * @return 对冲线程池已满、没有对冲就读首选节点的次数
+     */
+    public long getHedgeSkips() {
+        return hedgeSkips.sum();
+    }
+
+    /**
+     * @return 因从节点不可用改为读主节点的次数
+     */
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    /**
+     * @return 当前可用的从节点个数
+     */
+    public int getAvailableReplicas() {
+        long now = System.currentTimeMillis();
+        int available = 0;
+        for (Replica replica : replicas) {
+            if (replica.isAvailable(now)) {
+                available++;
+            }
+        }
+        return available;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("redis.routing.reads", this, ReplicaRoutingClient::getReplicaReads)
+                .tag("target", "replica").register(registry);
+        FunctionCounter.builder("redis.routing.reads", this, ReplicaRoutingClient::getMasterReads)
+                .tag("target", "master").register(registry);
+        FunctionCounter.builder("redis.routing.writes", this, ReplicaRoutingClient::getWrites).register(registry);
+        FunctionCounter.builder("redis.routing.hedges", this, ReplicaRoutingClient::getHedges).register(registry);
+        FunctionCounter.builder("redis.routing.hedge.wins", this, ReplicaRoutingClient::getHedgeWins)
+                .register(registry);
+        FunctionCounter.builder("redis.routing.hedge.skips", this, ReplicaRoutingClient::getHedgeSkips)
+                .register(registry);
+        FunctionCounter.builder("redis.routing.fallbacks", this, ReplicaRoutingClient::getFallbacks)
+                .register(registry);
+        Gauge.builder("redis.routing.hedge.delay", this, ReplicaRoutingClient::getHedgeDelayMicros)
+                .baseUnit("microseconds").register(registry);
+        Gauge.builder("redis.routing.replicas.available", this, ReplicaRoutingClient::getAvailableReplicas)
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        hedgeExecutor.shutdown();
+    }
+
+    private <T> T readMaster(Function<Jedis, T> command) {
+        masterReads.increment();
+        return master.execute(command);
+    }
+
+    /**
+     * 第一个请求在 hedge delay 内失败时直接改读另一个从节点；对冲后两个请求都失败时抛出后失败的异常
+     */
+    private <T> T hedgedRead(Replica first, Replica second, Function<Jedis, T> command) {
+        CompletableFuture<T> primary;
+        try {
+            primary = CompletableFuture.supplyAsync(() -> first.read(command), hedgeExecutor);
+        } catch (RejectedExecutionException e) {
+            hedgeSkips.increment();
+            return first.read(command);
+        }
+        try {
+            return primary.get(hedgeDelayMicros, TimeUnit.MICROSECONDS);
+        } catch (TimeoutException e) {
+            // 超过 hedge delay，下面发起对冲请求
+        } catch (ExecutionException e) {
+            return second.read(command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JedisConnectionException("interrupted while waiting for replica", e);
+        }
+        CompletableFuture<T> hedge;
+        try {
+            hedge = CompletableFuture.supplyAsync(() -> second.read(command), hedgeExecutor);
+        } catch (RejectedExecutionException e) {
+            hedgeSkips.increment();
+            return await(primary);
+        }
+        hedges.increment();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(2);
+        primary.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+            } else if (remaining.decrementAndGet() == 0) {
+                result.completeExceptionally(error);
+            }
+        });
+        hedge.whenComplete((value, error) -> {
+            if (error == null) {
+                if (result.complete(value)) {
+                    hedgeWins.increment();
+                }
+            } else if (remaining.decrementAndGet() == 0) {
+                result.completeExceptionally(error);
+            }
+        });
+        return await(result);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JedisConnectionException("interrupted while waiting for replica", e);
+        }
+    }
+
+    /**
+     * 从 start 开始依次选择一个可用的从节点。轮询计数每次读只前进一次，对冲节点从首选节点的下一个开始找，
+     * 否则计数每次读前进两次，两个从节点时首选总是同一个
+     *
+     * @param start   开始的下标，可以超过节点数
+     * @param exclude 不选这个节点，为 null 时不排除
+     * @return 没有可用节点时为 null
+     */
+    private Replica nextAvailable(int start, Replica exclude) {
+        long now = System.currentTimeMillis();
+        int size = replicas.size();
+        int offset = start % size;
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((offset + i) % size);
+            if (replica != exclude && replica.isAvailable(now)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private void recordLatency(long micros) {
+        replicaLatencyMicros.recordValue(micros);
+        if (replicaReads.incrementAndGet() % options.getSampleWindow() == 0) {
+            refreshHedgeDelay();
+        }
+    }
+
+    private synchronized void refreshHedgeDelay() {
+        Histogram histogram = replicaLatencyMicros.getIntervalHistogram();
+        long percentile = histogram.getValueAtPercentile(options.getHedgePercentile());
+        hedgeDelayMicros = Math.max(options.getMinHedgeDelayMicros(),
+                Math.min(options.getMaxHedgeDelayMicros(), percentile));
+    }
+
+    private final class Replica {
+
+        final int index;
+
+        final JedisConnectionProvider provider;
+
+        volatile long downUntilMillis;
+
+        Replica(int index, JedisConnectionProvider provider) {
+            this.index = index;
+            this.provider = provider;
+        }
+
+        boolean isAvailable(long nowMillis) {
+            return nowMillis >= downUntilMillis;
+        }
+
+        <T> T read(Function<Jedis, T> command) {
+            long start = System.nanoTime();
+            try {
+                T value = provider.execute(command);
+                recordLatency(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                return value;
+            } catch (JedisConnectionException e) {
+                downUntilMillis = System.currentTimeMillis() + options.getReplicaDownMillis();
+                logger.warn("replica {}:{} unavailable for {}ms: {}", provider.getProperties().getHost(),
+                        provider.getProperties().getPort(), options.getReplicaDownMillis(), e.getMessage());
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.flyingideal.redislearn.routing;
+
+/**
+ * {@link ReplicaRoutingClient} 的参数
+ *
+ * @author yanchao
+ * @date 2026/10/18 20:52
+ */
+public class RoutingOptions {
+
+    private ReadPreference defaultReadPreference = ReadPreference.REPLICA;
+
+    private boolean hedging = true;
+
+    private double hedgePercentile = 95;
+
+    private long minHedgeDelayMicros = 500;
+
+    private long maxHedgeDelayMicros = 50_000;
+
+    private int sampleWindow = 1000;
+
+    private long replicaDownMillis = 5000;
+
+    private int maxHedgeThreads = 64;
+
+    /**
+     * 不指定 {@link ReadPreference} 的读命令发往哪里
+     */
+    public RoutingOptions defaultReadPreference(ReadPreference defaultReadPreference) {
+        this.defaultReadPreference = defaultReadPreference;
+        return this;
+    }
+
+    /**
+     * 是否对从节点的读发起对冲请求，只有一个从节点时不对冲
+     */
+    public RoutingOptions hedging(boolean hedging) {
+        this.hedging = hedging;
+        return this;
+    }
+
+    /**
+     * 等待第一个请求多久之后发起对冲请求：最近 sampleWindow 次从节点读耗时的这个分位数
+     */
+    public RoutingOptions hedgePercentile(double hedgePercentile) {
+        if (hedgePercentile <= 0 || hedgePercentile >= 100) {
+            throw new IllegalArgumentException("hedgePercentile must be in (0, 100): " + hedgePercentile);
+        }
+        this.hedgePercentile = hedgePercentile;
+        return this;
+    }
+
+    /**
+     * 对冲等待时间的下限和上限；样本不足时使用上限
+     */
+    public RoutingOptions hedgeDelayMicros(long minHedgeDelayMicros, long maxHedgeDelayMicros) {
+        if (minHedgeDelayMicros < 0 || maxHedgeDelayMicros < minHedgeDelayMicros) {
+            throw new IllegalArgumentException("invalid hedge delay range: [" + minHedgeDelayMicros + ", "
+                    + maxHedgeDelayMicros + "]");
+        }
+        this.minHedgeDelayMicros = minHedgeDelayMicros;
+        this.maxHedgeDelayMicros = maxHedgeDelayMicros;
+        return this;
+    }
+
+    /**
+     * 每多少次从节点读重新计算一次对冲等待时间
+     */
+    public RoutingOptions sampleWindow(int sampleWindow) {
+        if (sampleWindow < 1) {
+            throw new IllegalArgumentException("sampleWindow must be positive: " + sampleWindow);
+        }
+        this.sampleWindow = sampleWindow;
+        return this;
+    }
+
+    /**
+     * 从节点连接失败后多久不再向它发送请求
+     */
+    public RoutingOptions replicaDownMillis(long replicaDownMillis) {
+        if (replicaDownMillis < 0) {
+            throw new IllegalArgumentException("replicaDownMillis must not be negative: " + replicaDownMillis);
+        }
+        this.replicaDownMillis = replicaDownMillis;
+        return this;
+    }
+
+    /**
+     * 执行对冲读的线程数上限；线程都在使用时这次读不对冲，直接在调用线程中读首选的从节点
+     */
+    public RoutingOptions maxHedgeThreads(int maxHedgeThreads) {
+        if (maxHedgeThreads < 1) {
+            throw new IllegalArgumentException("maxHedgeThreads must be positive: " + maxHedgeThreads);
+        }
+        this.maxHedgeThreads = maxHedgeThreads;
+        return this;
+    }
+
+    public ReadPreference getDefaultReadPreference() {
+        return defaultReadPreference;
+    }
+
+    public boolean isHedging() {
+        return hedging;
+    }
+
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public long getMinHedgeDelayMicros() {
+        return minHedgeDelayMicros;
+    }
+
+    public long getMaxHedgeDelayMicros() {
+        return maxHedgeDelayMicros;
+    }
+
+    public int getSampleWindow() {
+        return sampleWindow;
+    }
+
+    public long getReplicaDownMillis() {
+        return replicaDownMillis;
+    }
+
+    public int getMaxHedgeThreads() {
+        return maxHedgeThreads;
+    }
+}
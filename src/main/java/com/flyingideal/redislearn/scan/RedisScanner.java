@@ -0,0 +1,82 @@
+package com.flyingideal.redislearn.scan;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import redis.clients.jedis.Tuple;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 创建 {@link ScanIterator}，用于代替 keys / hgetAll / smembers / zrange 0 -1 遍历大 key 或整个库。
+ *
+ * <pre>
+ *     try (Stream&lt;Map.Entry&lt;String, String&gt;&gt; fields =
+ *              scanner.hash("person", new ScanOptions().count(500)).stream()) {
+ *         fields.forEach(...);
+ *     }
+ * </pre>
+ *
+ * @author yanchao
+ * @date 2026/10/17 18:40
+ */
+public class RedisScanner {
+
+    private static final AtomicInteger PREFETCH_THREADS = new AtomicInteger();
+
+    /**
+     * 默认的预取线程池，线程空闲 60 秒后回收
+     */
+    private static final ExecutorService DEFAULT_PREFETCH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "redis-scan-prefetch-" + PREFETCH_THREADS.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final JedisConnectionProvider provider;
+
+    private final Executor prefetchExecutor;
+
+    public RedisScanner(JedisConnectionProvider provider) {
+        this(provider, DEFAULT_PREFETCH_EXECUTOR);
+    }
+
+    public RedisScanner(JedisConnectionProvider provider, Executor prefetchExecutor) {
+        this.provider = provider;
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    /**
+     * SCAN，遍历整个库的 key
+     */
+    public ScanIterator<String> keys(ScanOptions options) {
+        return new ScanIterator<>(provider, (jedis, cursor, params) -> jedis.scan(cursor, params),
+                options, prefetchExecutor);
+    }
+
+    /**
+     * HSCAN
+     */
+    public ScanIterator<Map.Entry<String, String>> hash(String key, ScanOptions options) {
+        return new ScanIterator<>(provider, (jedis, cursor, params) -> jedis.hscan(key, cursor, params),
+                options, prefetchExecutor);
+    }
+
+    /**
+     * SSCAN
+     */
+    public ScanIterator<String> set(String key, ScanOptions options) {
+        return new ScanIterator<>(provider, (jedis, cursor, params) -> jedis.sscan(key, cursor, params),
+                options, prefetchExecutor);
+    }
+
+    /**
+     * ZSCAN，元素按 redis 内部顺序返回，不按 score 排序
+     */
+    public ScanIterator<Tuple> sortedSet(String key, ScanOptions options) {
+        return new ScanIterator<>(provider, (jedis, cursor, params) -> jedis.zscan(key, cursor, params),
+                options, prefetchExecutor);
+    }
+}
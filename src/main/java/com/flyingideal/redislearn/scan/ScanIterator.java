@@ -0,0 +1,143 @@
+package com.flyingideal.redislearn.scan;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 按游标遍历 SCAN / HSCAN / SSCAN / ZSCAN 的全部结果。
+ *
+ * 每次只在内存中保留当前页和预取的下一页，不会像 hgetAll / smembers 那样一次性把整个集合读入内存，
+ * 服务端每次也只遍历 COUNT 个左右的元素，不会长时间阻塞。每页单独从连接池借连接，页与页之间不占用连接。
+ *
+ * 开启预取时，拿到一页后立即在后台线程中请求下一页，与调用方消费当前页并行。
+ *
+ * 与 SCAN 命令的语义相同：遍历期间一直存在的元素至少返回一次，但可能重复返回。
+ *
+ * @author yanchao
+ * @date 2026/10/17 18:26
+ */
+public class ScanIterator<T> implements Iterator<T>, Closeable {
+
+    /**
+     * 请求一页数据，参数依次为连接、游标和扫描参数
+     */
+    @FunctionalInterface
+    interface PageFetcher<T> {
+
+        ScanResult<T> fetch(Jedis jedis, String cursor, ScanParams params);
+    }
+
+    private final JedisConnectionProvider provider;
+
+    private final PageFetcher<T> fetcher;
+
+    private final ScanParams params;
+
+    private final boolean prefetch;
+
+    private final Executor executor;
+
+    private Iterator<T> page = Collections.emptyIterator();
+
+    /**
+     * 下一页的游标，null 表示已经遍历完毕
+     */
+    private String nextCursor = ScanParams.SCAN_POINTER_START;
+
+    private CompletableFuture<ScanResult<T>> prefetched;
+
+    private long pages;
+
+    ScanIterator(JedisConnectionProvider provider, PageFetcher<T> fetcher, ScanOptions options, Executor executor) {
+        this.provider = provider;
+        this.fetcher = fetcher;
+        this.params = options.toScanParams();
+        this.prefetch = options.isPrefetch();
+        this.executor = executor;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext()) {
+            if (nextCursor == null) {
+                return false;
+            }
+            ScanResult<T> result = prefetched != null ? join(prefetched) : fetch(nextCursor);
+            prefetched = null;
+            pages++;
+            String cursor = result.getStringCursor();
+            nextCursor = ScanParams.SCAN_POINTER_START.equals(cursor) ? null : cursor;
+            if (nextCursor != null && prefetch) {
+                String prefetchCursor = nextCursor;
+                prefetched = CompletableFuture.supplyAsync(() -> fetch(prefetchCursor), executor);
+            }
+            page = result.getResult().iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    /**
+     * @return 已经取回的页数
+     */
+    public long getPages() {
+        return pages;
+    }
+
+    /**
+     * 以 Stream 的形式遍历，Stream 关闭时同时关闭该迭代器
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    /**
+     * 提前结束遍历，丢弃已经预取的页
+     */
+    @Override
+    public void close() {
+        nextCursor = null;
+        page = Collections.emptyIterator();
+        if (prefetched != null) {
+            prefetched.cancel(false);
+            prefetched = null;
+        }
+    }
+
+    private ScanResult<T> fetch(String cursor) {
+        return provider.execute(jedis -> fetcher.fetch(jedis, cursor, params));
+    }
+
+    private static <T> ScanResult<T> join(CompletableFuture<ScanResult<T>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.flyingideal.redislearn.scan;
+
+import redis.clients.jedis.ScanParams;
+
+/**
+ * SCAN 系列命令的参数
+ *
+ * @author yanchao
+ * @date 2026/10/17 18:20
+ */
+public class ScanOptions {
+
+    /**
+     * 与 redis 的默认值相同
+     */
+    private int count = 10;
+
+    private String match;
+
+    private boolean prefetch = true;
+
+    /**
+     * 每次 SCAN 期望返回的元素数，只是提示，redis 可能多返回或少返回
+     */
+    public ScanOptions count(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        this.count = count;
+        return this;
+    }
+
+    /**
+     * glob 风格的过滤条件，在服务端返回前过滤，不会减少服务端遍历的元素数
+     */
+    public ScanOptions match(String match) {
+        this.match = match;
+        return this;
+    }
+
+    /**
+     * 消费当前页时是否在后台线程中提前获取下一页
+     */
+    public ScanOptions prefetch(boolean prefetch) {
+        this.prefetch = prefetch;
+        return this;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public String getMatch() {
+        return match;
+    }
+
+    public boolean isPrefetch() {
+        return prefetch;
+    }
+
+    ScanParams toScanParams() {
+        ScanParams params = new ScanParams().count(count);
+        if (match != null) {
+            params.match(match);
+        }
+        return params;
+    }
+}
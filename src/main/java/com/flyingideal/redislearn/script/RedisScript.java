@@ -0,0 +1,66 @@
+package com.flyingideal.redislearn.script;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * 一段 Lua 脚本及其 SHA1。
+ *
+ * 执行时先 EVALSHA，只发送 40 字节的摘要；服务端还没有缓存这段脚本（首次执行、重启或 SCRIPT FLUSH 之后）
+ * 返回 NOSCRIPT 时再用 EVAL 发送全文，EVAL 同时会把脚本缓存到服务端。
+ *
+ * @author yanchao
+ * @date 2026/10/18 09:40
+ */
+public final class RedisScript {
+
+    private final String source;
+
+    private final String sha1;
+
+    public RedisScript(String source) {
+        this.source = source;
+        this.sha1 = sha1(source);
+    }
+
+    public Object eval(Jedis jedis, List<String> keys, List<String> args) {
+        try {
+            return jedis.evalsha(sha1, keys, args);
+        } catch (JedisNoScriptException e) {
+            return jedis.eval(source, keys, args);
+        }
+    }
+
+    /**
+     * 把脚本缓存到服务端；pipeline 中无法在收到 NOSCRIPT 后重发，需要先调用这个方法再在 pipeline 中 EVALSHA
+     */
+    public void load(Jedis jedis) {
+        jedis.scriptLoad(source);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getSha1() {
+        return sha1;
+    }
+
+    private static String sha1(String source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(source.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(40);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.flyingideal.redislearn.setop;
+
+import com.flyingideal.redislearn.cluster.HashTags;
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import com.flyingideal.redislearn.scan.RedisScanner;
+import com.flyingideal.redislearn.scan.ScanIterator;
+import com.flyingideal.redislearn.scan.ScanOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 在客户端计算 SetTest 中的 sinter / sunion / sdiff 及对应的 store 命令。
+ *
+ * 服务端的 SINTER 等命令在单线程中执行，几百万元素的集合运算会阻塞其他所有客户端几百毫秒。
+ * 这里用 SSCAN 分页读入各个集合（每页只占用服务端很短的时间），整数集合保存为 {@link IntHashSet}，
+ * 在 fork-join 线程池中并行计算，需要时再用 pipeline 分批 SADD 写回。
+ *
+ * 三种运算都归结为对某个集合的并行过滤：
+ * <ul>
+ *     <li>交集：最小的集合中被其他所有集合包含的元素</li>
+ *     <li>并集：第 i 个集合中不被前 i - 1 个集合包含的元素，各部分互不重复，直接拼接</li>
+ *     <li>差集：第一个集合中不被其他任何集合包含的元素</li>
+ * </ul>
+ *
+ * 与服务端命令不同，读取期间集合被修改时结果不是某一时刻的快照，SSCAN 的语义保证读取期间一直存在的元素都会被读到。
+ *
+ * @author yanchao
+ * @date 2026/10/18 16:40
+ */
+public class ClientSetAlgebra {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientSetAlgebra.class);
+
+    /**
+     * 一条 SADD 最多携带的元素个数
+     */
+    private static final int SADD_BATCH = 1000;
+
+    /**
+     * 每发送多少条 SADD 读取一次响应，避免响应在输入缓冲区中堆积
+     */
+    private static final int SYNC_BATCHES = 100;
+
+    private final JedisConnectionProvider provider;
+
+    private final RedisScanner scanner;
+
+    private final ForkJoinPool pool;
+
+    private final int scanCount;
+
+    public ClientSetAlgebra(JedisConnectionProvider provider) {
+        this(provider, ForkJoinPool.commonPool(), 1000);
+    }
+
+    /**
+     * @param pool      读取和计算所在的线程池，每个 key 的读取占用一个线程
+     * @param scanCount 每次 SSCAN 的 COUNT
+     */
+    public ClientSetAlgebra(JedisConnectionProvider provider, ForkJoinPool pool, int scanCount) {
+        this.provider = provider;
+        this.scanner = new RedisScanner(provider);
+        this.pool = pool;
+        this.scanCount = scanCount;
+    }
+
+    public SetResult sinter(String... keys) {
+        return compute(SetOperation.INTER, keys);
+    }
+
+    public SetResult sunion(String... keys) {
+        return compute(SetOperation.UNION, keys);
+    }
+
+    public SetResult sdiff(String... keys) {
+        return compute(SetOperation.DIFF, keys);
+    }
+
+    /**
+     * @return 结果集合的元素个数，结果为空时删除 destination
+     */
+    public long sinterstore(String destination, String... keys) {
+        return store(destination, sinter(keys));
+    }
+
+    public long sunionstore(String destination, String... keys) {
+        return store(destination, sunion(keys));
+    }
+
+    public long sdiffstore(String destination, String... keys) {
+        return store(destination, sdiff(keys));
+    }
+
+    private SetResult compute(SetOperation operation, String... keys) {
+        if (keys.length == 0) {
+            throw new IllegalArgumentException("at least one key is required");
+        }
+        long start = System.nanoTime();
+        List<LoadedSet> sets = pool.submit(() -> Arrays.stream(keys).parallel()
+                .map(this::load)
+                .collect(Collectors.toList())).join();
+        long loaded = System.nanoTime();
+        SetResult result = pool.submit(() -> compute(operation, sets)).join();
+        if (logger.isDebugEnabled()) {
+            logger.debug("{} of {} keys: {} members, load {} ms, compute {} ms", operation, keys.length,
+                    result.size(), (loaded - start) / 1_000_000, (System.nanoTime() - loaded) / 1_000_000);
+        }
+        return result;
+    }
+
+    /**
+     * 对已经读入本地的集合做运算，结果与 keys 的读取方式无关。
+     * 在调用线程所在的 fork-join 线程池中并行计算，不在 fork-join 线程中调用时使用公共线程池
+     *
+     * @param sets 与命令中的 key 顺序相同，至少一个
+     */
+    public static SetResult compute(SetOperation operation, List<LoadedSet> sets) {
+        if (sets.isEmpty()) {
+            throw new IllegalArgumentException("at least one set is required");
+        }
+        return sets.stream().allMatch(LoadedSet::isIntegers)
+                ? SetResult.ofInts(computeInts(operation, sets))
+                : SetResult.ofStrings(computeStrings(operation, sets));
+    }
+
+    private LoadedSet load(String key) {
+        LoadedSet set = new LoadedSet();
+        try (ScanIterator<String> members = scanner.set(key, new ScanOptions().count(scanCount))) {
+            while (members.hasNext()) {
+                set.add(members.next());
+            }
+        }
+        return set;
+    }
+
+    private static int[] computeInts(SetOperation operation, List<LoadedSet> sets) {
+        switch (operation) {
+            case INTER:
+                List<LoadedSet> bySize = new ArrayList<>(sets);
+                bySize.sort(Comparator.comparingInt(LoadedSet::size));
+                List<LoadedSet> others = bySize.subList(1, bySize.size());
+                return IntStream.of(bySize.get(0).intValues()).parallel()
+                        .filter(value -> others.stream().allMatch(set -> set.contains(value)))
+                        .toArray();
+            case UNION:
+                List<int[]> parts = new ArrayList<>(sets.size());
+                int total = 0;
+                for (int i = 0; i < sets.size(); i++) {
+                    List<LoadedSet> previous = sets.subList(0, i);
+                    int[] part = IntStream.of(sets.get(i).intValues()).parallel()
+                            .filter(value -> previous.stream().noneMatch(set -> set.contains(value)))
+                            .toArray();
+                    parts.add(part);
+                    total += part.length;
+                }
+                int[] union = new int[total];
+                int offset = 0;
+                for (int[] part : parts) {
+                    System.arraycopy(part, 0, union, offset, part.length);
+                    offset += part.length;
+                }
+                return union;
+            default:
+                List<LoadedSet> rest = sets.subList(1, sets.size());
+                return IntStream.of(sets.get(0).intValues()).parallel()
+                        .filter(value -> rest.stream().noneMatch(set -> set.contains(value)))
+                        .toArray();
+        }
+    }
+
+    private static String[] computeStrings(SetOperation operation, List<LoadedSet> sets) {
+        switch (operation) {
+            case INTER:
+                List<LoadedSet> bySize = new ArrayList<>(sets);
+                bySize.sort(Comparator.comparingInt(LoadedSet::size));
+                List<LoadedSet> others = bySize.subList(1, bySize.size());
+                return Stream.of(bySize.get(0).values()).parallel()
+                        .filter(member -> others.stream().allMatch(set -> set.contains(member)))
+                        .toArray(String[]::new);
+            case UNION:
+                List<String> union = new ArrayList<>();
+                for (int i = 0; i < sets.size(); i++) {
+                    List<LoadedSet> previous = sets.subList(0, i);
+                    union.addAll(Stream.of(sets.get(i).values()).parallel()
+                            .filter(member -> previous.stream().noneMatch(set -> set.contains(member)))
+                            .collect(Collectors.toList()));
+                }
+                return union.toArray(new String[0]);
+            default:
+                List<LoadedSet> rest = sets.subList(1, sets.size());
+                return Stream.of(sets.get(0).values()).parallel()
+                        .filter(member -> rest.stream().noneMatch(set -> set.contains(member)))
+                        .toArray(String[]::new);
+        }
+    }
+
+    /**
+     * 先写入临时 key 再 RENAME，destination 只在最后一刻被整体替换，读者不会看到写了一半的结果
+     */
+    private long store(String destination, SetResult result) {
+        String temp = tempKey(destination);
+        try (Jedis jedis = provider.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            int batches = 0;
+            for (int from = 0; from < result.size(); from += SADD_BATCH) {
+                String[] members = new String[Math.min(SADD_BATCH, result.size() - from)];
+                for (int i = 0; i < members.length; i++) {
+                    members[i] = result.get(from + i);
+                }
+                pipeline.sadd(temp, members);
+                if (++batches % SYNC_BATCHES == 0) {
+                    pipeline.sync();
+                }
+            }
+            if (result.size() == 0) {
+                pipeline.del(destination);
+            } else {
+                pipeline.rename(temp, destination);
+            }
+            pipeline.sync();
+        } catch (RuntimeException e) {
+            deleteQuietly(temp, e);
+            throw e;
+        }
+        return result.size();
+    }
+
+    private void deleteQuietly(String key, RuntimeException cause) {
+        try (Jedis jedis = provider.getResource()) {
+            jedis.del(key);
+        } catch (RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * 临时 key 与目标 key 在同一个 slot，集群模式下 RENAME 不会跨 slot
+     */
+    private static String tempKey(String destination) {
+        return HashTags.colocated(destination, ":setop:" + UUID.randomUUID());
+    }
+}
@@ -0,0 +1,118 @@
+package com.flyingideal.redislearn.setop;
+
+/**
+ * 开放寻址（线性探测）的 int 集合，每个元素只占 int[] 中的一个槽位，
+ * 装载因子不超过 0.5，内存约为 HashSet&lt;String&gt; 的十分之一。
+ *
+ * 0 作为空槽位的标记，元素 0 单独用一个标志位记录。只支持添加，不支持删除；
+ * 构建完成后的并发读是安全的，构建过程不是线程安全的。
+ *
+ * @author yanchao
+ * @date 2026/10/18 16:10
+ */
+final class IntHashSet {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] table;
+
+    private int mask;
+
+    private int size;
+
+    private boolean containsZero;
+
+    IntHashSet() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    IntHashSet(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2L && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        table = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * @return 元素原来不存在时返回 true
+     */
+    boolean add(int value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int slot = slot(value);
+        while (table[slot] != 0) {
+            if (table[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+        if (++size * 2 > table.length) {
+            resize();
+        }
+        return true;
+    }
+
+    boolean contains(int value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int slot = slot(value);
+        while (table[slot] != 0) {
+            if (table[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int[] toArray() {
+        int[] values = new int[size];
+        int i = 0;
+        if (containsZero) {
+            values[i++] = 0;
+        }
+        for (int value : table) {
+            if (value != 0) {
+                values[i++] = value;
+            }
+        }
+        return values;
+    }
+
+    private void resize() {
+        int[] old = table;
+        table = new int[old.length * 2];
+        mask = table.length - 1;
+        for (int value : old) {
+            if (value != 0) {
+                int slot = slot(value);
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = value;
+            }
+        }
+    }
+
+    /**
+     * 连续的整数 id 直接取低位会聚集在一起，先用黄金分割常数打散
+     */
+    private int slot(int value) {
+        int hash = value * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
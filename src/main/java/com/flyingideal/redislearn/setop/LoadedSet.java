@@ -0,0 +1,102 @@
+package com.flyingideal.redislearn.setop;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 从 redis 读入本地的一个集合。
+ *
+ * 与 redis 的 intset 编码类似，只要所有元素都是规范的 32 位十进制整数就保存在 {@link IntHashSet} 中，
+ * 遇到第一个非整数元素时整体转为 HashSet&lt;String&gt;。"007"、"+1"、"-0" 等与 Integer.toString 结果不同的
+ * 字符串不算整数，保证转换后写回 redis 的元素与原来完全相同。
+ *
+ * 集合由调用方读入：{@link ClientSetAlgebra} 从单个 redis 读取，
+ * {@link com.flyingideal.redislearn.cluster.ClusterClient} 从集群的各个节点读取。
+ *
+ * @author yanchao
+ * @date 2026/10/18 16:20
+ */
+public final class LoadedSet {
+
+    private IntHashSet ints = new IntHashSet();
+
+    private Set<String> strings;
+
+    public void add(String member) {
+        if (strings == null) {
+            if (isInteger(member)) {
+                ints.add(Integer.parseInt(member));
+                return;
+            }
+            strings = new HashSet<>(ints.size() * 2);
+            for (int value : ints.toArray()) {
+                strings.add(Integer.toString(value));
+            }
+            ints = null;
+        }
+        strings.add(member);
+    }
+
+    boolean isIntegers() {
+        return strings == null;
+    }
+
+    public int size() {
+        return strings == null ? ints.size() : strings.size();
+    }
+
+    boolean contains(int value) {
+        return strings == null ? ints.contains(value) : strings.contains(Integer.toString(value));
+    }
+
+    boolean contains(String member) {
+        if (strings == null) {
+            return isInteger(member) && ints.contains(Integer.parseInt(member));
+        }
+        return strings.contains(member);
+    }
+
+    int[] intValues() {
+        if (strings != null) {
+            throw new IllegalStateException("set contains non-integer members");
+        }
+        return ints.toArray();
+    }
+
+    String[] values() {
+        if (strings != null) {
+            return strings.toArray(new String[0]);
+        }
+        int[] values = ints.toArray();
+        String[] members = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            members[i] = Integer.toString(values[i]);
+        }
+        return members;
+    }
+
+    /**
+     * @return member 是否为 Integer.toString 能原样生成的字符串
+     */
+    static boolean isInteger(String member) {
+        int length = member.length();
+        boolean negative = length > 0 && member.charAt(0) == '-';
+        int start = negative ? 1 : 0;
+        if (length == start || length - start > 10) {
+            return false;
+        }
+        // 不允许前导 0，单独的 "0" 除外，"-0" 也不允许
+        if (member.charAt(start) == '0' && (length - start > 1 || negative)) {
+            return false;
+        }
+        long value = 0;
+        for (int i = start; i < length; i++) {
+            char c = member.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value >= Integer.MIN_VALUE : value <= Integer.MAX_VALUE;
+    }
+}
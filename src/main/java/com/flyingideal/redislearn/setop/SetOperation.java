@@ -0,0 +1,11 @@
+package com.flyingideal.redislearn.setop;
+
+/**
+ * 在客户端计算的集合运算：SINTER / SUNION / SDIFF
+ *
+ * @author yanchao
+ * @date 2026/10/19 11:40
+ */
+public enum SetOperation {
+    INTER, UNION, DIFF
+}
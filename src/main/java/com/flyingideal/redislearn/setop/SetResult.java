@@ -0,0 +1,68 @@
+package com.flyingideal.redislearn.setop;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * {@link ClientSetAlgebra} 的计算结果，元素互不重复，顺序没有意义。
+ *
+ * 参与运算的集合都是整数集合时结果保存为 int[]，否则保存为 String[]。
+ *
+ * @author yanchao
+ * @date 2026/10/18 16:30
+ */
+public final class SetResult {
+
+    private final int[] ints;
+
+    private final String[] strings;
+
+    private SetResult(int[] ints, String[] strings) {
+        this.ints = ints;
+        this.strings = strings;
+    }
+
+    static SetResult ofInts(int[] values) {
+        return new SetResult(values, null);
+    }
+
+    static SetResult ofStrings(String[] members) {
+        return new SetResult(null, members);
+    }
+
+    public int size() {
+        return ints != null ? ints.length : strings.length;
+    }
+
+    public boolean isIntegers() {
+        return ints != null;
+    }
+
+    /**
+     * @return 第 index 个元素
+     */
+    public String get(int index) {
+        return ints != null ? Integer.toString(ints[index]) : strings[index];
+    }
+
+    /**
+     * @throws IllegalStateException 结果不是整数集合
+     */
+    public int[] intValues() {
+        if (ints == null) {
+            throw new IllegalStateException("result contains non-integer members");
+        }
+        return ints;
+    }
+
+    /**
+     * 转为与 jedis.sinter 等相同的返回类型，元素较多时内存开销较大
+     */
+    public Set<String> toSet() {
+        Set<String> members = new HashSet<>(size() * 2);
+        for (int i = 0; i < size(); i++) {
+            members.add(get(i));
+        }
+        return members;
+    }
+}
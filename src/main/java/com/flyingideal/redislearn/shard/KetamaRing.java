@@ -0,0 +1,113 @@
+package com.flyingideal.redislearn.shard;
+
+import com.flyingideal.redislearn.cluster.HashTags;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * ketama 一致性哈希环：每个节点取 MD5(name-i) 的 16 个字节拆成 4 个 32 位的点，共 160 个虚拟节点；
+ * key 取 MD5 的前 4 个字节，顺时针找到的第一个点所属的节点负责这个 key。
+ * 增加一个节点时只有约 1/n 的 key 换到新节点上，其余 key 的位置不变。
+ *
+ * key 带 hash tag 时只用 tag 计算位置（与 {@link HashTags} 相同），相关的 key 落在同一个节点上。
+ * 不可变，增删节点时创建新的环。
+ *
+ * @author yanchao
+ * @date 2026/10/18 22:30
+ */
+public final class KetamaRing {
+
+    static final int POINTS_PER_NODE = 160;
+
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final List<String> nodes;
+
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+
+    public KetamaRing(Collection<String> nodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("at least one node is required");
+        }
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+        for (String node : this.nodes) {
+            for (int i = 0; i < POINTS_PER_NODE / 4; i++) {
+                byte[] digest = md5(node + "-" + i);
+                for (int h = 0; h < 4; h++) {
+                    points.put(point(digest, h), node);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 增加一个节点后的新环
+     */
+    public KetamaRing with(String node) {
+        if (nodes.contains(node)) {
+            throw new IllegalArgumentException("node already exists: " + node);
+        }
+        List<String> expanded = new ArrayList<>(nodes);
+        expanded.add(node);
+        return new KetamaRing(expanded);
+    }
+
+    public String nodeFor(String key) {
+        String tag = HashTags.tagOf(key);
+        long hash = point(md5(tag != null ? tag : key), 0);
+        Map.Entry<Long, String> entry = points.ceilingEntry(hash);
+        return (entry != null ? entry : points.firstEntry()).getValue();
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return 每个节点负责的哈希空间比例，理想情况下都是 1/n
+     */
+    public Map<String, Double> shares() {
+        Map<String, Double> shares = new LinkedHashMap<>();
+        for (String node : nodes) {
+            shares.put(node, 0.0);
+        }
+        long previous = points.lastKey() - (1L << 32);
+        for (Map.Entry<Long, String> entry : points.entrySet()) {
+            shares.merge(entry.getValue(), (entry.getKey() - previous) / (double) (1L << 32), Double::sum);
+            previous = entry.getKey();
+        }
+        return shares;
+    }
+
+    private static byte[] md5(String value) {
+        MessageDigest digest = MD5.get();
+        digest.reset();
+        return digest.digest(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 与 libketama 相同，按小端序取第 h 组 4 个字节
+     */
+    private static long point(byte[] digest, int h) {
+        return ((long) (digest[3 + h * 4] & 0xff) << 24)
+                | ((long) (digest[2 + h * 4] & 0xff) << 16)
+                | ((long) (digest[1 + h * 4] & 0xff) << 8)
+                | (digest[h * 4] & 0xff);
+    }
+}
@@ -0,0 +1,56 @@
+package com.flyingideal.redislearn.shard;
+
+/**
+ * 一个分片的负载快照
+ *
+ * @author yanchao
+ * @date 2026/10/18 22:35
+ */
+public class ShardLoad {
+
+    private final String shard;
+
+    private final long operations;
+
+    private final long keys;
+
+    private final double ringShare;
+
+    public ShardLoad(String shard, long operations, long keys, double ringShare) {
+        this.shard = shard;
+        this.operations = operations;
+        this.keys = keys;
+        this.ringShare = ringShare;
+    }
+
+    public String getShard() {
+        return shard;
+    }
+
+    /**
+     * @return 发往这个分片的 key 操作次数，批量命令按 key 个数计
+     */
+    public long getOperations() {
+        return operations;
+    }
+
+    /**
+     * @return DBSIZE
+     */
+    public long getKeys() {
+        return keys;
+    }
+
+    /**
+     * @return 在哈希环上负责的比例
+     */
+    public double getRingShare() {
+        return ringShare;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ShardLoad{shard=%s, operations=%d, keys=%d, ringShare=%.3f}",
+                shard, operations, keys, ringShare);
+    }
+}
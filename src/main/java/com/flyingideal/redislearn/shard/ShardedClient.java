@@ -0,0 +1,788 @@
+package com.flyingideal.redislearn.shard;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import com.flyingideal.redislearn.pool.RedisConnectionProperties;
+import com.flyingideal.redislearn.scan.RedisScanner;
+import com.flyingideal.redislearn.scan.ScanIterator;
+import com.flyingideal.redislearn.scan.ScanOptions;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 客户端分片：用 {@link KetamaRing} 把 key 分布到多个独立的 redis 上，单 key 命令发往负责它的分片，
+ * 多 key 读（MGET、跨 key 的 HMGET、SUNION）按分片拆分后并行执行再合并结果。
+ *
+ * 扩容：{@link #addShard} 切换到包含新分片的环后，扫描原有分片，把换了位置的 key 逐个搬到新分片
+ * （旧分片上 MULTI 执行 DUMP + PTTL，新分片上 MULTI 执行 DEL + RESTORE，再从旧分片删除）。
+ * 搬迁期间访问一个换了位置的 key 之前先搬迁它，因此读写不受影响。
+ *
+ * 多个实例共用一组分片：环保存在每个分片的 {@value #RING_KEY} 中（版本号、分片名到地址、搬迁中的旧环），
+ * 每个实例每隔 refreshMillis 读取一次，版本更新时切换到新的环，并为其他实例增加的分片建立连接。
+ * 扩容的实例写入新的环后等待两个周期才开始搬迁，此时所有实例都已按新环读写、按需搬迁；
+ * 同一个 key 的搬迁用旧分片上的锁在实例之间互斥。与分片断开超过两个周期、读不到新环的实例仍按旧环访问，
+ * 可能读不到已经搬走的 key。{@value #RESERVED_PREFIX} 开头的 key 留给分片自己使用。
+ *
+ * 搬迁失败时保持搬迁状态（按需搬迁继续生效），任何实例都可以用 {@link #resumeRebalance()} 继续。
+ * DUMP 一次读出整个 key，大 key 需要先拆分。
+ *
+ * @author yanchao
+ * @date 2026/10/18 22:40
+ */
+public class ShardedClient implements MeterBinder, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedClient.class);
+
+    public static final long DEFAULT_REFRESH_MILLIS = 1000;
+
+    static final String RESERVED_PREFIX = "__shard__:";
+
+    /**
+     * 共享的环，每个分片上保存一份
+     */
+    static final String RING_KEY = RESERVED_PREFIX + "ring";
+
+    private static final String MOVE_LOCK_PREFIX = RESERVED_PREFIX + "moving:";
+
+    /**
+     * 搬迁锁的过期时间，只在持有锁的实例中途崩溃时起作用
+     */
+    private static final int MOVE_LOCK_MILLIS = 30_000;
+
+    private static final int MOVE_LOCKS = 64;
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final Map<String, JedisConnectionProvider> shards = new ConcurrentHashMap<>();
+
+    /**
+     * 根据共享的环中的地址建立的连接，由本实例关闭
+     */
+    private final List<JedisConnectionProvider> connected = new CopyOnWriteArrayList<>();
+
+    private final List<MeterRegistry> registries = new CopyOnWriteArrayList<>();
+
+    private final Map<String, LongAdder> operations = new ConcurrentHashMap<>();
+
+    /**
+     * 读写在读锁内确定分片并执行，切换环时加写锁，保证切换之后不会有按旧环执行的命令
+     */
+    private final ReentrantReadWriteLock topologyLock = new ReentrantReadWriteLock();
+
+    private final ReentrantLock[] moveLocks = new ReentrantLock[MOVE_LOCKS];
+
+    private final ExecutorService executor;
+
+    private final ScheduledExecutorService refresher;
+
+    private final long refreshMillis;
+
+    /**
+     * 搬迁锁的值
+     */
+    private final String clientId = UUID.randomUUID().toString();
+
+    private final LongAdder movedKeys = new LongAdder();
+
+    private volatile KetamaRing ring;
+
+    /**
+     * 搬迁期间的旧环，没有在搬迁时为 null
+     */
+    private volatile KetamaRing previous;
+
+    /**
+     * 本实例使用的环的版本，0 表示还没有共享的环
+     */
+    private volatile long epoch;
+
+    /**
+     * @param shards 分片名到连接，分片名决定 key 的位置，更换地址时保持名称不变
+     */
+    public ShardedClient(Map<String, JedisConnectionProvider> shards) {
+        this(shards, 4);
+    }
+
+    public ShardedClient(Map<String, JedisConnectionProvider> shards, int threads) {
+        this(shards, threads, DEFAULT_REFRESH_MILLIS);
+    }
+
+    /**
+     * @param refreshMillis 读取共享的环的周期，扩容时开始搬迁前等待两个周期
+     */
+    public ShardedClient(Map<String, JedisConnectionProvider> shards, int threads, long refreshMillis) {
+        if (refreshMillis <= 0) {
+            throw new IllegalArgumentException("refreshMillis must be positive: " + refreshMillis);
+        }
+        for (String shard : shards.keySet()) {
+            checkName(shard);
+        }
+        this.shards.putAll(shards);
+        for (String shard : shards.keySet()) {
+            operations.put(shard, new LongAdder());
+        }
+        for (int i = 0; i < MOVE_LOCKS; i++) {
+            moveLocks[i] = new ReentrantLock();
+        }
+        this.ring = new KetamaRing(shards.keySet());
+        this.refreshMillis = refreshMillis;
+        // 其他实例可能已经扩容过或者正在扩容
+        refresh();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "redis-shard-gather-" + THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-shard-refresh-" + THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 在负责 key 的分片上执行单 key 命令
+     */
+    public <T> T execute(String key, Function<Jedis, T> command) {
+        topologyLock.readLock().lock();
+        try {
+            String shard = locate(key);
+            operations.get(shard).increment();
+            return shards.get(shard).execute(command);
+        } finally {
+            topologyLock.readLock().unlock();
+        }
+    }
+
+    public String get(String key) {
+        return execute(key, jedis -> jedis.get(key));
+    }
+
+    public String set(String key, String value) {
+        return execute(key, jedis -> jedis.set(key, value));
+    }
+
+    public Map<String, String> hgetAll(String key) {
+        return execute(key, jedis -> jedis.hgetAll(key));
+    }
+
+    public Set<String> smembers(String key) {
+        return execute(key, jedis -> jedis.smembers(key));
+    }
+
+    /**
+     * @return 与 keys 顺序相同，不存在的 key 为 null
+     */
+    public List<String> mget(String... keys) {
+        Map<String, String> values = scatter(Arrays.asList(keys), (jedis, shardKeys) -> {
+            List<String> shardValues = jedis.mget(shardKeys.toArray(new String[0]));
+            Map<String, String> result = new HashMap<>(shardKeys.size() * 2);
+            for (int i = 0; i < shardKeys.size(); i++) {
+                result.put(shardKeys.get(i), shardValues.get(i));
+            }
+            return result;
+        }, (merged, part) -> {
+            merged.putAll(part);
+            return merged;
+        }, new HashMap<>());
+        List<String> result = new ArrayList<>(keys.length);
+        for (String key : keys) {
+            result.add(values.get(key));
+        }
+        return result;
+    }
+
+    /**
+     * 对多个 hash 执行 HMGET，每个分片一个 pipeline
+     *
+     * @return key 到与 fields 顺序相同的值，按 keys 的顺序
+     */
+    public Map<String, List<String>> hmget(List<String> keys, String... fields) {
+        Map<String, List<String>> values = scatter(keys, (jedis, shardKeys) -> {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<List<String>>> responses = new ArrayList<>(shardKeys.size());
+            for (String key : shardKeys) {
+                responses.add(pipeline.hmget(key, fields));
+            }
+            pipeline.sync();
+            Map<String, List<String>> result = new HashMap<>(shardKeys.size() * 2);
+            for (int i = 0; i < shardKeys.size(); i++) {
+                result.put(shardKeys.get(i), responses.get(i).get());
+            }
+            return result;
+        }, (merged, part) -> {
+            merged.putAll(part);
+            return merged;
+        }, new HashMap<>());
+        Map<String, List<String>> result = new LinkedHashMap<>(keys.size() * 2);
+        for (String key : keys) {
+            result.put(key, values.get(key));
+        }
+        return result;
+    }
+
+    /**
+     * 每个分片先对自己的 key 执行 SUNION，再在客户端合并
+     */
+    public Set<String> sunion(String... keys) {
+        return scatter(Arrays.asList(keys), (jedis, shardKeys) -> jedis.sunion(shardKeys.toArray(new String[0])),
+                (merged, part) -> {
+                    merged.addAll(part);
+                    return merged;
+                }, new HashSet<>());
+    }
+
+    /**
+     * 增加一个分片并把换了位置的 key 搬到新分片上，期间所有实例都可以正常读写
+     *
+     * @return 搬迁的 key 个数
+     * @throws IllegalStateException 上一次扩容还没有完成，或者其他实例正在扩容
+     */
+    public synchronized long addShard(String name, JedisConnectionProvider provider) {
+        checkName(name);
+        refresh();
+        if (previous != null) {
+            throw new IllegalStateException("rebalance in progress, call resumeRebalance() first");
+        }
+        if (shards.containsKey(name)) {
+            throw new IllegalArgumentException("shard " + name + " already exists");
+        }
+        KetamaRing current = ring;
+        long expected = epoch;
+        // 只有一个实例的 HSETNX 能成功，由它负责这次扩容，搬迁完成时写入的环没有 previous
+        String nodes = String.join(",", current.getNodes());
+        long stored = shards.get(home()).execute(jedis -> {
+            if (jedis.hsetnx(RING_KEY, "previous", nodes) == 0) {
+                return -1L;
+            }
+            String value = jedis.hget(RING_KEY, "epoch");
+            return value == null ? 0 : Long.parseLong(value);
+        });
+        if (stored < 0) {
+            throw new IllegalStateException("another client is rebalancing the shards");
+        }
+        if (stored != expected) {
+            shards.get(home()).execute(jedis -> jedis.hdel(RING_KEY, "previous"));
+            throw new IllegalStateException("shard ring changed by another client, retry addShard");
+        }
+        topologyLock.writeLock().lock();
+        try {
+            addProvider(name, provider);
+            previous = current;
+            ring = current.with(name);
+            epoch = expected + 1;
+        } finally {
+            topologyLock.writeLock().unlock();
+        }
+        logger.info("adding shard {}, ring epoch {}", name, epoch);
+        return rebalance();
+    }
+
+    /**
+     * 继续上一次失败的扩容，可以由任何实例执行，没有未完成的扩容时返回 0
+     *
+     * @return 搬迁的 key 个数
+     */
+    public synchronized long resumeRebalance() {
+        refresh();
+        return previous == null ? 0 : rebalance();
+    }
+
+    /**
+     * 写入新的环，等其他实例切换后扫描旧环上的每个分片并搬迁换了位置的 key，
+     * 全部完成并写入没有旧环的环之后才退出搬迁状态；失败时保持搬迁状态，没有搬走的 key 仍然在访问时按需搬迁
+     */
+    private long rebalance() {
+        publish(new RingState(epoch, addresses(), previous.getNodes()));
+        // 在此之前其他实例可能还在按旧环读写旧分片，搬走的 key 会被它们当作不存在
+        try {
+            TimeUnit.MILLISECONDS.sleep(2 * refreshMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted before moving keys, call resumeRebalance()", e);
+        }
+        long start = System.nanoTime();
+        long moved = 0;
+        for (String shard : previous.getNodes()) {
+            moved += migrate(shard);
+        }
+        RingState done = new RingState(epoch + 1, addresses(), null);
+        publish(done);
+        topologyLock.writeLock().lock();
+        try {
+            previous = null;
+            epoch = done.epoch;
+        } finally {
+            topologyLock.writeLock().unlock();
+        }
+        logger.info("rebalanced onto {}, moved {} keys in {} ms", ring.getNodes(), moved,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return moved;
+    }
+
+    /**
+     * @return 各分片的负载，按环上的节点顺序
+     */
+    public List<ShardLoad> getLoad() {
+        KetamaRing current = ring;
+        Map<String, Double> shares = current.shares();
+        List<ShardLoad> load = new ArrayList<>(shares.size());
+        for (Map.Entry<String, Double> share : shares.entrySet()) {
+            String shard = share.getKey();
+            long keys = shards.get(shard).execute(jedis -> {
+                Pipeline pipeline = jedis.pipelined();
+                Response<Long> size = pipeline.dbSize();
+                Response<Boolean> shared = pipeline.exists(RING_KEY);
+                pipeline.sync();
+                return size.get() - (shared.get() ? 1 : 0);
+            });
+            load.add(new ShardLoad(shard, operations.get(shard).sum(), keys, share.getValue()));
+        }
+        return load;
+    }
+
+    /**
+     * 各分片 key 个数的直方图，每个 # 约为最大分片的 1/40
+     */
+    public String loadHistogram() {
+        List<ShardLoad> load = getLoad();
+        long max = 1;
+        int width = 1;
+        for (ShardLoad shard : load) {
+            max = Math.max(max, shard.getKeys());
+            width = Math.max(width, shard.getShard().length());
+        }
+        StringBuilder histogram = new StringBuilder();
+        for (ShardLoad shard : load) {
+            int bar = (int) Math.round(40.0 * shard.getKeys() / max);
+            histogram.append(String.format("%-" + width + "s %8d keys %10d ops %5.1f%% ring |", shard.getShard(),
+                    shard.getKeys(), shard.getOperations(), shard.getRingShare() * 100));
+            for (int i = 0; i < bar; i++) {
+                histogram.append('#');
+            }
+            histogram.append('\n');
+        }
+        return histogram.toString();
+    }
+
+    public long getMovedKeys() {
+        return movedKeys.sum();
+    }
+
+    /**
+     * @return 本实例是否处于搬迁状态，其他实例开始的扩容在下一次读取共享的环之后可见
+     */
+    public boolean isRebalancing() {
+        return previous != null;
+    }
+
+    /**
+     * @return 本实例使用的环的版本
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * 之后增加的分片也会注册到 registry
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        topologyLock.writeLock().lock();
+        try {
+            registries.add(registry);
+            for (String shard : ring.getNodes()) {
+                bindShard(registry, shard);
+            }
+        } finally {
+            topologyLock.writeLock().unlock();
+        }
+        FunctionCounter.builder("redis.shard.moved.keys", this, ShardedClient::getMovedKeys).register(registry);
+    }
+
+    /**
+     * 构造时传入的分片和 {@link #addShard} 传入的分片由调用方关闭，从共享的环中得知的分片由本实例关闭
+     */
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+        executor.shutdown();
+        connected.forEach(JedisConnectionProvider::close);
+    }
+
+    private void bindShard(MeterRegistry registry, String shard) {
+        FunctionCounter.builder("redis.shard.operations", operations.get(shard), LongAdder::sum)
+                .tag("shard", shard).register(registry);
+        Gauge.builder("redis.shard.ring.share", this, client -> client.ring.shares().getOrDefault(shard, 0.0))
+                .tag("shard", shard).register(registry);
+    }
+
+    /**
+     * 调用方持有写锁
+     */
+    private void addProvider(String name, JedisConnectionProvider provider) {
+        shards.put(name, provider);
+        operations.putIfAbsent(name, new LongAdder());
+        for (MeterRegistry registry : registries) {
+            bindShard(registry, name);
+        }
+    }
+
+    /**
+     * 读取共享的环的分片：环上名称最小的分片，新旧环上的实例读到的都是最新写入的环
+     */
+    private String home() {
+        return Collections.min(ring.getNodes());
+    }
+
+    /**
+     * 从分片读取共享的环，版本比本实例新时切换
+     */
+    private void refresh() {
+        RingState state = shards.get(home()).execute(jedis -> RingState.parse(jedis.hgetAll(RING_KEY)));
+        if (state != null && state.epoch > epoch) {
+            apply(state);
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (JedisException e) {
+            logger.warn("refresh shard ring failed: {}", e.getMessage());
+        }
+    }
+
+    private void apply(RingState state) {
+        topologyLock.writeLock().lock();
+        try {
+            if (state.epoch <= epoch) {
+                return;
+            }
+            for (Map.Entry<String, String> node : state.nodes.entrySet()) {
+                if (!shards.containsKey(node.getKey())) {
+                    addProvider(node.getKey(), connect(node.getValue()));
+                }
+            }
+            ring = new KetamaRing(state.nodes.keySet());
+            previous = state.previous == null ? null : new KetamaRing(state.previous);
+            epoch = state.epoch;
+        } finally {
+            topologyLock.writeLock().unlock();
+        }
+        logger.info("switched to shard ring epoch {} {}{}", state.epoch, state.nodes.keySet(),
+                state.previous == null ? "" : ", rebalancing from " + state.previous);
+    }
+
+    /**
+     * 把环写到它的每个分片上，先写原有的分片
+     */
+    private void publish(RingState state) {
+        Map<String, String> hash = state.toHash();
+        for (String shard : state.nodes.keySet()) {
+            shards.get(shard).execute(jedis -> {
+                Transaction transaction = jedis.multi();
+                transaction.del(RING_KEY);
+                transaction.hmset(RING_KEY, hash);
+                return transaction.exec();
+            });
+        }
+    }
+
+    /**
+     * @return 环上的分片名到 host:port/database
+     */
+    private Map<String, String> addresses() {
+        Map<String, String> addresses = new LinkedHashMap<>();
+        for (String shard : ring.getNodes()) {
+            RedisConnectionProperties properties = shards.get(shard).getProperties();
+            addresses.put(shard, properties.getHost() + ":" + properties.getPort() + "/" + properties.getDatabase());
+        }
+        return addresses;
+    }
+
+    /**
+     * 连接其他实例增加的分片，密码、超时和连接池大小与已有的分片相同
+     */
+    private JedisConnectionProvider connect(String address) {
+        RedisConnectionProperties base = shards.get(home()).getProperties();
+        int slash = address.lastIndexOf('/');
+        int colon = address.lastIndexOf(':', slash);
+        RedisConnectionProperties properties = new RedisConnectionProperties();
+        properties.setHost(address.substring(0, colon));
+        properties.setPort(Integer.parseInt(address.substring(colon + 1, slash)));
+        properties.setDatabase(Integer.parseInt(address.substring(slash + 1)));
+        properties.setPassword(base.getPassword());
+        properties.setConnectionTimeout(base.getConnectionTimeout());
+        properties.setSoTimeout(base.getSoTimeout());
+        properties.getPool().setMaxTotal(base.getPool().getMaxTotal());
+        properties.getPool().setMaxIdle(base.getPool().getMaxIdle());
+        properties.getPool().setMinIdle(base.getPool().getMinIdle());
+        properties.getPool().setMaxWaitMillis(base.getPool().getMaxWaitMillis());
+        properties.getMetrics().setEnabled(base.getMetrics().isEnabled());
+        JedisConnectionProvider provider = new JedisConnectionProvider(properties);
+        connected.add(provider);
+        return provider;
+    }
+
+    private static void checkName(String shard) {
+        if (shard.indexOf(',') >= 0 || shard.indexOf('=') >= 0) {
+            throw new IllegalArgumentException("shard name must not contain ',' or '=': " + shard);
+        }
+    }
+
+    /**
+     * 按分片分组后并行执行，只涉及一个分片时在调用线程中执行
+     */
+    private <R> R scatter(List<String> keys, BiFunction<Jedis, List<String>, R> command,
+                          BiFunction<R, R, R> merge, R identity) {
+        topologyLock.readLock().lock();
+        try {
+            Map<String, List<String>> byShard = new LinkedHashMap<>();
+            for (String key : new HashSet<>(keys)) {
+                byShard.computeIfAbsent(locate(key), shard -> new ArrayList<>()).add(key);
+            }
+            List<CompletableFuture<R>> futures = new ArrayList<>(byShard.size());
+            R result = identity;
+            for (Map.Entry<String, List<String>> entry : byShard.entrySet()) {
+                String shard = entry.getKey();
+                List<String> shardKeys = entry.getValue();
+                operations.get(shard).add(shardKeys.size());
+                if (byShard.size() == 1) {
+                    return merge.apply(result, shards.get(shard).execute(jedis -> command.apply(jedis, shardKeys)));
+                }
+                futures.add(CompletableFuture.supplyAsync(
+                        () -> shards.get(shard).execute(jedis -> command.apply(jedis, shardKeys)), executor));
+            }
+            try {
+                for (CompletableFuture<R> future : futures) {
+                    result = merge.apply(result, future.join());
+                }
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+            }
+            return result;
+        } finally {
+            topologyLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 调用方持有读锁。搬迁期间 key 换了位置时先把它从旧分片搬过来
+     */
+    private String locate(String key) {
+        String shard = ring.nodeFor(key);
+        KetamaRing old = previous;
+        if (old != null) {
+            String from = old.nodeFor(key);
+            if (!from.equals(shard)) {
+                move(key, from, shard);
+            }
+        }
+        return shard;
+    }
+
+    private long migrate(String shard) {
+        long moved = 0;
+        JedisConnectionProvider provider = shards.get(shard);
+        try (ScanIterator<String> keys = new RedisScanner(provider).keys(new ScanOptions().count(500))) {
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (key.startsWith(RESERVED_PREFIX)) {
+                    continue;
+                }
+                String target = ring.nodeFor(key);
+                if (!target.equals(shard) && move(key, shard, target)) {
+                    moved++;
+                }
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * 只有 move 会把旧分片上的 key 写到新分片，而新分片上的读写都在 move 之后，
+     * 因此旧分片上还有这个 key 时它是最新的；新分片上可能有上一次失败的搬迁留下的副本，RESTORE 前先删除。
+     * 先写新分片再删除旧分片，旧分片上没有这个 key 时不需要加锁；否则在旧分片上加锁，同时读出 DUMP，
+     * 等待其他实例搬迁完成的线程拿到锁后读到的是空的 DUMP
+     *
+     * @return 是否搬迁了这个 key
+     */
+    private boolean move(String key, String from, String to) {
+        ReentrantLock lock = moveLocks[(key.hashCode() & Integer.MAX_VALUE) % MOVE_LOCKS];
+        lock.lock();
+        try {
+            JedisConnectionProvider source = shards.get(from);
+            if (!source.execute(jedis -> jedis.exists(key))) {
+                return false;
+            }
+            String lockKey = MOVE_LOCK_PREFIX + key;
+            Dump dump;
+            while ((dump = source.execute(jedis -> claim(jedis, key, lockKey))) == null) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+            boolean released = false;
+            try {
+                if (dump.payload == null) {
+                    return false;
+                }
+                Dump claimed = dump;
+                shards.get(to).execute(jedis -> {
+                    Transaction transaction = jedis.multi();
+                    transaction.del(key);
+                    Response<String> restored = transaction.restore(key, claimed.ttl(), claimed.payload);
+                    transaction.exec();
+                    return restored.get();
+                });
+                source.execute(jedis -> jedis.del(key, lockKey));
+                released = true;
+                movedKeys.increment();
+                return true;
+            } finally {
+                if (!released) {
+                    unlockQuietly(source, lockKey);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 锁被其他实例持有时为 null，否则为 DUMP 的结果，key 不存在时 payload 为 null
+     */
+    private Dump claim(Jedis jedis, String key, String lockKey) {
+        Transaction transaction = jedis.multi();
+        Response<String> locked = transaction.set(lockKey, clientId, "NX", "PX", MOVE_LOCK_MILLIS);
+        Response<byte[]> payload = transaction.dump(key);
+        Response<Long> pttl = transaction.pttl(key);
+        transaction.exec();
+        return locked.get() == null ? null : new Dump(payload.get(), pttl.get());
+    }
+
+    private void unlockQuietly(JedisConnectionProvider source, String lockKey) {
+        try {
+            source.execute(jedis -> jedis.del(lockKey));
+        } catch (JedisException e) {
+            logger.warn("release move lock {} failed, it expires in {} ms: {}", lockKey, MOVE_LOCK_MILLIS,
+                    e.getMessage());
+        }
+    }
+
+    private static final class Dump {
+
+        /**
+         * key 不存在时为 null
+         */
+        final byte[] payload;
+
+        /**
+         * PTTL 的结果，-1 表示没有过期时间
+         */
+        final long pttl;
+
+        Dump(byte[] payload, long pttl) {
+            this.payload = payload;
+            this.pttl = pttl;
+        }
+
+        /**
+         * @return RESTORE 的 ttl 参数，0 表示不过期；即将过期的 key 保留 1ms 而不是变成永久
+         */
+        int ttl() {
+            return pttl < 0 ? 0 : (int) Math.max(1, Math.min(pttl, Integer.MAX_VALUE));
+        }
+    }
+
+    /**
+     * 保存在每个分片上的环：epoch 每次切换加一；nodes 为分片名到 host:port/database，按环上的顺序；
+     * previous 为搬迁中的旧环的分片名，没有在搬迁时为 null
+     */
+    private static final class RingState {
+
+        final long epoch;
+
+        final Map<String, String> nodes;
+
+        final List<String> previous;
+
+        RingState(long epoch, Map<String, String> nodes, List<String> previous) {
+            this.epoch = epoch;
+            this.nodes = nodes;
+            this.previous = previous;
+        }
+
+        /**
+         * @return 还没有写入过环时为 null
+         */
+        static RingState parse(Map<String, String> hash) {
+            String epoch = hash.get("epoch");
+            String nodes = hash.get("nodes");
+            if (epoch == null || nodes == null) {
+                return null;
+            }
+            Map<String, String> addresses = new LinkedHashMap<>();
+            for (String node : nodes.split(",")) {
+                int eq = node.indexOf('=');
+                addresses.put(node.substring(0, eq), node.substring(eq + 1));
+            }
+            String previous = hash.get("previous");
+            return new RingState(Long.parseLong(epoch), addresses,
+                    previous == null ? null : Arrays.asList(previous.split(",")));
+        }
+
+        Map<String, String> toHash() {
+            StringBuilder value = new StringBuilder();
+            for (Map.Entry<String, String> node : nodes.entrySet()) {
+                if (value.length() > 0) {
+                    value.append(',');
+                }
+                value.append(node.getKey()).append('=').append(node.getValue());
+            }
+            Map<String, String> hash = new HashMap<>();
+            hash.put("epoch", String.valueOf(epoch));
+            hash.put("nodes", value.toString());
+            if (previous != null) {
+                hash.put("previous", String.join(",", previous));
+            }
+            return hash;
+        }
+    }
+}
@@ -1,16 +1,36 @@
 package com.flyingideal.redislearn;
 
+import com.flyingideal.redislearn.embedded.EmbeddedRedisServer;
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
+import redis.clients.jedis.Jedis;
 
 @RunWith(SpringRunner.class)
-@SpringBootTest
+@SpringBootTest(properties = "redis.embedded=true")
 public class RedisLearnApplicationTests {
 
+	@Autowired
+	private EmbeddedRedisServer embeddedRedisServer;
+
+	@Autowired
+	private JedisConnectionProvider jedisConnectionProvider;
+
 	@Test
 	public void contextLoads() {
 	}
 
+	@Test
+	public void embeddedFlagStartsServerForThePool() {
+		Assert.assertTrue(embeddedRedisServer.isRunning());
+		try (Jedis jedis = jedisConnectionProvider.getResource()) {
+			Assert.assertEquals(embeddedRedisServer.getPort(), jedis.getClient().getPort());
+			Assert.assertEquals("PONG", jedis.ping());
+		}
+	}
+
 }
@@ -0,0 +1,82 @@
+package com.flyingideal.redislearn.approx;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ApproximateSetTests {
+
+    @ClassRule
+    public static final EmbeddedRedis redis = new EmbeddedRedis();
+
+    @Test
+    public void cardinalityAndMembershipAreApproximate() {
+        ApproximateSet visitors = new ApproximateSet(redis.getProvider(), "visitors", 20_000, 0.01);
+        List<String> members = members(0, 20_000);
+        visitors.addAll(members);
+        // 重复写入不影响基数
+        visitors.addAll(members.subList(0, 5000));
+
+        Assert.assertEquals(20_000, visitors.cardinality(), 20_000 * 0.03);
+        for (boolean contained : visitors.mightContainAll(members)) {
+            Assert.assertTrue(contained);
+        }
+        int falsePositives = 0;
+        for (boolean contained : visitors.mightContainAll(members(100_000, 110_000))) {
+            if (contained) {
+                falsePositives++;
+            }
+        }
+        Assert.assertTrue("false positives: " + falsePositives, falsePositives < 10_000 * 0.03);
+        Assert.assertEquals(20_000, visitors.getBloomFilter().approximateElementCount(), 20_000 * 0.03);
+        Assert.assertTrue(visitors.storedBytes() < 20_000 * 2 + 20 * 1024);
+    }
+
+    @Test
+    public void unionAndIntersectionMirrorSetOperations() {
+        ApproximateSet monday = new ApproximateSet(redis.getProvider(), "monday", 20_000, 0.01);
+        ApproximateSet tuesday = new ApproximateSet(redis.getProvider(), "tuesday", 20_000, 0.01);
+        monday.addAll(members(0, 10_000));
+        tuesday.addAll(members(5000, 15_000));
+
+        Assert.assertEquals(15_000, ApproximateSet.unionCardinality(monday, tuesday), 15_000 * 0.03);
+        Assert.assertEquals(5000, ApproximateSet.intersectionCardinality(monday, tuesday), 5000 * 0.15);
+
+        ApproximateSet both = ApproximateSet.unionStore("monday-tuesday", monday, tuesday);
+        Assert.assertEquals(15_000, both.cardinality(), 15_000 * 0.03);
+        Assert.assertTrue(both.mightContain("member0"));
+        Assert.assertTrue(both.mightContain("member14999"));
+
+        both.delete();
+        Assert.assertEquals(0, both.cardinality());
+        Assert.assertFalse(both.mightContain("member0"));
+    }
+
+    @Test
+    public void reopeningWithDifferentBloomParametersIsRejected() {
+        ApproximateSet created = new ApproximateSet(redis.getProvider(), "reopen", 10_000, 0.01);
+        created.add("member0");
+        Assert.assertTrue(new ApproximateSet(redis.getProvider(), "reopen", 10_000, 0.01).mightContain("member0"));
+        try {
+            new ApproximateSet(redis.getProvider(), "reopen", 1000, 0.01);
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+            Assert.assertTrue(expected.getMessage().contains(created.getBloomFilter().getBitSize() + ":"));
+        }
+
+        created.delete();
+        Assert.assertEquals(0, new ApproximateSet(redis.getProvider(), "reopen", 1000, 0.01).cardinality());
+    }
+
+    private static List<String> members(int from, int to) {
+        List<String> members = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            members.add("member" + i);
+        }
+        return members;
+    }
+}
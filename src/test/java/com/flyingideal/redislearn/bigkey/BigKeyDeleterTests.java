@@ -0,0 +1,88 @@
+package com.flyingideal.redislearn.bigkey;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BigKeyDeleterTests {
+
+    private static final AtomicInteger unlinkCalls = new AtomicInteger();
+
+    @ClassRule
+    public static final EmbeddedRedis redis = new EmbeddedRedis();
+
+    @BeforeClass
+    public static void setUp() {
+        redis.getServer().registerScript("return redis.call('UNLINK', KEYS[1])", call -> {
+            unlinkCalls.incrementAndGet();
+            return call.call("UNLINK", call.key(0));
+        });
+    }
+
+    @Test
+    public void deletesEveryTypeProgressively() throws InterruptedException {
+        try (Jedis jedis = redis.getProvider().getResource();
+             BigKeyDeleter deleter = new BigKeyDeleter(redis.getProvider(), 1_000_000, 100, 4, false)) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < 3000; i++) {
+                pipeline.hset("big:hash", "field" + i, "value");
+                pipeline.sadd("big:set", "member" + i);
+                pipeline.zadd("big:zset", i, "member" + i);
+                pipeline.rpush("big:list", "item" + i);
+            }
+            pipeline.set("big:string", "value");
+            pipeline.sync();
+
+            long removed = deleter.deleteAll(Arrays.asList("big:hash", "big:set", "big:zset", "big:list",
+                    "big:string", "missing"));
+            Assert.assertEquals(4 * 3000 + 1, removed);
+            Assert.assertTrue(jedis.keys("big:*").isEmpty());
+            Assert.assertEquals(5, deleter.getDeletedKeys());
+            Assert.assertEquals(0, deleter.getUnlinkedKeys());
+        }
+    }
+
+    @Test
+    public void sharedBudgetPacesDeletion() throws InterruptedException {
+        try (Jedis jedis = redis.getProvider().getResource();
+             BigKeyDeleter deleter = new BigKeyDeleter(redis.getProvider(), 10_000, 100, 2, false)) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < 1000; i++) {
+                pipeline.sadd("paced:a", "member" + i);
+                pipeline.sadd("paced:b", "member" + i);
+            }
+            pipeline.sync();
+
+            long start = System.nanoTime();
+            Assert.assertEquals(2000, deleter.deleteAll(Arrays.asList("paced:a", "paced:b")));
+            // 两个 key 至少 20 批，首批不等待，10000 ops/s 下不少于 0.19 秒
+            Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+        }
+    }
+
+    @Test
+    public void unlinksWhenServerSupportsIt() throws InterruptedException {
+        try (Jedis jedis = redis.getProvider().getResource();
+             BigKeyDeleter deleter = new BigKeyDeleter(redis.getProvider())) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < 1000; i++) {
+                pipeline.rpush("unlink:list", "item" + i);
+            }
+            pipeline.sync();
+
+            int calls = unlinkCalls.get();
+            Assert.assertEquals(1000, deleter.delete("unlink:list"));
+            Assert.assertEquals(calls + 1, unlinkCalls.get());
+            Assert.assertFalse(jedis.exists("unlink:list"));
+            Assert.assertEquals(1, deleter.getUnlinkedKeys());
+        }
+    }
+}
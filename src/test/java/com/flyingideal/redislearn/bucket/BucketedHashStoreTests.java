@@ -0,0 +1,71 @@
+package com.flyingideal.redislearn.bucket;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class BucketedHashStoreTests {
+
+    @ClassRule
+    public static final EmbeddedRedis redis = new EmbeddedRedis();
+
+    @Test
+    public void entitiesSharingABucketStaySeparate() {
+        BucketedHashStore store = new BucketedHashStore(redis.getProvider(), "person", 1);
+        store.hmset("1", person("zhangsan", "20"));
+        store.hmset("11", person("lisi", "30"));
+        Assert.assertEquals(1, store.hset("1", "sex", "male"));
+
+        Assert.assertEquals("zhangsan", store.hget("1", "name"));
+        Assert.assertEquals(Arrays.asList("lisi", "30", null), store.hmget("11", "name", "age", "sex"));
+        Map<String, String> first = person("zhangsan", "20");
+        first.put("sex", "male");
+        Assert.assertEquals(first, store.hgetAll("1"));
+
+        Assert.assertEquals(1, store.hdel("1", "sex"));
+        Assert.assertEquals(2, store.delete("1"));
+        Assert.assertTrue(store.hgetAll("1").isEmpty());
+        Assert.assertEquals(person("lisi", "30"), store.hgetAll("11"));
+    }
+
+    @Test
+    public void batchOperationsKeepBucketsCompact() {
+        int entities = 2000;
+        int buckets = BucketedHashStore.bucketsFor(entities, 2, BucketedHashStore.DEFAULT_MAX_ZIPLIST_ENTRIES);
+        BucketedHashStore store = new BucketedHashStore(redis.getProvider(), "batch", buckets);
+        Map<String, Map<String, String>> all = new LinkedHashMap<>();
+        for (int i = 0; i < entities; i++) {
+            all.put(Integer.toString(i), person("name" + i, Integer.toString(i % 100)));
+        }
+        store.hmsetBatch(all);
+
+        Assert.assertEquals(all, store.hgetAllBatch(all.keySet()));
+        Map<String, String> names = store.hgetBatch(Arrays.asList("7", "1999", "missing"), "name");
+        Assert.assertEquals(2, names.size());
+        Assert.assertEquals("name1999", names.get("1999"));
+
+        long fields = 0;
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            for (String bucket : store.bucketKeys()) {
+                long size = jedis.hlen(bucket);
+                Assert.assertTrue(size <= BucketedHashStore.DEFAULT_MAX_ZIPLIST_ENTRIES);
+                fields += size;
+            }
+        }
+        Assert.assertEquals(entities * 2, fields);
+    }
+
+    private static Map<String, String> person(String name, String age) {
+        Map<String, String> person = new HashMap<>();
+        person.put("name", name);
+        person.put("age", age);
+        return person;
+    }
+}
@@ -0,0 +1,94 @@
+package com.flyingideal.redislearn.cache;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+public class NearCacheTests {
+
+    @ClassRule
+    public static final EmbeddedRedis redis = new EmbeddedRedis();
+
+    @Test
+    public void writesFromOtherClientsInvalidateLocalCopies() throws Exception {
+        try (Jedis writer = redis.getProvider().getResource()) {
+            // 初始值在订阅之前写入，否则这两次写入的通知可能晚于下面的读取到达，多算失效次数
+            writer.set("config:mode", "blue");
+            writer.hset("config:limits", "qps", "100");
+        }
+        try (NearCache cache = new NearCache(redis.getProvider(), "config",
+                new NearCacheOptions().probeIntervalMillis(50));
+             Jedis writer = redis.getProvider().getResource()) {
+            Assert.assertTrue(cache.isSubscribed());
+            Assert.assertEquals("blue", cache.get("config:mode"));
+            Assert.assertEquals("blue", cache.get("config:mode"));
+            Assert.assertEquals("100", cache.hget("config:limits", "qps"));
+            Assert.assertNull(cache.hget("config:limits", "burst"));
+            Assert.assertNull(cache.hget("config:limits", "burst"));
+            Assert.assertEquals(Collections.singletonMap("qps", "100"), cache.hgetAll("config:limits"));
+            Assert.assertEquals(2, cache.getHits());
+            Assert.assertEquals(4, cache.getMisses());
+
+            writer.set("config:mode", "green");
+            writer.hset("config:limits", "burst", "20");
+            await(() -> cache.getInvalidations() == 2);
+            Assert.assertEquals("green", cache.get("config:mode"));
+            Assert.assertEquals("20", cache.hget("config:limits", "burst"));
+            Assert.assertEquals(2, cache.hgetAll("config:limits").size());
+
+            await(() -> cache.getLastInvalidationLagMicros() > 0);
+            Assert.assertTrue(cache.getInvalidationLagMicros().getTotalCount() > 0);
+        }
+    }
+
+    @Test
+    public void sizeIsBoundedAndFrequentKeysSurviveScans() throws Exception {
+        try (NearCache cache = new NearCache(redis.getProvider(), "bounded",
+                new NearCacheOptions().maximumSize(100).probeIntervalMillis(0))) {
+            for (int round = 0; round < 5; round++) {
+                for (int i = 0; i < 50; i++) {
+                    cache.get("hot:" + i);
+                }
+            }
+            for (int i = 0; i < 1000; i++) {
+                cache.get("scan:" + i);
+            }
+            Assert.assertTrue(cache.size() <= 100);
+            Assert.assertTrue(cache.getEvictions() >= 950);
+            long hits = cache.getHits();
+            for (int i = 0; i < 50; i++) {
+                cache.get("hot:" + i);
+            }
+            // 只访问过一次的 scan key 不能把访问过多次的 hot key 挤出去
+            Assert.assertTrue(cache.getHits() - hits >= 45);
+        }
+    }
+
+    @Test
+    public void entriesExpireAfterTtl() throws Exception {
+        try (NearCache cache = new NearCache(redis.getProvider(), "ttl",
+                new NearCacheOptions().ttlMillis(50).probeIntervalMillis(0))) {
+            cache.get("ttl:key");
+            cache.get("ttl:key");
+            Assert.assertEquals(1, cache.getHits());
+            TimeUnit.MILLISECONDS.sleep(80);
+            cache.get("ttl:key");
+            Assert.assertEquals(1, cache.getHits());
+            Assert.assertEquals(1, cache.getExpirations());
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue("condition not met in 5s", System.nanoTime() < deadline);
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.flyingideal.redislearn.cache;
+
+import com.flyingideal.redislearn.codec.Codecs;
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReadThroughCacheTests {
+
+    @ClassRule
+    public static final EmbeddedRedis redis = new EmbeddedRedis(properties -> properties.getPool().setMaxTotal(64));
+
+    @BeforeClass
+    public static void setUp() {
+        // 嵌入式服务端不能执行 Lua，注册与脚本等价的 java 实现
+        redis.getServer().registerScript(ReadThroughCache.RELEASE_MARKER.getSource(), call ->
+                call.arg(0).equals(call.call("GET", call.key(0))) ? call.call("DEL", call.key(0)) : 0L);
+    }
+
+    @Test
+    public void concurrentMissesLoadOnceAcrossInstances() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CacheLoader<String> loader = key -> {
+            loads.incrementAndGet();
+            TimeUnit.MILLISECONDS.sleep(200);
+            return "value of " + key;
+        };
+        // 两个实例模拟两个 JVM，只共享 redis 中的加载标记
+        List<ReadThroughCache<String>> caches = Arrays.asList(
+                new ReadThroughCache<>(redis.getProvider(), "stampede", Codecs.UTF8, loader),
+                new ReadThroughCache<>(redis.getProvider(), "stampede", Codecs.UTF8, loader));
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                ReadThroughCache<String> cache = caches.get(i % 2);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get("hot");
+                }));
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                Assert.assertEquals("value of hot", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(1, loads.get());
+        Assert.assertTrue(caches.get(0).getWaits() + caches.get(1).getWaits() <= 1);
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            Assert.assertFalse(jedis.exists("loading:stampede:hot"));
+        }
+    }
+
+    @Test
+    public void getAllLoadsOnlyMissingKeysWithJitteredTtl() {
+        List<Collection<String>> requested = new CopyOnWriteArrayList<>();
+        CacheLoader<String> loader = new CacheLoader<String>() {
+            @Override
+            public String load(String key) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Map<String, String> loadAll(Collection<String> keys) {
+                requested.add(new ArrayList<>(keys));
+                Map<String, String> values = new HashMap<>();
+                for (String key : keys) {
+                    if (!key.startsWith("absent")) {
+                        values.put(key, "loaded " + key);
+                    }
+                }
+                return values;
+            }
+        };
+        ReadThroughCache<String> cache = new ReadThroughCache<>(redis.getProvider(), "bulk", Codecs.UTF8, loader,
+                new CacheOptions().ttlMillis(10_000).jitter(0.2).beta(0));
+        cache.put("a", "cached a");
+
+        Map<String, String> values = cache.getAll(Arrays.asList("a", "b", "absent1", "c", "b"));
+        Assert.assertEquals(3, values.size());
+        Assert.assertEquals("cached a", values.get("a"));
+        Assert.assertEquals("loaded c", values.get("c"));
+        Assert.assertEquals(1, requested.size());
+        Assert.assertEquals(Arrays.asList("b", "absent1", "c"), requested.get(0));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(3, cache.getMisses());
+        Assert.assertEquals(1, cache.getLoads());
+
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            for (String key : Arrays.asList("bulk:a", "bulk:b", "bulk:c")) {
+                long ttl = jedis.pttl(key);
+                Assert.assertTrue(key + " ttl " + ttl, ttl > 7000 && ttl <= 12_000);
+            }
+            Assert.assertFalse(jedis.exists("bulk:absent1"));
+        }
+        Assert.assertEquals("loaded b", cache.get("b"));
+        Assert.assertEquals(1, requested.size());
+    }
+
+    @Test
+    public void slowLoadsAreRefreshedEarly() {
+        AtomicInteger loads = new AtomicInteger();
+        CacheLoader<Long> loader = key -> {
+            TimeUnit.MILLISECONDS.sleep(20);
+            return (long) loads.incrementAndGet();
+        };
+        // beta 很大时 delta * beta * -ln(rand) 几乎总是超过剩余的 TTL
+        ReadThroughCache<Long> eager = new ReadThroughCache<>(redis.getProvider(), "xfetch", Codecs.VAR_LONG, loader,
+                new CacheOptions().ttlMillis(60_000).beta(1_000_000));
+        Assert.assertEquals(1L, (long) eager.get("report"));
+        Assert.assertEquals(2L, (long) eager.get("report"));
+        Assert.assertEquals(1, eager.getEarlyRefreshes());
+
+        ReadThroughCache<Long> disabled = new ReadThroughCache<>(redis.getProvider(), "xfetch", Codecs.VAR_LONG, loader,
+                new CacheOptions().ttlMillis(60_000).beta(0));
+        Assert.assertEquals(2L, (long) disabled.get("report"));
+        Assert.assertEquals(0, disabled.getEarlyRefreshes());
+    }
+
+    @Test
+    public void markerTakenOverByAnotherLoaderIsNotDeleted() {
+        CacheLoader<String> loader = key -> {
+            // 加载超过 loadingTimeoutMillis，标记过期后被另一个 JVM 抢到
+            redis.getProvider().execute(jedis -> jedis.set("loading:takeover:" + key, "other", "XX", "PX", 60_000));
+            return "value of " + key;
+        };
+        ReadThroughCache<String> cache = new ReadThroughCache<>(redis.getProvider(), "takeover", Codecs.UTF8, loader);
+        Assert.assertEquals("value of hot", cache.get("hot"));
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            Assert.assertEquals("other", jedis.get("loading:takeover:hot"));
+            Assert.assertFalse(jedis.exists("takeover:hot:loading"));
+        }
+    }
+
+    @Test
+    public void failedEarlyRefreshServesCachedValue() {
+        AtomicInteger loads = new AtomicInteger();
+        CacheLoader<String> loader = key -> {
+            TimeUnit.MILLISECONDS.sleep(20);
+            if (loads.incrementAndGet() > 1) {
+                throw new IllegalStateException("data source unavailable");
+            }
+            return "value of " + key;
+        };
+        ReadThroughCache<String> cache = new ReadThroughCache<>(redis.getProvider(), "refresh", Codecs.UTF8, loader,
+                new CacheOptions().ttlMillis(60_000).beta(1_000_000));
+        Assert.assertEquals("value of report", cache.get("report"));
+        Assert.assertEquals("value of report", cache.get("report"));
+        Assert.assertEquals(2, loads.get());
+        Assert.assertEquals(1, cache.getEarlyRefreshes());
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            Assert.assertFalse(jedis.exists("loading:refresh:report"));
+        }
+    }
+
+    @Test
+    public void getAllRefreshesEarlySeparatelyFromMisses() {
+        List<Collection<String>> requested = new CopyOnWriteArrayList<>();
+        CacheLoader<String> loader = new CacheLoader<String>() {
+            @Override
+            public String load(String key) throws Exception {
+                TimeUnit.MILLISECONDS.sleep(20);
+                return "value of " + key;
+            }
+
+            @Override
+            public Map<String, String> loadAll(Collection<String> keys) {
+                requested.add(new ArrayList<>(keys));
+                if (keys.contains("report")) {
+                    throw new IllegalStateException("data source unavailable");
+                }
+                Map<String, String> values = new HashMap<>();
+                for (String key : keys) {
+                    values.put(key, "loaded " + key);
+                }
+                return values;
+            }
+        };
+        ReadThroughCache<String> cache = new ReadThroughCache<>(redis.getProvider(), "batchRefresh", Codecs.UTF8,
+                loader, new CacheOptions().ttlMillis(60_000).beta(1_000_000));
+        Assert.assertEquals("value of report", cache.get("report"));
+
+        Map<String, String> values = cache.getAll(Arrays.asList("report", "fresh"));
+        Assert.assertEquals("value of report", values.get("report"));
+        Assert.assertEquals("loaded fresh", values.get("fresh"));
+        Assert.assertEquals(Arrays.asList(Collections.singletonList("fresh"), Collections.singletonList("report")),
+                requested);
+        Assert.assertEquals(1, cache.getEarlyRefreshes());
+    }
+}
@@ -0,0 +1,132 @@
+package com.flyingideal.redislearn.cluster;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedisCluster;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.ZParams;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+public class ClusterClientTests {
+
+    private static EmbeddedRedisCluster redisCluster;
+
+    private static ClusterClient client;
+
+    @BeforeClass
+    public static void setUp() {
+        redisCluster = new EmbeddedRedisCluster(3).start();
+        client = new ClusterClient(Collections.singleton(
+                new HostAndPort(redisCluster.getHost(), redisCluster.getPorts().get(0))));
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        client.close();
+        redisCluster.close();
+    }
+
+    @Test
+    public void embeddedNodesRejectForeignAndCrossSlotKeys() {
+        String key = "user:1";
+        try (Jedis owner = new Jedis(redisCluster.getHost(), redisCluster.nodeFor(key).getPort())) {
+            Assert.assertEquals(HashTags.slot(key), (long) owner.clusterKeySlot(key));
+            Assert.assertEquals("OK", owner.set(HashTags.tagged(key, "a"), "1"));
+            try {
+                owner.mget(key, "user:2", "user:3");
+                Assert.fail("keys in different slots must be rejected");
+            } catch (JedisDataException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("CROSSSLOT"));
+            }
+        }
+    }
+
+    @Test
+    public void multiKeyCommandsAreSplitBySlotAndReassembledInOrder() {
+        List<String> keysvalues = new ArrayList<>();
+        String[] keys = new String[200];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "mkey:" + i;
+            keysvalues.add(keys[i]);
+            keysvalues.add("value" + i);
+        }
+        client.mset(keysvalues.toArray(new String[0]));
+        Assert.assertEquals("value42", client.getCluster().get("mkey:42"));
+
+        String[] withMissing = Arrays.copyOf(keys, keys.length + 1);
+        withMissing[keys.length] = "mkey:missing";
+        List<String> values = client.mget(withMissing);
+        for (int i = 0; i < keys.length; i++) {
+            Assert.assertEquals("value" + i, values.get(i));
+        }
+        Assert.assertNull(values.get(keys.length));
+
+        Assert.assertEquals(keys.length, client.del(withMissing));
+        Assert.assertNull(client.getCluster().get("mkey:42"));
+        Assert.assertEquals(0, client.getRedirects());
+    }
+
+    @Test
+    public void hashTagsColocateKeys() {
+        String profile = HashTags.tagged("user:7", "profile");
+        String orders = HashTags.tagged("user:7", "orders");
+        Assert.assertEquals("{user:7}:profile", profile);
+        Assert.assertEquals("user:7", HashTags.tagOf(orders));
+        Assert.assertNull(HashTags.tagOf("plain{}key"));
+        Assert.assertTrue(HashTags.sameSlot(profile, orders, HashTags.colocated(profile, ":tmp")));
+        Assert.assertEquals(HashTags.slot("plain"), HashTags.slot(HashTags.colocated("plain", ":tmp")));
+        // 包一层花括号会让 tag 变成 odd{ 或 odd}key{，slot 随之改变
+        for (String odd : Arrays.asList("odd{}key", "odd}key{", "odd{", "}odd")) {
+            Assert.assertEquals(odd, HashTags.slot(odd), HashTags.slot(HashTags.colocated(odd, ":tmp")));
+        }
+    }
+
+    @Test
+    public void crossSlotSetOperationsRunClientSide() {
+        client.getCluster().sadd("tags:a", "1", "2", "3", "4");
+        client.getCluster().sadd("tags:b", "3", "4", "5");
+        client.getCluster().sadd("tags:c", "4", "6");
+        Assert.assertFalse(HashTags.sameSlot("tags:a", "tags:b", "tags:c"));
+
+        Assert.assertEquals(new HashSet<>(Collections.singletonList("4")), client.sinter("tags:a", "tags:b", "tags:c"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("1", "2")), client.sdiff("tags:a", "tags:b", "tags:c"));
+        Assert.assertEquals(6, client.sunionstore("tags:all", "tags:a", "tags:b", "tags:c"));
+        Assert.assertEquals(6, (long) client.getCluster().scard("tags:all"));
+        Assert.assertEquals(0, client.sinterstore("tags:all", "tags:a", "tags:missing"));
+        Assert.assertFalse(client.getCluster().exists("tags:all"));
+
+        String left = HashTags.tagged("pair", "left");
+        String right = HashTags.tagged("pair", "right");
+        client.getCluster().sadd(left, "x", "y");
+        client.getCluster().sadd(right, "y");
+        Assert.assertEquals(1, client.sinterstore(HashTags.tagged("pair", "both"), left, right));
+        Assert.assertEquals(6, client.sunionstore("odd{}all", "tags:a", "tags:b", "tags:c"));
+        Assert.assertEquals(6, (long) client.getCluster().scard("odd{}all"));
+    }
+
+    @Test
+    public void crossSlotZSetOperationsRunClientSide() {
+        client.getCluster().zadd("score:math", 90, "alice");
+        client.getCluster().zadd("score:math", 70, "bob");
+        client.getCluster().zadd("score:art", 60, "alice");
+        client.getCluster().zadd("score:art", 80, "carol");
+
+        Assert.assertEquals(3, client.zunionstore("score:total", new double[]{1, 2}, ZParams.Aggregate.SUM,
+                "score:math", "score:art"));
+        Assert.assertEquals(210, client.getCluster().zscore("score:total", "alice"), 0);
+        Assert.assertEquals(160, client.getCluster().zscore("score:total", "carol"), 0);
+
+        Assert.assertEquals(1, client.zinterstore("score:best", new double[]{1, 1}, ZParams.Aggregate.MAX,
+                "score:math", "score:art"));
+        Assert.assertEquals(90, client.getCluster().zscore("score:best", "alice"), 0);
+    }
+}
@@ -0,0 +1,115 @@
+package com.flyingideal.redislearn.codec;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+public class CodecTests {
+
+    private static final RecordCodec<Person> PERSON = RecordCodec.builder(Person::new)
+            .field("name", Codecs.UTF8, Person::getName, Person::setName)
+            .field("age", Codecs.VAR_INT, Person::getAge, Person::setAge)
+            .field("male", Codecs.BOOLEAN, Person::getMale, Person::setMale)
+            .build();
+
+    @ClassRule
+    public static final EmbeddedRedis redis = new EmbeddedRedis();
+
+    @Test
+    public void varLongRoundTripsAtBoundaries() {
+        long[] values = {0, 1, -1, 63, -64, 64, 127, 128, Integer.MAX_VALUE, Integer.MIN_VALUE,
+                System.currentTimeMillis(), Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long value : values) {
+            Assert.assertEquals(value, (long) Codecs.VAR_LONG.decode(Codecs.VAR_LONG.encode(value)));
+            Assert.assertEquals(value, (long) Codecs.FIXED_LONG.decode(Codecs.FIXED_LONG.encode(value)));
+        }
+        Assert.assertEquals(1, Codecs.VAR_LONG.encode(-64L).length);
+        Assert.assertEquals(2, Codecs.VAR_LONG.encode(64L).length);
+        Assert.assertEquals(10, Codecs.VAR_LONG.encode(Long.MIN_VALUE).length);
+    }
+
+    @Test
+    public void utf8MatchesStringEncoding() {
+        String[] values = {"", "zhangsan", "张三", "emoji 😀", "broken \uD800 surrogate", "߿ࠀ￿"};
+        for (String value : values) {
+            Assert.assertArrayEquals(value, value.getBytes(StandardCharsets.UTF_8), Codecs.UTF8.encode(value));
+        }
+    }
+
+    @Test
+    public void recordRoundTripIsSmallerThanStrings() {
+        CodecTemplate template = new CodecTemplate(redis.getProvider());
+        Person person = new Person();
+        person.setName("zhangsan");
+        person.setAge(18);
+        person.setMale(true);
+        template.putRecord("codec:person", person, PERSON);
+
+        Person loaded = template.getRecord("codec:person", PERSON);
+        Assert.assertEquals("zhangsan", loaded.getName());
+        Assert.assertEquals(Integer.valueOf(18), loaded.getAge());
+        Assert.assertEquals(Boolean.TRUE, loaded.getMale());
+        Assert.assertNull(template.getRecord("codec:missing", PERSON));
+
+        Map<String, String> strings = new HashMap<>();
+        strings.put("name", "zhangsan");
+        strings.put("age", "18");
+        strings.put("male", "true");
+        int stringBytes = 0;
+        for (Map.Entry<String, String> entry : strings.entrySet()) {
+            stringBytes += entry.getValue().getBytes(StandardCharsets.UTF_8).length;
+        }
+        int codecBytes = 0;
+        for (byte[] value : PERSON.encode(person).values()) {
+            codecBytes += value.length;
+        }
+        Assert.assertTrue(codecBytes + " < " + stringBytes, codecBytes < stringBytes);
+
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            // 与 String 重载读写的数据互通
+            Assert.assertEquals("zhangsan", jedis.hget("codec:person", "name"));
+        }
+        template.set("codec:counter", 300L, Codecs.VAR_LONG);
+        Assert.assertEquals(Long.valueOf(300), template.get("codec:counter", Codecs.VAR_LONG));
+        Assert.assertNull(template.get("codec:absent", Codecs.VAR_LONG));
+    }
+
+    public static class Person {
+
+        private String name;
+
+        private Integer age;
+
+        private Boolean male;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Integer getAge() {
+            return age;
+        }
+
+        public void setAge(Integer age) {
+            this.age = age;
+        }
+
+        public Boolean getMale() {
+            return male;
+        }
+
+        public void setMale(Boolean male) {
+            this.male = male;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.flyingideal.redislearn.codec;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class CompressingCodecTests {
+
+    @ClassRule
+    public static final EmbeddedRedis redis = new EmbeddedRedis();
+
+    @Test
+    public void lz4RoundTripsAllShapes() {
+        Random random = new Random(42);
+        int[] sizes = {0, 1, 12, 13, 64, 1000, 65_536 + 17, 200_000};
+        for (int size : sizes) {
+            byte[] randomBytes = new byte[size];
+            random.nextBytes(randomBytes);
+            byte[] runs = new byte[size];
+            Arrays.fill(runs, (byte) 'a');
+            byte[] text = new byte[size];
+            byte[] words = "the quick brown fox jumps over the lazy dog ".getBytes();
+            for (int i = 0; i < size; i++) {
+                text[i] = (i % 997 < 3) ? (byte) random.nextInt() : words[i % words.length];
+            }
+            for (byte[] input : Arrays.asList(randomBytes, runs, text)) {
+                byte[] compressed = new byte[Lz4.maxCompressedLength(size)];
+                int length = Lz4.compress(input, 0, size, compressed, 0);
+                Assert.assertArrayEquals("size " + size, input, Lz4.decompress(compressed, 0, length, size));
+            }
+        }
+    }
+
+    @Test
+    public void largeValuesAreCompressedAndSmallOnesStayPlain() {
+        CompressionMetrics metrics = new CompressionMetrics("test");
+        Codec<String> codec = new CompressingCodec<>(Codecs.UTF8, 1024, metrics);
+        CodecTemplate template = new CodecTemplate(redis.getProvider());
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < 40_000) {
+            builder.append("Hello Jedis! append 第").append(builder.length()).append("次; ");
+        }
+        String large = builder.toString();
+
+        template.set("compress:large", large, codec);
+        template.set("compress:small", "Hello", codec);
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            Assert.assertTrue(jedis.strlen("compress:large") < large.length() / 3);
+            // 小于阈值的 value 与 String 重载写入的完全相同
+            Assert.assertEquals("Hello", jedis.get("compress:small"));
+            jedis.append("compress:small", " Jedis!");
+            jedis.set("compress:legacy", large);
+        }
+        Assert.assertEquals(large, template.get("compress:large", codec));
+        Assert.assertEquals("Hello Jedis!", template.get("compress:small", codec));
+        Assert.assertEquals(large, template.get("compress:legacy", codec));
+
+        Assert.assertEquals(large, template.getSet("compress:large", "replaced", codec));
+        template.setex("compress:ttl", 60, large, codec);
+        template.hset("compress:hash", "body", large, codec);
+        Assert.assertEquals(large, template.hget("compress:hash", "body", codec));
+
+        Assert.assertEquals(3, metrics.getCompressed());
+        Assert.assertTrue(metrics.getRatio() < 0.34);
+        Assert.assertTrue(metrics.getDecompressed() >= 2);
+    }
+
+    @Test
+    public void incompressibleAndHeaderLikeValuesRoundTrip() {
+        CompressionMetrics metrics = new CompressionMetrics("bytes");
+        Codec<byte[]> codec = new CompressingCodec<>(Codecs.BYTES, 16, metrics);
+        byte[] random = new byte[4096];
+        new Random(7).nextBytes(random);
+        random[0] = (byte) 0xFF;
+        byte[] encoded = codec.encode(random);
+        Assert.assertEquals(random.length + 1, encoded.length);
+        Assert.assertArrayEquals(random, codec.decode(encoded));
+        Assert.assertEquals(1, metrics.getIncompressible());
+
+        byte[] escaped = {(byte) 0xFE, 1, 2};
+        Assert.assertArrayEquals(escaped, codec.decode(codec.encode(escaped)));
+        Assert.assertArrayEquals(new byte[0], codec.decode(codec.encode(new byte[0])));
+    }
+}
@@ -0,0 +1,102 @@
+package com.flyingideal.redislearn.counter;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class CounterServiceTests {
+
+    @ClassRule
+    public static final EmbeddedRedis redis = new EmbeddedRedis();
+
+    @BeforeClass
+    public static void setUp() {
+        // 嵌入式服务端不能执行 Lua，注册与脚本等价的 java 实现
+        redis.getServer().registerScript(CounterService.HINCRBY.getSource(), call -> {
+            for (int i = 0; i < call.getArgs().size(); i += 2) {
+                call.call("HINCRBY", call.key(0), call.arg(i), call.arg(i + 1));
+            }
+            return call.getArgs().size() / 2;
+        });
+    }
+
+    @Test
+    public void concurrentIncrementsAreCoalescedWithoutLoss() throws Exception {
+        CounterService counters = new CounterService(redis.getProvider(), "concurrent", 2, false);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    counters.incr("requests:tenant" + (i % 4));
+                    counters.hincrBy("usage:tenant" + (i % 2), "api" + (i % 5), 2);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        counters.close();
+
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            for (int i = 0; i < 4; i++) {
+                Assert.assertEquals("40000", jedis.get("requests:tenant" + i));
+            }
+            for (int i = 0; i < 5; i++) {
+                // 每个 (tenant, api) 组合每个线程 2000 次
+                Assert.assertEquals("32000", jedis.hget("usage:tenant" + (i % 2), "api" + i));
+            }
+        }
+        Assert.assertEquals(320_000, counters.getIncrements());
+        Assert.assertTrue(counters.getCommands() < counters.getIncrements() / 10);
+    }
+
+    @Test
+    public void readYourWritesAddsPendingDeltas() {
+        try (CounterService counters = new CounterService(redis.getProvider(), "ryw", 60_000, true);
+             CounterService plain = new CounterService(redis.getProvider(), "plain", 60_000, false);
+             Jedis jedis = redis.getProvider().getResource()) {
+            jedis.set("ryw:count", "10");
+            counters.incrBy("ryw:count", 5);
+            counters.decrBy("ryw:count", 2);
+            counters.hincrBy("ryw:hash", "f", 7);
+            Assert.assertEquals(13, counters.get("ryw:count"));
+            Assert.assertEquals(7, counters.hget("ryw:hash", "f"));
+            Assert.assertEquals(10, plain.get("ryw:count"));
+            Assert.assertEquals(0, plain.hget("ryw:hash", "f"));
+
+            Assert.assertEquals(2, counters.flush());
+            Assert.assertEquals(13, plain.get("ryw:count"));
+            Assert.assertEquals(13, counters.get("ryw:count"));
+            Assert.assertEquals(7, plain.hget("ryw:hash", "f"));
+        }
+    }
+
+    @Test
+    public void wrongTypeDeltasAreDroppedOthersApplied() {
+        try (CounterService counters = new CounterService(redis.getProvider(), "wrongtype", 60_000, false);
+             Jedis jedis = redis.getProvider().getResource()) {
+            jedis.hset("wrongtype:hash", "f", "1");
+            counters.incr("wrongtype:hash");
+            counters.incr("wrongtype:ok");
+            counters.hincrBy("wrongtype:fields", "a", 1);
+            counters.hincrBy("wrongtype:fields", "b", 2);
+            Assert.assertEquals(3, counters.flush());
+            Assert.assertEquals(1, counters.getDropped());
+            Assert.assertEquals("1", jedis.get("wrongtype:ok"));
+            Assert.assertEquals("2", jedis.hget("wrongtype:fields", "b"));
+            Assert.assertEquals(0, counters.flush());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.flyingideal.redislearn.embedded;
+
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import com.flyingideal.redislearn.pool.RedisConnectionProperties;
+import org.junit.rules.ExternalResource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 测试用的 JUnit rule：启动若干个 {@link EmbeddedRedisServer}，为每个节点创建一个 {@link JedisConnectionProvider}，
+ * 结束时依次关闭。作为 @ClassRule 时整个测试类共享，作为 @Rule 时每个测试方法重新启动。
+ *
+ * 用法：
+ * <pre>
+ *     &#64;ClassRule
+ *     public static final EmbeddedRedis redis = new EmbeddedRedis();
+ *
+ *     new CounterService(redis.getProvider(), "counters");
+ * </pre>
+ * rule 在 @BeforeClass / @Before 之前启动，需要注册脚本时在其中调用 getServer().registerScript。
+ *
+ * @author yanchao
+ * @date 2026/10/19 14:10
+ */
+public class EmbeddedRedis extends ExternalResource {
+
+    private final int nodes;
+
+    private final Consumer<RedisConnectionProperties> customizer;
+
+    private final List<EmbeddedRedisServer> servers = new ArrayList<>();
+
+    private final List<JedisConnectionProvider> providers = new ArrayList<>();
+
+    public EmbeddedRedis() {
+        this(1, properties -> {
+        });
+    }
+
+    /**
+     * @param customizer 创建 provider 之前修改连接配置，例如连接池大小
+     */
+    public EmbeddedRedis(Consumer<RedisConnectionProperties> customizer) {
+        this(1, customizer);
+    }
+
+    /**
+     * @param nodes 互相独立的节点数，不组成集群
+     */
+    public EmbeddedRedis(int nodes, Consumer<RedisConnectionProperties> customizer) {
+        if (nodes < 1) {
+            throw new IllegalArgumentException("nodes must be positive: " + nodes);
+        }
+        this.nodes = nodes;
+        this.customizer = customizer;
+    }
+
+    @Override
+    protected void before() {
+        for (int i = 0; i < nodes; i++) {
+            EmbeddedRedisServer server = new EmbeddedRedisServer().start();
+            servers.add(server);
+            RedisConnectionProperties properties = new RedisConnectionProperties();
+            properties.setHost(server.getHost());
+            properties.setPort(server.getPort());
+            customizer.accept(properties);
+            providers.add(new JedisConnectionProvider(properties));
+        }
+    }
+
+    @Override
+    protected void after() {
+        providers.forEach(JedisConnectionProvider::close);
+        servers.forEach(EmbeddedRedisServer::close);
+        providers.clear();
+        servers.clear();
+    }
+
+    public EmbeddedRedisServer getServer() {
+        return getServer(0);
+    }
+
+    public EmbeddedRedisServer getServer(int node) {
+        return servers.get(node);
+    }
+
+    public JedisConnectionProvider getProvider() {
+        return getProvider(0);
+    }
+
+    public JedisConnectionProvider getProvider(int node) {
+        return providers.get(node);
+    }
+
+    public List<JedisConnectionProvider> getProviders() {
+        return Collections.unmodifiableList(providers);
+    }
+
+    /**
+     * 关闭节点并在同一个端口启动一个空的节点，provider 不变
+     */
+    public EmbeddedRedisServer restart(int node) {
+        EmbeddedRedisServer server = servers.get(node);
+        server.close();
+        EmbeddedRedisServer restarted = new EmbeddedRedisServer(server.getPort()).start();
+        servers.set(node, restarted);
+        return restarted;
+    }
+}
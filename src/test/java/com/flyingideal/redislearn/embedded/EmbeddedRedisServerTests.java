@@ -0,0 +1,306 @@
+package com.flyingideal.redislearn.embedded;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import redis.clients.jedis.BinaryClient;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.ZParams;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.params.sortedset.ZAddParams;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+public class EmbeddedRedisServerTests {
+
+    private static EmbeddedRedisServer server;
+
+    private Jedis jedis;
+
+    @BeforeClass
+    public static void startServer() {
+        server = new EmbeddedRedisServer().start();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.close();
+    }
+
+    @Before
+    public void connect() {
+        jedis = new Jedis(server.getHost(), server.getPort());
+        jedis.flushDB();
+    }
+
+    /**
+     * 类已加载后，启动一个新实例应在 100 ms 内完成
+     */
+    @Test
+    public void startsOnEphemeralPortQuickly() {
+        long start = System.nanoTime();
+        try (EmbeddedRedisServer another = new EmbeddedRedisServer().start();
+             Jedis client = new Jedis(another.getHost(), another.getPort())) {
+            Assert.assertEquals("PONG", client.ping());
+            Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 100);
+            Assert.assertNotEquals(server.getPort(), another.getPort());
+        }
+    }
+
+    @Test
+    public void strings() {
+        Assert.assertEquals("OK", jedis.set("name", "Jedis"));
+        Assert.assertNull(jedis.set("name", "zhangsan", "NX"));
+        Assert.assertNull(jedis.set("test", "test", "XX"));
+        Assert.assertEquals("Jedis", jedis.get("name"));
+        jedis.set("subject", "study Jedis");
+        Assert.assertEquals("stu", jedis.getrange("subject", 0, 2));
+        Assert.assertEquals(Long.valueOf(16), jedis.append("subject", " 2018"));
+        jedis.mset("age", "23", "sex", "boy");
+        Assert.assertEquals(Arrays.asList("23", "boy", null), jedis.mget("age", "sex", "none"));
+        Assert.assertEquals(Long.valueOf(11), jedis.incrBy("num", 11));
+        Assert.assertEquals(Long.valueOf(6), jedis.decrBy("num", 5));
+        Assert.assertEquals("6", jedis.getSet("num", "0"));
+        Assert.assertEquals("string", jedis.type("num"));
+        jedis.set("num", "10", "NX", "PX", 5000);
+        Assert.assertEquals(Long.valueOf(-1), jedis.ttl("num"));
+        jedis.setex("setex", 10, "value");
+        Assert.assertTrue(jedis.pttl("setex") > 9000);
+        jedis.psetex("expired", 1L, "value");
+        sleep(5);
+        Assert.assertNull(jedis.get("expired"));
+        try {
+            jedis.incr("name");
+            Assert.fail();
+        } catch (JedisDataException e) {
+            Assert.assertTrue(e.getMessage().contains("not an integer"));
+        }
+    }
+
+    @Test
+    public void lists() {
+        jedis.lpush("list", "4", "5");
+        jedis.rpush("list", "6");
+        Assert.assertEquals(Arrays.asList("5", "4", "6"), jedis.lrange("list", 0, -1));
+        jedis.rpush("list11", "1", "2", "3", "4");
+        jedis.rpush("list12", "a", "b");
+        Assert.assertEquals("4", jedis.rpoplpush("list11", "list12"));
+        Assert.assertEquals(Arrays.asList("4", "a", "b"), jedis.lrange("list12", 0, -1));
+        jedis.linsert("list12", BinaryClient.LIST_POSITION.BEFORE, "b", "x");
+        Assert.assertEquals(Long.valueOf(-1), jedis.linsert("list12", BinaryClient.LIST_POSITION.AFTER, "z", "y"));
+        Assert.assertEquals("b", jedis.lindex("list12", -1));
+        jedis.rpush("list31", "1", "1", "2", "1", "2", "1");
+        Assert.assertEquals(Long.valueOf(3), jedis.lrem("list31", 3, "1"));
+        Assert.assertEquals(Arrays.asList("2", "2", "1"), jedis.lrange("list31", 0, -1));
+        jedis.ltrim("list31", 1, 1);
+        Assert.assertEquals(Arrays.asList("2"), jedis.lrange("list31", 0, -1));
+        Assert.assertEquals(Long.valueOf(0), jedis.lpushx("missing", "1"));
+        Assert.assertFalse(jedis.exists("missing"));
+    }
+
+    @Test
+    public void blockingPopIsServedByLaterPush() throws Exception {
+        CompletableFuture<List<String>> waiter = CompletableFuture.supplyAsync(() -> {
+            try (Jedis blocking = new Jedis(server.getHost(), server.getPort())) {
+                return blocking.brpop(5, "queue");
+            }
+        });
+        sleep(50);
+        jedis.lpush("queue", "job");
+        Assert.assertEquals(Arrays.asList("queue", "job"), waiter.get(5, TimeUnit.SECONDS));
+        Assert.assertNull(jedis.brpoplpush("empty", "dest", 1));
+    }
+
+    @Test
+    public void hashes() {
+        Assert.assertEquals(Long.valueOf(1), jedis.hset("person", "name", "zhangsan"));
+        Assert.assertEquals(Long.valueOf(0), jedis.hsetnx("person", "name", "lisi"));
+        jedis.hmset("person", map("age", "18", "sex", "boy"));
+        Assert.assertEquals(Arrays.asList("zhangsan", "18", null), jedis.hmget("person", "name", "age", "x"));
+        Assert.assertEquals(3, jedis.hgetAll("person").size());
+        Assert.assertEquals(Long.valueOf(19), jedis.hincrBy("person", "age", 1));
+        Assert.assertEquals(20.5, jedis.hincrByFloat("person", "age", 1.5), 0);
+        Assert.assertEquals(Long.valueOf(1), jedis.hdel("person", "sex"));
+        Assert.assertFalse(jedis.hexists("person", "sex"));
+    }
+
+    @Test
+    public void sets() {
+        Assert.assertEquals(Long.valueOf(3), jedis.sadd("set1", "1", "2", "3", "1"));
+        jedis.sadd("set2", "1", "2", "4");
+        jedis.sadd("set3", "1", "5", "6");
+        Assert.assertEquals(set("3"), jedis.sdiff("set1", "set2", "set3"));
+        Assert.assertEquals(set("1"), jedis.sinter("set1", "set2", "set3"));
+        Assert.assertEquals(Long.valueOf(6), jedis.sunionstore("set4", "set1", "set2", "set3"));
+        Assert.assertEquals(Long.valueOf(1), jedis.smove("set1", "set2", "3"));
+        Assert.assertTrue(jedis.sismember("set2", "3"));
+        Assert.assertEquals(2, jedis.spop("set1", 2).size());
+        Assert.assertFalse(jedis.exists("set1"));
+    }
+
+    @Test
+    public void sortedSets() {
+        jedis.zadd("zset", 1, "one");
+        Assert.assertEquals(Long.valueOf(1), jedis.zadd("zset", 5, "one", ZAddParams.zAddParams().xx().ch()));
+        jedis.zadd("zset", map("two", 2D, "three", 3D));
+        Assert.assertEquals(new LinkedHashSet<>(Arrays.asList("two", "three", "one")), jedis.zrange("zset", 0, -1));
+        Assert.assertEquals(new LinkedHashSet<>(Arrays.asList("two", "three")), jedis.zrangeByScore("zset", 0, 3));
+        Assert.assertEquals(new LinkedHashSet<>(Arrays.asList("one", "three")), jedis.zrevrangeByScore("zset", "+inf", "(2"));
+        Assert.assertEquals(Long.valueOf(0), jedis.zrank("zset", "two"));
+        Assert.assertEquals(Long.valueOf(0), jedis.zrevrank("zset", "one"));
+        Assert.assertEquals(Long.valueOf(2), jedis.zcount("zset", "2", "3"));
+        Assert.assertEquals(7.5, jedis.zincrby("zset", 2.5, "one"), 0);
+        Set<Tuple> withScores = jedis.zrangeByScoreWithScores("zset", 0, 2);
+        Assert.assertEquals(2.0, withScores.iterator().next().getScore(), 0);
+
+        jedis.zadd("zset2", map("two", 20D, "four", 4D));
+        ZParams params = new ZParams().weights(1, 2).aggregate(ZParams.Aggregate.MAX);
+        Assert.assertEquals(Long.valueOf(4), jedis.zunionstore("union", params, "zset", "zset2"));
+        Assert.assertEquals(Double.valueOf(40), jedis.zscore("union", "two"));
+        Assert.assertEquals(Long.valueOf(1), jedis.zinterstore("inter", "zset", "zset2"));
+        Assert.assertEquals(Double.valueOf(22), jedis.zscore("inter", "two"));
+
+        jedis.zadd("lex", map("a", 0D, "b", 0D, "c", 0D, "d", 0D));
+        Assert.assertEquals(Long.valueOf(2), jedis.zlexcount("lex", "(a", "[c"));
+        Assert.assertEquals(new LinkedHashSet<>(Arrays.asList("c", "b")), jedis.zrevrangeByLex("lex", "[c", "(a"));
+        Assert.assertEquals(Long.valueOf(2), jedis.zremrangeByRank("lex", 0, 1));
+        Assert.assertEquals(Long.valueOf(1), jedis.zremrangeByScore("zset", "(3", "+inf"));
+    }
+
+    /**
+     * 随机操作后与 TreeMap 的结果对比，验证跳表的排序与排名
+     */
+    @Test
+    public void skipListMatchesReference() {
+        ZSet zset = new ZSet();
+        TreeMap<String, Double> reference = new TreeMap<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 5000; i++) {
+            String member = "m" + random.nextInt(1000);
+            if (random.nextInt(4) == 0) {
+                Assert.assertEquals(reference.remove(member) != null, zset.remove(member));
+            } else {
+                double score = random.nextInt(100);
+                reference.put(member, score);
+                zset.put(member, score);
+            }
+        }
+        List<String> expected = new ArrayList<>(reference.keySet());
+        expected.sort((a, b) -> {
+            int cmp = Double.compare(reference.get(a), reference.get(b));
+            return cmp != 0 ? cmp : a.compareTo(b);
+        });
+        Assert.assertEquals(expected.size(), zset.size());
+        for (int rank = 0; rank < expected.size(); rank++) {
+            Assert.assertEquals(rank, zset.rank(expected.get(rank), false));
+            Assert.assertEquals(expected.get(rank), zset.zsl.getByRank(rank + 1).member);
+        }
+    }
+
+    @Test
+    public void scanReturnsEveryElementOnce() {
+        Pipeline pipeline = jedis.pipelined();
+        for (int i = 0; i < 1000; i++) {
+            pipeline.hset("big", "field" + i, "v");
+            pipeline.set("key" + i, "v");
+        }
+        pipeline.sync();
+        Set<String> fields = new HashSet<>();
+        String cursor = ScanParams.SCAN_POINTER_START;
+        do {
+            ScanResult<Map.Entry<String, String>> page = jedis.hscan("big", cursor, new ScanParams().count(50));
+            page.getResult().forEach(entry -> Assert.assertTrue(fields.add(entry.getKey())));
+            cursor = page.getStringCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        Assert.assertEquals(1000, fields.size());
+
+        Set<String> keys = new HashSet<>();
+        do {
+            ScanResult<String> page = jedis.scan(cursor, new ScanParams().match("key1*").count(100));
+            keys.addAll(page.getResult());
+            cursor = page.getStringCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        Assert.assertEquals(111, keys.size());
+    }
+
+    @Test
+    public void transaction() {
+        Transaction transaction = jedis.multi();
+        transaction.incr("counter");
+        transaction.lpush("list", "a", "b");
+        transaction.lrange("list", 0, -1);
+        List<Object> results = transaction.exec();
+        Assert.assertEquals(3, results.size());
+        Assert.assertEquals(Long.valueOf(1), results.get(0));
+        Assert.assertEquals(Arrays.asList("b", "a"), results.get(2));
+    }
+
+    @Test
+    public void dumpAndRestoreKeepValueAndTtl() {
+        jedis.zadd("scores", 1.5, "a");
+        jedis.zadd("scores", -2, "b");
+        jedis.pexpire("scores", 60000);
+        jedis.hset("hash", "f", "v");
+        byte[] zset = jedis.dump("scores");
+        Assert.assertNull(jedis.dump("missing"));
+
+        Assert.assertEquals("OK", jedis.restore("copy", (int) (long) jedis.pttl("scores"), zset));
+        Assert.assertEquals(Arrays.asList("b", "a"), new ArrayList<>(jedis.zrange("copy", 0, -1)));
+        Assert.assertTrue(jedis.pttl("copy") > 50000);
+        Assert.assertEquals("OK", jedis.restore("hash2", 0, jedis.dump("hash")));
+        Assert.assertEquals(map("f", "v"), jedis.hgetAll("hash2"));
+        Assert.assertEquals(-1, (long) jedis.pttl("hash2"));
+
+        try {
+            jedis.restore("copy", 0, zset);
+            Assert.fail("existing key must not be replaced without REPLACE");
+        } catch (JedisDataException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("BUSYKEY"));
+        }
+        zset[0] ^= 1;
+        try {
+            jedis.restore("broken", 0, zset);
+            Assert.fail("corrupted payload must be rejected");
+        } catch (JedisDataException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("checksum"));
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Map<String, V> map(Object... pairs) {
+        Map<String, V> map = new java.util.HashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            map.put((String) pairs[i], (V) pairs[i + 1]);
+        }
+        return map;
+    }
+
+    private static Set<String> set(String... members) {
+        return new HashSet<>(Arrays.asList(members));
+    }
+}
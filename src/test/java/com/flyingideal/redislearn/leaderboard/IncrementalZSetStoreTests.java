@@ -0,0 +1,126 @@
+package com.flyingideal.redislearn.leaderboard;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.ZParams;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class IncrementalZSetStoreTests {
+
+    @ClassRule
+    public static final EmbeddedRedis redis = new EmbeddedRedis();
+
+    @BeforeClass
+    public static void setUp() {
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < 3000; i++) {
+                pipeline.zadd("board:a", i, "player" + i);
+                if (i % 2 == 0) {
+                    pipeline.zadd("board:b", 3000 - i, "player" + i);
+                }
+                if (i % 3 == 0) {
+                    pipeline.zadd("board:c", i * 0.5, "player" + (i + 1500));
+                }
+            }
+            pipeline.sync();
+        }
+    }
+
+    @Test
+    public void matchesServerCommandsForEveryAggregate() {
+        IncrementalZSetStore store = new IncrementalZSetStore(redis.getProvider());
+        double[] weights = {2, 3, -1};
+        String[] sets = {"board:a", "board:b", "board:c"};
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            for (ZParams.Aggregate aggregate : ZParams.Aggregate.values()) {
+                ZParams params = new ZParams().weightsByDouble(weights).aggregate(aggregate);
+
+                long expected = jedis.zunionstore("expected", params, sets);
+                Assert.assertEquals(expected, store.zunionstore("actual", weights, aggregate, sets));
+                Assert.assertEquals(scores(jedis, "expected"), scores(jedis, "actual"));
+
+                expected = jedis.zinterstore("expected", params, sets);
+                Assert.assertEquals(expected, store.zinterstore("actual", weights, aggregate, sets));
+                Assert.assertEquals(scores(jedis, "expected"), scores(jedis, "actual"));
+            }
+            Assert.assertTrue(jedis.keys("*zstore*").isEmpty());
+        }
+        Assert.assertEquals(0, store.getActiveJobs());
+        Assert.assertEquals(1, store.getProgress(), 0);
+        Assert.assertTrue(store.getChunks() > 0);
+    }
+
+    @Test
+    public void emptyResultDeletesDestination() {
+        IncrementalZSetStore store = new IncrementalZSetStore(redis.getProvider());
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            jedis.zadd("empty:dest", 1, "stale");
+            Assert.assertEquals(0, store.zinterstore("empty:dest", "board:a", "missing"));
+            Assert.assertFalse(jedis.exists("empty:dest"));
+
+            Assert.assertEquals(3000, store.zunionstore("empty:dest", "board:a", "missing"));
+            Assert.assertEquals(scores(jedis, "board:a"), scores(jedis, "empty:dest"));
+        }
+    }
+
+    @Test
+    public void infiniteScoresAndZeroWeightsMatchServer() {
+        IncrementalZSetStore store = new IncrementalZSetStore(redis.getProvider());
+        String[] sets = {"inf:a", "inf:b"};
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            jedis.zadd("inf:a", Double.POSITIVE_INFINITY, "up");
+            jedis.zadd("inf:a", Double.NEGATIVE_INFINITY, "down");
+            jedis.zadd("inf:a", 1, "finite");
+            jedis.zadd("inf:b", Double.NEGATIVE_INFINITY, "up");
+            jedis.zadd("inf:b", Double.POSITIVE_INFINITY, "down");
+            jedis.zadd("inf:b", 2, "finite");
+            // inf * 0 与 +inf + -inf 都是 NaN，redis 记为 0
+            for (double[] weights : new double[][]{{1, 1}, {1, 0}, {0, 2}}) {
+                for (ZParams.Aggregate aggregate : ZParams.Aggregate.values()) {
+                    ZParams params = new ZParams().weightsByDouble(weights).aggregate(aggregate);
+
+                    jedis.zunionstore("inf:expected", params, sets);
+                    store.zunionstore("inf:actual", weights, aggregate, sets);
+                    Assert.assertEquals(rawScores(jedis, "inf:expected"), rawScores(jedis, "inf:actual"));
+
+                    jedis.zinterstore("inf:expected", params, sets);
+                    store.zinterstore("inf:actual", weights, aggregate, sets);
+                    Assert.assertEquals(rawScores(jedis, "inf:expected"), rawScores(jedis, "inf:actual"));
+                }
+            }
+            store.zunionstore("inf:actual", sets);
+            Assert.assertEquals(0, jedis.zscore("inf:actual", "up"), 0);
+        }
+    }
+
+    private static Map<String, Double> scores(Jedis jedis, String key) {
+        Map<String, Double> scores = new HashMap<>();
+        for (Tuple tuple : jedis.zrangeWithScores(key, 0, -1)) {
+            scores.put(tuple.getElement(), tuple.getScore());
+        }
+        return scores;
+    }
+
+    /**
+     * jedis 2.9 无法解析 inf 分数，直接比较回复中的字符串
+     */
+    private static Map<String, String> rawScores(Jedis jedis, String key) {
+        jedis.getClient().zrangeWithScores(key, 0, -1);
+        List<String> reply = jedis.getClient().getMultiBulkReply();
+        Map<String, String> scores = new HashMap<>();
+        for (int i = 0; i < reply.size(); i += 2) {
+            scores.put(reply.get(i), reply.get(i + 1));
+        }
+        return scores;
+    }
+}
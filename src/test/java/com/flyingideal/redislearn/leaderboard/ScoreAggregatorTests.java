@@ -0,0 +1,98 @@
+package com.flyingideal.redislearn.leaderboard;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class ScoreAggregatorTests {
+
+    @ClassRule
+    public static final EmbeddedRedis redis = new EmbeddedRedis();
+
+    @Test
+    public void concurrentIncrementsAreCoalescedWithoutLoss() throws Exception {
+        ScoreAggregator aggregator = new ScoreAggregator(redis.getProvider(), "concurrent", 5,
+                ScoreAggregator.DEFAULT_MAX_PENDING);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    aggregator.incrementScore("board:concurrent", "player" + (i % 10), 1);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        aggregator.close();
+
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals(16_000, jedis.zscore("board:concurrent", "player" + i), 0);
+            }
+        }
+        Assert.assertEquals(160_000, aggregator.getIncrements());
+        Assert.assertEquals(0, aggregator.getPending());
+        Assert.assertTrue(aggregator.getCoalescingRatio() > 10);
+    }
+
+    @Test
+    public void scheduledFlushBoundsStaleness() throws Exception {
+        try (ScoreAggregator aggregator = new ScoreAggregator(redis.getProvider(), "stale", 50, 1000)) {
+            aggregator.incrementScore("board:stale", "a", 1.5);
+            aggregator.incrementScore("board:stale", "a", 2);
+            aggregator.incrementScore("board:stale", "b", 1);
+            aggregator.incrementScore("board:stale", "b", -1);
+            Thread.sleep(300);
+            try (Jedis jedis = redis.getProvider().getResource()) {
+                Assert.assertEquals(3.5, jedis.zscore("board:stale", "a"), 0);
+                // 正负相抵，没有发送
+                Assert.assertNull(jedis.zscore("board:stale", "b"));
+            }
+            Assert.assertEquals(1, aggregator.getCommands());
+        }
+    }
+
+    @Test
+    public void closeFlushesAndRejectsLaterIncrements() {
+        ScoreAggregator aggregator = new ScoreAggregator(redis.getProvider(), "close", 60_000, 1000);
+        aggregator.incrementScore("board:close", "a", 7);
+        aggregator.close();
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            Assert.assertEquals(7, jedis.zscore("board:close", "a"), 0);
+        }
+        try {
+            aggregator.incrementScore("board:close", "a", 1);
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+            // 关闭后不再接收
+        }
+    }
+
+    @Test
+    public void errorRepliesAreCountedAndDropped() {
+        try (ScoreAggregator aggregator = new ScoreAggregator(redis.getProvider(), "wrongtype", 60_000, 1000)) {
+            redis.getProvider().execute(jedis -> jedis.set("board:not-a-zset", "x"));
+            aggregator.incrementScore("board:not-a-zset", "a", 1);
+            aggregator.incrementScore("board:wrongtype", "a", 2);
+            Assert.assertEquals(2, aggregator.flush());
+            Assert.assertEquals(1, aggregator.getDropped());
+            Assert.assertEquals(0, aggregator.getFailures());
+            Assert.assertEquals(0, aggregator.getPending());
+            try (Jedis jedis = redis.getProvider().getResource()) {
+                Assert.assertEquals(2, jedis.zscore("board:wrongtype", "a"), 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.flyingideal.redislearn.loader;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedisServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+public class BulkLoaderTests {
+
+    private EmbeddedRedisServer server;
+
+    private Jedis jedis;
+
+    @Before
+    public void setUp() {
+        server = new EmbeddedRedisServer().start();
+        jedis = new Jedis(server.getHost(), server.getPort());
+    }
+
+    @After
+    public void tearDown() {
+        jedis.close();
+        server.close();
+    }
+
+    @Test
+    public void loadsCsvAndReportsErrors() throws Exception {
+        String csv = "# type,key,args...\n"
+                + "string,name,Jedis\n"
+                + "hash,person,name,\"zhang, san\",quote,\"say \"\"hi\"\"\",city,北京\n"
+                + "set,set1,1,2,3\n"
+                + "zset,zset1,1,one,2.5,two\n"
+                + "zset,zset2,notanumber,one\n"
+                + "hash,broken,onlyfield\n"
+                + "\n";
+        LoadReport report;
+        try (BulkLoader loader = new BulkLoader(server.getHost(), server.getPort(), null, 0, 2);
+             CsvRecordReader reader = new CsvRecordReader(new StringReader(csv))) {
+            report = loader.load(reader);
+        }
+        Assert.assertEquals(5, report.getRows());
+        Assert.assertEquals(1, report.getErrors());
+        Assert.assertEquals(1, report.getInvalidRows());
+        Assert.assertTrue(report.getErrorSamples().get(0).contains("not a valid float"));
+
+        Assert.assertEquals("Jedis", jedis.get("name"));
+        Assert.assertEquals("zhang, san", jedis.hget("person", "name"));
+        Assert.assertEquals("say \"hi\"", jedis.hget("person", "quote"));
+        Assert.assertEquals("北京", jedis.hget("person", "city"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("1", "2", "3")), jedis.smembers("set1"));
+        Assert.assertEquals(Double.valueOf(2.5), jedis.zscore("zset1", "two"));
+    }
+
+    @Test
+    public void loadsJsonLines() throws Exception {
+        String jsonl = "{\"type\": \"hash\", \"key\": \"person:1\", \"fields\": {\"name\": \"zhangsan\", \"age\": 18}}\n"
+                + "{\"type\": \"set\", \"key\": \"tags\", \"members\": [\"a\", \"b\\n\", \"\\u4e2d\"]}\n"
+                + "{\"type\": \"zset\", \"key\": \"scores\", \"members\": {\"one\": 1, \"two\": 2.25e1}}\n"
+                + "{\"type\": \"string\", \"key\": \"k\"}\n"
+                + "not json\n";
+        LoadReport report;
+        try (BulkLoader loader = new BulkLoader(server.getHost(), server.getPort(), null, 0, 100);
+             JsonLinesRecordReader reader = new JsonLinesRecordReader(new StringReader(jsonl))) {
+            report = loader.load(reader);
+        }
+        Assert.assertEquals(3, report.getRows());
+        Assert.assertEquals(0, report.getErrors());
+        Assert.assertEquals(2, report.getInvalidRows());
+        Assert.assertEquals("18", jedis.hget("person:1", "age"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a", "b\n", "中")), jedis.smembers("tags"));
+        Assert.assertEquals(Double.valueOf(22.5), jedis.zscore("scores", "two"));
+    }
+
+    @Test
+    public void boundedInFlightStillLoadsEverything() {
+        List<LoadRecord> records = new ArrayList<>();
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            large.append('x');
+        }
+        for (int i = 0; i < 50_000; i++) {
+            records.add(LoadRecord.set("members", Arrays.asList("m" + i, "n" + i)));
+        }
+        records.add(LoadRecord.string("large", large.toString()));
+        try (BulkLoader loader = new BulkLoader(server.getHost(), server.getPort(), null, 0, 16)) {
+            LoadReport report = loader.load(records.iterator());
+            Assert.assertEquals(50_001, report.getRows());
+            Assert.assertEquals(0, report.getErrors());
+        }
+        Assert.assertEquals(Long.valueOf(100_000), jedis.scard("members"));
+        Assert.assertEquals(Long.valueOf(100_000), jedis.strlen("large"));
+    }
+
+    @Test
+    public void failedAuthOrSelectStopsBeforeLoading() {
+        // 内嵌 redis 不支持 AUTH，也只有 0 号库
+        try (BulkLoader loader = new BulkLoader(server.getHost(), server.getPort(), "secret", 0, 16)) {
+            loader.load(Collections.singletonList(LoadRecord.string("auth", "v")).iterator());
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+            Assert.assertTrue(expected.getMessage(), expected.getMessage().contains("AUTH"));
+        }
+        try (BulkLoader loader = new BulkLoader(server.getHost(), server.getPort(), null, 1, 16)) {
+            loader.load(Collections.singletonList(LoadRecord.string("select", "v")).iterator());
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+            Assert.assertTrue(expected.getMessage(), expected.getMessage().startsWith("bulk load connection setup"));
+        }
+        Assert.assertFalse(jedis.exists("auth"));
+        Assert.assertFalse(jedis.exists("select"));
+    }
+}
@@ -0,0 +1,185 @@
+package com.flyingideal.redislearn.lock;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RedisLockTests {
+
+    @ClassRule
+    public static final EmbeddedRedis redis = new EmbeddedRedis();
+
+    @BeforeClass
+    public static void setUp() {
+        // 嵌入式服务端不能执行 Lua，注册与脚本等价的 java 实现
+        redis.getServer().registerScript(RedisLockFactory.ACQUIRE.getSource(), call ->
+                call.call("SET", call.key(0), call.arg(0), "NX", "PX", call.arg(1)) != null
+                        ? Arrays.asList(1L, call.call("INCR", call.key(1)))
+                        : Arrays.asList(0L, call.call("PTTL", call.key(0))));
+        redis.getServer().registerScript(RedisLockFactory.RELEASE.getSource(), call -> {
+            if (!call.arg(0).equals(call.call("GET", call.key(0)))) {
+                return 0L;
+            }
+            call.call("DEL", call.key(0));
+            call.call("LPUSH", call.key(1), "1");
+            call.call("LTRIM", call.key(1), "0", "0");
+            call.call("PEXPIRE", call.key(1), call.arg(1));
+            return 1L;
+        });
+        redis.getServer().registerScript(RedisLockFactory.RENEW.getSource(), call -> {
+            List<Long> renewed = new ArrayList<>();
+            for (int i = 0; i < call.getKeys().size(); i++) {
+                if (call.arg(i + 1).equals(call.call("GET", call.key(i)))) {
+                    call.call("PEXPIRE", call.key(i), call.arg(0));
+                    renewed.add(1L);
+                } else {
+                    renewed.add(0L);
+                }
+            }
+            return renewed;
+        });
+    }
+
+    @Test
+    public void mutualExclusionAcrossFactoriesWithIncreasingFences() throws Exception {
+        try (RedisLockFactory first = new RedisLockFactory(redis.getProvider());
+             RedisLockFactory second = new RedisLockFactory(redis.getProvider())) {
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            AtomicInteger inside = new AtomicInteger();
+            List<Long> fences = new ArrayList<>();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                RedisLockFactory factory = t % 2 == 0 ? first : second;
+                futures.add(executor.submit(() -> {
+                    RedisLock lock = factory.getLock("counter");
+                    for (int i = 0; i < 25; i++) {
+                        lock.lock();
+                        try {
+                            Assert.assertEquals(1, inside.incrementAndGet());
+                            synchronized (fences) {
+                                fences.add(lock.getFencingToken());
+                            }
+                            inside.decrementAndGet();
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+            Assert.assertEquals(200, fences.size());
+            for (int i = 1; i < fences.size(); i++) {
+                Assert.assertTrue(fences.get(i) > fences.get(i - 1));
+            }
+            Assert.assertEquals(0, first.getHeldCount());
+            Assert.assertEquals(0, second.getHeldCount());
+        }
+    }
+
+    @Test
+    public void waiterInOtherProcessWakesOnUnlock() throws Exception {
+        try (RedisLockFactory owner = new RedisLockFactory(redis.getProvider());
+             RedisLockFactory other = new RedisLockFactory(redis.getProvider())) {
+            RedisLock held = owner.getLock("wake");
+            held.lock();
+            RedisLock contender = other.getLock("wake");
+            Assert.assertFalse(contender.tryLock());
+            Assert.assertFalse(contender.tryLock(50, TimeUnit.MILLISECONDS));
+
+            CountDownLatch acquired = new CountDownLatch(1);
+            Thread waiter = new Thread(() -> {
+                contender.lock();
+                acquired.countDown();
+                contender.unlock();
+            });
+            waiter.start();
+            // 等待者在 BLPOP 上阻塞，锁的 30 秒租期远未到期
+            Thread.sleep(200);
+            long start = System.nanoTime();
+            held.unlock();
+            Assert.assertTrue(acquired.await(2, TimeUnit.SECONDS));
+            Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+            waiter.join();
+        }
+    }
+
+    @Test
+    public void watchdogKeepsLockBeyondLease() throws Exception {
+        try (RedisLockFactory owner = new RedisLockFactory(redis.getProvider(), 600);
+             RedisLockFactory other = new RedisLockFactory(redis.getProvider(), 600)) {
+            RedisLock lock = owner.getLock("lease");
+            lock.lock();
+            Thread.sleep(1500);
+            Assert.assertTrue(lock.isHeldByCurrentThread());
+            Assert.assertFalse(other.getLock("lease").tryLock());
+            lock.unlock();
+            Assert.assertTrue(other.getLock("lease").tryLock());
+        }
+    }
+
+    /**
+     * watchdog 取得持有的锁之后、续期之前，锁被解锁又被本进程重新加锁：旧 token 续期失败，但不能影响新的持有者
+     */
+    @Test
+    public void renewalRacingRelockDoesNotMarkNewHolderLost() throws Exception {
+        try (RedisLockFactory factory = new RedisLockFactory(redis.getProvider())) {
+            RedisLock lock = factory.getLock("relocked");
+            lock.lock();
+            List<Map.Entry<String, RedisLockFactory.Lease>> snapshot = factory.heldLeases();
+            lock.unlock();
+            lock.lock();
+            try {
+                factory.renew(snapshot);
+                Assert.assertTrue(lock.isHeldByCurrentThread());
+                Assert.assertEquals(1, factory.getHeldCount());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Test
+    public void reentrantAndOwnerChecked() throws Exception {
+        try (RedisLockFactory factory = new RedisLockFactory(redis.getProvider())) {
+            RedisLock lock = factory.getLock("reentrant");
+            lock.lock();
+            long fence = lock.getFencingToken();
+            Assert.assertTrue(lock.tryLock());
+            Assert.assertEquals(fence, lock.getFencingToken());
+            lock.unlock();
+            Assert.assertEquals(1, factory.getHeldCount());
+
+            Thread stranger = new Thread(() -> {
+                try {
+                    lock.unlock();
+                    Assert.fail();
+                } catch (IllegalMonitorStateException expected) {
+                    // 只有持有者可以释放
+                }
+            });
+            stranger.start();
+            stranger.join();
+
+            lock.unlock();
+            Assert.assertEquals(0, factory.getHeldCount());
+            Assert.assertFalse(lock.isHeldByCurrentThread());
+        }
+    }
+}
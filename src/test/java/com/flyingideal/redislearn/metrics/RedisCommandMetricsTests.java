@@ -0,0 +1,84 @@
+package com.flyingideal.redislearn.metrics;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import com.flyingideal.redislearn.pool.RedisConnectionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+public class RedisCommandMetricsTests {
+
+    @Rule
+    public final EmbeddedRedis redis = new EmbeddedRedis();
+
+    private RedisCommandMetrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = redis.getProvider().getCommandMetrics();
+    }
+
+    @Test
+    public void recordsEveryCommandIncludingPipelinedAndFailedOnes() {
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            Assert.assertTrue(jedis instanceof InstrumentedJedis);
+            jedis.set("name", "Jedis");
+            jedis.get("name");
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < 10; i++) {
+                pipeline.get("name");
+            }
+            pipeline.incr("name");
+            pipeline.sync();
+            try {
+                jedis.incr("name");
+                Assert.fail();
+            } catch (JedisDataException e) {
+                // WRONGTYPE / not an integer
+            }
+        }
+
+        CommandMetrics get = metrics.getCommand(Protocol.Command.GET);
+        Assert.assertEquals(11, get.getCalls());
+        Assert.assertEquals(0, get.getErrors());
+        // *2\r\n$3\r\nGET\r\n$4\r\nname\r\n
+        Assert.assertEquals(11 * 23, get.getRequestBytes());
+        // $5\r\nJedis\r\n
+        Assert.assertEquals(11 * 11, get.getResponseBytes());
+        Assert.assertEquals(2, metrics.getCommand(Protocol.Command.INCR).getErrors());
+
+        metrics.report();
+        Assert.assertEquals(11, get.getLastInterval().getTotalCount());
+        Assert.assertEquals(11, get.getTotal().getTotalCount());
+    }
+
+    @Test
+    public void exposesMetersThroughMicrometer() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        metrics.bindTo(registry);
+        redis.getProvider().execute(jedis -> jedis.hgetAll("person"));
+        metrics.report();
+
+        Assert.assertEquals(1, registry.get("redis.commands").tag("command", "HGETALL").functionCounter().count(), 0);
+        Assert.assertNotNull(registry.get("redis.commands.latency").tag("command", "HGETALL")
+                .tag("percentile", "0.99").timeGauge());
+    }
+
+    @Test
+    public void nonPositiveLogIntervalIsRejected() {
+        RedisConnectionProperties.Metrics properties = new RedisConnectionProperties.Metrics();
+        properties.setLogIntervalSeconds(0);
+        try {
+            new RedisCommandMetrics(properties).close();
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+            Assert.assertTrue(expected.getMessage().contains("log-interval-seconds"));
+        }
+    }
+}
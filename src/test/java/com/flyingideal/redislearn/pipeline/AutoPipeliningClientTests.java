@@ -0,0 +1,111 @@
+package com.flyingideal.redislearn.pipeline;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class AutoPipeliningClientTests {
+
+    @Rule
+    public final EmbeddedRedis redis = new EmbeddedRedis(properties -> {
+        properties.getAutoPipelining().setBatchSize(64);
+        properties.getAutoPipelining().setLingerMicros(200);
+    });
+
+    private AutoPipeliningClient client;
+
+    @Before
+    public void setUp() {
+        client = new AutoPipeliningClient(redis.getProvider());
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+    }
+
+    @Test
+    public void concurrentCommandsAreCoalesced() throws Exception {
+        int threads = 16;
+        int perThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<CompletableFuture<Long>> results = new ArrayList<>();
+        List<Future<?>> submitters = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            submitters.add(executor.submit(() -> {
+                List<CompletableFuture<Long>> own = new ArrayList<>();
+                for (int i = 0; i < perThread; i++) {
+                    own.add(client.incr("num"));
+                }
+                synchronized (results) {
+                    results.addAll(own);
+                }
+            }));
+        }
+        for (Future<?> submitter : submitters) {
+            submitter.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(String.valueOf(threads * perThread), client.get("num").get(1, TimeUnit.SECONDS));
+        Assert.assertTrue("commands should share pipelines", client.getFlushCount() < client.getCommandCount() / 4);
+    }
+
+    @Test
+    public void errorReplyOnlyFailsItsOwnFuture() throws Exception {
+        CompletableFuture<String> set = client.set("name", "Jedis");
+        CompletableFuture<Long> incr = client.incr("name");
+        CompletableFuture<Long> append = client.append("name", "!");
+        CompletableFuture<String> nullKey = client.get(null);
+        Assert.assertEquals("OK", set.get(1, TimeUnit.SECONDS));
+        Assert.assertEquals(Long.valueOf(6), append.get(1, TimeUnit.SECONDS));
+        assertFailsWith(incr, JedisDataException.class);
+        assertFailsWith(nullKey, JedisDataException.class);
+        Assert.assertEquals("Jedis!", client.get("name").get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void commandsOnSameKeyKeepSubmissionOrder() throws Exception {
+        List<CompletableFuture<String>> reads = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String key = "order:" + (i % 10);
+            client.set(key, String.valueOf(i));
+            reads.add(client.get(key));
+        }
+        for (int i = 0; i < reads.size(); i++) {
+            Assert.assertEquals(String.valueOf(i), reads.get(i).get(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void failingCommandLambdaDoesNotStopFlushing() throws Exception {
+        CompletableFuture<String> broken = client.submit("broken", p -> {
+            throw new IllegalStateException("broken command");
+        });
+        assertFailsWith(broken, IllegalStateException.class);
+        Assert.assertEquals("OK", client.set("after", "1").get(1, TimeUnit.SECONDS));
+    }
+
+    private static void assertFailsWith(CompletableFuture<?> future, Class<? extends Throwable> type) throws Exception {
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(type.isInstance(e.getCause()));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.flyingideal.redislearn.pool;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+
+public class JedisConnectionProviderTests {
+
+    @Rule
+    public final EmbeddedRedis redis = new EmbeddedRedis();
+
+    @Test
+    public void exposesPoolMetersThroughMicrometer() {
+        JedisConnectionProvider provider = redis.getProvider();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        provider.bindTo(registry);
+        String address = provider.getProperties().getHost() + ":" + provider.getProperties().getPort();
+
+        try (Jedis first = provider.getResource(); Jedis second = provider.getResource()) {
+            first.ping();
+            second.ping();
+            Assert.assertEquals(2, registry.get("redis.pool.active").tag("address", address).gauge().value(), 0);
+        }
+        Assert.assertEquals(0, registry.get("redis.pool.active").gauge().value(), 0);
+        Assert.assertEquals(2, registry.get("redis.pool.idle").gauge().value(), 0);
+        Assert.assertEquals(0, registry.get("redis.pool.waiters").gauge().value(), 0);
+        Assert.assertEquals(2, registry.get("redis.pool.borrow.wait").functionTimer().count(), 0);
+        Assert.assertNotNull(registry.get("redis.pool.borrow.wait.max").timeGauge());
+    }
+}
@@ -0,0 +1,93 @@
+package com.flyingideal.redislearn.queue;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class RedisBlockingQueueTests {
+
+    @ClassRule
+    public static final EmbeddedRedis redis = new EmbeddedRedis();
+
+    @Test
+    public void addAllAndDrainToKeepFifoOrder() {
+        try (RedisBlockingQueue queue = new RedisBlockingQueue(redis.getProvider(), "bq:fifo")) {
+            List<String> elements = new ArrayList<>();
+            for (int i = 0; i < 2500; i++) {
+                elements.add("e" + i);
+            }
+            Assert.assertTrue(queue.addAll(elements));
+            Assert.assertEquals(2500, queue.size());
+            Assert.assertEquals("e0", queue.peek());
+
+            List<String> drained = new ArrayList<>();
+            Assert.assertEquals(1000, queue.drainTo(drained, 1000));
+            Assert.assertEquals(elements.subList(0, 1000), drained);
+            Assert.assertEquals("e1000", queue.poll());
+            Assert.assertEquals(1499, queue.drainTo(drained));
+            Assert.assertEquals("e2499", drained.get(drained.size() - 1));
+            Assert.assertTrue(queue.isEmpty());
+            Assert.assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    public void iteratorIsHeadFirstSnapshot() {
+        try (RedisBlockingQueue queue = new RedisBlockingQueue(redis.getProvider(), "bq:iterator")) {
+            queue.addAll(Arrays.asList("a", "b", "c"));
+            Assert.assertTrue(queue.remove("b"));
+            Assert.assertEquals(Arrays.asList("a", "c"), new ArrayList<>(queue));
+            Assert.assertTrue(queue.contains("c"));
+            queue.clear();
+            Assert.assertEquals(0, queue.size());
+        }
+    }
+
+    @Test
+    public void manyTakersShareOneDispatcher() throws Exception {
+        int takers = 64;
+        try (RedisBlockingQueue queue = new RedisBlockingQueue(redis.getProvider(), "bq:take", 1)) {
+            ExecutorService executor = Executors.newFixedThreadPool(takers);
+            Set<String> taken = ConcurrentHashMap.newKeySet();
+            for (int i = 0; i < takers; i++) {
+                executor.execute(() -> {
+                    try {
+                        taken.add(queue.take());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            // 等待者全部阻塞时，连接池只借出 dispatcher 的一个连接
+            TimeUnit.MILLISECONDS.sleep(200);
+            for (int i = 0; i < takers; i++) {
+                queue.offer("job" + i);
+            }
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+            Assert.assertEquals(takers, taken.size());
+            Assert.assertEquals(0, queue.size());
+        }
+    }
+
+    @Test
+    public void timedPollReturnsNullWhenEmpty() throws InterruptedException {
+        try (RedisBlockingQueue queue = new RedisBlockingQueue(redis.getProvider(), "bq:timeout")) {
+            long start = System.nanoTime();
+            Assert.assertNull(queue.poll(200, TimeUnit.MILLISECONDS));
+            Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+            queue.offer("late");
+            Assert.assertEquals("late", queue.poll(5, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.flyingideal.redislearn.queue;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+public class ReliableQueueTests {
+
+    /**
+     * 重启节点后连接池中的空闲连接都已失效，借出时检查
+     */
+    @ClassRule
+    public static final EmbeddedRedis redis = new EmbeddedRedis(
+            properties -> properties.getPool().setTestOnBorrow(true));
+
+    @Test
+    public void everyMessageIsConsumedOnce() throws InterruptedException {
+        int size = 10_000;
+        ReliableQueue queue = new ReliableQueue(redis.getProvider(), "queue:once");
+        List<String> payloads = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            payloads.add("job-" + i);
+        }
+        queue.publishAll(payloads);
+
+        Set<String> consumed = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(size);
+        QueueConsumerGroup consumers = queue.startConsumers(4, message -> {
+            Assert.assertTrue("duplicate " + message.getPayload(), consumed.add(message.getPayload()));
+            done.countDown();
+        });
+        try {
+            Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+        } finally {
+            consumers.close();
+        }
+
+        Assert.assertEquals(size, consumed.size());
+        Assert.assertEquals(0, queue.size());
+        QueueStats stats = queue.getStats();
+        Assert.assertEquals(size, stats.getPublished());
+        Assert.assertEquals(size, stats.getAcked());
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            Assert.assertTrue(jedis.smembers(queue.workersKey()).isEmpty());
+            Assert.assertTrue(jedis.keys("queue:once:processing:*").isEmpty());
+        }
+    }
+
+    @Test
+    public void failingMessageIsDeadLetteredAfterMaxAttempts() throws InterruptedException {
+        ReliableQueue queue = new ReliableQueue(redis.getProvider(), "queue:poison", new QueueOptions().maxAttempts(3));
+        queue.publish("poison");
+        queue.publish("fine");
+
+        CountDownLatch attempts = new CountDownLatch(3);
+        QueueConsumerGroup consumers = queue.startConsumers(1, message -> {
+            if ("poison".equals(message.getPayload())) {
+                attempts.countDown();
+                throw new IllegalStateException("attempt " + message.getAttempt());
+            }
+        });
+        try {
+            Assert.assertTrue(attempts.await(10, TimeUnit.SECONDS));
+        } finally {
+            consumers.close();
+        }
+
+        List<String> dead = queue.deadLetters();
+        Assert.assertEquals(1, dead.size());
+        QueueMessage message = QueueMessage.decode(dead.get(0));
+        Assert.assertEquals("poison", message.getPayload());
+        Assert.assertEquals(3, message.getAttempt());
+        QueueStats stats = queue.getStats();
+        Assert.assertEquals(2, stats.getRetried());
+        Assert.assertEquals(1, stats.getDeadLettered());
+        Assert.assertEquals(1, stats.getAcked());
+    }
+
+    @Test
+    public void reaperRequeuesMessagesOfDeadWorker() throws InterruptedException {
+        ReliableQueue queue = new ReliableQueue(redis.getProvider(), "queue:reap");
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            // 模拟取走消息后崩溃的 worker：已登记、有处理中的消息，但心跳已过期
+            jedis.sadd(queue.workersKey(), "crashed");
+            jedis.lpush(queue.processingKey("crashed"), "a", "b", "c");
+        }
+
+        Set<String> consumed = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(3);
+        QueueConsumerGroup consumers = queue.startConsumers(2, message -> {
+            consumed.add(message.getPayload());
+            done.countDown();
+        });
+        try {
+            Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            consumers.close();
+        }
+
+        Assert.assertEquals(3, consumed.size());
+        Assert.assertEquals(3, queue.getStats().getReaped());
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            Assert.assertFalse(jedis.sismember(queue.workersKey(), "crashed"));
+            Assert.assertFalse(jedis.exists(queue.processingKey("crashed")));
+        }
+    }
+
+    @Test
+    public void slowWorkerKeepsItsMessages() throws InterruptedException {
+        ReliableQueue queue = new ReliableQueue(redis.getProvider(), "queue:slow",
+                new QueueOptions().visibilityTimeoutMillis(3000).batchSize(8));
+        List<String> payloads = new ArrayList<>();
+        // 一批的处理时间超过 visibilityTimeout，单条消息远小于它
+        for (int i = 0; i < 8; i++) {
+            payloads.add("slow-" + i);
+        }
+        queue.publishAll(payloads);
+
+        Set<String> consumed = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(payloads.size());
+        try (QueueConsumerGroup group = queue.startConsumers(1, message -> {
+            Assert.assertTrue("duplicate " + message.getPayload(), consumed.add(message.getPayload()));
+            TimeUnit.MILLISECONDS.sleep(450);
+            done.countDown();
+        })) {
+            Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(0, group.reap());
+        }
+        Assert.assertEquals(0, queue.getStats().getReaped());
+    }
+
+    @Test
+    public void reapingCountsAsAnAttempt() throws InterruptedException {
+        ReliableQueue queue = new ReliableQueue(redis.getProvider(), "queue:crash", new QueueOptions().maxAttempts(2));
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            jedis.sadd(queue.workersKey(), "crashed");
+            jedis.lpush(queue.processingKey("crashed"), new QueueMessage("crasher", 2, 0, "crasher").raw(),
+                    new QueueMessage("first", 1, 0, "first").raw());
+        }
+        try (QueueConsumerGroup group = queue.startConsumers(0, message -> {
+        })) {
+            group.reap();
+        }
+
+        Assert.assertEquals(1, queue.deadLetters().size());
+        Assert.assertEquals("crasher", QueueMessage.decode(queue.deadLetters().get(0)).getPayload());
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            QueueMessage requeued = QueueMessage.decode(jedis.rpop(queue.getName()));
+            Assert.assertEquals("first", requeued.getPayload());
+            Assert.assertEquals(2, requeued.getAttempt());
+            Assert.assertTrue(jedis.smembers(queue.workersKey()).isEmpty());
+        }
+        QueueStats stats = queue.getStats();
+        Assert.assertEquals(2, stats.getReaped());
+        Assert.assertEquals(1, stats.getDeadLettered());
+    }
+
+    @Test
+    public void workersReconnectAfterConnectionLoss() throws InterruptedException {
+        ReliableQueue queue = new ReliableQueue(redis.getProvider(), "queue:restart");
+        Set<String> consumed = ConcurrentHashMap.newKeySet();
+        QueueConsumerGroup consumers = queue.startConsumers(2, message -> consumed.add(message.getPayload()));
+        try {
+            queue.publish("before");
+            await(() -> consumed.contains("before"));
+
+            // 重启后的节点是空的，worker 阻塞中的连接被断开
+            redis.restart(0);
+            queue.publish("after");
+            await(() -> consumed.contains("after"));
+            try (Jedis jedis = redis.getProvider().getResource()) {
+                Assert.assertTrue(jedis.scard(queue.workersKey()) >= 2);
+            }
+        } finally {
+            consumers.close();
+        }
+        Assert.assertEquals(0, queue.size());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue("condition not met in 10s", System.nanoTime() < deadline);
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+}
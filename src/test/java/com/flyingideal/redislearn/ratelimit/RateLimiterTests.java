@@ -0,0 +1,96 @@
+package com.flyingideal.redislearn.ratelimit;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.List;
+
+public class RateLimiterTests {
+
+    @ClassRule
+    public static final EmbeddedRedis redis = new EmbeddedRedis();
+
+    @BeforeClass
+    public static void setUp() {
+        // 嵌入式服务端不能执行 Lua，注册与脚本等价的 java 实现
+        redis.getServer().registerScript(SlidingWindowRateLimiter.ACQUIRE.getSource(), call -> {
+            long now = Long.parseLong(call.arg(0));
+            long window = Long.parseLong(call.arg(1));
+            long limit = Long.parseLong(call.arg(2));
+            int permits = Integer.parseInt(call.arg(3));
+            call.call("ZREMRANGEBYSCORE", call.key(0), "-inf", Long.toString(now - window));
+            long count = (Long) call.call("ZCARD", call.key(0));
+            if (count + permits > limit) {
+                return -1L;
+            }
+            for (int i = 1; i <= permits; i++) {
+                call.call("ZADD", call.key(0), call.arg(0), call.arg(4) + ":" + i);
+            }
+            call.call("PEXPIRE", call.key(0), call.arg(1));
+            return limit - count - permits;
+        });
+        redis.getServer().registerScript(LeasedRateLimiter.LEASE.getSource(), call -> {
+            double rate = Double.parseDouble(call.arg(0));
+            double capacity = Double.parseDouble(call.arg(1));
+            long now = Long.parseLong(call.arg(3));
+            @SuppressWarnings("unchecked")
+            List<String> bucket = (List<String>) call.call("HMGET", call.key(0), "tokens", "ts");
+            double tokens = bucket.get(0) == null ? capacity : Double.parseDouble(bucket.get(0));
+            long ts = bucket.get(1) == null ? now : Long.parseLong(bucket.get(1));
+            if (now > ts) {
+                tokens = Math.min(capacity, tokens + (now - ts) * rate / 1000);
+                ts = now;
+            }
+            long granted = Math.min(Long.parseLong(call.arg(2)), (long) Math.floor(tokens));
+            call.call("HMSET", call.key(0), "tokens", Double.toString(tokens - granted), "ts", Long.toString(ts));
+            call.call("PEXPIRE", call.key(0), Long.toString((long) Math.ceil(capacity * 1000 / rate) + 1000));
+            return granted;
+        });
+    }
+
+    @Test
+    public void slidingWindowIsSharedAndSlides() throws Exception {
+        SlidingWindowRateLimiter first = new SlidingWindowRateLimiter(redis.getProvider(), "sliding", 5, 300);
+        SlidingWindowRateLimiter second = new SlidingWindowRateLimiter(redis.getProvider(), "sliding", 5, 300);
+        Assert.assertEquals(3, first.acquire(2));
+        Assert.assertTrue(second.tryAcquire());
+        Assert.assertTrue(first.tryAcquire(2));
+        Assert.assertFalse(second.tryAcquire());
+        Assert.assertFalse(first.tryAcquire(5));
+
+        Thread.sleep(350);
+        Assert.assertTrue(second.tryAcquire(5));
+        Assert.assertFalse(first.tryAcquire());
+    }
+
+    @Test
+    public void leasedPermitsNeverExceedBucket() {
+        // 每秒补充 10 个，测试期间补充的令牌数可以忽略
+        LeasedRateLimiter first = new LeasedRateLimiter(redis.getProvider(), "leased", 10, 100, 10);
+        LeasedRateLimiter second = new LeasedRateLimiter(redis.getProvider(), "leased", 10, 100, 10);
+        long start = System.currentTimeMillis();
+        int granted = 0;
+        for (int i = 0; i < 1000; i++) {
+            if ((i % 2 == 0 ? first : second).tryAcquire()) {
+                granted++;
+            }
+        }
+        long refilled = (System.currentTimeMillis() - start) * 10 / 1000 + 1;
+        Assert.assertTrue(granted >= 100 - 2 * 10);
+        Assert.assertTrue(granted <= 100 + refilled);
+        // 每 10 个许可访问一次 redis，令牌桶空了之后的拒绝在本地完成
+        Assert.assertTrue(first.getRemoteCalls() + second.getRemoteCalls() <= granted / 10 + 2 + 2 * refilled);
+    }
+
+    @Test
+    public void leasedAcquiresMoreThanOneBlock() {
+        LeasedRateLimiter limiter = new LeasedRateLimiter(redis.getProvider(), "leased:batch", 1, 50, 4);
+        Assert.assertTrue(limiter.tryAcquire(3));
+        Assert.assertTrue(limiter.tryAcquire(20));
+        Assert.assertTrue(limiter.tryAcquire(27));
+        Assert.assertFalse(limiter.tryAcquire(10));
+    }
+}
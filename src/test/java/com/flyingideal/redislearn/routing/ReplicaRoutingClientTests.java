@@ -0,0 +1,137 @@
+package com.flyingideal.redislearn.routing;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用三个内嵌 redis 模拟一主两从；内嵌 redis 不会复制数据，每个节点写入不同的值来区分读到的是哪个节点
+ */
+public class ReplicaRoutingClientTests {
+
+    @Rule
+    public final EmbeddedRedis redis = new EmbeddedRedis(3, properties -> properties.getPool().setMinIdle(0));
+
+    @Before
+    public void setUp() {
+        redis.getProvider(0).execute(jedis -> jedis.set("color", "master"));
+        redis.getProvider(1).execute(jedis -> jedis.set("color", "replica"));
+        redis.getProvider(2).execute(jedis -> jedis.set("color", "replica"));
+    }
+
+    @Test
+    public void readsGoToReplicasUnlessMasterIsRequested() {
+        try (ReplicaRoutingClient client = new ReplicaRoutingClient(redis.getProvider(0), replicas(2))) {
+            Assert.assertEquals("replica", client.get("color"));
+            Assert.assertEquals(Arrays.asList("replica", null), client.mget("color", "missing"));
+            Assert.assertEquals("master", client.get(ReadPreference.MASTER, "color"));
+
+            client.write(jedis -> jedis.zadd("rank", 1, "a"));
+            Assert.assertEquals(Collections.singleton("a"), client.zrange(ReadPreference.MASTER, "rank", 0, -1));
+            Assert.assertTrue(client.zrange("rank", 0, -1).isEmpty());
+            Assert.assertEquals(1, client.getWrites());
+            Assert.assertEquals(2, client.getMasterReads());
+        }
+    }
+
+    @Test
+    public void hedgedReadsAreSpreadEvenlyAcrossReplicas() {
+        redis.getProvider(2).execute(jedis -> jedis.set("color", "other replica"));
+        RoutingOptions options = new RoutingOptions().hedgeDelayMicros(1_000_000, 1_000_000);
+        try (ReplicaRoutingClient client = new ReplicaRoutingClient(redis.getProvider(0), replicas(2), options)) {
+            Map<String, Integer> counts = new HashMap<>();
+            for (int i = 0; i < 100; i++) {
+                counts.merge(client.get("color"), 1, Integer::sum);
+            }
+            Assert.assertEquals(0, client.getHedges());
+            Assert.assertEquals(Integer.valueOf(50), counts.get("replica"));
+            Assert.assertEquals(Integer.valueOf(50), counts.get("other replica"));
+        }
+    }
+
+    @Test
+    public void slowReplicaIsHedged() throws Exception {
+        String sleep = redis.getServer(1).registerScript("sleep", call -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "OK";
+        });
+        Thread blocker = new Thread(() -> {
+            try (Jedis jedis = redis.getProvider(1).getResource()) {
+                jedis.evalsha(sleep);
+            }
+        });
+        RoutingOptions options = new RoutingOptions().hedgeDelayMicros(1000, 20_000);
+        try (ReplicaRoutingClient client = new ReplicaRoutingClient(redis.getProvider(0), replicas(2), options)) {
+            blocker.start();
+            TimeUnit.MILLISECONDS.sleep(50);
+            long start = System.nanoTime();
+            for (int i = 0; i < 4; i++) {
+                Assert.assertEquals("replica", client.get("color"));
+            }
+            Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(300));
+            Assert.assertTrue(client.getHedges() >= 1);
+            Assert.assertTrue(client.getHedgeWins() >= 1);
+        } finally {
+            blocker.join();
+        }
+    }
+
+    @Test
+    public void hedgeIsSkippedWhenHedgeThreadsAreBusy() throws Exception {
+        String sleep = redis.getServer(1).registerScript("sleep", call -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "OK";
+        });
+        Thread blocker = new Thread(() -> {
+            try (Jedis jedis = redis.getProvider(1).getResource()) {
+                jedis.evalsha(sleep);
+            }
+        });
+        RoutingOptions options = new RoutingOptions().hedgeDelayMicros(1000, 20_000).maxHedgeThreads(1);
+        try (ReplicaRoutingClient client = new ReplicaRoutingClient(redis.getProvider(0), replicas(2), options)) {
+            blocker.start();
+            TimeUnit.MILLISECONDS.sleep(50);
+            // 唯一的线程在等慢节点，对冲请求没有线程可用，只能等首选节点返回
+            Assert.assertEquals("replica", client.get("color"));
+            Assert.assertEquals(0, client.getHedges());
+            Assert.assertEquals(1, client.getHedgeSkips());
+        } finally {
+            blocker.join();
+        }
+    }
+
+    @Test
+    public void unavailableReplicaFallsBackToMaster() {
+        RoutingOptions options = new RoutingOptions().hedging(false).replicaDownMillis(60_000);
+        try (ReplicaRoutingClient client = new ReplicaRoutingClient(redis.getProvider(0), replicas(1), options)) {
+            redis.getServer(1).close();
+            Assert.assertEquals("master", client.get("color"));
+            Assert.assertEquals(0, client.getAvailableReplicas());
+            Assert.assertEquals("master", client.get("color"));
+            Assert.assertEquals(2, client.getFallbacks());
+        }
+    }
+
+    private List<JedisConnectionProvider> replicas(int count) {
+        return redis.getProviders().subList(1, 1 + count);
+    }
+}
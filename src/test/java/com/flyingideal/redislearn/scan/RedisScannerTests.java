@@ -0,0 +1,82 @@
+package com.flyingideal.redislearn.scan;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Tuple;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class RedisScannerTests {
+
+    private static final int SIZE = 20_000;
+
+    @ClassRule
+    public static final EmbeddedRedis redis = new EmbeddedRedis();
+
+    private static RedisScanner scanner;
+
+    @BeforeClass
+    public static void setUp() {
+        scanner = new RedisScanner(redis.getProvider());
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < SIZE; i++) {
+                pipeline.hset("person", "field" + i, "value" + i);
+                pipeline.sadd("members", "member" + i);
+                pipeline.zadd("scores", i, "member" + i);
+                if (i % 100 == 0) {
+                    pipeline.set("user:" + i, "v");
+                }
+            }
+            pipeline.sync();
+        }
+    }
+
+    @Test
+    public void hashIteratorVisitsEveryFieldWithPrefetch() {
+        Set<String> fields = new HashSet<>();
+        try (ScanIterator<Map.Entry<String, String>> iterator = scanner.hash("person", new ScanOptions().count(500))) {
+            iterator.forEachRemaining(entry -> {
+                Assert.assertEquals(entry.getKey().replace("field", "value"), entry.getValue());
+                fields.add(entry.getKey());
+            });
+            Assert.assertTrue(iterator.getPages() >= SIZE / 500);
+        }
+        Assert.assertEquals(SIZE, fields.size());
+    }
+
+    @Test
+    public void setAndSortedSetStreams() {
+        try (Stream<String> members = scanner.set("members", new ScanOptions().count(1000).prefetch(false)).stream()) {
+            Assert.assertEquals(SIZE, members.collect(Collectors.toSet()).size());
+        }
+        try (Stream<Tuple> tuples = scanner.sortedSet("scores", new ScanOptions().count(1000)).stream()) {
+            Assert.assertEquals((long) SIZE * (SIZE - 1) / 2, tuples.mapToLong(t -> (long) t.getScore()).sum());
+        }
+    }
+
+    @Test
+    public void keysHonourMatch() {
+        try (Stream<String> keys = scanner.keys(new ScanOptions().match("user:*").count(1000)).stream()) {
+            Assert.assertEquals(SIZE / 100, keys.distinct().count());
+        }
+    }
+
+    @Test
+    public void closeStopsIterationEarly() {
+        ScanIterator<String> iterator = scanner.set("members", new ScanOptions().count(100));
+        Assert.assertTrue(iterator.hasNext());
+        iterator.next();
+        iterator.close();
+        Assert.assertFalse(iterator.hasNext());
+    }
+}
@@ -0,0 +1,82 @@
+package com.flyingideal.redislearn.setop;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+
+public class ClientSetAlgebraTests {
+
+    @ClassRule
+    public static final EmbeddedRedis redis = new EmbeddedRedis();
+
+    private static ClientSetAlgebra algebra;
+
+    @BeforeClass
+    public static void setUp() {
+        algebra = new ClientSetAlgebra(redis.getProvider());
+    }
+
+    @Test
+    public void integerSetsMatchServerCommands() {
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = -5000; i < 20_000; i++) {
+                pipeline.sadd("ints:a", Integer.toString(i));
+                if (i % 3 == 0) {
+                    pipeline.sadd("ints:b", Integer.toString(i));
+                }
+                if (i % 5 == 0) {
+                    pipeline.sadd("ints:c", Integer.toString(i * 2));
+                }
+            }
+            pipeline.sync();
+
+            SetResult inter = algebra.sinter("ints:a", "ints:b", "ints:c");
+            Assert.assertTrue(inter.isIntegers());
+            Assert.assertEquals(jedis.sinter("ints:a", "ints:b", "ints:c"), inter.toSet());
+            Assert.assertEquals(jedis.sunion("ints:a", "ints:b", "ints:c"), algebra.sunion("ints:a", "ints:b", "ints:c").toSet());
+            Assert.assertEquals(jedis.sdiff("ints:c", "ints:a", "ints:b"), algebra.sdiff("ints:c", "ints:a", "ints:b").toSet());
+            Assert.assertEquals(0, algebra.sinter("ints:a", "missing").size());
+        }
+    }
+
+    @Test
+    public void mixedMembersKeepTheirExactSpelling() {
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            jedis.sadd("mixed:a", "1", "2", "007", "-0", "2147483648", "tom");
+            jedis.sadd("mixed:b", "1", "007", "7", "-0", "2147483648", "jerry");
+
+            SetResult inter = algebra.sinter("mixed:a", "mixed:b");
+            Assert.assertFalse(inter.isIntegers());
+            Assert.assertEquals(jedis.sinter("mixed:a", "mixed:b"), inter.toSet());
+            Assert.assertEquals(jedis.sunion("mixed:a", "mixed:b"), algebra.sunion("mixed:a", "mixed:b").toSet());
+            Assert.assertEquals(jedis.sdiff("mixed:b", "mixed:a"), algebra.sdiff("mixed:b", "mixed:a").toSet());
+        }
+    }
+
+    @Test
+    public void storeReplacesDestination() {
+        try (Jedis jedis = redis.getProvider().getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < 5000; i++) {
+                pipeline.sadd("store:a", Integer.toString(i));
+                pipeline.sadd("store:b", Integer.toString(i + 2500));
+            }
+            pipeline.sadd("store:dest", "stale");
+            pipeline.sync();
+
+            Assert.assertEquals(7500, algebra.sunionstore("store:dest", "store:a", "store:b"));
+            Assert.assertEquals(jedis.sunion("store:a", "store:b"), jedis.smembers("store:dest"));
+            Assert.assertEquals(2500, algebra.sinterstore("store:dest", "store:a", "store:b"));
+            Assert.assertEquals(jedis.sinter("store:a", "store:b"), jedis.smembers("store:dest"));
+
+            Assert.assertEquals(0, algebra.sdiffstore("store:dest", "store:a", "store:a"));
+            Assert.assertFalse(jedis.exists("store:dest"));
+            Assert.assertTrue(jedis.keys("*setop*").isEmpty());
+        }
+    }
+}
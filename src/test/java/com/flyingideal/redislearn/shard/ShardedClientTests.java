@@ -0,0 +1,250 @@
+package com.flyingideal.redislearn.shard;
+
+import com.flyingideal.redislearn.embedded.EmbeddedRedis;
+import com.flyingideal.redislearn.pool.JedisConnectionProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ShardedClientTests {
+
+    @Rule
+    public final EmbeddedRedis redis = new EmbeddedRedis(3, properties -> properties.getPool().setMinIdle(0));
+
+    @Test
+    public void ringIsBalancedAndAddingNodeOnlyMovesKeysToIt() {
+        KetamaRing ring = new KetamaRing(Arrays.asList("a", "b", "c"));
+        for (double share : ring.shares().values()) {
+            Assert.assertEquals(1 / 3.0, share, 0.1);
+        }
+        KetamaRing expanded = ring.with("d");
+        int moved = 0;
+        int total = 10000;
+        for (int i = 0; i < total; i++) {
+            String key = "key:" + i;
+            String before = ring.nodeFor(key);
+            String after = expanded.nodeFor(key);
+            if (!before.equals(after)) {
+                Assert.assertEquals("d", after);
+                moved++;
+            }
+        }
+        Assert.assertEquals(0.25, moved / (double) total, 0.08);
+        Assert.assertEquals(ring.nodeFor("{user:1}:profile"), ring.nodeFor("{user:1}:orders"));
+    }
+
+    @Test
+    public void multiKeyReadsScatterToShardsAndGatherInOrder() {
+        try (ShardedClient client = new ShardedClient(shards(3))) {
+            String[] keys = new String[100];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = "key:" + i;
+                client.set(keys[i], "value" + i);
+            }
+            String[] withMissing = Arrays.copyOf(keys, keys.length + 1);
+            withMissing[keys.length] = "key:missing";
+            List<String> values = client.mget(withMissing);
+            for (int i = 0; i < keys.length; i++) {
+                Assert.assertEquals("value" + i, values.get(i));
+            }
+            Assert.assertNull(values.get(keys.length));
+
+            List<String> hashes = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                String key = "user:" + i;
+                client.execute(key, jedis -> jedis.hset(key, "name", "n" + key));
+                hashes.add(key);
+            }
+            Map<String, List<String>> fields = client.hmget(hashes, "name", "missing");
+            Assert.assertEquals(hashes, new ArrayList<>(fields.keySet()));
+            Assert.assertEquals(Arrays.asList("nuser:3", null), fields.get("user:3"));
+
+            client.execute("tags:a", jedis -> jedis.sadd("tags:a", "1", "2"));
+            client.execute("tags:b", jedis -> jedis.sadd("tags:b", "2", "3"));
+            client.execute("tags:c", jedis -> jedis.sadd("tags:c", "4"));
+            Assert.assertEquals(new HashSet<>(Arrays.asList("1", "2", "3", "4")),
+                    client.sunion("tags:a", "tags:b", "tags:c", "tags:missing"));
+
+            List<ShardLoad> load = client.getLoad();
+            Assert.assertEquals(3, load.size());
+            for (ShardLoad shard : load) {
+                Assert.assertTrue(shard.toString(), shard.getKeys() > 0 && shard.getOperations() > 0);
+            }
+            Assert.assertEquals(3, client.loadHistogram().split("\n").length);
+        }
+    }
+
+    @Test
+    public void addingShardMovesKeysWithoutLosingConcurrentWrites() throws Exception {
+        Map<String, JedisConnectionProvider> shards = shards(2);
+        try (ShardedClient client = new ShardedClient(shards)) {
+            int count = 600;
+            for (int i = 0; i < count; i++) {
+                String key = "k:" + i;
+                switch (i % 4) {
+                    case 0:
+                        client.execute(key, jedis -> jedis.psetex(key, 600000, "v"));
+                        break;
+                    case 1:
+                        client.execute(key, jedis -> jedis.hset(key, "count", "0"));
+                        break;
+                    case 2:
+                        client.execute(key, jedis -> jedis.zadd(key, 1.5, "m"));
+                        break;
+                    default:
+                        client.execute(key, jedis -> jedis.rpush(key, "a", "b"));
+                        break;
+                }
+            }
+
+            AtomicBoolean running = new AtomicBoolean(true);
+            int[] increments = new int[count];
+            Thread writer = new Thread(() -> {
+                int i = 0;
+                while (running.get() || i < count) {
+                    int index = (i++ % (count / 4)) * 4 + 1;
+                    String key = "k:" + index;
+                    client.execute(key, jedis -> jedis.hincrBy(key, "count", 1));
+                    increments[index]++;
+                }
+            });
+            writer.start();
+            long moved = client.addShard("shard2", redis.getProvider(2));
+            running.set(false);
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+
+            Assert.assertFalse(client.isRebalancing());
+            Assert.assertTrue(moved > count / 10);
+            KetamaRing ring = new KetamaRing(Arrays.asList("shard0", "shard1", "shard2"));
+            Map<String, JedisConnectionProvider> all = new LinkedHashMap<>(shards);
+            all.put("shard2", redis.getProvider(2));
+            for (int i = 0; i < count; i++) {
+                String key = "k:" + i;
+                String owner = ring.nodeFor(key);
+                for (Map.Entry<String, JedisConnectionProvider> shard : all.entrySet()) {
+                    Assert.assertEquals(key, shard.getKey().equals(owner),
+                            shard.getValue().execute(jedis -> jedis.exists(key)));
+                }
+                if (i % 4 == 0) {
+                    long ttl = client.execute(key, jedis -> jedis.pttl(key));
+                    Assert.assertTrue(key, ttl > 500000 && ttl <= 600000);
+                } else if (i % 4 == 1) {
+                    Assert.assertEquals(key, String.valueOf(increments[i]), client.execute(key, jedis -> jedis.hget(key, "count")));
+                } else if (i % 4 == 2) {
+                    Assert.assertEquals(1.5, client.execute(key, jedis -> jedis.zscore(key, "m")), 0);
+                } else {
+                    Assert.assertEquals(Arrays.asList("a", "b"), client.execute(key, jedis -> jedis.lrange(key, 0, -1)));
+                }
+            }
+            long total = 0;
+            for (ShardLoad shard : client.getLoad()) {
+                total += shard.getKeys();
+            }
+            Assert.assertEquals(count, total);
+        }
+    }
+
+    @Test
+    public void failedRebalanceKeepsOldRingReachableAndCanBeResumed() {
+        try (ShardedClient client = new ShardedClient(shards(2))) {
+            for (int i = 0; i < 200; i++) {
+                client.set("k:" + i, "v" + i);
+            }
+            redis.getServer(2).close();
+            try {
+                client.addShard("shard2", redis.getProvider(2));
+                Assert.fail("moving keys to a stopped shard must fail");
+            } catch (JedisConnectionException expected) {
+                Assert.assertTrue(client.isRebalancing());
+            }
+            try {
+                client.addShard("shard3", redis.getProvider(2));
+                Assert.fail("a second rebalance must wait for the first one");
+            } catch (IllegalStateException expected) {
+                Assert.assertTrue(client.isRebalancing());
+            }
+
+            redis.restart(2);
+            Assert.assertTrue(client.resumeRebalance() > 0);
+            Assert.assertFalse(client.isRebalancing());
+            for (int i = 0; i < 200; i++) {
+                Assert.assertEquals("v" + i, client.get("k:" + i));
+            }
+            Assert.assertEquals(0, client.resumeRebalance());
+        }
+    }
+
+    @Test
+    public void otherClientsFollowTheSharedRingDuringRebalance() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (ShardedClient first = new ShardedClient(shards(2), 4, 50);
+             ShardedClient second = new ShardedClient(shards(2), 4, 50)) {
+            second.bindTo(registry);
+            int count = 400;
+            for (int i = 0; i < count; i++) {
+                first.set("k:" + i, "v" + i);
+            }
+
+            // 另一个实例在扩容期间一直写入，它只配置了原有的两个分片
+            AtomicBoolean running = new AtomicBoolean(true);
+            int[] increments = new int[50];
+            Thread writer = new Thread(() -> {
+                int i = 0;
+                while (running.get() || i < increments.length) {
+                    int index = i++ % increments.length;
+                    String key = "h:" + index;
+                    second.execute(key, jedis -> jedis.hincrBy(key, "count", 1));
+                    increments[index]++;
+                }
+            });
+            writer.start();
+            long moved = first.addShard("shard2", redis.getProvider(2));
+            running.set(false);
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+            Assert.assertTrue(moved > count / 10);
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (second.isRebalancing() || second.getEpoch() != first.getEpoch()) {
+                Assert.assertTrue("second client did not follow the ring", System.nanoTime() < deadline);
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            for (int i = 0; i < count; i++) {
+                Assert.assertEquals("v" + i, second.get("k:" + i));
+            }
+            for (int i = 0; i < increments.length; i++) {
+                String key = "h:" + i;
+                Assert.assertEquals(key, String.valueOf(increments[i]),
+                        second.execute(key, jedis -> jedis.hget(key, "count")));
+            }
+            List<ShardLoad> load = second.getLoad();
+            Assert.assertEquals(3, load.size());
+            long total = 0;
+            for (ShardLoad shard : load) {
+                total += shard.getKeys();
+            }
+            Assert.assertEquals(count + increments.length, total);
+            Assert.assertTrue(registry.get("redis.shard.operations").tag("shard", "shard2")
+                    .functionCounter().count() > 0);
+            Assert.assertTrue(registry.get("redis.shard.ring.share").tag("shard", "shard2").gauge().value() > 0);
+        }
+    }
+
+    private Map<String, JedisConnectionProvider> shards(int count) {
+        Map<String, JedisConnectionProvider> shards = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            shards.put("shard" + i, redis.getProvider(i));
+        }
+        return shards;
+    }
+}